@@ -0,0 +1,49 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.benchmarks;
+
+import org.drools.core.util.Drools;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks accepting the usual JMH command line options. Unless told otherwise with -rf and -rff,
+ * the results are written in JSON to drools-benchmarks-&lt;version&gt;.json, so that the runs of two releases
+ * can be diffed or fed to a regression tracking tool.
+ */
+public class DroolsBenchmarks {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLineOptions = new CommandLineOptions( args );
+        if ( commandLineOptions.shouldHelp() || commandLineOptions.shouldList() ) {
+            org.openjdk.jmh.Main.main( args );
+            return;
+        }
+
+        OptionsBuilder options = new OptionsBuilder();
+        options.parent( commandLineOptions );
+        if ( !commandLineOptions.getResultFormat().hasValue() ) {
+            options.resultFormat( ResultFormatType.JSON );
+        }
+        if ( !commandLineOptions.getResult().hasValue() ) {
+            options.result( "drools-benchmarks-" + Drools.getFullVersion() + ".json" );
+        }
+        new Runner( options.build() ).run();
+    }
+}
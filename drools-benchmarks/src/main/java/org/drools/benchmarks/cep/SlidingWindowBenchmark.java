@@ -0,0 +1,81 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.benchmarks.cep;
+
+import java.util.concurrent.TimeUnit;
+
+import org.drools.benchmarks.common.AbstractBenchmark;
+import org.drools.benchmarks.model.StockTick;
+import org.drools.core.time.SessionPseudoClock;
+import org.kie.api.KieServices;
+import org.kie.api.conf.EventProcessingOption;
+import org.kie.api.runtime.KieSessionConfiguration;
+import org.kie.api.runtime.conf.ClockTypeOption;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Averages the prices of a stream of stock ticks over a sliding window, advancing a pseudo clock
+ * by one second between two ticks so that the events keep expiring out of the time windows.
+ */
+public class SlidingWindowBenchmark extends AbstractBenchmark {
+
+    private static final String[] SYMBOLS = new String[] { "ACME", "RHT", "IBM", "ORCL" };
+
+    @Param({"window:length( 100 )", "window:time( 100s )"})
+    private String window;
+
+    @Param({"10000"})
+    private int eventsNumber;
+
+    private KieSessionConfiguration sessionConfiguration;
+
+    @Setup(Level.Trial)
+    public void buildKieBase() {
+        StringBuilder drl = new StringBuilder( "import org.drools.benchmarks.model.*;\n" )
+                .append( "declare StockTick @role( event ) end\n" );
+        for ( String symbol : SYMBOLS ) {
+            drl.append( "rule Average" ).append( symbol ).append( " when\n" )
+               .append( "    accumulate( StockTick( symbol == \"" ).append( symbol ).append( "\", $p : price ) over " )
+               .append( window ).append( "; $a : average( $p ) )\n" )
+               .append( "then end\n" );
+        }
+        kieBase = buildKieBase( drl.toString(), EventProcessingOption.STREAM );
+
+        sessionConfiguration = KieServices.Factory.get().newKieSessionConfiguration();
+        sessionConfiguration.setOption( ClockTypeOption.get( "pseudo" ) );
+    }
+
+    @Setup(Level.Invocation)
+    public void createSession() {
+        kieSession = kieBase.newKieSession( sessionConfiguration, null );
+    }
+
+    @Benchmark
+    public int slide() {
+        SessionPseudoClock clock = kieSession.getSessionClock();
+        int fired = 0;
+        for ( int i = 0; i < eventsNumber; i++ ) {
+            kieSession.insert( new StockTick( i, SYMBOLS[i % SYMBOLS.length], i % 100 ) );
+            clock.advanceTime( 1, TimeUnit.SECONDS );
+            fired += kieSession.fireAllRules();
+        }
+        return fired;
+    }
+}
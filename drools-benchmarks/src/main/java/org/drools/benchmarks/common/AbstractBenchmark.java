@@ -0,0 +1,103 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.benchmarks.common;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.drools.benchmarks.model.Customer;
+import org.drools.benchmarks.model.Order;
+import org.kie.api.KieBase;
+import org.kie.api.conf.KieBaseOption;
+import org.kie.api.io.ResourceType;
+import org.kie.api.runtime.KieSession;
+import org.kie.internal.utils.KieHelper;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Base class of the benchmarks: each benchmark builds its KieBase once per trial and works on a
+ * fresh KieSession for every invocation, which is disposed when the invocation is over.
+ * The facts are generated with a fixed seed, so that the runs of different releases are comparable.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public abstract class AbstractBenchmark {
+
+    public static final String[] CATEGORIES = new String[] { "bronze", "silver", "gold", "platinum" };
+
+    protected KieBase    kieBase;
+    protected KieSession kieSession;
+
+    @TearDown(Level.Invocation)
+    public void disposeSession() {
+        if ( kieSession != null ) {
+            kieSession.dispose();
+            kieSession = null;
+        }
+    }
+
+    protected static KieBase buildKieBase(String drl, KieBaseOption... options) {
+        KieHelper helper = new KieHelper();
+        helper.addContent( drl, ResourceType.DRL );
+        return helper.build( options );
+    }
+
+    protected static List<Customer> createCustomers(int number) {
+        List<Customer> customers = new ArrayList<Customer>( number );
+        for ( int i = 0; i < number; i++ ) {
+            customers.add( new Customer( i, CATEGORIES[i % CATEGORIES.length] ) );
+        }
+        return customers;
+    }
+
+    /**
+     * Creates the given number of orders for each customer, also adding them to the orders of the customer.
+     */
+    protected static List<Order> createOrders(List<Customer> customers, int ordersPerCustomer) {
+        Random random = new Random( 0 );
+        List<Order> orders = new ArrayList<Order>( customers.size() * ordersPerCustomer );
+        for ( Customer customer : customers ) {
+            for ( int i = 0; i < ordersPerCustomer; i++ ) {
+                Order order = new Order( orders.size(), customer.getId(), random.nextInt( 1000 ) );
+                customer.getOrders().add( order );
+                orders.add( order );
+            }
+        }
+        return orders;
+    }
+
+    protected static void insertAll(KieSession kieSession, List<?> facts) {
+        for ( Object fact : facts ) {
+            kieSession.insert( fact );
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.benchmarks.kbase;
+
+import java.util.concurrent.TimeUnit;
+
+import org.drools.benchmarks.common.AbstractBenchmark;
+import org.kie.api.KieBase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Compiles a DRL with many rules, sharing part of their patterns, into a KieBase.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class KieBaseBuildBenchmark extends AbstractBenchmark {
+
+    @Param({"100", "1000"})
+    private int rulesNumber;
+
+    private String drl;
+
+    @Setup(Level.Trial)
+    public void generateDrl() {
+        StringBuilder sb = new StringBuilder( "import org.drools.benchmarks.model.*;\n" );
+        for ( int i = 0; i < rulesNumber; i++ ) {
+            sb.append( "rule R" ).append( i ).append( " when\n" )
+              .append( "    $c : Customer( category == \"" ).append( CATEGORIES[i % CATEGORIES.length] ).append( "\", id > " ).append( i ).append( " )\n" )
+              .append( "    Order( customerId == $c.id, amount > " ).append( i % 1000 ).append( " )\n" )
+              .append( "then\n" )
+              .append( "    $c.setCategory( \"" ).append( CATEGORIES[( i + 1 ) % CATEGORIES.length] ).append( "\" );\n" )
+              .append( "end\n" );
+        }
+        drl = sb.toString();
+    }
+
+    @Benchmark
+    public KieBase build() {
+        return buildKieBase( drl );
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.benchmarks.marshalling;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import org.drools.benchmarks.common.AbstractBenchmark;
+import org.drools.benchmarks.model.Customer;
+import org.drools.benchmarks.model.Order;
+import org.kie.api.KieServices;
+import org.kie.api.marshalling.Marshaller;
+import org.kie.api.runtime.KieSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Marshals a session holding customers, orders and the matches of a join, and unmarshals it back.
+ */
+public class MarshallingBenchmark extends AbstractBenchmark {
+
+    private static final String DRL =
+            "import org.drools.benchmarks.model.*;\n" +
+            "rule CustomerOrder when\n" +
+            "    $c : Customer( )\n" +
+            "    $o : Order( customerId == $c.id, amount > 500 )\n" +
+            "then end\n";
+
+    @Param({"1000", "10000"})
+    private int factsNumber;
+
+    private Marshaller marshaller;
+    private KieSession session;
+    private byte[]     serialized;
+
+    @Setup(Level.Trial)
+    public void createSession() throws IOException {
+        kieBase = buildKieBase( DRL );
+        marshaller = KieServices.Factory.get().getMarshallers().newMarshaller( kieBase );
+
+        List<Customer> customers = createCustomers( factsNumber );
+        List<Order> orders = createOrders( customers, 2 );
+        session = kieBase.newKieSession();
+        insertAll( session, customers );
+        insertAll( session, orders );
+        session.fireAllRules();
+        serialized = marshall();
+    }
+
+    @TearDown(Level.Trial)
+    public void disposeMarshalledSession() {
+        session.dispose();
+    }
+
+    @Benchmark
+    public byte[] marshall() throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        marshaller.marshall( baos, session );
+        return baos.toByteArray();
+    }
+
+    @Benchmark
+    public long unmarshall() throws IOException, ClassNotFoundException {
+        return unmarshall( serialized );
+    }
+
+    @Benchmark
+    public long roundTrip() throws IOException, ClassNotFoundException {
+        return unmarshall( marshall() );
+    }
+
+    private long unmarshall(byte[] bytes) throws IOException, ClassNotFoundException {
+        KieSession unmarshalled = marshaller.unmarshall( new ByteArrayInputStream( bytes ) );
+        try {
+            return unmarshalled.getFactCount();
+        } finally {
+            unmarshalled.dispose();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.benchmarks.model;
+
+import java.io.Serializable;
+
+public class StockTick implements Serializable {
+
+    private final long   seq;
+    private final String symbol;
+    private final double price;
+
+    public StockTick(long seq, String symbol, double price) {
+        this.seq = seq;
+        this.symbol = symbol;
+        this.price = price;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public String toString() {
+        return "StockTick[" + seq + ", " + symbol + ", " + price + "]";
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.benchmarks.network;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.drools.benchmarks.common.AbstractBenchmark;
+import org.drools.benchmarks.model.Customer;
+import org.drools.benchmarks.model.Order;
+import org.kie.api.runtime.rule.FactHandle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Accumulates the orders of each customer, first inserting them all and then updating
+ * their amounts, so that both the initial and the incremental accumulation are measured.
+ */
+public class AccumulateBenchmark extends AbstractBenchmark {
+
+    @Param({"sum", "min", "max", "median", "collectList"})
+    private String function;
+
+    @Param({"1000"})
+    private int factsNumber;
+
+    private List<Customer> customers;
+    private List<Order>    orders;
+
+    @Setup(Level.Trial)
+    public void buildKieBase() {
+        String drl =
+                "import org.drools.benchmarks.model.*;\n" +
+                "rule AccumulateOrders when\n" +
+                "    $c : Customer( )\n" +
+                "    accumulate( Order( customerId == $c.id, $a : amount ); $r : " + function + "( $a ) )\n" +
+                "then end\n";
+        kieBase = buildKieBase( drl );
+    }
+
+    @Setup(Level.Invocation)
+    public void createSession() {
+        customers = createCustomers( factsNumber );
+        orders = createOrders( customers, 10 );
+        kieSession = kieBase.newKieSession();
+    }
+
+    @Benchmark
+    public int accumulate() {
+        insertAll( kieSession, customers );
+        List<FactHandle> handles = new ArrayList<FactHandle>( orders.size() );
+        for ( Order order : orders ) {
+            handles.add( kieSession.insert( order ) );
+        }
+        int fired = kieSession.fireAllRules();
+        for ( int i = 0; i < orders.size(); i++ ) {
+            Order order = orders.get( i );
+            order.setAmount( order.getAmount() + 1 );
+            kieSession.update( handles.get( i ), order );
+        }
+        return fired + kieSession.fireAllRules();
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.benchmarks.network;
+
+import java.util.List;
+
+import org.drools.benchmarks.common.AbstractBenchmark;
+import org.drools.benchmarks.model.Customer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Fires many activations of rules with different saliences and agenda groups,
+ * measuring the cost of the agenda rather than of the matching.
+ */
+public class AgendaFiringBenchmark extends AbstractBenchmark {
+
+    @Param({"10", "100"})
+    private int rulesNumber;
+
+    @Param({"1000"})
+    private int factsNumber;
+
+    private List<Customer> customers;
+
+    @Setup(Level.Trial)
+    public void buildKieBase() {
+        StringBuilder drl = new StringBuilder( "import org.drools.benchmarks.model.*;\n" );
+        for ( int i = 0; i < rulesNumber; i++ ) {
+            drl.append( "rule R" ).append( i ).append( " salience " ).append( i % 10 )
+               .append( " agenda-group \"G" ).append( i % 2 ).append( "\" auto-focus true when\n" )
+               .append( "    Customer( id >= " ).append( i ).append( " )\n" )
+               .append( "then end\n" );
+        }
+        kieBase = buildKieBase( drl.toString() );
+        customers = createCustomers( factsNumber );
+    }
+
+    @Setup(Level.Invocation)
+    public void createSession() {
+        kieSession = kieBase.newKieSession();
+        insertAll( kieSession, customers );
+    }
+
+    @Benchmark
+    public int fire() {
+        return kieSession.fireAllRules();
+    }
+}
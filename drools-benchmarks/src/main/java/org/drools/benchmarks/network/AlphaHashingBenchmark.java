@@ -0,0 +1,72 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.benchmarks.network;
+
+import java.util.List;
+
+import org.drools.benchmarks.common.AbstractBenchmark;
+import org.drools.benchmarks.model.Customer;
+import org.kie.internal.conf.AlphaThresholdOption;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Inserts customers in a KieBase with many alpha constraints on the same field,
+ * either hashed on the constraint value or evaluated one by one.
+ */
+public class AlphaHashingBenchmark extends AbstractBenchmark {
+
+    @Param({"4", "64"})
+    private int rulesNumber;
+
+    @Param({"true", "false"})
+    private boolean hashed;
+
+    @Param({"10000"})
+    private int factsNumber;
+
+    private List<Customer> customers;
+
+    @Setup(Level.Trial)
+    public void buildKieBase() {
+        StringBuilder drl = new StringBuilder( "import org.drools.benchmarks.model.*;\n" );
+        for ( int i = 0; i < rulesNumber; i++ ) {
+            drl.append( "rule R" ).append( i ).append( " when\n" )
+               .append( "    Customer( category == \"" ).append( CATEGORIES[i % CATEGORIES.length] ).append( i ).append( "\" )\n" )
+               .append( "then end\n" );
+        }
+        kieBase = buildKieBase( drl.toString(), AlphaThresholdOption.get( hashed ? 1 : Integer.MAX_VALUE ) );
+
+        customers = createCustomers( factsNumber );
+        for ( Customer customer : customers ) {
+            customer.setCategory( customer.getCategory() + ( customer.getId() % rulesNumber ) );
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void createSession() {
+        kieSession = kieBase.newKieSession();
+    }
+
+    @Benchmark
+    public int insert() {
+        insertAll( kieSession, customers );
+        return kieSession.fireAllRules();
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.benchmarks.network;
+
+import java.util.List;
+
+import org.drools.benchmarks.common.AbstractBenchmark;
+import org.drools.benchmarks.model.Customer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Matches the orders reached through the customers with a from, without inserting them.
+ */
+public class FromBenchmark extends AbstractBenchmark {
+
+    private static final String DRL =
+            "import org.drools.benchmarks.model.*;\n" +
+            "rule BigOrder when\n" +
+            "    $c : Customer( )\n" +
+            "    $o : Order( amount > 500 ) from $c.orders\n" +
+            "then end\n";
+
+    @Param({"1000", "10000"})
+    private int factsNumber;
+
+    private List<Customer> customers;
+
+    @Setup(Level.Trial)
+    public void buildKieBase() {
+        kieBase = buildKieBase( DRL );
+        customers = createCustomers( factsNumber );
+        createOrders( customers, 10 );
+    }
+
+    @Setup(Level.Invocation)
+    public void createSession() {
+        kieSession = kieBase.newKieSession();
+    }
+
+    @Benchmark
+    public int from() {
+        insertAll( kieSession, customers );
+        return kieSession.fireAllRules();
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.benchmarks.network;
+
+import java.util.List;
+
+import org.drools.benchmarks.common.AbstractBenchmark;
+import org.drools.benchmarks.model.Customer;
+import org.drools.benchmarks.model.Order;
+import org.kie.internal.conf.IndexLeftBetaMemoryOption;
+import org.kie.internal.conf.IndexRightBetaMemoryOption;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Joins the customers with their orders, with the beta memories either indexed on the
+ * join key or scanned.
+ */
+public class JoinBenchmark extends AbstractBenchmark {
+
+    private static final String DRL =
+            "import org.drools.benchmarks.model.*;\n" +
+            "rule CustomerOrder when\n" +
+            "    $c : Customer( )\n" +
+            "    $o : Order( customerId == $c.id )\n" +
+            "then end\n";
+
+    @Param({"true", "false"})
+    private boolean indexed;
+
+    @Param({"100", "1000"})
+    private int factsNumber;
+
+    private List<Customer> customers;
+    private List<Order>    orders;
+
+    @Setup(Level.Trial)
+    public void buildKieBase() {
+        kieBase = indexed ?
+                  buildKieBase( DRL, IndexLeftBetaMemoryOption.YES, IndexRightBetaMemoryOption.YES ) :
+                  buildKieBase( DRL, IndexLeftBetaMemoryOption.NO, IndexRightBetaMemoryOption.NO );
+        customers = createCustomers( factsNumber );
+        orders = createOrders( customers, 10 );
+    }
+
+    @Setup(Level.Invocation)
+    public void createSession() {
+        kieSession = kieBase.newKieSession();
+    }
+
+    @Benchmark
+    public int join() {
+        insertAll( kieSession, customers );
+        insertAll( kieSession, orders );
+        return kieSession.fireAllRules();
+    }
+}
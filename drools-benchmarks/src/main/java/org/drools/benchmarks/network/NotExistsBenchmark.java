@@ -0,0 +1,78 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.benchmarks.network;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.drools.benchmarks.common.AbstractBenchmark;
+import org.drools.benchmarks.model.Customer;
+import org.drools.benchmarks.model.Order;
+import org.kie.api.runtime.rule.FactHandle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Checks the customers with and without orders, inserting the orders after the customers
+ * and then deleting them, so that the not/exists nodes are both blocked and unblocked.
+ */
+public class NotExistsBenchmark extends AbstractBenchmark {
+
+    @Param({"not", "exists"})
+    private String conditionalElement;
+
+    @Param({"1000", "10000"})
+    private int factsNumber;
+
+    private List<Customer> customers;
+    private List<Order>    orders;
+
+    @Setup(Level.Trial)
+    public void buildKieBase() {
+        String drl =
+                "import org.drools.benchmarks.model.*;\n" +
+                "rule CustomerOrders when\n" +
+                "    $c : Customer( )\n" +
+                "    " + conditionalElement + " Order( customerId == $c.id )\n" +
+                "then end\n";
+        kieBase = buildKieBase( drl );
+        customers = createCustomers( factsNumber );
+        orders = createOrders( customers, 2 );
+    }
+
+    @Setup(Level.Invocation)
+    public void createSession() {
+        kieSession = kieBase.newKieSession();
+    }
+
+    @Benchmark
+    public int notExists() {
+        insertAll( kieSession, customers );
+        int fired = kieSession.fireAllRules();
+        List<FactHandle> handles = new ArrayList<FactHandle>( orders.size() );
+        for ( Order order : orders ) {
+            handles.add( kieSession.insert( order ) );
+        }
+        fired += kieSession.fireAllRules();
+        for ( FactHandle handle : handles ) {
+            kieSession.delete( handle );
+        }
+        return fired + kieSession.fireAllRules();
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.benchmarks.session;
+
+import org.drools.benchmarks.common.AbstractBenchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Base class of the benchmarks of the working memory operations, all running on a KieBase
+ * where the customers are both filtered by the alpha network and joined with their orders.
+ */
+public abstract class AbstractSessionOperationBenchmark extends AbstractBenchmark {
+
+    private static final String DRL =
+            "import org.drools.benchmarks.model.*;\n" +
+            "rule GoldCustomer when\n" +
+            "    $c : Customer( category == \"gold\" )\n" +
+            "then end\n" +
+            "rule CustomerOrder when\n" +
+            "    $c : Customer( )\n" +
+            "    $o : Order( customerId == $c.id, amount > 500 )\n" +
+            "then end\n";
+
+    @Param({"1000", "10000"})
+    protected int factsNumber;
+
+    @Setup(Level.Trial)
+    public void buildKieBase() {
+        kieBase = buildKieBase( DRL );
+    }
+}
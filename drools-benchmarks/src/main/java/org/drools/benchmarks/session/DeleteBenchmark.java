@@ -0,0 +1,58 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.benchmarks.session;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.drools.benchmarks.model.Customer;
+import org.kie.api.runtime.rule.FactHandle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Deletes all the customers of a populated session.
+ */
+public class DeleteBenchmark extends AbstractSessionOperationBenchmark {
+
+    private List<Customer>   customers;
+    private List<FactHandle> handles;
+
+    @Setup(Level.Trial)
+    public void createFacts() {
+        customers = createCustomers( factsNumber );
+    }
+
+    @Setup(Level.Invocation)
+    public void createSession() {
+        kieSession = kieBase.newKieSession();
+        handles = new ArrayList<FactHandle>( factsNumber );
+        for ( Customer customer : customers ) {
+            handles.add( kieSession.insert( customer ) );
+        }
+        kieSession.fireAllRules();
+    }
+
+    @Benchmark
+    public int delete() {
+        for ( FactHandle handle : handles ) {
+            kieSession.delete( handle );
+        }
+        return kieSession.fireAllRules();
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.benchmarks.session;
+
+import java.util.List;
+
+import org.drools.benchmarks.model.Customer;
+import org.drools.benchmarks.model.Order;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Inserts the customers and their orders in an empty session and fires the resulting activations.
+ */
+public class InsertBenchmark extends AbstractSessionOperationBenchmark {
+
+    private List<Customer> customers;
+    private List<Order>    orders;
+
+    @Setup(Level.Trial)
+    public void createFacts() {
+        customers = createCustomers( factsNumber );
+        orders = createOrders( customers, 2 );
+    }
+
+    @Setup(Level.Invocation)
+    public void createSession() {
+        kieSession = kieBase.newKieSession();
+    }
+
+    @Benchmark
+    public int insert() {
+        insertAll( kieSession, customers );
+        insertAll( kieSession, orders );
+        return kieSession.fireAllRules();
+    }
+}
@@ -1,6 +1,7 @@
 package org.drools.compiler.builder.impl;
 
 import org.drools.compiler.compiler.BPMN2ProcessFactory;
+import org.drools.compiler.compiler.DrlParser;
 import org.drools.compiler.compiler.PackageRegistry;
 import org.drools.compiler.lang.descr.AbstractClassTypeDeclarationDescr;
 import org.drools.compiler.lang.descr.CompositePackageDescr;
@@ -9,6 +10,7 @@ import org.drools.compiler.lang.descr.ImportDescr;
 import org.drools.compiler.lang.descr.PackageDescr;
 import org.drools.compiler.lang.descr.TypeDeclarationDescr;
 import org.drools.core.builder.conf.impl.JaxbConfigurationImpl;
+import org.drools.core.io.impl.DescrResource;
 import org.drools.core.util.StringUtils;
 import org.kie.api.io.Resource;
 import org.kie.api.io.ResourceConfiguration;
@@ -17,12 +19,17 @@ import org.kie.internal.builder.ChangeType;
 import org.kie.internal.builder.CompositeKnowledgeBuilder;
 import org.kie.internal.builder.ResourceChange;
 import org.kie.internal.builder.ResourceChangeSet;
+import org.kie.internal.concurrent.ExecutorProviderFactory;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 public class CompositeKnowledgeBuilderImpl implements CompositeKnowledgeBuilder {
 
@@ -346,6 +353,10 @@ public class CompositeKnowledgeBuilderImpl implements CompositeKnowledgeBuilder
     private void buildResource(Map<String, CompositePackageDescr> packages, ResourceType resourceType, ResourceToPkgDescrMapper mapper) {
         List<ResourceDescr> resourcesByType = this.resourcesByType.remove(resourceType);
         if (resourcesByType != null) {
+            if (mapper == DRL_TO_PKG_DESCR && resourcesByType.size() > 1 && kBuilder.getBuilderConfiguration().isParallelBuild()) {
+                buildDrlsInParallel(packages, resourcesByType);
+                return;
+            }
             for (ResourceDescr resourceDescr : resourcesByType) {
                 try {
                     registerPackageDescr(resourceDescr, packages, resourceDescr.resource, mapper.map(kBuilder, resourceDescr));
@@ -362,6 +373,59 @@ public class CompositeKnowledgeBuilderImpl implements CompositeKnowledgeBuilder
         }
     }
 
+    /**
+     * Parses the DRL resources on a pool of worker threads, but registers their packages and their errors
+     * in the order of the resources, so that the results are the same of a sequential build.
+     */
+    private void buildDrlsInParallel(Map<String, CompositePackageDescr> packages, List<ResourceDescr> resourceDescrs) {
+        CompletionService<PackageDescr> ecs = ExecutorProviderFactory.getExecutorProvider().getCompletionService();
+        List<DrlParser> parsers = new ArrayList<DrlParser>(resourceDescrs.size());
+        List<Future<PackageDescr>> futures = new ArrayList<Future<PackageDescr>>(resourceDescrs.size());
+        for (final ResourceDescr resourceDescr : resourceDescrs) {
+            if (resourceDescr.resource instanceof DescrResource) {
+                // already parsed
+                parsers.add(null);
+                futures.add(null);
+                continue;
+            }
+            final DrlParser parser = new DrlParser(kBuilder.getBuilderConfiguration().getLanguageLevel());
+            parsers.add(parser);
+            futures.add(ecs.submit(new Callable<PackageDescr>() {
+                public PackageDescr call() throws Exception {
+                    return parser.parse(resourceDescr.resource);
+                }
+            }));
+        }
+
+        for (int i = 0; i < resourceDescrs.size(); i++) {
+            ResourceDescr resourceDescr = resourceDescrs.get(i);
+            Future<PackageDescr> future = futures.get(i);
+            try {
+                PackageDescr packageDescr = future == null ?
+                                            kBuilder.drlToPackageDescr(resourceDescr.resource) :
+                                            kBuilder.drlToPackageDescr(resourceDescr.resource, parsers.get(i), future.get());
+                registerPackageDescr(resourceDescr, packages, resourceDescr.resource, packageDescr);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException( e );
+            } catch (ExecutionException e) {
+                if (buildException == null) {
+                    buildException = e.getCause() instanceof RuntimeException ?
+                                     (RuntimeException) e.getCause() :
+                                     new RuntimeException( e.getCause() );
+                }
+            } catch (RuntimeException e) {
+                if (buildException == null) {
+                    buildException = e;
+                }
+            } catch (Exception e) {
+                if (buildException == null) {
+                    buildException = new RuntimeException( e );
+                }
+            }
+        }
+    }
+
     private void registerPackageDescr(ResourceDescr resourceDescr, Map<String, CompositePackageDescr> packages, Resource resource, PackageDescr packageDescr) {
         if (packageDescr != null) {
             CompositePackageDescr compositePackageDescr = packages.get(packageDescr.getNamespace());
@@ -78,6 +78,7 @@ import org.kie.internal.utils.ChainedProperties;
  * drools.evaluator.<ident> = <qualified class>
  * drools.dump.dir = <String>
  * drools.classLoaderCacheEnabled = true|false
+ * drools.parallelBuild = true|false
  *
  * default dialect is java.
  * Available preconfigured Accumulate functions are:
@@ -97,6 +98,8 @@ public class KnowledgeBuilderConfigurationImpl
         implements
         KnowledgeBuilderConfiguration {
 
+    public static final String                PARALLEL_BUILD_PROPERTY = "drools.parallelBuild";
+
     private Map<String, DialectConfiguration> dialectConfigurations;
 
     private DefaultDialectOption              defaultDialect;
@@ -119,6 +122,8 @@ public class KnowledgeBuilderConfigurationImpl
 
     private boolean                           classLoaderCache        = true;
 
+    private boolean                           parallelBuild           = false;
+
     private PropertySpecificOption            propertySpecificOption  = PropertySpecificOption.ALLOWED;
 
     private String                            defaultPackageName;
@@ -235,6 +240,10 @@ public class KnowledgeBuilderConfigurationImpl
                 this.chainedProperties.getProperty(DefaultPackageNameOption.PROPERTY_NAME,
                         "defaultpkg"));
 
+        setProperty(PARALLEL_BUILD_PROPERTY,
+                this.chainedProperties.getProperty(PARALLEL_BUILD_PROPERTY,
+                        "false"));
+
         this.componentFactory = new DroolsCompilerComponentFactory();
 
         this.classBuilderFactory = new ClassBuilderFactory();
@@ -277,6 +286,8 @@ public class KnowledgeBuilderConfigurationImpl
             setProcessStringEscapes(Boolean.parseBoolean(value));
         } else if (name.equals(ClassLoaderCacheOption.PROPERTY_NAME)) {
             setClassLoaderCacheEnabled(Boolean.parseBoolean(value));
+        } else if (name.equals(PARALLEL_BUILD_PROPERTY)) {
+            setParallelBuild(Boolean.parseBoolean(value));
         } else if (name.startsWith(KBuilderSeverityOption.PROPERTY_NAME)) {
             String key = name.substring(name.lastIndexOf('.') + 1);
             this.severityMap.put(key, KBuilderSeverityOption.get(key, value).getSeverity());
@@ -309,6 +320,8 @@ public class KnowledgeBuilderConfigurationImpl
             return String.valueOf(isProcessStringEscapes());
         } else if (name.equals(ClassLoaderCacheOption.PROPERTY_NAME)) {
             return String.valueOf(isClassLoaderCacheEnabled());
+        } else if (name.equals(PARALLEL_BUILD_PROPERTY)) {
+            return String.valueOf(isParallelBuild());
         } else if (name.startsWith(KBuilderSeverityOption.PROPERTY_NAME)) {
             String key = name.substring(name.lastIndexOf('.') + 1);
             ResultSeverity severity = this.severityMap.get(key);
@@ -665,6 +678,18 @@ public class KnowledgeBuilderConfigurationImpl
         this.classLoaderCache = classLoaderCacheEnabled;
     }
 
+    public boolean isParallelBuild() {
+        return parallelBuild;
+    }
+
+    /**
+     * When enabled, the DRL resources are parsed and the packages are compiled on a pool of worker threads.
+     * The build results are collected in the order of the resources and packages, as for a sequential build.
+     */
+    public void setParallelBuild(boolean parallelBuild) {
+        this.parallelBuild = parallelBuild;
+    }
+
     public String getDefaultPackageName() {
         return defaultPackageName;
     }
@@ -102,6 +102,7 @@ import org.kie.internal.builder.KnowledgeBuilderResult;
 import org.kie.internal.builder.KnowledgeBuilderResults;
 import org.kie.internal.builder.ResultSeverity;
 import org.kie.internal.builder.ScoreCardConfiguration;
+import org.kie.internal.concurrent.ExecutorProviderFactory;
 import org.kie.internal.definition.KnowledgePackage;
 import org.kie.internal.utils.ServiceRegistryImpl;
 import org.slf4j.Logger;
@@ -127,6 +128,10 @@ import java.util.Map;
 import java.util.Set;
 import java.util.Stack;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import static org.drools.core.util.ClassUtils.convertClassToResourcePath;
 import static org.drools.core.util.StringUtils.isEmpty;
@@ -434,23 +439,32 @@ public class KnowledgeBuilderImpl implements KnowledgeBuilder {
 
     PackageDescr drlToPackageDescr(Resource resource) throws DroolsParserException,
                                                              IOException {
-        PackageDescr pkg;
-        boolean hasErrors = false;
         if (resource instanceof DescrResource) {
-            pkg = (PackageDescr) ((DescrResource) resource).getDescr();
-        } else {
-            final DrlParser parser = new DrlParser(configuration.getLanguageLevel());
-            pkg = parser.parse(resource);
-            this.results.addAll(parser.getErrors());
-            if (pkg == null) {
-                addBuilderResult(new ParserError(resource, "Parser returned a null Package", 0, 0));
+            PackageDescr pkg = (PackageDescr) ((DescrResource) resource).getDescr();
+            if (pkg != null) {
+                pkg.setResource(resource);
             }
-            hasErrors = parser.hasErrors();
+            return pkg;
         }
-        if (pkg != null) {
+        final DrlParser parser = new DrlParser(configuration.getLanguageLevel());
+        return drlToPackageDescr(resource, parser, parser.parse(resource));
+    }
+
+    /**
+     * Collects the errors of a DRL resource already parsed by the given parser.
+     * The parsing doesn't touch the state of this builder, so it can be done concurrently
+     * for many resources, while this has to be called for them one at a time.
+     */
+    PackageDescr drlToPackageDescr(Resource resource,
+                                   DrlParser parser,
+                                   PackageDescr pkg) {
+        this.results.addAll(parser.getErrors());
+        if (pkg == null) {
+            addBuilderResult(new ParserError(resource, "Parser returned a null Package", 0, 0));
+        } else {
             pkg.setResource(resource);
         }
-        return hasErrors ? null : pkg;
+        return parser.hasErrors() ? null : pkg;
     }
 
     /**
@@ -1249,11 +1263,51 @@ public class KnowledgeBuilderImpl implements KnowledgeBuilder {
     }
 
     public void compileAll() {
+        if (configuration.isParallelBuild() && this.pkgRegistryMap.size() > 1) {
+            compileAllInParallel();
+            return;
+        }
         for (PackageRegistry pkgRegistry : this.pkgRegistryMap.values()) {
             pkgRegistry.compileAll();
         }
     }
 
+    /**
+     * Each package has its own dialects, compilers and results, so they can be compiled concurrently.
+     * The failures are rethrown in the order of the packages, so that the outcome of the build doesn't
+     * depend on the scheduling of the threads.
+     */
+    private void compileAllInParallel() {
+        CompletionService<Boolean> ecs = ExecutorProviderFactory.getExecutorProvider().getCompletionService();
+        List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>(this.pkgRegistryMap.size());
+        for (final PackageRegistry pkgRegistry : this.pkgRegistryMap.values()) {
+            futures.add(ecs.submit(new Callable<Boolean>() {
+                public Boolean call() {
+                    pkgRegistry.compileAll();
+                    return true;
+                }
+            }));
+        }
+        RuntimeException failure = null;
+        for (Future<Boolean> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException ?
+                              (RuntimeException) e.getCause() :
+                              new RuntimeException(e.getCause());
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
     public void reloadAll() {
         for (PackageRegistry pkgRegistry : this.pkgRegistryMap.values()) {
             pkgRegistry.getDialectRuntimeRegistry().onBeforeExecute();
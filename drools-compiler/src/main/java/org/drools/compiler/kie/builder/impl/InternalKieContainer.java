@@ -48,4 +48,10 @@ public interface InternalKieContainer extends KieContainer {
     long getCreationTimestamp();
 
     Results updateDependencyToVersion(ReleaseId currentReleaseId, ReleaseId newReleaseId);
+
+    /**
+     * Updates this KieContainer to the given release replacing its KieBases with new ones, instead of updating them in place
+     * @see KieContainerImpl#swapToVersion(ReleaseId)
+     */
+    Results swapToVersion(ReleaseId newReleaseId);
 }
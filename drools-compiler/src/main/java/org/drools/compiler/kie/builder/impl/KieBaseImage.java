@@ -0,0 +1,128 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.compiler.kie.builder.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import org.drools.compiler.commons.jci.stores.ResourceStore;
+import org.drools.core.common.DroolsObjectInputStream;
+import org.drools.core.common.DroolsObjectOutputStream;
+import org.drools.core.impl.InternalKnowledgeBase;
+import org.drools.core.util.IoUtils;
+import org.kie.api.KieBase;
+import org.kie.api.builder.model.KieBaseModel;
+
+import static org.drools.compiler.kie.builder.impl.KieBuilderImpl.filterFileInKBase;
+
+/**
+ * The image of a fully built KieBase, packages and Rete network included, stored in the kjar next to
+ * the compilation cache of the KieBase. When available, the KieContainer reads the KieBase from it,
+ * instead of running the builders again on the packages of the KieModule.
+ * The image records the release of the KieModule and a checksum of the resources of the KieBase it has
+ * been built from, and it is rejected when they don't match the ones of the KieModule reading it.
+ */
+public class KieBaseImage {
+
+    private KieBaseImage() {
+    }
+
+    public static String getImagePath(String kieBaseName) {
+        return "META-INF/" + kieBaseName.replace( '.', '/' ) + "/kbase.image";
+    }
+
+    public static void writeImage(ResourceStore trgMfs,
+                                  KieProject kieProject,
+                                  String kieBaseName,
+                                  KieBase kieBase) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DroolsObjectOutputStream out = new DroolsObjectOutputStream( bytes );
+        try {
+            out.writeUTF( kieProject.getKieModuleForKBase( kieBaseName ).getReleaseId().toExternalForm() );
+            out.writeLong( getChecksum( kieProject, kieBaseName ) );
+            out.writeObject( kieBase );
+        } finally {
+            out.close();
+        }
+        trgMfs.write( getImagePath( kieBaseName ), bytes.toByteArray(), true );
+    }
+
+    /**
+     * Reads the image of the given KieBase from the KieProject, returning null if its KieModule doesn't contain it.
+     * Throws an IOException if the image has been built from another release or from other resources.
+     */
+    public static InternalKnowledgeBase readImage(KieProject kieProject,
+                                                  String kieBaseName,
+                                                  ClassLoader classLoader) throws IOException,
+                                                                                  ClassNotFoundException {
+        InternalKieModule kModule = kieProject.getKieModuleForKBase( kieBaseName );
+        String imagePath = getImagePath( kieBaseName );
+        if ( !kModule.isAvailable( imagePath ) ) {
+            return null;
+        }
+        DroolsObjectInputStream in = new DroolsObjectInputStream( new ByteArrayInputStream( kModule.getBytes( imagePath ) ),
+                                                                  classLoader );
+        try {
+            String releaseId = in.readUTF();
+            if ( !releaseId.equals( kModule.getReleaseId().toExternalForm() ) ) {
+                throw new IOException( "The image has been built from the release " + releaseId +
+                                       " instead of " + kModule.getReleaseId().toExternalForm() );
+            }
+            if ( in.readLong() != getChecksum( kieProject, kieBaseName ) ) {
+                throw new IOException( "The image has been built from resources different from the ones of the release " + releaseId );
+            }
+            return (InternalKnowledgeBase) in.readObject();
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Returns a checksum of the names and the contents of the resources of the given KieBase, included ones too
+     */
+    static long getChecksum(KieProject kieProject, String kieBaseName) {
+        List<String> kieBaseNames = new ArrayList<String>( kieProject.getTransitiveIncludes( kieBaseName ) );
+        Collections.sort( kieBaseNames );
+        kieBaseNames.add( 0, kieBaseName );
+
+        CRC32 crc = new CRC32();
+        for ( String name : kieBaseNames ) {
+            InternalKieModule kModule = kieProject.getKieModuleForKBase( name );
+            KieBaseModel kieBaseModel = kieProject.getKieBaseModel( name );
+            if ( kModule == null || kieBaseModel == null ) {
+                continue;
+            }
+            List<String> fileNames = new ArrayList<String>( kModule.getFileNames() );
+            Collections.sort( fileNames );
+            for ( String fileName : fileNames ) {
+                if ( filterFileInKBase( kModule, kieBaseModel, fileName ) ) {
+                    crc.update( fileName.getBytes( IoUtils.UTF8_CHARSET ) );
+                    byte[] bytes = kModule.getBytes( fileName );
+                    if ( bytes != null ) {
+                        crc.update( bytes );
+                    }
+                }
+            }
+        }
+        return crc.getValue();
+    }
+}
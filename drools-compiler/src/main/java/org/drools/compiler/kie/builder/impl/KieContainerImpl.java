@@ -7,11 +7,13 @@ import org.drools.compiler.kie.util.KieJarChangeSet;
 import org.drools.compiler.kproject.models.KieBaseModelImpl;
 import org.drools.compiler.kproject.models.KieSessionModelImpl;
 import org.drools.core.RuleBaseConfiguration;
+import org.drools.core.SessionConfiguration;
 import org.drools.core.common.ProjectClassLoader;
 import org.drools.core.definitions.impl.KnowledgePackageImpl;
 import org.drools.core.definitions.rule.impl.RuleImpl;
 import org.drools.core.impl.InternalKnowledgeBase;
 import org.drools.core.impl.StatefulKnowledgeSessionImpl;
+import org.drools.core.impl.StatefulSessionPool;
 import org.kie.api.KieBase;
 import org.kie.api.KieBaseConfiguration;
 import org.kie.api.KieServices;
@@ -67,7 +69,7 @@ public class KieContainerImpl
 
     private KieProject           kProject;
 
-    private final Map<String, KieBase> kBases = new HashMap<String, KieBase>();
+    private volatile Map<String, KieBase> kBases = new HashMap<String, KieBase>();
 
     private final Map<String, KieSession> kSessions = new HashMap<String, KieSession>();
     private final Map<String, StatelessKieSession> statelessKSessions = new HashMap<String, StatelessKieSession>();
@@ -206,6 +208,58 @@ public class KieContainerImpl
         return results;
     }
 
+    /**
+     * Updates this container to the given release without modifying its KieBases, so that the sessions
+     * using them are never blocked by the update. New KieBases are built for the new release and, only when
+     * all of them have been built successfully, they replace the old ones all together.
+     * The stateful sessions created before the swap, including the one returned by getKieSession, are left
+     * untouched and keep running on the old release with all their state, until they are disposed by their
+     * owner. The sessions created by newKieSession from now on use the new release, and each of them replaces,
+     * without disposing it, the session returned by getKieSession for its name.
+     * If the new release modifies any class, the KieBases are updated in place by updateToVersion,
+     * because the facts of the old classes could not be used with the new KieBases.
+     */
+    public Results swapToVersion(ReleaseId newReleaseId) {
+        checkNotClasspathKieProject();
+        InternalKieModule currentKM = ((KieModuleKieProject) kProject).getInternalKieModule();
+        InternalKieModule newKM = (InternalKieModule) kr.getKieModule( newReleaseId );
+        KieJarChangeSet cs = new ChangeSetBuilder().build( currentKM, newKM );
+        if ( !getModifiedClasses(cs).isEmpty() ) {
+            return update(currentKM, newReleaseId);
+        }
+
+        KieModuleKieProject newProject = ((KieModuleKieProject) kProject).forKieModule( newKM );
+        ResultsImpl results = new ResultsImpl();
+        Map<String, KieBase> newKBases = new HashMap<String, KieBase>();
+        for ( String kbaseName : kBases.keySet() ) {
+            // a kbase that no longer exists is just removed from the cache
+            if ( newProject.getKieBaseModel( kbaseName ) != null ) {
+                KieBase kBase = createKieBase( kbaseName, newProject, results, null );
+                if ( kBase == null ) {
+                    // nothing has been changed yet, so this container is still on the current release
+                    log.error("Unable to update KieBase: " + kbaseName + " to release " + newReleaseId + "\n" + results.filterMessages( Level.ERROR ));
+                    return results;
+                }
+                newKBases.put( kbaseName, kBase );
+            }
+        }
+
+        kProject = newProject;
+        containerReleaseId = newReleaseId;
+        kBases = newKBases;
+
+        for( Iterator<Entry<String,KieSession>> it = this.kSessions.entrySet().iterator(); it.hasNext(); ) {
+            if( kProject.getKieSessionModel( it.next().getKey() ) == null ) {
+                // remove sessions that no longer exist, without disposing them
+                it.remove();
+            }
+        }
+
+        // the stateless sessions don't have any state, so they are just created again from the new kbases
+        statelessKSessions.clear();
+        return results;
+    }
+
     private boolean isFileInKBase(InternalKieModule kieModule, KieBaseModel kieBase, String fileName) {
         if (filterFileInKBase(kieModule, kieBase, fileName)) {
             return true;
@@ -380,7 +434,7 @@ public class KieContainerImpl
     }
 
     private KieBase createKieBase(String kBaseName, KieProject kieProject, ResultsImpl messages, KieBaseConfiguration conf) {
-        KieBaseModelImpl kBaseModel = (KieBaseModelImpl) kProject.getKieBaseModel(kBaseName);
+        KieBaseModelImpl kBaseModel = (KieBaseModelImpl) kieProject.getKieBaseModel(kBaseName);
         if (kBaseModel == null) {
             throw new RuntimeException( "The requested KieBase \"" + kBaseName + "\" does not exist" );
         }
@@ -388,6 +442,14 @@ public class KieContainerImpl
         ClassLoader cl = kieProject.getClassLoader();
         InternalKieModule kModule = kieProject.getKieModuleForKBase( kBaseModel.getName() );
 
+        if ( conf == null ) {
+            // the image is built with the configuration of the KieBaseModel, so it can't be used when another one is provided
+            InternalKnowledgeBase kBase = readKieBaseImage( kieProject, kBaseModel.getName(), cl );
+            if ( kBase != null ) {
+                return kBase;
+            }
+        }
+
         Collection<KnowledgePackage> pkgs = kModule.getKnowledgePackagesForKieBase(kBaseModel.getName());
 
         if ( pkgs == null ) {
@@ -421,6 +483,15 @@ public class KieContainerImpl
         return kBase;
     }
 
+    private InternalKnowledgeBase readKieBaseImage(KieProject kieProject, String kBaseName, ClassLoader cl) {
+        try {
+            return KieBaseImage.readImage( kieProject, kBaseName, cl );
+        } catch ( Exception e ) {
+            log.warn( "Unable to read the image of the KieBase " + kBaseName + ", it will be built from its packages", e );
+            return null;
+        }
+    }
+
     private KieBaseConfiguration getKnowledgeBaseConfiguration(KieBaseModelImpl kBaseModel, ClassLoader cl) {
         KieBaseConfiguration kbConf = KnowledgeBaseFactory.newKnowledgeBaseConfiguration(null, cl);
         kbConf.setOption(kBaseModel.getEqualsBehavior());
@@ -517,6 +588,22 @@ public class KieContainerImpl
         return kSession;
     }
 
+    /**
+     * Creates a pool of the sessions of the given stateful KieSessionModel. The pooled sessions are not
+     * wired with the listeners, work item handlers and loggers of the model.
+     */
+    public StatefulSessionPool newSessionPool(String kSessionName, int minIdle, int maxIdle) {
+        KieSessionModelImpl kSessionModel = (KieSessionModelImpl) getKieSessionModel(kSessionName);
+        if ( kSessionModel == null ) {
+            throw new RuntimeException("Unknown KieSession name: " + kSessionName);
+        }
+        if (kSessionModel.getType() == KieSessionModel.KieSessionType.STATELESS) {
+            throw new RuntimeException("Trying to create a pool of stateful KieSessions from a stateless KieSessionModel: " + kSessionName);
+        }
+        InternalKnowledgeBase kBase = (InternalKnowledgeBase) getKieBase( kSessionModel.getKieBaseModel().getName() );
+        return kBase.newSessionPool( (SessionConfiguration) getKnowledgeSessionConfiguration(kSessionModel), null, minIdle, maxIdle );
+    }
+
     private void registerLoggers(KieSessionModelImpl kSessionModel, KieRuntimeEventManager kSession) {
         KieLoggers kieLoggers = KieServices.Factory.get().getLoggers();
         if (kSessionModel.getConsoleLogger() != null) {
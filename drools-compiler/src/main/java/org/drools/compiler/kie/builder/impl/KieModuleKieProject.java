@@ -109,6 +109,16 @@ public class KieModuleKieProject extends AbstractKieProject {
         return clonedCL;
     }
 
+    /**
+     * Returns a new project for the given module, sharing the class loader of this one, without modifying this project
+     */
+    public KieModuleKieProject forKieModule(InternalKieModule updatedKieModule) {
+        KieModuleKieProject project = new KieModuleKieProject( updatedKieModule, cl.getParent() );
+        project.cl = this.cl;
+        project.init();
+        return project;
+    }
+
     public void updateToModule(InternalKieModule updatedKieModule) {
         this.kieModules = null;
         this.kJarFromKBaseName.clear();
@@ -22,7 +22,9 @@ import java.util.Hashtable;
 import org.drools.compiler.builder.impl.KnowledgeBuilderFactoryServiceImpl;
 import org.drools.compiler.compiler.BPMN2ProcessProvider;
 import org.drools.compiler.compiler.DecisionTableProvider;
+import org.drools.compiler.reteoo.compiled.AlphaNetworkCompilerImpl;
 import org.drools.core.marshalling.impl.ProcessMarshallerFactoryService;
+import org.drools.core.reteoo.compiled.AlphaNetworkCompiler;
 import org.drools.core.runtime.process.ProcessRuntimeFactoryService;
 import org.kie.api.Service;
 import org.kie.api.builder.KieScannerFactoryService;
@@ -46,6 +48,7 @@ public class Activator
     protected static final transient Logger logger = LoggerFactory.getLogger(Activator.class);
 
     private ServiceRegistration kbuilderReg;
+    private ServiceRegistration alphaNetworkCompilerReg;
 
     private ServiceTracker      dtableTracker;
     private ServiceTracker      bpmn2Tracker;
@@ -59,6 +62,10 @@ public class Activator
                                                new KnowledgeBuilderFactoryServiceImpl(),
                                                new Hashtable() );
 
+        this.alphaNetworkCompilerReg = bc.registerService( new String[]{AlphaNetworkCompiler.class.getName(), Service.class.getName()},
+                                                           new AlphaNetworkCompilerImpl(),
+                                                           new Hashtable() );
+
         this.dtableTracker = new ServiceTracker( bc,
                                                  bc.createFilter( "(|(" + 
                                                                   Constants.OBJECTCLASS + "=" + 
@@ -97,6 +104,7 @@ public class Activator
 
     public void stop(BundleContext bc) throws Exception {
         this.kbuilderReg.unregister();
+        this.alphaNetworkCompilerReg.unregister();
         this.dtableTracker.close();
         this.bpmn2Tracker.close();
         this.processRuntimeTracker.close();
@@ -0,0 +1,31 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.compiler.reteoo.compiled;
+
+import java.util.Map;
+
+import org.drools.core.impl.InternalKnowledgeBase;
+import org.drools.core.reteoo.ObjectTypeNode;
+import org.drools.core.reteoo.compiled.AlphaNetworkCompiler;
+import org.drools.core.reteoo.compiled.CompiledNetwork;
+
+public class AlphaNetworkCompilerImpl implements AlphaNetworkCompiler {
+
+    public Map<ObjectTypeNode, CompiledNetwork> compile(InternalKnowledgeBase kBase) {
+        return ObjectTypeNodeCompiler.compileNetworks( kBase );
+    }
+}
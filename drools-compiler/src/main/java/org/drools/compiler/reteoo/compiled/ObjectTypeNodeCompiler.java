@@ -1,33 +1,42 @@
 package org.drools.compiler.reteoo.compiled;
 
+import org.drools.compiler.builder.impl.KnowledgeBuilderConfigurationImpl;
 import org.drools.compiler.builder.impl.KnowledgeBuilderImpl;
 import org.drools.core.base.ClassObjectType;
-import org.drools.core.base.ValueType;
 import org.drools.compiler.compiler.PackageRegistry;
 import org.drools.compiler.lang.descr.PackageDescr;
+import org.drools.core.impl.InternalKnowledgeBase;
+import org.drools.core.reteoo.EmptyObjectSinkAdapter;
 import org.drools.core.reteoo.ObjectTypeNode;
 import org.drools.core.reteoo.compiled.AssertHandler;
 import org.drools.core.reteoo.compiled.CompiledNetwork;
 import org.drools.core.reteoo.compiled.DeclarationsHandler;
-import org.drools.core.reteoo.compiled.HashedAlphasDeclaration;
+import org.drools.core.reteoo.compiled.ModifyHandler;
 import org.drools.core.reteoo.compiled.ObjectTypeNodeParser;
 import org.drools.core.reteoo.compiled.SetNodeReferenceHandler;
 import org.drools.compiler.rule.builder.dialect.java.JavaDialect;
 import org.drools.core.util.IoUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
- * todo: document
+ * Generates and compiles the source of a {@link CompiledNetwork} for the alpha network of {@link ObjectTypeNode}s.
+ * The generated class evaluates the alpha constraints in place and switches on the hashed alphas, asserting
+ * and modifying the betas and lias reached by a fact without going through the sink propagators.
  */
 public class ObjectTypeNodeCompiler {
+    private static final Logger logger = LoggerFactory.getLogger(ObjectTypeNodeCompiler.class);
+
     private static final String NEWLINE = "\n";
     private static final String PACKAGE_NAME = "org.drools.core.reteoo.compiled";
     private static final String BINARY_PACKAGE_NAME = PACKAGE_NAME.replace('.', '/');
-    /**
-     * This field hold the fully qualified class name that the {@link ObjectTypeNode} is representing.
-     */
-    private String className;
 
     /**
      * This field will hold the "simple" name of the generated class
@@ -45,8 +54,9 @@ public class ObjectTypeNodeCompiler {
         this.objectTypeNode = objectTypeNode;
 
         ClassObjectType classObjectType = (ClassObjectType) objectTypeNode.getObjectType();
-        this.className = classObjectType.getClassName();
-        generatedClassSimpleName = "Compiled" + classObjectType.getClassName().replace('.', '_') + "Network";
+        // the same class can have an OTN in every entry point, so the node id is part of the name
+        generatedClassSimpleName = "Compiled" + classObjectType.getClassName().replace('.', '_').replace('$', '_') +
+                                   "Network" + objectTypeNode.getId();
     }
 
     private String generateSource() {
@@ -58,19 +68,18 @@ public class ObjectTypeNodeCompiler {
         DeclarationsHandler declarations = new DeclarationsHandler(builder);
         parser.accept(declarations);
 
-        // we need the hashed declarations when creating the constructor
-        Collection<HashedAlphasDeclaration> hashedAlphaDeclarations = declarations.getHashedAlphaDeclarations();
-
-        createConstructor(hashedAlphaDeclarations);
-
         // create set node method
         SetNodeReferenceHandler setNode = new SetNodeReferenceHandler(builder);
         parser.accept(setNode);
 
         // create assert method
-        AssertHandler assertHandler = new AssertHandler(builder, className, hashedAlphaDeclarations.size() > 0);
+        AssertHandler assertHandler = new AssertHandler(builder);
         parser.accept(assertHandler);
 
+        // create modify method
+        ModifyHandler modifyHandler = new ModifyHandler(builder);
+        parser.accept(modifyHandler);
+
         // end of class
         builder.append("}").append(NEWLINE);
 
@@ -86,39 +95,6 @@ public class ObjectTypeNodeCompiler {
                 append(CompiledNetwork.class.getName()).append("{ ").append(NEWLINE);
     }
 
-    /**
-     * Creates the constructor for the generated class. If the hashedAlphaDeclarations is empty, it will just
-     * output a empty default constructor; if it is not, the constructor will contain code to fill the hash
-     * alpha maps with the values and node ids.
-     *
-     * @param hashedAlphaDeclarations declarations used for creating statements to populate the hashed alpha
-     *                                maps for the generate class
-     */
-    private void createConstructor(Collection<HashedAlphasDeclaration> hashedAlphaDeclarations) {
-        builder.append("public ").append(generatedClassSimpleName).append("() {").append(NEWLINE);
-
-        // for each hashed alpha, we need to fill in the map member variable with the hashed values to node Ids
-        for (HashedAlphasDeclaration declaration : hashedAlphaDeclarations) {
-            String mapVariableName = declaration.getVariableName();
-
-            for (Object hashedValue : declaration.getHashedValues()) {
-                Object value = hashedValue;
-                // need to quote value if it is a string
-                if (declaration.getValueType() == ValueType.STRING_TYPE) {
-                    value = "\"" + value + "\"";
-                }
-
-                String nodeId = declaration.getNodeId(hashedValue);
-
-                // generate the map.put(hashedValue, nodeId) call
-                builder.append(mapVariableName).append(".put(").append(value).append(", ").append(nodeId).append(");");
-                builder.append(NEWLINE);
-            }
-        }
-
-        builder.append("}").append(NEWLINE);
-    }
-
     /**
      * Returns the fully qualified name of the generated subclass of {@link CompiledNetwork}
      *
@@ -129,12 +105,12 @@ public class ObjectTypeNodeCompiler {
     }
 
     /**
-     * Returns the fully qualified binary name of the generated subclass of {@link CompiledNetwork}
+     * Returns the name of the resource holding the source of the generated subclass of {@link CompiledNetwork}
      *
-     * @return binary name of generated class
+     * @return resource name of generated class
      */
-    private String getBinaryName() {
-        return BINARY_PACKAGE_NAME + "." + generatedClassSimpleName + ".class";
+    private String getSourceName() {
+        return BINARY_PACKAGE_NAME + "/" + generatedClassSimpleName + ".java";
     }
 
     private String getPackageName() {
@@ -142,7 +118,20 @@ public class ObjectTypeNodeCompiler {
     }
 
     /**
-     * Creates a {@link CompiledNetwork} for the specified {@link ObjectTypeNode}. The {@link PackageBuilder} is used
+     * Returns true if a {@link CompiledNetwork} can be generated for the specified {@link ObjectTypeNode},
+     * i.e. it has at least one sink, it is for a class and all the nodes of its alpha network are supported.
+     *
+     * @param objectTypeNode OTN to check
+     * @return true if the OTN can be compiled
+     */
+    public static boolean isCompilable(ObjectTypeNode objectTypeNode) {
+        return objectTypeNode.getObjectType() instanceof ClassObjectType &&
+               !(objectTypeNode.getSinkPropagator() instanceof EmptyObjectSinkAdapter) &&
+               new ObjectTypeNodeParser(objectTypeNode).isCompilable();
+    }
+
+    /**
+     * Creates a {@link CompiledNetwork} for the specified {@link ObjectTypeNode}. The {@link KnowledgeBuilderImpl} is used
      * to compile the generated source and load the class.
      *
      * @param kBuilder     builder used to compile and load class
@@ -153,38 +142,111 @@ public class ObjectTypeNodeCompiler {
         if (objectTypeNode == null) {
             throw new IllegalArgumentException("ObjectTypeNode cannot be null!");
         }
+        return compile(kBuilder, Collections.singletonList(objectTypeNode)).get(objectTypeNode);
+    }
+
+    /**
+     * Creates a {@link CompiledNetwork} for each of the specified {@link ObjectTypeNode}s, compiling all the
+     * generated sources at once.
+     *
+     * @param kBuilder        builder used to compile and load the classes
+     * @param objectTypeNodes OTNs we are generating a compiled network for
+     * @return the CompiledNetworks by OTN
+     */
+    public static Map<ObjectTypeNode, CompiledNetwork> compile(KnowledgeBuilderImpl kBuilder, Collection<ObjectTypeNode> objectTypeNodes) {
         if (kBuilder == null) {
             throw new IllegalArgumentException("PackageBuilder cannot be null!");
         }
-        ObjectTypeNodeCompiler compiler = new ObjectTypeNodeCompiler(objectTypeNode);
-
-        String packageName = compiler.getPackageName();
 
-        PackageRegistry pkgReg = kBuilder.getPackageRegistry(packageName);
+        PackageRegistry pkgReg = kBuilder.getPackageRegistry(PACKAGE_NAME);
         if (pkgReg == null) {
-            kBuilder.addPackage(new PackageDescr(packageName));
-            pkgReg = kBuilder.getPackageRegistry(packageName);
+            kBuilder.addPackage(new PackageDescr(PACKAGE_NAME));
+            pkgReg = kBuilder.getPackageRegistry(PACKAGE_NAME);
         }
-
-        String source = compiler.generateSource();
-        String generatedSourceName = compiler.getName();
-
         JavaDialect dialect = (JavaDialect) pkgReg.getDialectCompiletimeRegistry().getDialect("java");
-        dialect.addSrc(compiler.getBinaryName(), source.getBytes(IoUtils.UTF8_CHARSET));
+
+        Map<ObjectTypeNode, String> generatedSourceNames = new IdentityHashMap<ObjectTypeNode, String>();
+        for (ObjectTypeNode objectTypeNode : objectTypeNodes) {
+            ObjectTypeNodeCompiler compiler = new ObjectTypeNodeCompiler(objectTypeNode);
+            String source = compiler.generateSource();
+            dialect.addSrc(compiler.getSourceName(), source.getBytes(IoUtils.UTF8_CHARSET));
+            generatedSourceNames.put(objectTypeNode, compiler.getName());
+        }
         kBuilder.compileAll();
         kBuilder.updateResults();
 
-        CompiledNetwork network;
+        Map<ObjectTypeNode, CompiledNetwork> networks = new IdentityHashMap<ObjectTypeNode, CompiledNetwork>();
+        for (Map.Entry<ObjectTypeNode, String> entry : generatedSourceNames.entrySet()) {
+            CompiledNetwork network;
+            try {
+                network = (CompiledNetwork) Class.forName(entry.getValue(), true, kBuilder.getRootClassLoader()).newInstance();
+            } catch (ClassNotFoundException e) {
+                throw new RuntimeException("This is a bug. Please contact the development team", e);
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException("This is a bug. Please contact the development team", e);
+            } catch (InstantiationException e) {
+                throw new RuntimeException("This is a bug. Please contact the development team", e);
+            }
+            networks.put(entry.getKey(), network);
+        }
+
+        return networks;
+    }
+
+    /**
+     * Compiles the alpha networks of all the compilable {@link ObjectTypeNode}s of the specified kbase and
+     * sets them on their node. If the generated sources fail to compile the nodes are left as they are, still
+     * propagating through their sink propagators.
+     *
+     * @param kBase kbase whose ObjectTypeNodes are compiled
+     */
+    public static void compileAll(InternalKnowledgeBase kBase) {
+        Map<ObjectTypeNode, CompiledNetwork> networks = compileNetworks(kBase);
+        if (networks.isEmpty()) {
+            return;
+        }
+
+        kBase.lock();
         try {
-            network = (CompiledNetwork) Class.forName(generatedSourceName, true, kBuilder.getRootClassLoader()).newInstance();
-        } catch (ClassNotFoundException e) {
-            throw new RuntimeException("This is a bug. Please contact the development team", e);
-        } catch (IllegalAccessException e) {
-            throw new RuntimeException("This is a bug. Please contact the development team", e);
-        } catch (InstantiationException e) {
-            throw new RuntimeException("This is a bug. Please contact the development team", e);
+            for (Map.Entry<ObjectTypeNode, CompiledNetwork> entry : networks.entrySet()) {
+                entry.getKey().setCompiledNetwork(entry.getValue());
+            }
+        } finally {
+            kBase.unlock();
+        }
+    }
+
+    /**
+     * Compiles the alpha networks of all the compilable {@link ObjectTypeNode}s of the specified kbase, without
+     * setting them on their node. Returns an empty map if there is no compilable node or the generated sources
+     * fail to compile.
+     *
+     * @param kBase kbase whose ObjectTypeNodes are compiled
+     */
+    public static Map<ObjectTypeNode, CompiledNetwork> compileNetworks(InternalKnowledgeBase kBase) {
+        List<ObjectTypeNode> objectTypeNodes = new ArrayList<ObjectTypeNode>();
+        for (ObjectTypeNode objectTypeNode : kBase.getRete().getObjectTypeNodes()) {
+            if (isCompilable(objectTypeNode)) {
+                objectTypeNodes.add(objectTypeNode);
+            }
+        }
+        if (objectTypeNodes.isEmpty()) {
+            return Collections.emptyMap();
         }
 
-        return network;
+        // a builder not bound to the kbase, so that the package of the generated classes isn't added to it
+        KnowledgeBuilderImpl kBuilder = new KnowledgeBuilderImpl(new KnowledgeBuilderConfigurationImpl(kBase.getRootClassLoader()));
+        Map<ObjectTypeNode, CompiledNetwork> networks;
+        try {
+            networks = compile(kBuilder, objectTypeNodes);
+        } catch (RuntimeException e) {
+            logger.warn("Unable to compile the alpha network, the ObjectTypeNodes will propagate through their sinks", e);
+            return Collections.emptyMap();
+        }
+        if (kBuilder.hasErrors()) {
+            logger.warn("Unable to compile the alpha network, the ObjectTypeNodes will propagate through their sinks: " + kBuilder.getErrors());
+            return Collections.emptyMap();
+        }
+        return networks;
     }
 }
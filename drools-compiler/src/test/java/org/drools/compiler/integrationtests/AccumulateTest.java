@@ -2725,4 +2725,45 @@ public class AccumulateTest extends CommonTestMethodBase {
         Results results = ks.newKieBuilder( kfs ).buildAll().getResults();
         assertFalse(results.getMessages().isEmpty());
     }
+
+    @Test
+    public void testReverseMinMaxMedian() throws Exception {
+        String str = "import java.util.List;\n" +
+                     "global List results;\n" +
+                     "rule R when\n" +
+                     "    accumulate( $i : Integer( ),\n" +
+                     "                $min : min( $i ),\n" +
+                     "                $max : max( $i ),\n" +
+                     "                $median : median( $i ) )\n" +
+                     "then\n" +
+                     "    results.add( $min.intValue() + \":\" + $max.intValue() + \":\" + $median );\n" +
+                     "end";
+
+        KieSession ksession = new KieHelper().addContent( str, ResourceType.DRL )
+                                             .build()
+                                             .newKieSession();
+        List<String> results = new ArrayList<String>();
+        ksession.setGlobal( "results", results );
+
+        FactHandle fh1 = ksession.insert( 1 );
+        ksession.insert( 5 );
+        FactHandle fh8 = ksession.insert( 8 );
+        ksession.insert( 6 );
+        ksession.fireAllRules();
+        assertEquals( "1:8:5.5", results.get( results.size() - 1 ) );
+
+        ksession.delete( fh8 );
+        ksession.fireAllRules();
+        assertEquals( "1:6:5.0", results.get( results.size() - 1 ) );
+
+        ksession.delete( fh1 );
+        ksession.fireAllRules();
+        assertEquals( "5:6:5.5", results.get( results.size() - 1 ) );
+
+        ksession.insert( 7 );
+        ksession.fireAllRules();
+        assertEquals( "5:7:6.0", results.get( results.size() - 1 ) );
+
+        ksession.dispose();
+    }
 }
@@ -5410,4 +5410,50 @@ public class CepEspTest extends CommonTestMethodBase {
         ksession.fireAllRules();
         assertEquals("code2", event.getCode());
     }
+
+    @Test(timeout=10000)
+    public void testEventsExpiringInTheSameTickShareATimer() throws Exception {
+        String drl = "package org.drools.compiler;\n" +
+                     "\n" +
+                     "import org.drools.compiler.StockTick;\n" +
+                     "\n" +
+                     "declare StockTick\n" +
+                     "    @role( event )\n" +
+                     "    @expires( 10s )\n" +
+                     "end\n" +
+                     "\n" +
+                     "rule R when\n" +
+                     "    StockTick( company == \"ACME\" )\n" +
+                     "then\n" +
+                     "end\n";
+
+        KieBaseConfiguration kbconf = KnowledgeBaseFactory.newKnowledgeBaseConfiguration();
+        kbconf.setOption( EventProcessingOption.STREAM );
+        kbconf.setProperty( "drools.eventExpirationTick", "1000" );
+        KnowledgeBase kbase = loadKnowledgeBaseFromString( kbconf, drl );
+
+        KieSessionConfiguration ksconf = KnowledgeBaseFactory.newKnowledgeSessionConfiguration();
+        ksconf.setOption( ClockTypeOption.get( ClockType.PSEUDO_CLOCK.getId() ) );
+        ksconf.setOption( TimerJobFactoryOption.get( "trackable" ) );
+        StatefulKnowledgeSession ksession = createKnowledgeSession( kbase, ksconf );
+        SessionPseudoClock clock = (SessionPseudoClock) ksession.<SessionClock>getSessionClock();
+        InternalWorkingMemory wm = (InternalWorkingMemory) ksession;
+
+        // all the events expire between 10001ms and 10496ms, so in the tick ending at 11000ms
+        for ( int i = 0; i < 100; i++ ) {
+            clock.advanceTime( 5, TimeUnit.MILLISECONDS );
+            ksession.insert( new StockTick( i, i % 2 == 0 ? "ACME" : "RHT", 10 ) );
+        }
+        assertEquals( 50, ksession.fireAllRules() );
+        assertEquals( 1, wm.getTimerService().getTimerJobInstances( wm.getId() ).size() );
+
+        clock.advanceTime( 10999 - clock.getCurrentTime(), TimeUnit.MILLISECONDS );
+        ksession.fireAllRules();
+        assertEquals( 100, ksession.getFactCount() );
+
+        clock.advanceTime( 1, TimeUnit.MILLISECONDS );
+        ksession.fireAllRules();
+        assertEquals( 0, ksession.getFactCount() );
+        ksession.dispose();
+    }
 }
\ No newline at end of file
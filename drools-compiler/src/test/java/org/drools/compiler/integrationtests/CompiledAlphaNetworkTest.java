@@ -0,0 +1,233 @@
+package org.drools.compiler.integrationtests;
+
+import org.drools.compiler.Cheese;
+import org.drools.compiler.CommonTestMethodBase;
+import org.drools.core.base.ClassObjectType;
+import org.drools.core.impl.InternalKnowledgeBase;
+import org.drools.core.reteoo.ObjectTypeNode;
+import org.drools.core.reteoo.compiled.CompiledNetwork;
+import org.junit.Test;
+import org.kie.api.KieBaseConfiguration;
+import org.kie.api.io.ResourceType;
+import org.kie.api.runtime.rule.FactHandle;
+import org.kie.internal.KnowledgeBase;
+import org.kie.internal.KnowledgeBaseFactory;
+import org.kie.internal.builder.KnowledgeBuilder;
+import org.kie.internal.builder.KnowledgeBuilderFactory;
+import org.kie.internal.io.ResourceFactory;
+import org.kie.internal.runtime.StatefulKnowledgeSession;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+
+public class CompiledAlphaNetworkTest extends CommonTestMethodBase {
+
+    private static final String DRL =
+            "import " + Cheese.class.getCanonicalName() + ";\n" +
+            "global java.util.List list;\n" +
+            "rule Stilton when\n" +
+            "    Cheese( type == \"stilton\" )\n" +
+            "then\n" +
+            "    list.add( \"Stilton\" );\n" +
+            "end\n" +
+            "rule Cheddar when\n" +
+            "    Cheese( type == \"cheddar\" )\n" +
+            "then\n" +
+            "    list.add( \"Cheddar\" );\n" +
+            "end\n" +
+            "rule Brie when\n" +
+            "    Cheese( type == \"brie\" )\n" +
+            "then\n" +
+            "    list.add( \"Brie\" );\n" +
+            "end\n" +
+            "rule Gorgonzola when\n" +
+            "    Cheese( type == \"gorgonzola\" )\n" +
+            "then\n" +
+            "    list.add( \"Gorgonzola\" );\n" +
+            "end\n" +
+            "rule Expensive when\n" +
+            "    Cheese( price > 10 )\n" +
+            "then\n" +
+            "    list.add( \"Expensive\" );\n" +
+            "end\n" +
+            "rule ExpensiveStilton when\n" +
+            "    Cheese( price > 10, type == \"stilton\" )\n" +
+            "    String()\n" +
+            "then\n" +
+            "    list.add( \"ExpensiveStilton\" );\n" +
+            "end\n";
+
+    private ObjectTypeNode getCheeseObjectTypeNode(KnowledgeBase kbase) {
+        for ( ObjectTypeNode otn : ((InternalKnowledgeBase) kbase).getRete().getObjectTypeNodes() ) {
+            if ( otn.getObjectType() instanceof ClassObjectType &&
+                 ((ClassObjectType) otn.getObjectType()).getClassType() == Cheese.class ) {
+                return otn;
+            }
+        }
+        return null;
+    }
+
+    private List<String> fire(KnowledgeBase kbase) {
+        StatefulKnowledgeSession ksession = kbase.newStatefulKnowledgeSession();
+        List<String> list = new ArrayList<String>();
+        ksession.setGlobal( "list", list );
+
+        ksession.insert( "x" );
+        Cheese stilton = new Cheese( "stilton", 5 );
+        FactHandle stiltonHandle = ksession.insert( stilton );
+        Cheese brie = new Cheese( "brie", 20 );
+        FactHandle brieHandle = ksession.insert( brie );
+        ksession.insert( new Cheese( "emmental", 15 ) );
+        ksession.fireAllRules();
+
+        stilton.setPrice( 30 );
+        ksession.update( stiltonHandle, stilton );
+        brie.setType( "cheddar" );
+        ksession.update( brieHandle, brie );
+        ksession.fireAllRules();
+
+        ksession.delete( stiltonHandle );
+        ksession.insert( new Cheese( "stilton", 50 ) );
+        ksession.fireAllRules();
+
+        ksession.dispose();
+        Collections.sort( list );
+        return list;
+    }
+
+    private KnowledgeBase loadCompiledKnowledgeBase(String... drls) {
+        KieBaseConfiguration conf = KnowledgeBaseFactory.newKnowledgeBaseConfiguration();
+        conf.setProperty( "drools.compiledAlphaNetwork", "true" );
+        return loadKnowledgeBaseFromString( conf, drls );
+    }
+
+    @Test
+    public void testCompiledNetworkFiresSameMatches() {
+        List<String> expected = fire( loadKnowledgeBaseFromString( DRL ) );
+
+        KnowledgeBase kbase = loadCompiledKnowledgeBase( DRL );
+        assertNotNull( getCheeseObjectTypeNode( kbase ).getCompiledNetwork() );
+
+        List<String> actual = fire( kbase );
+        assertFalse( expected.isEmpty() );
+        assertEquals( expected, actual );
+    }
+
+    @Test
+    public void testRecompileOnIncrementalRuleAdd() {
+        KnowledgeBase kbase = loadCompiledKnowledgeBase( DRL );
+        CompiledNetwork network = getCheeseObjectTypeNode( kbase ).getCompiledNetwork();
+        assertNotNull( network );
+
+        String drl =
+                "import " + Cheese.class.getCanonicalName() + ";\n" +
+                "global java.util.List list;\n" +
+                "rule Cheap when\n" +
+                "    Cheese( price < 10 )\n" +
+                "then\n" +
+                "    list.add( \"Cheap\" );\n" +
+                "end\n";
+        KnowledgeBuilder kbuilder = KnowledgeBuilderFactory.newKnowledgeBuilder();
+        kbuilder.add( ResourceFactory.newByteArrayResource( drl.getBytes() ), ResourceType.DRL );
+        assertFalse( kbuilder.getErrors().toString(), kbuilder.hasErrors() );
+        kbase.addKnowledgePackages( kbuilder.getKnowledgePackages() );
+
+        // the network is compiled again including the new alpha node
+        assertNotNull( getCheeseObjectTypeNode( kbase ).getCompiledNetwork() );
+        assertNotSame( network, getCheeseObjectTypeNode( kbase ).getCompiledNetwork() );
+
+        StatefulKnowledgeSession ksession = kbase.newStatefulKnowledgeSession();
+        List<String> list = new ArrayList<String>();
+        ksession.setGlobal( "list", list );
+        ksession.insert( new Cheese( "stilton", 5 ) );
+        ksession.fireAllRules();
+        Collections.sort( list );
+        assertEquals( 2, list.size() );
+        assertEquals( "Cheap", list.get( 0 ) );
+        assertEquals( "Stilton", list.get( 1 ) );
+        ksession.dispose();
+
+        kbase.removeRule( "defaultpkg", "Cheap" );
+        assertNotNull( getCheeseObjectTypeNode( kbase ).getCompiledNetwork() );
+        assertEquals( fire( loadKnowledgeBaseFromString( DRL ) ), fire( kbase ) );
+    }
+
+    @Test
+    public void testSerializedKieBase() throws Exception {
+        List<String> expected = fire( loadKnowledgeBaseFromString( DRL ) );
+
+        KnowledgeBase kbase = SerializationHelper.serializeObject( loadCompiledKnowledgeBase( DRL ) );
+        assertNotNull( getCheeseObjectTypeNode( kbase ).getCompiledNetwork() );
+        assertEquals( expected, fire( kbase ) );
+    }
+
+    @Test
+    public void testPropertyReactiveModify() {
+        String drl =
+                "package org.drools.compiler.integrationtests;\n" +
+                "global java.util.List list;\n" +
+                "declare Counter\n" +
+                "    @propertyReactive\n" +
+                "    type : String\n" +
+                "    count : int\n" +
+                "    total : int\n" +
+                "end\n" +
+                "rule Init when\n" +
+                "then\n" +
+                "    insert( new Counter( \"a\", 0, 0 ) );\n" +
+                "    insert( new Counter( \"b\", 0, 0 ) );\n" +
+                "    insert( new Counter( \"c\", 0, 0 ) );\n" +
+                "end\n" +
+                "rule Count when\n" +
+                "    $c : Counter( type == \"a\", count < 3 )\n" +
+                "then\n" +
+                "    modify( $c ) { setCount( $c.getCount() + 1 ) };\n" +
+                "    list.add( \"Count\" );\n" +
+                "end\n" +
+                "rule TotalA when\n" +
+                "    $c : Counter( type == \"a\" )\n" +
+                "then\n" +
+                "    modify( $c ) { setTotal( $c.getTotal() + 1 ) };\n" +
+                "    list.add( \"TotalA\" );\n" +
+                "end\n" +
+                "rule TotalB when\n" +
+                "    $c : Counter( type == \"b\" )\n" +
+                "then\n" +
+                "    modify( $c ) { setTotal( $c.getTotal() + 1 ) };\n" +
+                "    list.add( \"TotalB\" );\n" +
+                "end\n" +
+                "rule TotalC when\n" +
+                "    $c : Counter( type == \"c\" )\n" +
+                "then\n" +
+                "    modify( $c ) { setTotal( $c.getTotal() + 1 ) };\n" +
+                "    list.add( \"TotalC\" );\n" +
+                "end\n";
+
+        KnowledgeBase kbase = loadCompiledKnowledgeBase( drl );
+        ObjectTypeNode otn = null;
+        for ( ObjectTypeNode node : ((InternalKnowledgeBase) kbase).getRete().getObjectTypeNodes() ) {
+            if ( node.getObjectType() instanceof ClassObjectType &&
+                 ((ClassObjectType) node.getObjectType()).getClassName().endsWith( ".Counter" ) ) {
+                otn = node;
+            }
+        }
+        assertNotNull( otn.getCompiledNetwork() );
+
+        StatefulKnowledgeSession ksession = kbase.newStatefulKnowledgeSession();
+        List<String> list = new ArrayList<String>();
+        ksession.setGlobal( "list", list );
+        // the Total rules don't react to the modification of the total, otherwise they would loop
+        ksession.fireAllRules( 20 );
+        ksession.dispose();
+
+        Collections.sort( list );
+        assertEquals( Arrays.asList( "Count", "Count", "Count", "TotalA", "TotalB", "TotalC" ), list );
+    }
+}
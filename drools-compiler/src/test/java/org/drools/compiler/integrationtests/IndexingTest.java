@@ -2,6 +2,7 @@ package org.drools.compiler.integrationtests;
 
 import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -16,13 +17,18 @@ import org.drools.core.common.*;
 import org.drools.core.reteoo.*;
 import org.drools.core.util.FastIterator;
 import org.drools.core.util.index.LeftTupleIndexHashTable;
+import org.drools.core.util.index.LeftTupleIndexRBTree;
+import org.drools.core.util.index.LeftTupleIndexRangeRBTree;
 import org.drools.core.util.index.LeftTupleList;
 import org.drools.core.util.index.RightTupleIndexHashTable;
+import org.drools.core.util.index.RightTupleIndexRBTree;
+import org.drools.core.util.index.RightTupleIndexRangeRBTree;
 import org.drools.core.util.index.RightTupleList;
 import org.drools.core.impl.KnowledgeBaseImpl;
 import org.drools.core.impl.StatefulKnowledgeSessionImpl;
 import org.drools.core.rule.IndexableConstraint;
 import org.junit.Test;
+import org.kie.api.KieBaseConfiguration;
 import org.kie.api.runtime.rule.Row;
 import org.kie.api.runtime.rule.Variable;
 import org.kie.api.runtime.rule.ViewChangedEventListener;
@@ -623,4 +629,220 @@ public class IndexingTest extends CommonTestMethodBase {
 
         ksession.fireAllRules();
     }
+
+    @Test(timeout=10000)
+    public void testComparisonIndexOnJoinNode() {
+        String str = "import org.drools.compiler.*;\n" +
+                "global java.util.List list\n" +
+                "rule R1 when\n" +
+                "   $p : Person( $age : age )\n" +
+                "   $c : Cheese( price > $age )\n" +
+                "then\n" +
+                "   list.add( $p.getName() + \":\" + $c.getType() );\n" +
+                "end\n";
+
+        KnowledgeBase kbase = loadKnowledgeBaseWithBetaRangeIndex( true, str );
+        BetaMemory bm = getJoinNodeMemory( kbase );
+        assertTrue( bm.getLeftTupleMemory() instanceof LeftTupleIndexRBTree );
+        assertTrue( bm.getRightTupleMemory() instanceof RightTupleIndexRBTree );
+
+        assertEquals( runJoinScenario( loadKnowledgeBaseWithBetaRangeIndex( false, str ) ),
+                      runJoinScenario( kbase ) );
+    }
+
+    @Test(timeout=10000)
+    public void testRangeIndexOnJoinNode() {
+        String str = "import org.drools.compiler.*;\n" +
+                "global java.util.List list\n" +
+                "rule R1 when\n" +
+                "   $p : Person( $age : age, $doubleAge : doubleAge )\n" +
+                "   $c : Cheese( price > $age && < $doubleAge )\n" +
+                "then\n" +
+                "   list.add( $p.getName() + \":\" + $c.getType() );\n" +
+                "end\n";
+
+        KnowledgeBase kbase = loadKnowledgeBaseWithBetaRangeIndex( true, str );
+        BetaMemory bm = getJoinNodeMemory( kbase );
+        assertTrue( bm.getLeftTupleMemory() instanceof LeftTupleIndexRangeRBTree );
+        assertTrue( bm.getRightTupleMemory() instanceof RightTupleIndexRangeRBTree );
+
+        assertEquals( runJoinScenario( loadKnowledgeBaseWithBetaRangeIndex( false, str ) ),
+                      runJoinScenario( kbase ) );
+    }
+
+    @Test(timeout=10000)
+    public void testRangeIndexOnNotNode() {
+        String str = "import org.drools.compiler.*;\n" +
+                "global java.util.List list\n" +
+                "rule R1 when\n" +
+                "   $p : Person( $age : age, $doubleAge : doubleAge )\n" +
+                "   not Cheese( price > $age && < $doubleAge )\n" +
+                "then\n" +
+                "   list.add( $p.getName() );\n" +
+                "end\n";
+
+        KnowledgeBase kbase = loadKnowledgeBaseWithBetaRangeIndex( true, str );
+        BetaMemory bm = getJoinNodeMemory( kbase );
+        assertTrue( bm.getLeftTupleMemory() instanceof LeftTupleIndexRangeRBTree );
+        assertTrue( bm.getRightTupleMemory() instanceof RightTupleIndexRangeRBTree );
+
+        assertEquals( runJoinScenario( loadKnowledgeBaseWithBetaRangeIndex( false, str ) ),
+                      runJoinScenario( kbase ) );
+    }
+
+    @Test(timeout=10000)
+    public void testComparisonIndexWithNullValues() {
+        String str = "import org.drools.compiler.*;\n" +
+                "global java.util.List list\n" +
+                "rule R1 when\n" +
+                "   $p : Person( $likes : likes )\n" +
+                "   $c : Cheese( type > $likes )\n" +
+                "then\n" +
+                "   list.add( $p.getName() + \":\" + $c.getType() );\n" +
+                "end\n";
+
+        KnowledgeBase kbase = loadKnowledgeBaseWithBetaRangeIndex( true, str );
+        BetaMemory bm = getJoinNodeMemory( kbase );
+        assertTrue( bm.getLeftTupleMemory() instanceof LeftTupleIndexRBTree );
+        assertTrue( bm.getRightTupleMemory() instanceof RightTupleIndexRBTree );
+
+        assertEquals( runNullValuesScenario( loadKnowledgeBaseWithBetaRangeIndex( false, str ) ),
+                      runNullValuesScenario( kbase ) );
+    }
+
+    @Test(timeout=10000)
+    public void testRangeIndexWithNullValues() {
+        String str = "import org.drools.compiler.*;\n" +
+                "global java.util.List list\n" +
+                "rule R1 when\n" +
+                "   $p : Person( $likes : likes, $name : name )\n" +
+                "   $c : Cheese( type > $likes && < $name )\n" +
+                "then\n" +
+                "   list.add( $p.getName() + \":\" + $c.getType() );\n" +
+                "end\n";
+
+        KnowledgeBase kbase = loadKnowledgeBaseWithBetaRangeIndex( true, str );
+        BetaMemory bm = getJoinNodeMemory( kbase );
+        assertTrue( bm.getLeftTupleMemory() instanceof LeftTupleIndexRangeRBTree );
+        assertTrue( bm.getRightTupleMemory() instanceof RightTupleIndexRangeRBTree );
+
+        assertEquals( runNullValuesScenario( loadKnowledgeBaseWithBetaRangeIndex( false, str ) ),
+                      runNullValuesScenario( kbase ) );
+    }
+
+    private KnowledgeBase loadKnowledgeBaseWithBetaRangeIndex(boolean enabled, String drl) {
+        KieBaseConfiguration kconf = KnowledgeBaseFactory.newKnowledgeBaseConfiguration();
+        kconf.setProperty( "drools.betaRangeIndex", Boolean.toString( enabled ) );
+        return loadKnowledgeBaseFromString( kconf, drl );
+    }
+
+    private BetaMemory getJoinNodeMemory(KnowledgeBase kbase) {
+        ObjectTypeNode node = getObjectTypeNode( kbase, Person.class );
+        LeftInputAdapterNode liaNode = (LeftInputAdapterNode) node.getSinkPropagator().getSinks()[0];
+        BetaNode betaNode = (BetaNode) liaNode.getSinkPropagator().getSinks()[0];
+        ReteooWorkingMemoryInterface wm = ((StatefulKnowledgeSessionImpl) kbase.newStatefulKnowledgeSession());
+        return (BetaMemory) wm.getNodeMemory( betaNode );
+    }
+
+    private List<List<String>> runJoinScenario(KnowledgeBase kbase) {
+        StatefulKnowledgeSession ksession = kbase.newStatefulKnowledgeSession();
+        List<String> list = new ArrayList<String>();
+        ksession.setGlobal( "list", list );
+        List<List<String>> fired = new ArrayList<List<String>>();
+
+        Person p1 = new Person( "p1", 10 );
+        Person p2 = new Person( "p2", 20 );
+        Person p3 = new Person( "p3", 10 );
+        FactHandle fhP1 = ksession.insert( p1 );
+        FactHandle fhP2 = ksession.insert( p2 );
+        FactHandle fhP3 = ksession.insert( p3 );
+
+        Cheese c1 = new Cheese( "c1", 5 );
+        Cheese c2 = new Cheese( "c2", 15 );
+        Cheese c3 = new Cheese( "c3", 25 );
+        Cheese c4 = new Cheese( "c4", 15 );
+        ksession.insert( c1 );
+        FactHandle fhC2 = ksession.insert( c2 );
+        FactHandle fhC3 = ksession.insert( c3 );
+        ksession.insert( c4 );
+        fired.add( fire( ksession, list ) );
+
+        c1.setPrice( 30 );
+        ksession.update( ksession.getFactHandle( c1 ), c1 );
+        fired.add( fire( ksession, list ) );
+
+        p2.setAge( 1 );
+        ksession.update( fhP2, p2 );
+        fired.add( fire( ksession, list ) );
+
+        // modify both sides in the same evaluation
+        p3.setAge( 12 );
+        ksession.update( fhP3, p3 );
+        c2.setPrice( 13 );
+        ksession.update( fhC2, c2 );
+        fired.add( fire( ksession, list ) );
+
+        ksession.delete( fhC3 );
+        fired.add( fire( ksession, list ) );
+
+        c2.setPrice( 10 );
+        ksession.update( fhC2, c2 );
+        fired.add( fire( ksession, list ) );
+
+        ksession.delete( fhP1 );
+        fired.add( fire( ksession, list ) );
+
+        ksession.dispose();
+        return fired;
+    }
+
+    private List<List<String>> runNullValuesScenario(KnowledgeBase kbase) {
+        StatefulKnowledgeSession ksession = kbase.newStatefulKnowledgeSession();
+        List<String> list = new ArrayList<String>();
+        ksession.setGlobal( "list", list );
+        List<List<String>> fired = new ArrayList<List<String>>();
+
+        Person p1 = new Person( "z1" );
+        p1.setLikes( "b" );
+        Person p2 = new Person( "z2" );
+        p2.setLikes( null );
+        FactHandle fhP1 = ksession.insert( p1 );
+        FactHandle fhP2 = ksession.insert( p2 );
+
+        Cheese c1 = new Cheese( "c", 5 );
+        Cheese c2 = new Cheese( null, 5 );
+        Cheese c3 = new Cheese( "a", 5 );
+        ksession.insert( c1 );
+        FactHandle fhC2 = ksession.insert( c2 );
+        ksession.insert( c3 );
+        fired.add( fire( ksession, list ) );
+
+        // from a null value to a comparable one and back
+        c2.setType( "d" );
+        ksession.update( fhC2, c2 );
+        p2.setLikes( "a" );
+        ksession.update( fhP2, p2 );
+        fired.add( fire( ksession, list ) );
+
+        c2.setType( null );
+        ksession.update( fhC2, c2 );
+        p1.setLikes( null );
+        ksession.update( fhP1, p1 );
+        fired.add( fire( ksession, list ) );
+
+        ksession.delete( fhC2 );
+        ksession.delete( fhP1 );
+        fired.add( fire( ksession, list ) );
+
+        ksession.dispose();
+        return fired;
+    }
+
+    private List<String> fire(StatefulKnowledgeSession ksession, List<String> list) {
+        ksession.fireAllRules();
+        List<String> fired = new ArrayList<String>( list );
+        Collections.sort( fired );
+        list.clear();
+        return fired;
+    }
 }
@@ -1,23 +1,49 @@
 package org.drools.compiler.integrationtests;
 
 import org.drools.compiler.kie.builder.impl.InternalKieModule;
+import org.drools.compiler.kie.builder.impl.KieBaseImage;
+import org.drools.compiler.kie.builder.impl.KieContainerImpl;
+import org.drools.compiler.kie.builder.impl.MemoryKieModule;
+import org.drools.compiler.StockTick;
+import org.drools.core.impl.InternalKnowledgeBase;
+import org.drools.core.impl.StatefulKnowledgeSessionImpl;
+import org.drools.core.impl.StatefulSessionPool;
+import org.drools.core.time.SessionPseudoClock;
 import org.drools.core.util.FileManager;
 import org.junit.Assert;
 import org.junit.Test;
+import org.kie.api.KieBase;
+import org.kie.api.KieBaseConfiguration;
 import org.kie.api.KieServices;
 import org.kie.api.builder.KieModule;
 import org.kie.api.builder.ReleaseId;
 import org.kie.api.definition.type.FactType;
+import org.kie.api.event.rule.AfterMatchFiredEvent;
+import org.kie.api.event.rule.AgendaEventListener;
+import org.kie.api.event.rule.DefaultAgendaEventListener;
+import org.kie.api.event.rule.DefaultRuleRuntimeEventListener;
+import org.kie.api.event.rule.RuleRuntimeEventListener;
 import org.kie.api.runtime.KieContainer;
 import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.KieSessionConfiguration;
+import org.kie.api.runtime.conf.ClockTypeOption;
+import org.kie.api.runtime.rule.FactHandle;
 
 import java.io.File;
 import java.lang.reflect.Constructor;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.drools.compiler.integrationtests.IncrementalCompilationTest.createAndDeployJar;
 
 public class KieContainerTest {
@@ -185,6 +211,290 @@ public class KieContainerTest {
         }
     }
 
+    @Test
+    public void testKieBaseFromImage() throws Exception {
+        KieServices ks = KieServices.Factory.get();
+        ReleaseId releaseId = ks.newReleaseId("org.kie", "test-image", "1.0.0");
+        MemoryKieModule km = (MemoryKieModule) createAndDeployJar( ks, releaseId, createDRL("ruleFromImage") );
+
+        // stores in the kjar the image of a KieBase built with another configuration, to check that it is used
+        KieContainerImpl kieContainer = (KieContainerImpl) ks.newKieContainer(releaseId);
+        String kieBaseName = kieContainer.getKieProject().getDefaultKieBaseModel().getName();
+        KieBaseConfiguration conf = ks.newKieBaseConfiguration();
+        conf.setProperty( "drools.nodeProfiling", "true" );
+        KieBaseImage.writeImage( km.getMemoryFileSystem(), kieContainer.getKieProject(), kieBaseName, kieContainer.newKieBase(conf) );
+
+        KieContainer imageContainer = ks.newKieContainer(releaseId);
+        assertTrue( ((InternalKnowledgeBase) imageContainer.getKieBase()).getConfiguration().isNodeProfiling() );
+        KieSession kieSession = imageContainer.newKieSession();
+        List<String> list = new ArrayList<String>();
+        kieSession.setGlobal("list", list);
+        kieSession.fireAllRules();
+        kieSession.dispose();
+
+        assertEquals(1, list.size());
+        assertEquals("ruleFromImage", list.get(0));
+    }
+
+    @Test
+    public void testStaleKieBaseImage() throws Exception {
+        KieServices ks = KieServices.Factory.get();
+        ReleaseId releaseId1 = ks.newReleaseId("org.kie", "test-stale-image", "1.0.0");
+        createAndDeployJar( ks, releaseId1, createDRL("ruleFromImage") );
+        ReleaseId releaseId2 = ks.newReleaseId("org.kie", "test-stale-image", "1.0.1");
+        MemoryKieModule km2 = (MemoryKieModule) createAndDeployJar( ks, releaseId2, createDRL("ruleFromDrl") );
+
+        // stores in the second kjar the image of the KieBase built from the first one
+        KieContainerImpl kieContainer1 = (KieContainerImpl) ks.newKieContainer(releaseId1);
+        String kieBaseName = kieContainer1.getKieProject().getDefaultKieBaseModel().getName();
+        KieBaseImage.writeImage( km2.getMemoryFileSystem(), kieContainer1.getKieProject(), kieBaseName, kieContainer1.getKieBase() );
+
+        // the image is rejected and the KieBase is built from the DRL of the second kjar
+        KieSession kieSession = ks.newKieContainer(releaseId2).newKieSession();
+        List<String> list = new ArrayList<String>();
+        kieSession.setGlobal("list", list);
+        kieSession.fireAllRules();
+        kieSession.dispose();
+
+        assertEquals(1, list.size());
+        assertEquals("ruleFromDrl", list.get(0));
+    }
+
+    @Test
+    public void testSessionPool() throws Exception {
+        KieServices ks = KieServices.Factory.get();
+        ReleaseId releaseId = ks.newReleaseId("org.kie", "test-pool", "1.0.0");
+        createAndDeployJar( ks, releaseId, createDRL("rule1") );
+
+        KieContainerImpl kieContainer = (KieContainerImpl) ks.newKieContainer(releaseId);
+        String kieSessionName = kieContainer.getKieProject().getDefaultKieSession().getName();
+        StatefulSessionPool pool = kieContainer.newSessionPool(kieSessionName, 0, 1);
+
+        KieSession kieSession = pool.borrow();
+        List<String> list = new ArrayList<String>();
+        kieSession.setGlobal("list", list);
+        kieSession.insert("test");
+        kieSession.fireAllRules();
+        assertEquals(1, list.size());
+        pool.release((StatefulKnowledgeSessionImpl) kieSession);
+        assertEquals(1, pool.getIdleCount());
+
+        try {
+            pool.release((StatefulKnowledgeSessionImpl) kieSession);
+            fail("An idle session can't be released again");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        assertEquals(1, pool.getIdleCount());
+
+        // the released session has been reset and can be used again
+        KieSession pooledSession = pool.borrow();
+        assertSame(kieSession, pooledSession);
+        assertEquals(0, pooledSession.getFactCount());
+        list = new ArrayList<String>();
+        pooledSession.setGlobal("list", list);
+        pooledSession.fireAllRules();
+        assertEquals(1, list.size());
+
+        assertEquals(1, pool.getHits());
+        assertEquals(1, pool.getMisses());
+        assertEquals(1, pool.getCreatedCount());
+
+        pool.release((StatefulKnowledgeSessionImpl) pooledSession);
+        pool.close();
+        assertEquals(0, pool.getIdleCount());
+    }
+
+    @Test(timeout = 20000)
+    public void testSessionPoolWithMinIdle() throws Exception {
+        KieServices ks = KieServices.Factory.get();
+        ReleaseId releaseId = ks.newReleaseId("org.kie", "test-pool-min-idle", "1.0.0");
+        createAndDeployJar( ks, releaseId, createDRL("rule1") );
+
+        KieContainerImpl kieContainer = (KieContainerImpl) ks.newKieContainer(releaseId);
+        String kieSessionName = kieContainer.getKieProject().getDefaultKieSession().getName();
+        StatefulSessionPool pool = kieContainer.newSessionPool(kieSessionName, 1, 2);
+
+        // the idle sessions are created in background
+        waitForIdleSessions(pool, 1);
+        KieSession kieSession = pool.borrow();
+        assertEquals(1, pool.getHits());
+        assertEquals(0, pool.getMisses());
+        waitForIdleSessions(pool, 1);
+
+        final List<String> fired = new ArrayList<String>();
+        AgendaEventListener agendaListener = new DefaultAgendaEventListener() {
+            public void afterMatchFired(AfterMatchFiredEvent event) {
+                fired.add(event.getMatch().getRule().getName());
+            }
+        };
+        RuleRuntimeEventListener ruleRuntimeListener = new DefaultRuleRuntimeEventListener();
+        kieSession.addEventListener(agendaListener);
+        kieSession.addEventListener(ruleRuntimeListener);
+        kieSession.setGlobal("list", new ArrayList<String>());
+        kieSession.fireAllRules();
+        assertEquals(1, fired.size());
+
+        pool.release((StatefulKnowledgeSessionImpl) kieSession);
+        assertEquals(2, pool.getIdleCount());
+        // the listeners added by the borrower are removed
+        assertFalse(kieSession.getAgendaEventListeners().contains(agendaListener));
+        assertFalse(kieSession.getRuleRuntimeEventListeners().contains(ruleRuntimeListener));
+
+        // the session created in background is borrowed first
+        KieSession refilledSession = pool.borrow();
+        assertNotSame(kieSession, refilledSession);
+        KieSession pooledSession = pool.borrow();
+        assertSame(kieSession, pooledSession);
+        assertEquals(3, pool.getHits());
+        assertEquals(0, pool.getMisses());
+
+        pooledSession.setGlobal("list", new ArrayList<String>());
+        pooledSession.fireAllRules();
+        assertEquals(1, fired.size());
+
+        try {
+            pool.release((StatefulKnowledgeSessionImpl) kieContainer.newKieSession());
+            fail("A session not created by the pool can't be released to it");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        pool.release((StatefulKnowledgeSessionImpl) refilledSession);
+        pool.release((StatefulKnowledgeSessionImpl) pooledSession);
+        pool.close();
+        assertEquals(0, pool.getIdleCount());
+    }
+
+    private void waitForIdleSessions(StatefulSessionPool pool, int idleSessions) throws InterruptedException {
+        while (pool.getIdleCount() < idleSessions) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void testSwapToVersion() throws Exception {
+        String drl1 = "package org.kie.test\n" +
+                      "import org.drools.compiler.StockTick\n" +
+                      "global java.util.List list\n" +
+                      "declare StockTick @role( event ) end\n" +
+                      "rule R1 when\n" +
+                      "   $s : String()\n" +
+                      "then\n" +
+                      "   list.add( \"R1 \" + $s );\n" +
+                      "end\n" +
+                      "rule Timer timer( int: 10s ) when\n" +
+                      "   $s : String()\n" +
+                      "then\n" +
+                      "   list.add( \"Timer \" + $s );\n" +
+                      "end\n" +
+                      "rule After when\n" +
+                      "   $a : StockTick( company == \"A\" )\n" +
+                      "   $b : StockTick( company == \"B\", this after[5s] $a )\n" +
+                      "then\n" +
+                      "   list.add( \"After\" );\n" +
+                      "end\n";
+
+        String drl2 = "package org.kie.test\n" +
+                      "global java.util.List list\n" +
+                      "rule R2 when\n" +
+                      "   $s : String()\n" +
+                      "then\n" +
+                      "   list.add( \"R2 \" + $s );\n" +
+                      "end\n";
+
+        KieServices ks = KieServices.Factory.get();
+        ReleaseId releaseId1 = ks.newReleaseId("org.kie", "test-swap", "1.0.0");
+        createAndDeployJar( ks, releaseId1, drl1 );
+
+        KieContainerImpl kieContainer = (KieContainerImpl) ks.newKieContainer(releaseId1);
+        KieSessionConfiguration conf = ks.newKieSessionConfiguration();
+        conf.setOption( ClockTypeOption.get( "pseudo" ) );
+        KieSession oldSession = kieContainer.newKieSession( conf );
+        assertSame(oldSession, kieContainer.getKieSession());
+        List<String> list = new ArrayList<String>();
+        oldSession.setGlobal("list", list);
+        FactHandle handle = oldSession.insert("test");
+        oldSession.insert(new StockTick(1, "A", 10));
+        assertEquals(1, oldSession.fireAllRules());
+        KieBase oldKieBase = kieContainer.getKieBase();
+
+        ReleaseId releaseId2 = ks.newReleaseId("org.kie", "test-swap", "1.0.1");
+        createAndDeployJar( ks, releaseId2, drl2 );
+        kieContainer.swapToVersion(releaseId2);
+
+        assertEquals(releaseId2, kieContainer.getContainerReleaseId());
+        // the old kbase hasn't been touched ...
+        assertNotNull(oldKieBase.getRule("org.kie.test", "R1"));
+        assertNotSame(oldKieBase, kieContainer.getKieBase());
+        assertNull(kieContainer.getKieBase().getRule("org.kie.test", "R1"));
+
+        // ... and neither has the cached session, whose rules don't fire again while its timers and events go on
+        assertSame(oldSession, kieContainer.getKieSession());
+        assertSame(oldKieBase, oldSession.getKieBase());
+        assertSame(handle, oldSession.getFactHandle("test"));
+        assertEquals(0, oldSession.fireAllRules());
+        SessionPseudoClock clock = oldSession.getSessionClock();
+        clock.advanceTime(10, TimeUnit.SECONDS);
+        oldSession.insert(new StockTick(2, "B", 10));
+        assertEquals(2, oldSession.fireAllRules());
+        assertEquals(3, list.size());
+        assertTrue(list.containsAll(Arrays.asList("R1 test", "Timer test", "After")));
+
+        // a new session must be explicitly created to use the new release
+        KieSession newSession = kieContainer.newKieSession();
+        assertSame(kieContainer.getKieBase(), newSession.getKieBase());
+        List<String> newList = new ArrayList<String>();
+        newSession.setGlobal("list", newList);
+        newSession.insert("test");
+        assertEquals(1, newSession.fireAllRules());
+        assertEquals(Arrays.asList("R2 test"), newList);
+        assertSame(newSession, kieContainer.getKieSession());
+        assertEquals(3, list.size());
+
+        oldSession.dispose();
+        newSession.dispose();
+    }
+
+    @Test
+    public void testSwapToVersionWithErrors() throws Exception {
+        KieServices ks = KieServices.Factory.get();
+        ReleaseId releaseId1 = ks.newReleaseId("org.kie", "test-swap-error", "1.0.0");
+        createAndDeployJar( ks, releaseId1, createDRL("rule1") );
+
+        KieContainerImpl kieContainer = (KieContainerImpl) ks.newKieContainer(releaseId1);
+        KieBase kieBase = kieContainer.getKieBase();
+
+        ReleaseId releaseId2 = ks.newReleaseId("org.kie", "test-swap-error", "1.0.1");
+        // a sliding window can't be used in the CLOUD mode of the default kbase
+        String drl2 = "package org.kie.test\n" +
+                      "import org.drools.compiler.StockTick\n" +
+                      "declare StockTick @role( event ) end\n" +
+                      "rule R when\n" +
+                      "   Number() from accumulate( StockTick() over window:time( 1m ), count( 1 ) )\n" +
+                      "then\n" +
+                      "end\n";
+        createAndDeployJar( ks, releaseId2, drl2 );
+        try {
+            kieContainer.swapToVersion(releaseId2);
+            fail("the KieBase of the new release can't be created");
+        } catch (RuntimeException e) {
+            // expected
+        }
+
+        // the container is still completely on the old release
+        assertEquals(releaseId1, kieContainer.getContainerReleaseId());
+        assertEquals(releaseId1, kieContainer.getReleaseId());
+        assertSame(kieBase, kieContainer.getKieBase());
+
+        KieSession kieSession = kieContainer.newKieSession();
+        List<String> list = new ArrayList<String>();
+        kieSession.setGlobal("list", list);
+        kieSession.fireAllRules();
+        kieSession.dispose();
+        assertEquals(Arrays.asList("rule1"), list);
+    }
+
     private String createDRL(String ruleName) {
         return "package org.kie.test\n" +
                "global java.util.List list\n" +
@@ -11,6 +11,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
+import org.drools.compiler.builder.impl.KnowledgeBuilderConfigurationImpl;
 import org.drools.compiler.compiler.PMMLCompiler;
 import org.drools.compiler.compiler.PMMLCompilerFactory;
 import org.drools.compiler.compiler.PackageRegistry;
@@ -26,6 +27,8 @@ import org.junit.Test;
 import org.kie.internal.KnowledgeBase;
 import org.kie.internal.KnowledgeBaseFactory;
 import org.kie.internal.builder.KnowledgeBuilder;
+import org.kie.internal.builder.KnowledgeBuilderConfiguration;
+import org.kie.internal.builder.KnowledgeBuilderError;
 import org.kie.internal.builder.KnowledgeBuilderFactory;
 import org.kie.internal.builder.KnowledgeBuilderResult;
 import org.kie.internal.definition.KnowledgePackage;
@@ -523,4 +526,36 @@ public class KnowledgeBuilderTest {
 
         }
     }
+
+    @Test
+    public void testParallelBuild() throws Exception {
+        String str1 = "package org.drools.test1;\n" +
+                      "rule R1 when String() then System.out.println( \"R1\" ); end\n";
+        String str2 = "package org.drools.test2;\n" +
+                      "rule R2 when String() then undefinedMethod(); end\n";
+        String str3 = "package org.drools.test3;\n" +
+                      "rule R3 when String( then end\n";
+        String str4 = "package org.drools.test4;\n" +
+                      "rule R4 when Integer() then System.out.println( \"R4\" ); end\n";
+
+        List<String> sequentialErrors = new ArrayList<String>();
+        List<String> parallelErrors = new ArrayList<String>();
+        for ( boolean parallel : new boolean[] { false, true } ) {
+            KnowledgeBuilderConfiguration conf = KnowledgeBuilderFactory.newKnowledgeBuilderConfiguration();
+            conf.setProperty( KnowledgeBuilderConfigurationImpl.PARALLEL_BUILD_PROPERTY, String.valueOf( parallel ) );
+            KnowledgeBuilder kbuilder = KnowledgeBuilderFactory.newKnowledgeBuilder( conf );
+            kbuilder.batch().type( ResourceType.DRL )
+                    .add( ResourceFactory.newByteArrayResource( str1.getBytes() ) )
+                    .add( ResourceFactory.newByteArrayResource( str2.getBytes() ) )
+                    .add( ResourceFactory.newByteArrayResource( str3.getBytes() ) )
+                    .add( ResourceFactory.newByteArrayResource( str4.getBytes() ) )
+                    .build();
+
+            assertTrue( kbuilder.hasErrors() );
+            for ( KnowledgeBuilderError error : kbuilder.getErrors() ) {
+                ( parallel ? parallelErrors : sequentialErrors ).add( error.getMessage() );
+            }
+        }
+        assertEquals( sequentialErrors, parallelErrors );
+    }
 }
@@ -46,7 +46,11 @@ import org.drools.core.facttemplates.FactTemplateImpl;
 import org.drools.core.facttemplates.FieldTemplate;
 import org.drools.core.facttemplates.FieldTemplateImpl;
 import org.drools.core.impl.KnowledgeBaseImpl;
+import org.drools.core.impl.StatefulKnowledgeSessionImpl;
 import org.drools.core.io.impl.ByteArrayResource;
+import org.drools.core.management.KieSessionMonitoringImpl;
+import org.drools.core.phreak.NodeProfiler;
+import org.drools.core.phreak.NodeProfiler.NodeStats;
 import org.drools.core.reteoo.AlphaNode;
 import org.drools.core.reteoo.BetaMemory;
 import org.drools.core.reteoo.JoinNode;
@@ -54,6 +58,8 @@ import org.drools.core.reteoo.LeftInputAdapterNode;
 import org.drools.core.reteoo.LeftTuple;
 import org.drools.core.reteoo.ObjectTypeNode;
 import org.drools.core.reteoo.Rete;
+import org.drools.core.rule.constraint.MvelConstraint;
+import org.drools.core.spi.Activation;
 import org.drools.core.spi.KnowledgeHelper;
 import org.drools.core.spi.Salience;
 import org.drools.core.util.FileManager;
@@ -6843,4 +6849,220 @@ public class Misc2Test extends CommonTestMethodBase {
         assertEquals(2, list.size());
         assertTrue(list.containsAll(asList(3, 6)));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testEagerJitting() throws Exception {
+        String str =
+                "global java.util.List list;\n" +
+                "rule R1 when\n" +
+                "    $s : String( length > 2 )\n" +
+                "then\n" +
+                "    list.add( $s );\n" +
+                "end\n";
+
+        KieBaseConfiguration kbConf = KnowledgeBaseFactory.newKnowledgeBaseConfiguration();
+        kbConf.setProperty( "drools.jittingThreshold", "0" );
+        KnowledgeBase kbase = loadKnowledgeBaseFromString( kbConf, str );
+        StatefulKnowledgeSession ksession = kbase.newStatefulKnowledgeSession();
+        List<String> list = new ArrayList<String>();
+        ksession.setGlobal( "list", list );
+
+        ksession.insert( "abc" );
+        ksession.insert( "a" );
+        ksession.fireAllRules();
+        assertEquals( asList( "abc" ), list );
+
+        MvelConstraint constraint = null;
+        Rete rete = ((KnowledgeBaseImpl)kbase).getRete();
+        for (ObjectTypeNode otn : rete.getObjectTypeNodes()) {
+            if ( String.class == otn.getObjectType().getValueType().getClassType() ) {
+                constraint = (MvelConstraint) ((AlphaNode)otn.getSinkPropagator().getSinks()[0]).getConstraint();
+                break;
+            }
+        }
+
+        // the constraint has been jitted synchronously by its first evaluation
+        assertTrue( constraint.isJitted() );
+    }
+
+    @Test
+    public void testInsertAll() {
+        String drl =
+                "global java.util.List list\n" +
+                "rule R when\n" +
+                "    $i : Integer()\n" +
+                "    $s : String( length == $i )\n" +
+                "then\n" +
+                "    list.add( $s );\n" +
+                "end";
+
+        KieHelper helper = new KieHelper();
+        helper.addContent( drl, ResourceType.DRL );
+        KieSession ksession = helper.build().newKieSession();
+        List<String> list = new ArrayList<String>();
+        ksession.setGlobal( "list", list );
+
+        List<Object> facts = new ArrayList<Object>();
+        facts.add( 3 );
+        facts.add( "abc" );
+        facts.add( "ab" );
+        facts.add( "xyz" );
+        facts.add( new String( "abc" ) );
+
+        List<FactHandle> handles = ((StatefulKnowledgeSessionImpl) ksession).insertAll( facts );
+        assertEquals( facts.size(), handles.size() );
+        for ( int i = 0; i < facts.size(); i++ ) {
+            assertSame( facts.get( i ), ksession.getObject( handles.get( i ) ) );
+        }
+        // a fact inserted twice is given the same handle
+        assertSame( handles.get( 1 ), ((StatefulKnowledgeSessionImpl) ksession).insertAll( asList( facts.get( 1 ) ) ).get( 0 ) );
+        assertEquals( 5, ksession.getFactCount() );
+
+        assertEquals( 3, ksession.fireAllRules() );
+        assertEquals( 3, list.size() );
+        assertFalse( list.contains( "ab" ) );
+    }
+
+    @Test
+    public void testInsertAllPropagationContexts() {
+        String drl =
+                "rule R when\n" +
+                "    $i : Integer()\n" +
+                "then\n" +
+                "end";
+
+        KieHelper helper = new KieHelper();
+        helper.addContent( drl, ResourceType.DRL );
+        KieSession ksession = helper.build().newKieSession();
+
+        final List<String> mismatches = new ArrayList<String>();
+        ksession.addEventListener( new DefaultAgendaEventListener() {
+            public void matchCreated(MatchCreatedEvent event) {
+                // the tuple of each match must keep the context of the insertion of its own fact
+                LeftTuple tuple = ((Activation) event.getMatch()).getTuple();
+                if ( tuple.getPropagationContext().getFactHandle() != tuple.getHandle() ) {
+                    mismatches.add( "" + tuple.getHandle().getObject() );
+                }
+            }
+        } );
+
+        ((StatefulKnowledgeSessionImpl) ksession).insertAll( asList( 1, 2, 3 ) );
+        assertEquals( 3, ksession.fireAllRules() );
+        assertTrue( mismatches.toString(), mismatches.isEmpty() );
+    }
+
+    @Test
+    public void testNodeProfiling() {
+        String drl =
+                "rule R1 when\n" +
+                "    $i : Integer( this > 0 )\n" +
+                "    $s : String( length == $i )\n" +
+                "then\n" +
+                "end";
+
+        KieBaseConfiguration kconf = KnowledgeBaseFactory.newKnowledgeBaseConfiguration();
+        kconf.setProperty( "drools.nodeProfiling", "true" );
+        KnowledgeBase kbase = loadKnowledgeBaseFromString( kconf, drl );
+        StatefulKnowledgeSession ksession = kbase.newStatefulKnowledgeSession();
+
+        ksession.insert( 1 );
+        ksession.insert( 2 );
+        ksession.insert( 3 );
+        ksession.insert( -1 );
+        ksession.insert( "a" );
+        ksession.insert( "x" );
+        ksession.insert( "bb" );
+        ksession.insert( "cc" );
+        assertEquals( 4, ksession.fireAllRules() );
+
+        NodeProfiler profiler = ((StatefulKnowledgeSessionImpl) ksession).getNodeProfiler();
+        NodeStats alphaStats = null;
+        NodeStats joinStats = null;
+        for ( NodeStats stats : profiler.getAllStats() ) {
+            if ( stats.getNode() instanceof AlphaNode ) {
+                alphaStats = stats;
+            } else if ( stats.getNode() instanceof JoinNode ) {
+                joinStats = stats;
+            }
+        }
+        assertEquals( 4, alphaStats.evaluations );
+        assertEquals( 3, alphaStats.tuplesOut );
+        assertEquals( 3, joinStats.leftTuplesIn );
+        assertEquals( 4, joinStats.rightTuplesIn );
+        assertEquals( 4, joinStats.tuplesOut );
+        assertEquals( 3, joinStats.indexedLookups );
+        assertEquals( 0, joinStats.scans );
+        assertTrue( joinStats.getRuleNames().contains( "R1" ) );
+        assertTrue( profiler.dump().contains( "JoinNode[" + joinStats.getNode().getId() + "] rules=[R1]" ) );
+    }
+
+    @Test
+    public void testNodeProfilingAlphaOnUpdate() {
+        String drl =
+                "rule R1 when\n" +
+                "    Integer( this > 0 )\n" +
+                "then\n" +
+                "end";
+
+        KieBaseConfiguration kconf = KnowledgeBaseFactory.newKnowledgeBaseConfiguration();
+        kconf.setProperty( "drools.nodeProfiling", "true" );
+        KnowledgeBase kbase = loadKnowledgeBaseFromString( kconf, drl );
+        StatefulKnowledgeSession ksession = kbase.newStatefulKnowledgeSession();
+
+        FactHandle positive = ksession.insert( 1 );
+        FactHandle negative = ksession.insert( -1 );
+        ksession.update( negative, 4 );
+        ksession.update( positive, -2 );
+        assertEquals( 1, ksession.fireAllRules() );
+
+        NodeStats alphaStats = null;
+        for ( NodeStats stats : ((StatefulKnowledgeSessionImpl) ksession).getNodeProfiler().getAllStats() ) {
+            if ( stats.getNode() instanceof AlphaNode ) {
+                alphaStats = stats;
+            }
+        }
+        // both the inserts and the updates evaluate the alpha constraint
+        assertEquals( 4, alphaStats.evaluations );
+        assertEquals( 2, alphaStats.tuplesOut );
+    }
+
+    @Test
+    public void testRuleEvaluationStats() {
+        String drl =
+                "rule R1 when\n" +
+                "    $i : Integer( this > 0 )\n" +
+                "    $s : String( length == $i )\n" +
+                "then\n" +
+                "end\n" +
+                "rule R2 when\n" +
+                "    Long()\n" +
+                "then\n" +
+                "end";
+
+        KieBaseConfiguration kconf = KnowledgeBaseFactory.newKnowledgeBaseConfiguration();
+        kconf.setProperty( "drools.ruleEvaluationThreshold", "60000" );
+        KnowledgeBase kbase = loadKnowledgeBaseFromString( kconf, drl );
+        StatefulKnowledgeSession ksession = kbase.newStatefulKnowledgeSession();
+
+        ksession.insert( 1 );
+        ksession.insert( 2 );
+        ksession.insert( 3 );
+        ksession.insert( -1 );
+        ksession.insert( "a" );
+        ksession.insert( "bb" );
+        assertEquals( 2, ksession.fireAllRules() );
+
+        KieSessionMonitoringImpl monitor = new KieSessionMonitoringImpl( (StatefulKnowledgeSessionImpl) ksession );
+        try {
+            assertTrue( monitor.getEvaluationStatsForRule( "R1" ).startsWith( "evaluations=1 tuplesIn=3 " ) );
+            assertTrue( monitor.getEvaluationStatsForRule( "R1" ).endsWith( " slowEvaluations=0" ) );
+            assertTrue( monitor.getEvaluationStatsForRule( "R2" ).startsWith( "evaluations=0 " ) );
+            assertEquals( 1, monitor.getEvaluationStatsByRule().size() );
+
+            monitor.reset();
+            assertTrue( monitor.getEvaluationStatsForRule( "R1" ).startsWith( "evaluations=0 tuplesIn=0 " ) );
+        } finally {
+            monitor.dispose();
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package org.drools.compiler.integrationtests;
+
+import org.drools.compiler.CommonTestMethodBase;
+import org.drools.core.common.InternalAgenda;
+import org.drools.core.common.InternalAgendaGroup;
+import org.drools.core.impl.StatefulKnowledgeSessionImpl;
+import org.drools.core.phreak.ParallelRuleEvaluator;
+import org.drools.core.phreak.RuleAgendaItem;
+import org.drools.core.spi.Activation;
+import org.junit.Test;
+import org.kie.api.KieBaseConfiguration;
+import org.kie.api.event.rule.DefaultAgendaEventListener;
+import org.kie.internal.KnowledgeBase;
+import org.kie.internal.KnowledgeBaseFactory;
+import org.kie.internal.conf.MaxThreadsOption;
+import org.kie.internal.conf.MultithreadEvaluationOption;
+import org.kie.internal.runtime.StatefulKnowledgeSession;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MultithreadEvaluationTest extends CommonTestMethodBase {
+
+    private static final int RULES_NR = 20;
+
+    private String getIndependentRules() {
+        StringBuilder sb = new StringBuilder();
+        sb.append( "global java.util.List list;\n" );
+        for ( int i = 0; i < RULES_NR; i++ ) {
+            sb.append( "rule R" ).append( i ).append( " when\n" )
+              .append( "    $i : Integer( intValue == " ).append( i ).append( " )\n" )
+              .append( "    $s : String( length == $i )\n" )
+              .append( "then\n" )
+              .append( "    list.add( \"R" ).append( i ).append( "\" );\n" )
+              .append( "end\n" );
+        }
+        return sb.toString();
+    }
+
+    private KnowledgeBase getKnowledgeBase(boolean multithread, String drl) {
+        KieBaseConfiguration kconf = KnowledgeBaseFactory.newKnowledgeBaseConfiguration();
+        kconf.setOption( multithread ? MultithreadEvaluationOption.YES : MultithreadEvaluationOption.NO );
+        kconf.setOption( MaxThreadsOption.get( 4 ) );
+        return loadKnowledgeBaseFromString( kconf, drl );
+    }
+
+    private List<String> fire(KnowledgeBase kbase) {
+        StatefulKnowledgeSession ksession = kbase.newStatefulKnowledgeSession();
+        List<String> list = Collections.synchronizedList( new ArrayList<String>() );
+        ksession.setGlobal( "list", list );
+
+        String s = "";
+        for ( int i = 0; i < RULES_NR; i++ ) {
+            ksession.insert( i );
+            ksession.insert( s );
+            s += "x";
+        }
+        ksession.fireAllRules();
+        ksession.dispose();
+        return list;
+    }
+
+    @Test(timeout = 10000)
+    public void testParallelEvaluationFiresSameMatches() {
+        String drl = getIndependentRules();
+
+        List<String> expected = fire( getKnowledgeBase( false, drl ) );
+        List<String> actual = fire( getKnowledgeBase( true, drl ) );
+
+        assertEquals( RULES_NR, expected.size() );
+        Collections.sort( expected );
+        Collections.sort( actual );
+        assertEquals( expected, actual );
+    }
+
+    @Test(timeout = 10000)
+    public void testParallelEvaluationWithSharedSegments() {
+        String drl =
+                "global java.util.List list;\n" +
+                "rule R1 when\n" +
+                "    $i : Integer( intValue > 0 )\n" +
+                "    $s : String( length == $i )\n" +
+                "then\n" +
+                "    list.add( \"R1\" );\n" +
+                "end\n" +
+                "rule R2 when\n" +
+                "    $i : Integer( intValue > 0 )\n" +
+                "    $s : String( length == $i )\n" +
+                "    Long()\n" +
+                "then\n" +
+                "    list.add( \"R2\" );\n" +
+                "end\n" +
+                "rule R3 when\n" +
+                "    Double()\n" +
+                "then\n" +
+                "    list.add( \"R3\" );\n" +
+                "end\n";
+
+        KnowledgeBase kbase = getKnowledgeBase( true, drl );
+        StatefulKnowledgeSession ksession = kbase.newStatefulKnowledgeSession();
+        List<String> list = new ArrayList<String>();
+        ksession.setGlobal( "list", list );
+
+        ksession.insert( 1 );
+        ksession.insert( "x" );
+        ksession.insert( 1L );
+        ksession.insert( 1.0 );
+
+        InternalAgendaGroup group = (InternalAgendaGroup) ((InternalAgenda) ((StatefulKnowledgeSessionImpl) ksession).getAgenda()).getNextFocus();
+        List<RuleAgendaItem> items = new ArrayList<RuleAgendaItem>();
+        for ( Activation activation : group.getActivations() ) {
+            RuleAgendaItem item = (RuleAgendaItem) activation;
+            assertTrue( ParallelRuleEvaluator.isParallelEvaluable( item ) );
+            items.add( item );
+        }
+        assertEquals( 3, items.size() );
+
+        ParallelRuleEvaluator evaluator = new ParallelRuleEvaluator( 2 );
+        evaluator.evaluate( group, (StatefulKnowledgeSessionImpl) ksession );
+        for ( RuleAgendaItem item : items ) {
+            assertFalse( item.getRuleExecutor().isDirty() );
+            assertEquals( 1, item.getRuleExecutor().getLeftTupleList().size() );
+        }
+
+        assertEquals( 3, ksession.fireAllRules() );
+        assertEquals( 3, list.size() );
+    }
+
+    @Test(timeout = 10000)
+    public void testFallbackToSerialEvaluationWithAgendaListeners() {
+        String drl = getIndependentRules();
+
+        KnowledgeBase kbase = getKnowledgeBase( true, drl );
+        StatefulKnowledgeSession ksession = kbase.newStatefulKnowledgeSession();
+        final List<String> created = new ArrayList<String>();
+        ksession.addEventListener( new DefaultAgendaEventListener() {
+            public void matchCreated(org.kie.api.event.rule.MatchCreatedEvent event) {
+                created.add( event.getMatch().getRule().getName() );
+            }
+        } );
+        List<String> list = new ArrayList<String>();
+        ksession.setGlobal( "list", list );
+
+        String s = "";
+        for ( int i = 0; i < RULES_NR; i++ ) {
+            ksession.insert( i );
+            ksession.insert( s );
+            s += "x";
+        }
+        assertEquals( RULES_NR, ksession.fireAllRules() );
+        assertEquals( RULES_NR, created.size() );
+    }
+
+    @Test(timeout = 10000)
+    public void testAddRemoveRuleWithManySessions() {
+        String drl1 =
+                "package org.drools.test\n" +
+                "global java.util.List list;\n" +
+                "rule R1 when\n" +
+                "    $i : Integer()\n" +
+                "    $s : String( length == $i )\n" +
+                "then\n" +
+                "    list.add( \"R1\" );\n" +
+                "end\n";
+        String drl2 =
+                "package org.drools.test\n" +
+                "global java.util.List list;\n" +
+                "rule R2 when\n" +
+                "    $i : Integer()\n" +
+                "    $s : String( length == $i )\n" +
+                "    Long()\n" +
+                "then\n" +
+                "    list.add( \"R2\" );\n" +
+                "end\n";
+
+        KnowledgeBase kbase = getKnowledgeBase( true, drl1 );
+        List<StatefulKnowledgeSession> ksessions = new ArrayList<StatefulKnowledgeSession>();
+        List<List<String>> lists = new ArrayList<List<String>>();
+        for ( int i = 0; i < 6; i++ ) {
+            StatefulKnowledgeSession ksession = kbase.newStatefulKnowledgeSession();
+            List<String> list = new ArrayList<String>();
+            ksession.setGlobal( "list", list );
+            ksession.insert( 1 );
+            ksession.insert( "x" );
+            ksession.insert( 1L );
+            assertEquals( 1, ksession.fireAllRules() );
+            ksessions.add( ksession );
+            lists.add( list );
+        }
+
+        // the new rule shares the segment of R1, so the segment is split in every session
+        kbase.addKnowledgePackages( loadKnowledgePackagesFromString( drl2 ) );
+        for ( int i = 0; i < ksessions.size(); i++ ) {
+            assertEquals( 1, ksessions.get( i ).fireAllRules() );
+            assertEquals( "R2", lists.get( i ).get( 1 ) );
+        }
+
+        kbase.removeRule( "org.drools.test", "R2" );
+        for ( int i = 0; i < ksessions.size(); i++ ) {
+            StatefulKnowledgeSession ksession = ksessions.get( i );
+            ksession.insert( "y" );
+            assertEquals( 1, ksession.fireAllRules() );
+            assertEquals( 3, lists.get( i ).size() );
+            assertEquals( "R1", lists.get( i ).get( 2 ) );
+            ksession.dispose();
+        }
+    }
+}
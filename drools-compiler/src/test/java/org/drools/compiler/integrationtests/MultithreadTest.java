@@ -20,6 +20,7 @@ package org.drools.compiler.integrationtests;
 
 import org.drools.compiler.CommonTestMethodBase;
 import org.drools.compiler.StockTick;
+import org.drools.core.common.InternalWorkingMemoryEntryPoint;
 import org.junit.Ignore;
 import org.junit.Test;
 import org.kie.api.KieBaseConfiguration;
@@ -113,6 +114,63 @@ public class MultithreadTest extends CommonTestMethodBase {
         ksession.dispose();
     }
 
+    @Test(timeout = 10000)
+    public void testConcurrentStagedInsertions() {
+        String str = "import org.drools.compiler.integrationtests.MultithreadTest.Bean\n" +
+                     "\n" +
+                     "rule \"R\"\n" +
+                     "when\n" +
+                     "    $a : Bean( seed != 1 )\n" +
+                     "then\n" +
+                     "end";
+
+        KnowledgeBase kbase = loadKnowledgeBaseFromString(str);
+        final StatefulKnowledgeSession ksession = kbase.newStatefulKnowledgeSession();
+        final InternalWorkingMemoryEntryPoint ep = (InternalWorkingMemoryEntryPoint) ksession.getEntryPoint("DEFAULT");
+
+        Executor executor = Executors.newCachedThreadPool(new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r);
+                t.setDaemon(true);
+                return t;
+            }
+        });
+
+        final int OBJECT_NR = 1000;
+        final int THREAD_NR = 4;
+
+        CompletionService<Boolean> ecs = new ExecutorCompletionService<Boolean>(executor);
+        for (int i = 0; i < THREAD_NR; i++) {
+            final int offset = i * OBJECT_NR;
+            ecs.submit(new Callable<Boolean>() {
+                public Boolean call() throws Exception {
+                    try {
+                        for (int i = 0; i < OBJECT_NR; i++) ep.stageInsert(new Bean(offset + i));
+                        return true;
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                        return false;
+                    }
+                }
+            });
+        }
+
+        boolean success = true;
+        for (int i = 0; i < THREAD_NR; i++) {
+            try {
+                success = ecs.take().get() && success;
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+        assertTrue(success);
+
+        // the staged beans are inserted by the thread firing the rules
+        assertEquals(THREAD_NR * OBJECT_NR - 1, ksession.fireAllRules());
+        assertEquals(THREAD_NR * OBJECT_NR, ksession.getFactCount());
+        ksession.dispose();
+    }
+
     public static class Bean {
 
         private int seed;
@@ -1029,4 +1029,47 @@ public class QueryTest extends CommonTestMethodBase {
 
         assertEquals( Arrays.asList( "aa", "bb" ), list );
     }
+
+    @Test
+    public void testStreamQueryResults() {
+        String drl =
+                "query lengths( int $min )\n" +
+                "    $s : String( length >= $min )\n" +
+                "end\n";
+
+        KieHelper helper = new KieHelper();
+        helper.addContent( drl, ResourceType.DRL );
+        KieSession ksession = helper.build().newKieSession();
+        for ( int i = 0; i < 100; i++ ) {
+            ksession.insert( "s" + i );
+        }
+
+        final List<String> rows = new ArrayList<String>();
+        ViewChangedEventListener listener = new ViewChangedEventListener() {
+            public void rowInserted(Row row) {
+                rows.add( (String) row.get( "$s" ) );
+            }
+
+            public void rowDeleted(Row row) {
+            }
+
+            public void rowUpdated(Row row) {
+            }
+        };
+
+        StatefulKnowledgeSessionImpl session = (StatefulKnowledgeSessionImpl) ksession;
+        assertEquals( 10, session.streamQueryResults( "lengths", 10, listener, 3 ) );
+        assertEquals( 10, rows.size() );
+        for ( String row : rows ) {
+            assertTrue( row.length() >= 3 );
+        }
+
+        rows.clear();
+        assertEquals( 90, session.streamQueryResults( "lengths", -1, listener, 3 ) );
+        assertEquals( 90, rows.size() );
+
+        // the query isn't left open
+        ksession.insert( "s100" );
+        assertEquals( 90, rows.size() );
+    }
 }
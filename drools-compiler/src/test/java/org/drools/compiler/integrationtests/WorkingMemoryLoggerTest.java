@@ -1,11 +1,19 @@
 package org.drools.compiler.integrationtests;
 
 import org.drools.compiler.CommonTestMethodBase;
+import org.drools.core.audit.WorkingMemoryBinaryLogReader;
+import org.drools.core.audit.WorkingMemoryBinaryLogger;
 import org.drools.core.audit.WorkingMemoryFileLogger;
+import org.drools.core.audit.event.ActivationLogEvent;
+import org.drools.core.audit.event.LogEvent;
+import org.drools.core.audit.event.ObjectLogEvent;
 import org.junit.Test;
 import org.kie.internal.KnowledgeBase;
 import org.kie.internal.runtime.StatefulKnowledgeSession;
 
+import java.io.File;
+import java.util.List;
+
 public class WorkingMemoryLoggerTest extends CommonTestMethodBase {
     private static final String LOG = "session";
 
@@ -21,4 +29,49 @@ public class WorkingMemoryLoggerTest extends CommonTestMethodBase {
         }
     }
 
+    @Test(timeout = 10000)
+    public void testBinaryLogger() throws Exception {
+        String drl = "package org.drools.test\n" +
+                     "rule R1 when\n" +
+                     "   $s : String()\n" +
+                     "then\n" +
+                     "end\n";
+        KnowledgeBase kbase = loadKnowledgeBaseFromString( drl );
+        StatefulKnowledgeSession session = createKnowledgeSession( kbase );
+
+        File dir = File.createTempFile( "audit", "" );
+        dir.delete();
+        dir.mkdir();
+        String fileName = new File( dir, LOG ).getPath();
+
+        WorkingMemoryBinaryLogger logger = new WorkingMemoryBinaryLogger( session );
+        logger.setFileName( fileName );
+        // small enough to roll over several files
+        logger.setFileSize( 1024 );
+        for ( int i = 0; i < 100; i++ ) {
+            session.insert( "fact" + i );
+        }
+        assertEquals( 100, session.fireAllRules() );
+        logger.stop();
+        session.dispose();
+
+        List<LogEvent> events = WorkingMemoryBinaryLogReader.readEvents( fileName );
+        int inserted = 0;
+        int fired = 0;
+        for ( LogEvent event : events ) {
+            if ( event.getType() == LogEvent.INSERTED ) {
+                assertEquals( "fact" + inserted, ((ObjectLogEvent) event).getObjectToString() );
+                inserted++;
+            } else if ( event.getType() == LogEvent.AFTER_ACTIVATION_FIRE ) {
+                assertEquals( "R1", ((ActivationLogEvent) event).getRule() );
+                fired++;
+            }
+        }
+        assertEquals( 100, inserted );
+        assertEquals( 100, fired );
+        assertTrue( new File( fileName + "1.bin" ).exists() );
+
+        WorkingMemoryBinaryLogReader.convertToXml( fileName, fileName );
+        assertTrue( new File( fileName + ".log" ).exists() );
+    }
 }
@@ -4,12 +4,16 @@ import static org.drools.compiler.integrationtests.SerializationHelper.getSerial
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -47,7 +51,9 @@ import org.drools.core.impl.InternalKnowledgeBase;
 import org.drools.core.impl.KnowledgeBaseImpl;
 import org.drools.core.marshalling.impl.ClassObjectMarshallingStrategyAcceptor;
 import org.drools.core.marshalling.impl.IdentityPlaceholderResolverStrategy;
+import org.drools.core.marshalling.impl.ProtobufMarshaller;
 import org.drools.core.marshalling.impl.RuleBaseNodes;
+import org.drools.core.marshalling.impl.SessionChangeTracker;
 import org.drools.core.reteoo.MockTupleSource;
 import org.drools.core.reteoo.ObjectTypeNode;
 import org.drools.core.reteoo.RuleTerminalNode;
@@ -75,6 +81,7 @@ import org.kie.api.runtime.KieSessionConfiguration;
 import org.kie.api.runtime.conf.ClockTypeOption;
 import org.kie.api.runtime.conf.TimerJobFactoryOption;
 import org.kie.api.runtime.rule.EntryPoint;
+import org.kie.api.runtime.rule.FactHandle;
 import org.kie.api.time.SessionClock;
 import org.kie.internal.KnowledgeBase;
 import org.kie.internal.KnowledgeBaseFactory;
@@ -2655,6 +2662,121 @@ public class MarshallingTest extends CommonTestMethodBase {
                       facts.size() );
     }
 
+    @Test
+    public void testIncrementalSnapshotsCompaction() throws Exception {
+        String str =
+                "import " + Cheese.class.getCanonicalName() + ";\n" +
+                "global java.util.List list;\n" +
+                "rule R1 when\n" +
+                "    Cheese( type == \"stilton\", $price : price )\n" +
+                "then\n" +
+                "    list.add( $price );\n" +
+                "end\n";
+
+        KnowledgeBase kbase = loadKnowledgeBaseFromString( str );
+        StatefulKnowledgeSession ksession = kbase.newStatefulKnowledgeSession();
+        List<Integer> list = new ArrayList<Integer>();
+        ksession.setGlobal( "list", list );
+        SessionChangeTracker changes = SessionChangeTracker.track( ksession );
+        ProtobufMarshaller marshaller = (ProtobufMarshaller) MarshallerFactory.newMarshaller( kbase );
+
+        Cheese stilton = new Cheese( "stilton", 10 );
+        FactHandle stiltonHandle = ksession.insert( stilton );
+        Cheese brie = new Cheese( "brie", 5 );
+        FactHandle brieHandle = ksession.insert( brie );
+        ksession.fireAllRules();
+
+        ByteArrayOutputStream base = new ByteArrayOutputStream();
+        marshaller.marshall( base, ksession, changes );
+        assertTrue( changes.isEmpty() );
+
+        ksession.insert( new Cheese( "stilton", 20 ) );
+        brie.setPrice( 7 );
+        ksession.update( brieHandle, brie );
+        ksession.delete( stiltonHandle );
+        ksession.fireAllRules();
+
+        ByteArrayOutputStream increment1 = new ByteArrayOutputStream();
+        marshaller.marshallIncrement( increment1, ksession, changes );
+        assertTrue( changes.isEmpty() );
+
+        ksession.insert( new Cheese( "cheddar", 1 ) );
+
+        ByteArrayOutputStream increment2 = new ByteArrayOutputStream();
+        marshaller.marshallIncrement( increment2, ksession, changes );
+        assertTrue( increment2.size() < base.size() );
+
+        ByteArrayOutputStream compacted = new ByteArrayOutputStream();
+        marshaller.compact( Arrays.<InputStream>asList( new ByteArrayInputStream( base.toByteArray() ),
+                                                        new ByteArrayInputStream( increment1.toByteArray() ),
+                                                        new ByteArrayInputStream( increment2.toByteArray() ) ),
+                            compacted );
+
+        StatefulKnowledgeSession restored = marshaller.unmarshall( new ByteArrayInputStream( compacted.toByteArray() ) );
+        List<Integer> restoredList = new ArrayList<Integer>();
+        restored.setGlobal( "list", restoredList );
+
+        Collection<? extends Object> facts = restored.getObjects();
+        assertEquals( 3, facts.size() );
+        assertTrue( facts.contains( new Cheese( "stilton", 20 ) ) );
+        assertTrue( facts.contains( new Cheese( "brie", 7 ) ) );
+        assertTrue( facts.contains( new Cheese( "cheddar", 1 ) ) );
+
+        // the matches fired before the snapshots are not fired again
+        assertEquals( 0, restored.fireAllRules() );
+        restored.insert( new Cheese( "stilton", 30 ) );
+        assertEquals( 1, restored.fireAllRules() );
+        assertEquals( Arrays.asList( 30 ), restoredList );
+    }
+
+    @Test
+    public void testSessionMarshalledInChunks() throws Exception {
+        String str =
+                "import " + Cheese.class.getCanonicalName() + ";\n" +
+                "global java.util.List list;\n" +
+                "rule R1 when\n" +
+                "    Cheese( type == \"stilton\", $price : price )\n" +
+                "then\n" +
+                "    list.add( $price );\n" +
+                "end\n";
+
+        KnowledgeBase kbase = loadKnowledgeBaseFromString( str );
+        StatefulKnowledgeSession ksession = kbase.newStatefulKnowledgeSession();
+        List<Integer> list = new ArrayList<Integer>();
+        ksession.setGlobal( "list", list );
+        ProtobufMarshaller marshaller = (ProtobufMarshaller) MarshallerFactory.newMarshaller( kbase );
+
+        for ( int i = 0; i < 25; i++ ) {
+            ksession.insert( new Cheese( "stilton", i ) );
+        }
+        ksession.fireAllRules();
+        for ( int i = 25; i < 30; i++ ) {
+            ksession.insert( new Cheese( "stilton", i ) );
+        }
+        ksession.insert( new Cheese( "brie", 5 ) );
+
+        File file = File.createTempFile( "session", ".bin" );
+        file.deleteOnExit();
+        FileOutputStream out = new FileOutputStream( file );
+        try {
+            marshaller.marshallInChunks( out, ksession, 10 );
+        } finally {
+            out.close();
+        }
+
+        StatefulKnowledgeSession restored = marshaller.unmarshallInChunks( file, null, null );
+        List<Integer> restoredList = new ArrayList<Integer>();
+        restored.setGlobal( "list", restoredList );
+        assertEquals( 31, restored.getObjects().size() );
+
+        // only the matches not fired before marshalling are fired
+        assertEquals( 5, restored.fireAllRules() );
+        restored.insert( new Cheese( "stilton", 30 ) );
+        assertEquals( 1, restored.fireAllRules() );
+        Collections.sort( restoredList );
+        assertEquals( Arrays.asList( 25, 26, 27, 28, 29, 30 ), restoredList );
+    }
+
     private KieSession marsallStatefulKnowledgeSession(KieSession ksession) throws IOException,
                                                                                                        ClassNotFoundException {
         Globals globals = ksession.getGlobals();
@@ -30,6 +30,7 @@ import org.drools.core.definitions.rule.impl.RuleImpl;
 import org.drools.core.event.AgendaEventSupport;
 import org.drools.core.event.RuleRuntimeEventSupport;
 import org.drools.core.impl.InternalKnowledgeBase;
+import org.drools.core.phreak.NodeProfiler;
 import org.drools.core.process.instance.WorkItemManager;
 import org.drools.core.reteoo.EntryPointNode;
 import org.drools.core.reteoo.LIANodePropagation;
@@ -593,6 +594,10 @@ public class MockWorkingMemory implements InternalWorkingMemory {
         return null;
     }
 
+    public NodeProfiler getNodeProfiler() {
+        return null;
+    }
+
     public void addEventListener(KieBaseEventListener listener) {
     }
 
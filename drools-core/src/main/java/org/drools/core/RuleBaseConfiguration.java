@@ -98,6 +98,12 @@ import java.util.Properties;
  * drools.compositeKeyDepth  =&lt;1..3&gt;
  * drools.indexLeftBetaMemory = &lt;true/false&gt;
  * drools.indexRightBetaMemory = &lt;true/false&gt;
+ * drools.betaRangeIndex = &lt;true/false&gt;
+ * drools.compiledAlphaNetwork = &lt;true/false&gt;
+ * drools.jittingThreshold = &lt;0...n&gt;
+ * drools.eventExpirationTick = &lt;1...n&gt;
+ * drools.nodeProfiling = &lt;true/false&gt;
+ * drools.ruleEvaluationThreshold = &lt;0...n&gt;
  * drools.equalityBehavior = &lt;identity|equality&gt;
  * drools.executorService = &lt;qualified class name&gt;
  * drools.conflictResolver = &lt;qualified class name&gt;
@@ -108,6 +114,8 @@ import java.util.Properties;
  * drools.classLoaderCacheEnabled = &lt;true|false&gt;
  * drools.phreakEnabled = &lt;true|false&gt;
  * drools.declarativeAgendaEnabled =  &lt;true|false&gt; 
+ * drools.multithreadEvaluation = &lt;true|false&gt;
+ * drools.maxThreads = &lt;-1|1..n&gt;
  * </pre>
  */
 public class RuleBaseConfiguration
@@ -118,6 +126,8 @@ public class RuleBaseConfiguration
 
     public static final boolean DEFAULT_PHREAK = true;
     public static final boolean DEFAULT_SESSION_CACHE = true;
+    public static final int DEFAULT_JITTING_THRESHOLD = 20;
+    public static final long DEFAULT_EVENT_EXPIRATION_TICK = 1;
 
     public static final String DEFAULT_SIGN_ON_SERIALIZATION = "false";
 
@@ -139,6 +149,12 @@ public class RuleBaseConfiguration
     private int             compositeKeyDepth;
     private boolean         indexLeftBetaMemory;
     private boolean         indexRightBetaMemory;
+    private boolean         betaRangeIndex;
+    private boolean         compiledAlphaNetwork;
+    private int             jittingThreshold;
+    private long            eventExpirationTick;
+    private boolean         nodeProfiling;
+    private long            ruleEvaluationThreshold;
     private AssertBehaviour assertBehaviour;
     private String          executorService;
     private String          consequenceExceptionHandler;
@@ -211,6 +227,12 @@ public class RuleBaseConfiguration
         out.writeBoolean(declarativeAgenda);
         out.writeObject(componentFactory);
         out.writeObject(sessionCacheOption);
+        out.writeBoolean(betaRangeIndex);
+        out.writeBoolean(compiledAlphaNetwork);
+        out.writeInt(jittingThreshold);
+        out.writeLong(eventExpirationTick);
+        out.writeBoolean(nodeProfiling);
+        out.writeLong(ruleEvaluationThreshold);
     }
 
     public void readExternal(ObjectInput in) throws IOException,
@@ -243,6 +265,12 @@ public class RuleBaseConfiguration
         declarativeAgenda = in.readBoolean();
         componentFactory = (KieComponentFactory) in.readObject();
         sessionCacheOption = (SessionCacheOption) in.readObject();
+        betaRangeIndex = in.readBoolean();
+        compiledAlphaNetwork = in.readBoolean();
+        jittingThreshold = in.readInt();
+        eventExpirationTick = in.readLong();
+        nodeProfiling = in.readBoolean();
+        ruleEvaluationThreshold = in.readLong();
     }
 
     /**
@@ -310,6 +338,18 @@ public class RuleBaseConfiguration
             setIndexLeftBetaMemory(StringUtils.isEmpty(value) ? true : Boolean.valueOf(value));
         } else if ( name.equals( IndexRightBetaMemoryOption.PROPERTY_NAME ) ) {
             setIndexRightBetaMemory(StringUtils.isEmpty(value) ? true : Boolean.valueOf(value));
+        } else if ( name.equals( "drools.betaRangeIndex" ) ) {
+            setBetaRangeIndexEnabled(StringUtils.isEmpty(value) ? false : Boolean.valueOf(value));
+        } else if ( name.equals( "drools.compiledAlphaNetwork" ) ) {
+            setCompiledAlphaNetwork(StringUtils.isEmpty(value) ? false : Boolean.valueOf(value));
+        } else if ( name.equals( "drools.jittingThreshold" ) ) {
+            setJittingThreshold(StringUtils.isEmpty(value) ? DEFAULT_JITTING_THRESHOLD : Integer.parseInt(value));
+        } else if ( name.equals( "drools.eventExpirationTick" ) ) {
+            setEventExpirationTick(StringUtils.isEmpty(value) ? DEFAULT_EVENT_EXPIRATION_TICK : Long.parseLong(value));
+        } else if ( name.equals( "drools.nodeProfiling" ) ) {
+            setNodeProfiling(StringUtils.isEmpty(value) ? false : Boolean.valueOf(value));
+        } else if ( name.equals( "drools.ruleEvaluationThreshold" ) ) {
+            setRuleEvaluationThreshold(StringUtils.isEmpty(value) ? 0 : Long.parseLong(value));
         } else if ( name.equals( IndexPrecedenceOption.PROPERTY_NAME ) ) {
             setIndexPrecedenceOption(StringUtils.isEmpty(value) ? IndexPrecedenceOption.EQUALITY_PRIORITY : IndexPrecedenceOption.determineIndexPrecedence(value));
         } else if ( name.equals( EqualityBehaviorOption.PROPERTY_NAME ) ) {
@@ -365,6 +405,18 @@ public class RuleBaseConfiguration
             return Boolean.toString( isIndexLeftBetaMemory() );
         } else if ( name.equals( IndexRightBetaMemoryOption.PROPERTY_NAME ) ) {
             return Boolean.toString(isIndexRightBetaMemory());
+        } else if ( name.equals( "drools.betaRangeIndex" ) ) {
+            return Boolean.toString(isBetaRangeIndexEnabled());
+        } else if ( name.equals( "drools.compiledAlphaNetwork" ) ) {
+            return Boolean.toString(isCompiledAlphaNetwork());
+        } else if ( name.equals( "drools.jittingThreshold" ) ) {
+            return Integer.toString(getJittingThreshold());
+        } else if ( name.equals( "drools.eventExpirationTick" ) ) {
+            return Long.toString(getEventExpirationTick());
+        } else if ( name.equals( "drools.nodeProfiling" ) ) {
+            return Boolean.toString(isNodeProfiling());
+        } else if ( name.equals( "drools.ruleEvaluationThreshold" ) ) {
+            return Long.toString(getRuleEvaluationThreshold());
         } else if ( name.equals( IndexPrecedenceOption.PROPERTY_NAME ) ) {
             return getIndexPrecedenceOption().getValue();
         } else if ( name.equals( EqualityBehaviorOption.PROPERTY_NAME ) ) {
@@ -445,6 +497,18 @@ public class RuleBaseConfiguration
 
         setIndexRightBetaMemory(Boolean.valueOf(this.chainedProperties.getProperty(IndexRightBetaMemoryOption.PROPERTY_NAME, "true")).booleanValue());
 
+        setBetaRangeIndexEnabled(Boolean.valueOf(this.chainedProperties.getProperty("drools.betaRangeIndex", "false")).booleanValue());
+
+        setCompiledAlphaNetwork(Boolean.valueOf(this.chainedProperties.getProperty("drools.compiledAlphaNetwork", "false")).booleanValue());
+
+        setJittingThreshold(Integer.parseInt(this.chainedProperties.getProperty("drools.jittingThreshold", "" + DEFAULT_JITTING_THRESHOLD)));
+
+        setEventExpirationTick(Long.parseLong(this.chainedProperties.getProperty("drools.eventExpirationTick", "" + DEFAULT_EVENT_EXPIRATION_TICK)));
+
+        setNodeProfiling(Boolean.valueOf(this.chainedProperties.getProperty("drools.nodeProfiling", "false")).booleanValue());
+
+        setRuleEvaluationThreshold(Long.parseLong(this.chainedProperties.getProperty("drools.ruleEvaluationThreshold", "0")));
+
         setIndexPrecedenceOption(IndexPrecedenceOption.determineIndexPrecedence(this.chainedProperties.getProperty(IndexPrecedenceOption.PROPERTY_NAME, "equality")));
 
         setAssertBehaviour(AssertBehaviour.determineAssertBehaviour(this.chainedProperties.getProperty(EqualityBehaviorOption.PROPERTY_NAME, "identity")));
@@ -631,6 +695,105 @@ public class RuleBaseConfiguration
         this.indexRightBetaMemory = indexRightBetaMemory;
     }
 
+    public boolean isBetaRangeIndexEnabled() {
+        return this.betaRangeIndex;
+    }
+
+    /**
+     * Enables the tree based indexes for the comparison constraints (&lt;, &gt;, &lt;=, &gt;=) of join nodes,
+     * and the range indexes for pairs of comparisons on the same field of join, not and exists nodes.
+     * When disabled comparisons are indexed only by not and exists nodes, on a single constraint.
+     */
+    public void setBetaRangeIndexEnabled(final boolean betaRangeIndex) {
+        checkCanChange(); // throws an exception if a change isn't possible;
+        this.betaRangeIndex = betaRangeIndex;
+    }
+
+    public boolean isCompiledAlphaNetwork() {
+        return this.compiledAlphaNetwork;
+    }
+
+    /**
+     * When enabled the alpha network of each ObjectTypeNode is compiled into a single class, which requires
+     * drools-compiler on the classpath. The networks are compiled again whenever rules are added or removed
+     * and when the kbase is deserialized.
+     */
+    public void setCompiledAlphaNetwork(final boolean compiledAlphaNetwork) {
+        checkCanChange(); // throws an exception if a change isn't possible;
+        this.compiledAlphaNetwork = compiledAlphaNetwork;
+    }
+
+    public int getJittingThreshold() {
+        return this.jittingThreshold;
+    }
+
+    /**
+     * Sets the number of evaluations after which an mvel constraint is jitted in background. With a threshold
+     * of 0 the constraints are jitted synchronously, by the thread evaluating them for the first time, so they
+     * are never evaluated in interpreted mode unless jitting fails.
+     */
+    public void setJittingThreshold(final int jittingThreshold) {
+        checkCanChange(); // throws an exception if a change isn't possible;
+        if (jittingThreshold < 0) {
+            throw new UnsupportedOperationException( "The jitting threshold cannot be negative" );
+        }
+        this.jittingThreshold = jittingThreshold;
+    }
+
+    public long getEventExpirationTick() {
+        return this.eventExpirationTick;
+    }
+
+    /**
+     * Sets the resolution, in milliseconds, of the wheel scheduling the expiration of the events. All the events
+     * of a type expiring in the same tick are retracted together, by a single timer, so a coarser tick batches
+     * more expirations at the price of retracting the events up to one tick later than their expiration time.
+     */
+    public void setEventExpirationTick(final long eventExpirationTick) {
+        checkCanChange(); // throws an exception if a change isn't possible;
+        if (eventExpirationTick <= 0) {
+            throw new UnsupportedOperationException( "The event expiration tick must be positive" );
+        }
+        this.eventExpirationTick = eventExpirationTick;
+    }
+
+    public boolean isNodeProfiling() {
+        return this.nodeProfiling;
+    }
+
+    /**
+     * When enabled every session counts the tuples processed by each node of the network and the time spent
+     * evaluating it. It only applies in PHREAK mode.
+     */
+    public void setNodeProfiling(final boolean nodeProfiling) {
+        checkCanChange(); // throws an exception if a change isn't possible;
+        this.nodeProfiling = nodeProfiling;
+    }
+
+    public long getRuleEvaluationThreshold() {
+        return this.ruleEvaluationThreshold;
+    }
+
+    /**
+     * Sets the time, in milliseconds, above which a single lazy evaluation of the network of a rule is logged
+     * as a warning. Setting it, or enabling the node profiling, makes every session count the evaluations of
+     * each rule and the time spent in them. The default is 0, meaning that no evaluation is logged.
+     */
+    public void setRuleEvaluationThreshold(final long ruleEvaluationThreshold) {
+        checkCanChange(); // throws an exception if a change isn't possible;
+        if (ruleEvaluationThreshold < 0) {
+            throw new UnsupportedOperationException( "The rule evaluation threshold cannot be negative" );
+        }
+        this.ruleEvaluationThreshold = ruleEvaluationThreshold;
+    }
+
+    /**
+     * Returns true when the sessions count the cost of the evaluation of the network of each rule
+     */
+    public boolean isRuleEvaluationProfiling() {
+        return this.nodeProfiling || this.ruleEvaluationThreshold > 0;
+    }
+
     public IndexPrecedenceOption getIndexPrecedenceOption() {
         return this.indexPrecedenceOption;
     }
@@ -684,19 +847,17 @@ public class RuleBaseConfiguration
      * Defines if the RuleBase should be executed using a pool of
      * threads for evaluating the rules ("true"), or if the rulebase 
      * should work in classic single thread mode ("false").
+     *
+     * This is only honoured by the Phreak engine: rules whose paths
+     * share no segment are evaluated in parallel, while the firing of
+     * the resulting matches remains serialized through the agenda.
      * 
      * @param enableMultithread true for multi-thread or 
      *                     false for single-thread. Default is false.
      */
     public void setMultithreadEvaluation(boolean enableMultithread) {
         checkCanChange();
-        if( enableMultithread ) {
-            throw new IllegalArgumentException( "Multithread mode is currently not supported. Please disable it." );
-        }
         this.multithread = enableMultithread;
-        if (multithread && isPhreakEnabled()) {
-            throw new IllegalArgumentException( "Multithread evaluation cannot be used when Left & Right Unlinking is enabled." );
-        }
     }
 
     /**
@@ -716,8 +877,8 @@ public class RuleBaseConfiguration
      * 
      * @param maxThreads the maximum number of threads to use. If 0 or a 
      *                   negative number is set, the engine will use number
-     *                   of threads equal to the number of partitions in the
-     *                   rule base. Default number of threads is 0. 
+     *                   of threads equal to the number of available processors.
+     *                   Default number of threads is 3.
      */
     public void setMaxThreads(final int maxThreads) {
         this.maxThreads = maxThreads;
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.audit;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import org.drools.core.audit.event.ActivationLogEvent;
+import org.drools.core.audit.event.LogEvent;
+import org.drools.core.audit.event.ObjectLogEvent;
+import org.drools.core.audit.event.RuleBaseLogEvent;
+import org.drools.core.audit.event.RuleFlowGroupLogEvent;
+import org.drools.core.audit.event.RuleFlowLogEvent;
+import org.drools.core.audit.event.RuleFlowNodeLogEvent;
+import org.drools.core.audit.event.RuleFlowVariableLogEvent;
+import org.drools.core.util.IoUtils;
+
+/**
+ * The binary format of the LogEvents written by the WorkingMemoryBinaryLogger.
+ * Every event is written as a tag of its class followed by its type and its fields.
+ */
+final class LogEventCodec {
+
+    static final int          MAGIC                   = 0x44524c47;
+    static final int          VERSION                 = 1;
+
+    private static final byte LOG_EVENT               = 0;
+    private static final byte OBJECT_EVENT            = 1;
+    private static final byte ACTIVATION_EVENT        = 2;
+    private static final byte RULEBASE_EVENT          = 3;
+    private static final byte RULEFLOW_GROUP_EVENT    = 4;
+    private static final byte RULEFLOW_EVENT          = 5;
+    private static final byte RULEFLOW_NODE_EVENT     = 6;
+    private static final byte RULEFLOW_VARIABLE_EVENT = 7;
+
+    private LogEventCodec() {
+    }
+
+    static void write(LogEvent event, DataOutput out) throws IOException {
+        if ( event instanceof ObjectLogEvent ) {
+            ObjectLogEvent objectEvent = (ObjectLogEvent) event;
+            out.writeByte( OBJECT_EVENT );
+            out.writeInt( event.getType() );
+            out.writeLong( objectEvent.getFactId() );
+            writeString( objectEvent.getObjectToString(), out );
+        } else if ( event instanceof ActivationLogEvent ) {
+            ActivationLogEvent activationEvent = (ActivationLogEvent) event;
+            out.writeByte( ACTIVATION_EVENT );
+            out.writeInt( event.getType() );
+            writeString( activationEvent.getActivationId(), out );
+            writeString( activationEvent.getRule(), out );
+            writeString( activationEvent.getDeclarations(), out );
+            writeString( activationEvent.getRuleFlowGroup(), out );
+            writeString( activationEvent.getFactHandleIds(), out );
+        } else if ( event instanceof RuleBaseLogEvent ) {
+            RuleBaseLogEvent ruleBaseEvent = (RuleBaseLogEvent) event;
+            out.writeByte( RULEBASE_EVENT );
+            out.writeInt( event.getType() );
+            writeString( ruleBaseEvent.getPackageName(), out );
+            writeString( ruleBaseEvent.getRuleName(), out );
+        } else if ( event instanceof RuleFlowGroupLogEvent ) {
+            RuleFlowGroupLogEvent groupEvent = (RuleFlowGroupLogEvent) event;
+            out.writeByte( RULEFLOW_GROUP_EVENT );
+            out.writeInt( event.getType() );
+            writeString( groupEvent.getGroupName(), out );
+            out.writeInt( groupEvent.getSize() );
+        } else if ( event instanceof RuleFlowNodeLogEvent ) {
+            RuleFlowNodeLogEvent nodeEvent = (RuleFlowNodeLogEvent) event;
+            out.writeByte( RULEFLOW_NODE_EVENT );
+            writeRuleFlowEvent( nodeEvent, out );
+            writeString( nodeEvent.getNodeId(), out );
+            writeString( nodeEvent.getNodeName(), out );
+            writeString( nodeEvent.getNodeInstanceId(), out );
+        } else if ( event instanceof RuleFlowVariableLogEvent ) {
+            RuleFlowVariableLogEvent variableEvent = (RuleFlowVariableLogEvent) event;
+            out.writeByte( RULEFLOW_VARIABLE_EVENT );
+            writeRuleFlowEvent( variableEvent, out );
+            writeString( variableEvent.getVariableId(), out );
+            writeString( variableEvent.getVariableInstanceId(), out );
+            writeString( variableEvent.getObjectToString(), out );
+        } else if ( event instanceof RuleFlowLogEvent ) {
+            out.writeByte( RULEFLOW_EVENT );
+            writeRuleFlowEvent( (RuleFlowLogEvent) event, out );
+        } else {
+            out.writeByte( LOG_EVENT );
+            out.writeInt( event.getType() );
+        }
+    }
+
+    private static void writeRuleFlowEvent(RuleFlowLogEvent event, DataOutput out) throws IOException {
+        out.writeInt( event.getType() );
+        writeString( event.getProcessId(), out );
+        writeString( event.getProcessName(), out );
+        out.writeLong( event.getProcessInstanceId() );
+    }
+
+    static LogEvent read(DataInput in) throws IOException {
+        byte tag = in.readByte();
+        int type = in.readInt();
+        switch ( tag ) {
+            case OBJECT_EVENT :
+                return new ObjectLogEvent( type, in.readLong(), readString( in ) );
+            case ACTIVATION_EVENT :
+                return new ActivationLogEvent( type, readString( in ), readString( in ), readString( in ), readString( in ), readString( in ) );
+            case RULEBASE_EVENT :
+                return new RuleBaseLogEvent( type, readString( in ), readString( in ) );
+            case RULEFLOW_GROUP_EVENT :
+                return new RuleFlowGroupLogEvent( type, readString( in ), in.readInt() );
+            case RULEFLOW_EVENT :
+                return new RuleFlowLogEvent( type, readString( in ), readString( in ), in.readLong() );
+            case RULEFLOW_NODE_EVENT : {
+                String processId = readString( in );
+                String processName = readString( in );
+                long processInstanceId = in.readLong();
+                return new RuleFlowNodeLogEvent( type, readString( in ), readString( in ), readString( in ), processId, processName, processInstanceId );
+            }
+            case RULEFLOW_VARIABLE_EVENT : {
+                String processId = readString( in );
+                String processName = readString( in );
+                long processInstanceId = in.readLong();
+                return new RuleFlowVariableLogEvent( type, readString( in ), readString( in ), processId, processName, processInstanceId, readString( in ) );
+            }
+            case LOG_EVENT :
+                return new LogEvent( type );
+            default :
+                throw new IOException( "Unknown log event tag: " + tag );
+        }
+    }
+
+    // writeUTF can't be used, since the toString of a fact can be longer than 64k
+    static void writeString(String s, DataOutput out) throws IOException {
+        if ( s == null ) {
+            out.writeInt( -1 );
+        } else {
+            byte[] bytes = s.getBytes( IoUtils.UTF8_CHARSET );
+            out.writeInt( bytes.length );
+            out.write( bytes );
+        }
+    }
+
+    static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if ( length < 0 ) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully( bytes );
+        return new String( bytes, IoUtils.UTF8_CHARSET );
+    }
+}
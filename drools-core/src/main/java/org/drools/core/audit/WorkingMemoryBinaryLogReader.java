@@ -0,0 +1,158 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.audit;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.drools.core.audit.event.LogEvent;
+import org.drools.core.util.IoUtils;
+
+import com.thoughtworks.xstream.XStream;
+
+/**
+ * Reads the log files written by a WorkingMemoryBinaryLogger, so that they can be
+ * used by the tools reading the log of the WorkingMemoryFileLogger.
+ */
+public class WorkingMemoryBinaryLogReader {
+
+    private static final String EXTENSION = ".bin";
+
+    private WorkingMemoryBinaryLogReader() {
+    }
+
+    /**
+     * Returns all the events in the log files with the given name, in the order they have been logged.
+     */
+    public static List<LogEvent> readEvents(String fileName) throws IOException {
+        return readLog( fileName ).getEvents();
+    }
+
+    public static WorkingMemoryLog readLog(String fileName) throws IOException {
+        List<LogEvent> events = new ArrayList<LogEvent>();
+        boolean phreak = false;
+        for ( File file : getLogFiles( fileName ) ) {
+            phreak = readFile( file, events );
+        }
+        return new WorkingMemoryLog( events, phreak ? "PHREAK" : "RETEOO" );
+    }
+
+    /**
+     * Converts the binary log with the given name to the XML format written by the WorkingMemoryFileLogger
+     * in the file xmlFileName.log
+     */
+    public static void convertToXml(String fileName, String xmlFileName) throws IOException {
+        WorkingMemoryLog log = readLog( fileName );
+        Writer writer = new OutputStreamWriter( new FileOutputStream( xmlFileName + ".log" ),
+                                                IoUtils.UTF8_CHARSET );
+        try {
+            writer.write( "<object-stream>\n" );
+            writer.write( new XStream().toXML( log ) + "\n" );
+            writer.write( "</object-stream>\n" );
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static boolean readFile(File file, List<LogEvent> events) throws IOException {
+        long size = file.length();
+        DataInputStream in = new DataInputStream( new BufferedInputStream( new FileInputStream( file ) ) );
+        try {
+            if ( in.readInt() != LogEventCodec.MAGIC ) {
+                throw new IOException( file + " is not an audit log" );
+            }
+            int version = in.readInt();
+            if ( version != LogEventCodec.VERSION ) {
+                throw new IOException( "Unsupported version " + version + " of the audit log " + file );
+            }
+            boolean phreak = in.readByte() == 1;
+            long position = 9;
+            while ( position + 4 <= size ) {
+                int length = in.readInt();
+                if ( length == 0 ) {
+                    // the rest of the file has never been written
+                    break;
+                }
+                byte[] record = new byte[length];
+                in.readFully( record );
+                events.add( LogEventCodec.read( new DataInputStream( new ByteArrayInputStream( record ) ) ) );
+                position += 4 + length;
+            }
+            return phreak;
+        } finally {
+            in.close();
+        }
+    }
+
+    static File getLogFile(String fileName, int index) {
+        return new File( fileName + index + EXTENSION );
+    }
+
+    /**
+     * Returns the existing log files with the given name, sorted by their index
+     */
+    static List<File> getLogFiles(String fileName) {
+        File prefix = new File( fileName ).getAbsoluteFile();
+        final String name = prefix.getName();
+        File[] files = prefix.getParentFile().listFiles();
+        List<File> logFiles = new ArrayList<File>();
+        if ( files == null ) {
+            return logFiles;
+        }
+        for ( File file : files ) {
+            if ( getIndex( file, name ) >= 0 ) {
+                logFiles.add( file );
+            }
+        }
+        Collections.sort( logFiles, new Comparator<File>() {
+            public int compare(File f1, File f2) {
+                int i1 = getIndex( f1, name );
+                int i2 = getIndex( f2, name );
+                return i1 < i2 ? -1 : (i1 == i2 ? 0 : 1);
+            }
+        } );
+        return logFiles;
+    }
+
+    private static int getIndex(File file, String name) {
+        String fileName = file.getName();
+        if ( !fileName.startsWith( name ) || !fileName.endsWith( EXTENSION ) ) {
+            return -1;
+        }
+        String index = fileName.substring( name.length(), fileName.length() - EXTENSION.length() );
+        if ( index.length() == 0 || index.length() > 9 ) {
+            return -1;
+        }
+        for ( int i = 0; i < index.length(); i++ ) {
+            if ( !Character.isDigit( index.charAt( i ) ) ) {
+                return -1;
+            }
+        }
+        return Integer.parseInt( index );
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.audit;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.drools.core.WorkingMemory;
+import org.drools.core.audit.event.LogEvent;
+import org.kie.internal.event.KnowledgeRuntimeEventManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A logger of events generated by a working memory, writing them in a compact binary format
+ * instead of serializing them to XML. The events are passed through a lock free ring buffer
+ * to a writer thread, started with the first event, that appends them to a rolling set of
+ * memory mapped files named fileName0.bin, fileName1.bin and so on. When the ring buffer is full
+ * the thread logging an event waits for the writer, so that no event is lost.
+ * The log can be read back with the WorkingMemoryBinaryLogReader, that can also convert it to
+ * the XML format of the WorkingMemoryFileLogger.
+ * Every time a new logger is started, the old log files with the same name are deleted.
+ */
+public class WorkingMemoryBinaryLogger extends WorkingMemoryLogger {
+
+    protected static final transient Logger logger = LoggerFactory.getLogger(WorkingMemoryBinaryLogger.class);
+
+    private static final int  RING_CAPACITY = 8192;
+    private static final long PARK_NANOS    = 1000000L;
+
+    private String               fileName = "event";
+    private int                  fileSize = 16 * 1024 * 1024;
+    private int                  maxFiles = 0;
+
+    private final EventRing      ring     = new EventRing( RING_CAPACITY );
+    private final AtomicBoolean  started  = new AtomicBoolean();
+    private volatile boolean     terminate;
+    private Thread               writerThread;
+
+    public WorkingMemoryBinaryLogger() {
+    }
+
+    public WorkingMemoryBinaryLogger(final WorkingMemory workingMemory) {
+        super( workingMemory );
+    }
+
+    public WorkingMemoryBinaryLogger(final KnowledgeRuntimeEventManager session) {
+        super( session );
+    }
+
+    /**
+     * Sets the name of the files the events are logged in, without extension. The
+     * default is event in the current working directory.
+     */
+    public void setFileName(final String fileName) {
+        this.fileName = fileName;
+    }
+
+    /**
+     * Sets the size in bytes of each log file. When a file is full the events are
+     * written in the next one. The default is 16MB.
+     */
+    public void setFileSize(final int fileSize) {
+        this.fileSize = fileSize;
+    }
+
+    /**
+     * Sets the maximum number of log files kept on disk: when a new file is started
+     * the oldest one is deleted. The default is 0, meaning that all the files are kept.
+     */
+    public void setMaxFiles(final int maxFiles) {
+        this.maxFiles = maxFiles;
+    }
+
+    public void logEventCreated(final LogEvent logEvent) {
+        if ( terminate ) {
+            return;
+        }
+        if ( !started.get() && started.compareAndSet( false, true ) ) {
+            startWriter();
+        }
+        ring.offer( logEvent );
+    }
+
+    private synchronized void startWriter() {
+        if ( !terminate ) {
+            writerThread = new Thread( new Writer(), "drools-audit-writer-" + fileName );
+            writerThread.setDaemon( true );
+            writerThread.start();
+        }
+    }
+
+    /**
+     * Writes all the events already logged and closes the log.
+     */
+    public synchronized void stop() {
+        terminate = true;
+        if ( writerThread != null ) {
+            LockSupport.unpark( writerThread );
+            try {
+                writerThread.join();
+            } catch ( InterruptedException e ) {
+                Thread.currentThread().interrupt();
+            }
+            writerThread = null;
+        }
+    }
+
+    private class Writer
+        implements
+        Runnable {
+
+        private final RecordBuffer     record = new RecordBuffer();
+        private final DataOutputStream out    = new DataOutputStream( record );
+
+        private int                    fileIndex;
+        private RandomAccessFile       file;
+        private MappedByteBuffer       buffer;
+
+        public void run() {
+            try {
+                for ( File oldFile : WorkingMemoryBinaryLogReader.getLogFiles( fileName ) ) {
+                    oldFile.delete();
+                }
+                openFile( 0 );
+                while ( true ) {
+                    LogEvent event = ring.poll();
+                    if ( event != null ) {
+                        write( event );
+                    } else if ( terminate && ring.isEmpty() ) {
+                        break;
+                    } else {
+                        LockSupport.parkNanos( PARK_NANOS );
+                    }
+                }
+            } catch ( final Throwable t ) {
+                logger.error( "Unable to write the audit log " + fileName, t );
+                // don't block the session when the log can't be written anymore
+                terminate = true;
+                while ( !ring.isEmpty() ) {
+                    if ( ring.poll() == null ) {
+                        Thread.yield();
+                    }
+                }
+            } finally {
+                closeFile();
+            }
+        }
+
+        private void write(LogEvent event) throws IOException {
+            record.reset();
+            LogEventCodec.write( event, out );
+            int length = record.size();
+            // a record is always followed by at least 4 bytes, so that a zero length marks the end of the file
+            if ( buffer.remaining() < length + 8 ) {
+                closeFile();
+                if ( maxFiles > 0 && fileIndex >= maxFiles ) {
+                    WorkingMemoryBinaryLogReader.getLogFile( fileName, fileIndex - maxFiles ).delete();
+                }
+                openFile( length + 8 );
+            }
+            buffer.putInt( length );
+            buffer.put( record.array(), 0, length );
+        }
+
+        private void openFile(int minSize) throws IOException {
+            int size = Math.max( fileSize, minSize + 9 );
+            file = new RandomAccessFile( WorkingMemoryBinaryLogReader.getLogFile( fileName, fileIndex++ ), "rw" );
+            file.setLength( 0 );
+            file.setLength( size );
+            buffer = file.getChannel().map( FileChannel.MapMode.READ_WRITE, 0, size );
+            buffer.putInt( LogEventCodec.MAGIC );
+            buffer.putInt( LogEventCodec.VERSION );
+            buffer.put( (byte) (isPhreak ? 1 : 0) );
+        }
+
+        private void closeFile() {
+            if ( file != null ) {
+                try {
+                    buffer.force();
+                    file.close();
+                } catch ( IOException e ) {
+                    logger.error( "Unable to close the audit log " + fileName, e );
+                }
+                file = null;
+                buffer = null;
+            }
+        }
+    }
+
+    private static class RecordBuffer extends ByteArrayOutputStream {
+        byte[] array() {
+            return buf;
+        }
+    }
+
+    /**
+     * A bounded queue of the logged events with many producers and a single consumer.
+     * The producers claim a sequence with a CAS and then publish the event in its slot,
+     * while the consumer empties the slots in sequence order.
+     */
+    private static class EventRing {
+        private final AtomicReferenceArray<LogEvent> slots;
+        private final int                            mask;
+        private final AtomicLong                     head = new AtomicLong();
+        // written only by the consumer
+        private volatile long                        tail;
+
+        EventRing(int capacity) {
+            this.slots = new AtomicReferenceArray<LogEvent>( capacity );
+            this.mask = capacity - 1;
+        }
+
+        void offer(LogEvent event) {
+            while ( true ) {
+                long sequence = head.get();
+                if ( sequence - tail >= slots.length() ) {
+                    // full, wait for the consumer
+                    Thread.yield();
+                } else if ( head.compareAndSet( sequence, sequence + 1 ) ) {
+                    slots.set( (int) (sequence & mask), event );
+                    return;
+                }
+            }
+        }
+
+        LogEvent poll() {
+            int index = (int) (tail & mask);
+            LogEvent event = slots.get( index );
+            if ( event == null ) {
+                // empty, or the next event has been claimed but not published yet
+                return null;
+            }
+            slots.lazySet( index, null );
+            tail = tail + 1;
+            return event;
+        }
+
+        boolean isEmpty() {
+            return head.get() == tail;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.base.accumulators;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.Serializable;
+
+import org.kie.api.runtime.rule.AccumulateFunction;
+
+/**
+ * An implementation of an accumulator capable of calculating median values.
+ * The values are split in a lower and an upper half, both kept sorted, so that
+ * accumulating and reversing a value are O(log n).
+ */
+public class MedianAccumulateFunction implements AccumulateFunction {
+
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+
+    }
+
+    public void writeExternal(ObjectOutput out) throws IOException {
+
+    }
+
+    public static class MedianData implements Externalizable {
+        // the lower half holds the same number of values as the upper one, or one more
+        public SortedDoubleBag lower = new SortedDoubleBag();
+        public SortedDoubleBag upper = new SortedDoubleBag();
+
+        public MedianData() {}
+
+        public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+            lower = (SortedDoubleBag) in.readObject();
+            upper = (SortedDoubleBag) in.readObject();
+        }
+
+        public void writeExternal(ObjectOutput out) throws IOException {
+            out.writeObject(lower);
+            out.writeObject(upper);
+        }
+
+        private void balance() {
+            if ( lower.size() > upper.size() + 1 ) {
+                upper.add( lower.pollLast() );
+            } else if ( upper.size() > lower.size() ) {
+                lower.add( upper.pollFirst() );
+            }
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see org.kie.base.accumulators.AccumulateFunction#createContext()
+     */
+    public Serializable createContext() {
+        return new MedianData();
+    }
+
+    /* (non-Javadoc)
+     * @see org.kie.base.accumulators.AccumulateFunction#init(java.lang.Object)
+     */
+    public void init(Serializable context) throws Exception {
+        MedianData data = (MedianData) context;
+        data.lower.clear();
+        data.upper.clear();
+    }
+
+    /* (non-Javadoc)
+     * @see org.kie.base.accumulators.AccumulateFunction#accumulate(java.lang.Object, java.lang.Object)
+     */
+    public void accumulate(Serializable context,
+                           Object value) {
+        MedianData data = (MedianData) context;
+        double number = ((Number) value).doubleValue();
+        if ( data.lower.isEmpty() || number <= data.lower.last() ) {
+            data.lower.add( number );
+        } else {
+            data.upper.add( number );
+        }
+        data.balance();
+    }
+
+    /* (non-Javadoc)
+     * @see org.kie.base.accumulators.AccumulateFunction#reverse(java.lang.Object, java.lang.Object)
+     */
+    public void reverse(Serializable context,
+                        Object value) throws Exception {
+        MedianData data = (MedianData) context;
+        double number = ((Number) value).doubleValue();
+        if ( !data.lower.isEmpty() && number <= data.lower.last() ) {
+            data.lower.remove( number );
+        } else {
+            data.upper.remove( number );
+        }
+        data.balance();
+    }
+
+    /* (non-Javadoc)
+     * @see org.kie.base.accumulators.AccumulateFunction#getResult(java.lang.Object)
+     */
+    public Object getResult(Serializable context) throws Exception {
+        MedianData data = (MedianData) context;
+        if ( data.lower.isEmpty() ) {
+            return new Double( 0 );
+        }
+        if ( data.lower.size() > data.upper.size() ) {
+            return new Double( data.lower.last() );
+        }
+        return new Double( ( data.lower.last() + data.upper.first() ) / 2 );
+    }
+
+    /* (non-Javadoc)
+     * @see org.kie.base.accumulators.AccumulateFunction#supportsReverse()
+     */
+    public boolean supportsReverse() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Class< ? > getResultType() {
+        return Number.class;
+    }
+
+}
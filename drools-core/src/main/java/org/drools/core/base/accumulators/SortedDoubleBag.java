@@ -0,0 +1,119 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.base.accumulators;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A sorted multiset of double values, backed by a red-black tree counting the occurrences
+ * of each value, so that adding and removing a value and reading the lowest and highest
+ * ones are O(log n). It allows the order statistic accumulate functions to be reversed
+ * instead of recalculated over all the matched values.
+ */
+public class SortedDoubleBag implements Externalizable {
+
+    private TreeMap<Double, int[]> counts = new TreeMap<Double, int[]>();
+    private int                    size;
+
+    public SortedDoubleBag() {
+    }
+
+    public void add(double value) {
+        int[] count = counts.get( value );
+        if ( count == null ) {
+            counts.put( value, new int[] { 1 } );
+        } else {
+            count[0]++;
+        }
+        size++;
+    }
+
+    public boolean remove(double value) {
+        int[] count = counts.get( value );
+        if ( count == null ) {
+            return false;
+        }
+        if ( --count[0] == 0 ) {
+            counts.remove( value );
+        }
+        size--;
+        return true;
+    }
+
+    public double first() {
+        return counts.firstKey();
+    }
+
+    public double last() {
+        return counts.lastKey();
+    }
+
+    /**
+     * Removes one occurrence of the lowest value and returns it.
+     */
+    public double pollFirst() {
+        double value = counts.firstKey();
+        remove( value );
+        return value;
+    }
+
+    /**
+     * Removes one occurrence of the highest value and returns it.
+     */
+    public double pollLast() {
+        double value = counts.lastKey();
+        remove( value );
+        return value;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        counts.clear();
+        size = 0;
+    }
+
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeInt( counts.size() );
+        for ( Map.Entry<Double, int[]> entry : counts.entrySet() ) {
+            out.writeDouble( entry.getKey() );
+            out.writeInt( entry.getValue()[0] );
+        }
+    }
+
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+        clear();
+        int entries = in.readInt();
+        for ( int i = 0; i < entries; i++ ) {
+            double value = in.readDouble();
+            int count = in.readInt();
+            counts.put( value, new int[] { count } );
+            size += count;
+        }
+    }
+}
@@ -29,6 +29,7 @@ import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
 import org.drools.core.command.IdentifiableResult;
 import org.drools.core.command.impl.GenericCommand;
 import org.drools.core.command.impl.KnowledgeCommandContext;
+import org.drools.core.common.InternalWorkingMemoryEntryPoint;
 import org.drools.core.util.StringUtils;
 import org.drools.core.impl.StatefulKnowledgeSessionImpl;
 import org.drools.core.xml.jaxb.util.JaxbCollectionAdapter;
@@ -89,8 +90,12 @@ public class InsertElementsCommand
             wmep = ksession.getEntryPoint( this.entryPoint );
         }
 
-        for ( Object object : objects ) {
-            handles.add( wmep.insert( object ) );
+        if ( wmep instanceof InternalWorkingMemoryEntryPoint ) {
+            handles.addAll( ((InternalWorkingMemoryEntryPoint) wmep).insertAll( objects ) );
+        } else {
+            for ( Object object : objects ) {
+                handles.add( wmep.insert( object ) );
+            }
         }
 
         if ( outIdentifier != null ) {
@@ -66,7 +66,7 @@ public interface BetaConstraints
     long getListenedPropertyMask(List<String> settableProperties);
 
     void init(BuildContext context, short betaNodeType);
-    void initIndexes(int depth, short betaNodeType);
+    void initIndexes(int depth, short betaNodeType, RuleBaseConfiguration config);
 
     BetaConstraints cloneIfInUse();
 
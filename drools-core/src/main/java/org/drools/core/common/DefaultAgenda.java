@@ -22,6 +22,7 @@ import org.drools.core.beliefsystem.ModedAssertion;
 import org.drools.core.definitions.rule.impl.RuleImpl;
 import org.drools.core.impl.InternalKnowledgeBase;
 import org.drools.core.impl.StatefulKnowledgeSessionImpl;
+import org.drools.core.phreak.ParallelRuleEvaluator;
 import org.drools.core.phreak.RuleAgendaItem;
 import org.drools.core.phreak.RuleExecutor;
 import org.drools.core.phreak.StackEntry;
@@ -134,6 +135,10 @@ public class DefaultAgenda
 
     private GarbageCollector                                     garbageCollector;
 
+    private ParallelRuleEvaluator                                parallelEvaluator;
+
+    private final Object                                         counterLock        = new Object();
+
     // ------------------------------------------------------------
     // Constructors
     // ------------------------------------------------------------
@@ -178,6 +183,9 @@ public class DefaultAgenda
         if (this.streamMode) {
             this.garbageCollector = new DefaultGarbageCollector();
         }
+        if ( kBase.getConfiguration().isMultithreadEvaluation() ) {
+            this.parallelEvaluator = new ParallelRuleEvaluator( kBase.getConfiguration().getMaxThreads() );
+        }
     }
 
     public void readExternal(ObjectInput in) throws IOException,
@@ -216,10 +224,13 @@ public class DefaultAgenda
         String ruleFlowGroupName = rtn.getRule().getRuleFlowGroup();
 
         RuleAgendaItem lazyAgendaItem;
-        if ( !StringUtils.isEmpty(ruleFlowGroupName) ) {
-            lazyAgendaItem = new RuleAgendaItem( activationCounter++, null, salience, null, rs, rtn, isDeclarativeAgenda(), (InternalAgendaGroup) getAgendaGroup( ruleFlowGroupName ));
-        }  else {
-            lazyAgendaItem = new RuleAgendaItem( activationCounter++, null, salience, null, rs, rtn, isDeclarativeAgenda(), (InternalAgendaGroup) getRuleFlowGroup( agendaGroupName ));
+        synchronized ( counterLock ) {
+            // rules can be linked, and their agenda groups created, by the multithread evaluation
+            if ( !StringUtils.isEmpty(ruleFlowGroupName) ) {
+                lazyAgendaItem = new RuleAgendaItem( activationCounter++, null, salience, null, rs, rtn, isDeclarativeAgenda(), (InternalAgendaGroup) getAgendaGroup( ruleFlowGroupName ));
+            }  else {
+                lazyAgendaItem = new RuleAgendaItem( activationCounter++, null, salience, null, rs, rtn, isDeclarativeAgenda(), (InternalAgendaGroup) getRuleFlowGroup( agendaGroupName ));
+            }
         }
 
         return lazyAgendaItem;
@@ -227,7 +238,12 @@ public class DefaultAgenda
 
     @Override
     public long getNextActivationCounter() {
-        return  activationCounter++;
+        if ( parallelEvaluator == null ) {
+            return  activationCounter++;
+        }
+        synchronized ( counterLock ) {
+            return  activationCounter++;
+        }
     }
 
     public AgendaItem createAgendaItem(final LeftTuple tuple,
@@ -273,7 +289,9 @@ public class DefaultAgenda
 
     @Override
     public void addEagerRuleAgendaItem(RuleAgendaItem item) {
-        if ( workingMemory.getSessionConfiguration().getForceEagerActivationFilter().accept(item.getRule()) ) {
+        if ( ( parallelEvaluator == null || !parallelEvaluator.isEvaluating() ) &&
+             workingMemory.getSessionConfiguration().getForceEagerActivationFilter().accept(item.getRule()) ) {
+            // during a multithread evaluation the item is queued instead, and evaluated by the agenda thread
             item.getRuleExecutor().evaluateNetwork(workingMemory);
             return;
         }
@@ -976,6 +994,9 @@ public class DefaultAgenda
                         item = (RuleAgendaItem) group.remove();
                         item.setBlocked(true);
                     }   else {
+                        if ( parallelEvaluator != null ) {
+                            parallelEvaluator.evaluate( group, this.workingMemory );
+                        }
                         item = (RuleAgendaItem) group.peek();
                     }
 
@@ -1228,7 +1249,8 @@ public class DefaultAgenda
                 }
                 while ( continueFiring( -1 ) ) {
                     boolean fired = fireNextItem( agendaFilter, 0, -1 ) > 0 ||
-                                    !((StatefulKnowledgeSessionImpl) this.workingMemory).getActionQueue().isEmpty();
+                                    !((StatefulKnowledgeSessionImpl) this.workingMemory).getActionQueue().isEmpty() ||
+                                    ((StatefulKnowledgeSessionImpl) this.workingMemory).hasStagedInserts();
                     this.workingMemory.executeQueuedActions();
                     if ( !fired ) {
                         synchronized ( this.halt ) {
@@ -1238,7 +1260,8 @@ public class DefaultAgenda
                                 // could have been created between the time it did not fire the last 
                                 // one and the synchronized block started
                                 InternalAgendaGroup nextFocus = getNextFocus();
-                                if( nextFocus == null || nextFocus.isEmpty() ) {
+                                if( ( nextFocus == null || nextFocus.isEmpty() ) &&
+                                    !((StatefulKnowledgeSessionImpl) this.workingMemory).hasStagedInserts() ) {
                                     try {
                                         this.halt.wait();
                                     } catch (InterruptedException e) {
@@ -101,13 +101,13 @@ public class DefaultBetaConstraints
                 // We also ensure that if there is a mixture that standard restriction is first
                 depth = 1;
             }
-            initIndexes( depth, betaNodeType );
+            initIndexes( depth, betaNodeType, config );
         }
     }
 
-    public void initIndexes(int depth, short betaNodeType) {
+    public void initIndexes(int depth, short betaNodeType, RuleBaseConfiguration config) {
         indexed = 0;
-        boolean[] indexable = isIndexableForNode(indexPrecedenceOption, betaNodeType, depth, constraints);
+        boolean[] indexable = isIndexableForNode(indexPrecedenceOption, betaNodeType, depth, constraints, config);
         for (boolean i : indexable) {
             if (i) {
                 indexed++;
@@ -156,7 +156,7 @@ public class EmptyBetaConstraints
     }
 
     public void init(BuildContext context, short betaNodeType) { }
-    public void initIndexes(int depth, short betaNodeType) { }
+    public void initIndexes(int depth, short betaNodeType, RuleBaseConfiguration config) { }
 
     public boolean isLeftUpdateOptimizationAllowed() {
         return true;
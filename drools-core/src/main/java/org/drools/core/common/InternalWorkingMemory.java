@@ -26,6 +26,7 @@ import org.drools.core.WorkingMemory;
 import org.drools.core.definitions.rule.impl.RuleImpl;
 import org.drools.core.event.AgendaEventSupport;
 import org.drools.core.event.RuleRuntimeEventSupport;
+import org.drools.core.phreak.NodeProfiler;
 import org.drools.core.reteoo.EntryPointNode;
 import org.drools.core.reteoo.ObjectTypeConf;
 import org.drools.core.rule.EntryPointId;
@@ -58,6 +59,11 @@ public interface InternalWorkingMemory
     
     public NodeMemories getNodeMemories();
 
+    /**
+     * Returns the counters of the nodes evaluated by this session, or null if node profiling isn't enabled
+     */
+    public NodeProfiler getNodeProfiler();
+
     public long getNextPropagationIdCounter();
 
     //public ObjectHashMap getFactHandleMap()
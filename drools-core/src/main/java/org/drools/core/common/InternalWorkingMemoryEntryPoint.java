@@ -16,6 +16,9 @@
 
 package org.drools.core.common;
 
+import java.util.Collection;
+import java.util.List;
+
 import org.kie.api.runtime.rule.FactHandle;
 import org.drools.core.definitions.rule.impl.RuleImpl;
 import org.drools.core.impl.InternalKnowledgeBase;
@@ -42,6 +45,16 @@ public interface InternalWorkingMemoryEntryPoint extends EntryPoint {
     public InternalWorkingMemory getInternalWorkingMemory();
 
     public FactHandle getFactHandleByIdentity(final Object object);
+
+    /**
+     * Stages an object to be inserted, without locking, by the thread evaluating the session.
+     */
+    void stageInsert(Object object);
+
+    /**
+     * Inserts all the given objects in a single batch, returning their handles in the same order.
+     */
+    List<FactHandle> insertAll(Collection<?> objects);
     
     void reset();
     
@@ -64,12 +64,12 @@ public abstract class MultipleBetaConstraint implements BetaConstraints {
                 // We also ensure that if there is a mixture that standard restriction is first
                 depth = 1;
             }
-            initIndexes( depth, betaNodeType );
+            initIndexes( depth, betaNodeType, config );
         }
     }
 
-    public final void initIndexes(int depth, short betaNodeType) {
-        indexed = isIndexableForNode(indexPrecedenceOption, betaNodeType, depth, constraints);
+    public final void initIndexes(int depth, short betaNodeType, RuleBaseConfiguration config) {
+        indexed = isIndexableForNode(indexPrecedenceOption, betaNodeType, depth, constraints, config);
     }
 
     public final boolean isIndexed() {
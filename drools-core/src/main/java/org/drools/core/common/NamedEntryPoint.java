@@ -20,11 +20,17 @@ import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.PriorityQueue;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.kie.api.runtime.rule.FactHandle;
@@ -34,6 +40,7 @@ import org.drools.core.base.ClassObjectType;
 import org.drools.core.definitions.rule.impl.RuleImpl;
 import org.drools.core.factmodel.traits.TraitProxy;
 import org.drools.core.factmodel.traits.TraitableBean;
+import org.drools.core.facttemplates.Fact;
 import org.drools.core.impl.InternalKnowledgeBase;
 import org.drools.core.impl.StatefulKnowledgeSessionImpl;
 import org.drools.core.util.Iterator;
@@ -86,6 +93,9 @@ public class NamedEntryPoint
 
     protected Set<InternalFactHandle> dynamicFacts = null;
 
+    private final Queue<Object> stagedInserts = new ConcurrentLinkedQueue<Object>();
+    private final AtomicBoolean drainPending  = new AtomicBoolean( false );
+
     public NamedEntryPoint(EntryPointId entryPoint,
                            EntryPointNode entryPointNode,
                            StatefulKnowledgeSessionImpl wm) {
@@ -120,6 +130,7 @@ public class NamedEntryPoint
     }
 
     public void reset() {
+        this.stagedInserts.clear();
         this.objectStore.clear();
     }
 
@@ -301,6 +312,138 @@ public class NamedEntryPoint
 
     }
 
+    /**
+     * Stages an object for insertion without taking the session or the kbase locks, so that many
+     * producer threads can feed this entry point without contending with each other or with the
+     * thread evaluating the rules. The staged objects are inserted in a batch by the evaluating
+     * thread, when it next executes the queued actions, and only get their fact handles then.
+     */
+    public void stageInsert(final Object object) {
+        if ( object == null ) {
+            // you cannot assert a null object
+            return;
+        }
+        this.stagedInserts.offer( object );
+        // only the first object of a batch has to wake up the session
+        if ( this.drainPending.compareAndSet( false, true ) ) {
+            this.wm.notifyStagedInserts();
+        }
+    }
+
+    public boolean hasStagedInserts() {
+        return !this.stagedInserts.isEmpty();
+    }
+
+    /**
+     * Inserts all the staged objects, taking the locks once for the whole batch.
+     * Returns the number of inserted objects.
+     */
+    public int drainStagedInserts() {
+        this.drainPending.set( false );
+        if ( this.stagedInserts.isEmpty() ) {
+            return 0;
+        }
+
+        int drained = 0;
+        try {
+            this.lock.lock();
+            this.kBase.readLock();
+            Object object;
+            while ( (object = this.stagedInserts.poll()) != null ) {
+                insert( object );
+                drained++;
+            }
+        } finally {
+            this.kBase.readUnlock();
+            this.lock.unlock();
+        }
+        return drained;
+    }
+
+    /**
+     * Inserts all the given objects in a single batch: the locks are taken and the queued actions executed
+     * once for the whole batch and the ObjectTypeConf is resolved once for each class. Each fact is still
+     * propagated with its own PropagationContext, as the tuples created by it keep a reference to it.
+     * The objects of types with TMS enabled go through the regular insert, as they may be justified.
+     * Returns the handles in the order of the objects.
+     */
+    public List<FactHandle> insertAll(final Collection<?> objects) {
+        List<FactHandle> handles = new ArrayList<FactHandle>( objects.size() );
+        if ( this.wm.isSequential() ) {
+            for ( Object object : objects ) {
+                handles.add( insert( object ) );
+            }
+            return handles;
+        }
+
+        try {
+            this.wm.startOperation();
+            this.lock.lock();
+            this.kBase.readLock();
+
+            this.kBase.executeQueuedActions();
+            this.wm.executeQueuedActions();
+
+            Map<Class<?>, ObjectTypeConf> typeConfs = new HashMap<Class<?>, ObjectTypeConf>();
+            for ( Object object : objects ) {
+                if ( object == null ) {
+                    // you cannot assert a null object
+                    handles.add( null );
+                    continue;
+                }
+
+                // a Fact is typed by its template rather than by its class
+                ObjectTypeConf typeConf = object instanceof Fact ? null : typeConfs.get( object.getClass() );
+                if ( typeConf == null ) {
+                    typeConf = this.typeConfReg.getObjectTypeConf( this.entryPoint,
+                                                                   object );
+                    if ( !(object instanceof Fact) ) {
+                        typeConfs.put( object.getClass(), typeConf );
+                    }
+                }
+
+                if ( typeConf.isTMSEnabled() ) {
+                    handles.add( insert( object ) );
+                    continue;
+                }
+
+                // check if the object already exists in the WM
+                InternalFactHandle handle = this.objectStore.getHandleForObject( object );
+                if ( handle == null ) {
+                    handle = createHandle( object,
+                                           typeConf );
+                    PropagationContext propagationContext = this.pctxFactory.createPropagationContext( this.wm.getNextPropagationIdCounter(), PropagationContext.INSERTION,
+                                                                                                       null, null, handle, entryPoint );
+
+                    if ( typeConf.isDynamic() ) {
+                        addPropertyChangeListener( handle, false );
+                    }
+
+                    this.entryPointNode.assertObject( handle,
+                                                      propagationContext,
+                                                      typeConf,
+                                                      this.wm );
+
+                    propagationContext.evaluateActionQueue( this.wm );
+
+                    this.wm.getRuleRuntimeEventSupport().fireObjectInserted( propagationContext,
+                                                                             handle,
+                                                                             object,
+                                                                             this.wm );
+                }
+                handles.add( handle );
+            }
+
+            this.wm.executeQueuedActions();
+            ((InternalAgenda) this.wm.getAgenda()).unstageActivations();
+        } finally {
+            this.kBase.readUnlock();
+            this.lock.unlock();
+            this.wm.endOperation();
+        }
+        return handles;
+    }
+
     private void insertWhenHandleExists(final Object object,
                                               final Object tmsValue,
                                               boolean logical,
@@ -24,16 +24,15 @@ import java.util.Iterator;
 import java.util.concurrent.locks.Lock;
 
 import org.drools.core.RuleBaseConfiguration;
+import org.drools.core.util.FactHandleHashMap;
 import org.drools.core.util.JavaIteratorAdapter;
-import org.drools.core.util.ObjectHashMap;
-import org.drools.core.util.HashTableIterator;
 import org.drools.core.RuleBaseConfiguration.AssertBehaviour;
 import org.kie.api.runtime.rule.FactHandle;
 
 public class  SingleThreadedObjectStore implements Externalizable, ObjectStore {
     /** Object-to-handle mapping. */
-    private ObjectHashMap                          assertMap;
-    private ObjectHashMap                          identityMap;
+    private FactHandleHashMap                      assertMap;
+    private FactHandleHashMap                      identityMap;
     private AssertBehaviour                        behaviour;
     private Lock                                   lock;
 
@@ -45,21 +44,18 @@ public class  SingleThreadedObjectStore implements Externalizable, ObjectStore {
         this.behaviour = conf.getAssertBehaviour();
         this.lock = lock;
 
-        this.assertMap = new ObjectHashMap();
-
         if ( AssertBehaviour.IDENTITY.equals(this.behaviour) ) {
-            this.assertMap.setComparator( new IdentityAssertMapComparator() );
+            this.assertMap = new FactHandleHashMap( new IdentityAssertMapComparator() );
             this.identityMap = assertMap;
         } else {
-            this.assertMap.setComparator( new EqualityAssertMapComparator() );
-            this.identityMap = new ObjectHashMap();
-            this.identityMap.setComparator( new IdentityAssertMapComparator() );
+            this.assertMap = new FactHandleHashMap( new EqualityAssertMapComparator() );
+            this.identityMap = new FactHandleHashMap( new IdentityAssertMapComparator() );
         }
     }
 
     public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
-        assertMap   = (ObjectHashMap)in.readObject();
-        identityMap   = (ObjectHashMap)in.readObject();
+        assertMap   = (FactHandleHashMap)in.readObject();
+        identityMap   = (FactHandleHashMap)in.readObject();
         behaviour   = (AssertBehaviour)in.readObject();
         lock   = (Lock)in.readObject();
     }
@@ -98,7 +94,7 @@ public class  SingleThreadedObjectStore implements Externalizable, ObjectStore {
             this.lock.lock();
 
             // Make sure the FactHandle is from this WorkingMemory
-            final InternalFactHandle internalHandle = (InternalFactHandle) this.assertMap.get( handle );
+            final InternalFactHandle internalHandle = this.assertMap.get( handle );
             if ( internalHandle == null ) {
                 return null;
             }
@@ -118,19 +114,19 @@ public class  SingleThreadedObjectStore implements Externalizable, ObjectStore {
         if ( object == null ) {
             return null;
         } else {
-            return (InternalFactHandle) this.assertMap.get( object );
+            return this.assertMap.get( object );
         }
     }
     
     public InternalFactHandle reconnect(FactHandle factHandle) {
-        return (InternalFactHandle) this.assertMap.get( factHandle );
+        return this.assertMap.get( factHandle );
     }
 
     /* (non-Javadoc)
      * @see org.kie.common.ObjectStore#getHandleForObject(java.lang.Object)
      */
     public InternalFactHandle getHandleForObjectIdentity(Object object) {
-        return (InternalFactHandle) this.identityMap.get( object );
+        return this.identityMap.get( object );
     }
 
     /* (non-Javadoc)
@@ -142,13 +138,9 @@ public class  SingleThreadedObjectStore implements Externalizable, ObjectStore {
             this.identityMap.remove( handle );    
         }
         handle.setObject( object );
-        this.assertMap.put( handle,
-                            handle,
-                            false );
+        this.assertMap.put( handle );
         if ( AssertBehaviour.EQUALITY.equals(this.behaviour) ) {
-            this.identityMap.put( handle,
-                                  handle,
-                                  false );    
+            this.identityMap.put( handle );    
         }        
     }
 
@@ -156,13 +148,9 @@ public class  SingleThreadedObjectStore implements Externalizable, ObjectStore {
      * @see org.kie.common.ObjectStore#addHandle(org.kie.common.InternalFactHandle, java.lang.Object)
      */
     public void addHandle(InternalFactHandle handle, Object object) {
-        this.assertMap.put( handle,
-                            handle,
-                            false );
+        this.assertMap.put( handle );
         if ( AssertBehaviour.EQUALITY.equals(this.behaviour) ) {
-            this.identityMap.put( handle,
-                                  handle,
-                                  false );
+            this.identityMap.put( handle );
         }
     }
 
@@ -180,20 +168,15 @@ public class  SingleThreadedObjectStore implements Externalizable, ObjectStore {
      * @see org.kie.common.ObjectStore#iterateObjects()
      */
     public Iterator iterateObjects() {
-        HashTableIterator iterator = new HashTableIterator( this.assertMap );
-        iterator.reset();
-        return new JavaIteratorAdapter( iterator,
-                                        JavaIteratorAdapter.OBJECT );
+        return this.assertMap.iterator( JavaIteratorAdapter.OBJECT,
+                                        null );
     }
 
     /* (non-Javadoc)
      * @see org.kie.common.ObjectStore#iterateObjects(org.kie.ObjectFilter)
      */
     public Iterator iterateObjects(org.kie.api.runtime.ObjectFilter filter) {
-        HashTableIterator iterator = new HashTableIterator( this.assertMap );
-        iterator.reset();
-        return new JavaIteratorAdapter( iterator,
-                                        JavaIteratorAdapter.OBJECT,
+        return this.assertMap.iterator( JavaIteratorAdapter.OBJECT,
                                         filter );
     }
 
@@ -201,20 +184,15 @@ public class  SingleThreadedObjectStore implements Externalizable, ObjectStore {
      * @see org.kie.common.ObjectStore#iterateFactHandles()
      */
     public Iterator iterateFactHandles() {
-        HashTableIterator iterator = new HashTableIterator( this.assertMap );
-        iterator.reset();
-        return new JavaIteratorAdapter( iterator,
-                                        JavaIteratorAdapter.FACT_HANDLE );
+        return this.assertMap.iterator( JavaIteratorAdapter.FACT_HANDLE,
+                                        null );
     }
 
     /* (non-Javadoc)
      * @see org.kie.common.ObjectStore#iterateFactHandles(org.kie.ObjectFilter)
      */
     public Iterator iterateFactHandles(org.kie.api.runtime.ObjectFilter filter) {
-        HashTableIterator iterator = new HashTableIterator( this.assertMap );
-        iterator.reset();
-        return new JavaIteratorAdapter( iterator,
-                                        JavaIteratorAdapter.FACT_HANDLE,
+        return this.assertMap.iterator( JavaIteratorAdapter.FACT_HANDLE,
                                         filter );
     }
 
@@ -82,6 +82,8 @@ public interface InternalKnowledgeBase extends KnowledgeBase {
 
     StatefulKnowledgeSessionImpl getCachedSession(SessionConfiguration config, Environment environment);
 
+    StatefulSessionPool newSessionPool(SessionConfiguration config, Environment environment, int minIdle, int maxIdle);
+
     TripleStore getTripleStore();
 
     TraitRegistry getTraitRegistry();
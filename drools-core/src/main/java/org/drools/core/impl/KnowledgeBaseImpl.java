@@ -45,6 +45,8 @@ import org.drools.core.reteoo.ObjectTypeNode;
 import org.drools.core.reteoo.Rete;
 import org.drools.core.reteoo.ReteooBuilder;
 import org.drools.core.reteoo.SegmentMemory;
+import org.drools.core.reteoo.compiled.AlphaNetworkCompiler;
+import org.drools.core.reteoo.compiled.CompiledNetwork;
 import org.drools.core.rule.DialectRuntimeRegistry;
 import org.drools.core.rule.EntryPointId;
 import org.drools.core.rule.Function;
@@ -162,6 +164,11 @@ public class KnowledgeBaseImpl
     private int additionsSinceLock;
     private int removalsSinceLock;
 
+    // the network changed since the alpha network was compiled, so it has to be compiled again when the kbase is unlocked
+    private transient boolean alphaNetworkChanged;
+    // incremented, under the write lock, at each change of the network, so that outdated compiled networks aren't set
+    private transient int alphaNetworkVersion;
+
     private transient Map<String, TypeDeclaration> classTypeDeclaration;
 
     private List<RuleBasePartitionId> partitionIDs;
@@ -505,6 +512,9 @@ public class KnowledgeBaseImpl
         }
 
         this.getConfiguration().getComponentFactory().getTraitFactory().setRuleBase(this);
+
+        // the compiled alpha networks are generated classes, so they aren't serialized with their nodes
+        compileAlphaNetwork();
     }
 
     /**
@@ -630,6 +640,10 @@ public class KnowledgeBaseImpl
         return sessionsCache != null ? sessionsCache.getCachedSession(config) : null;
     }
 
+    public StatefulSessionPool newSessionPool(SessionConfiguration config, Environment environment, int minIdle, int maxIdle) {
+        return new StatefulSessionPool(this, config, environment, minIdle, maxIdle);
+    }
+
     public FactHandleFactory getFactHandleFactory() {
         return this.factHandleFactory;
     }
@@ -697,13 +711,19 @@ public class KnowledgeBaseImpl
 
     public void unlock() {
         boolean lastUnlock = this.lock.getWriteHoldCount() == 1;
+        boolean compileAlphaNetwork = lastUnlock && this.alphaNetworkChanged;
         if (lastUnlock) {
+            this.alphaNetworkChanged = false;
             this.eventSupport.fireBeforeRuleBaseUnlocked();
         }
         this.lock.writeUnlock();
         if ( lastUnlock ) {
             this.eventSupport.fireAfterRuleBaseUnlocked();
         }
+        if ( compileAlphaNetwork ) {
+            // compiled after releasing the write lock, as the nodes keep propagating through their sinks until then
+            compileAlphaNetwork();
+        }
     }
 
     public void readLock() {
@@ -1477,6 +1497,81 @@ public class KnowledgeBaseImpl
     protected void addRule(final RuleImpl rule) throws InvalidPatternException {
         // This adds the rule. ReteBuilder has a reference to the WorkingMemories and will propagate any existing facts.
         this.reteooBuilder.addRule(rule);
+        resetCompiledNetworks();
+    }
+
+    /**
+     * The compiled alpha networks don't follow the changes of the network, so they are dropped as soon as
+     * a rule or a window is added or removed and the ObjectTypeNodes go back to propagate through their sinks,
+     * until the network is compiled again when the kbase is unlocked.
+     */
+    private void resetCompiledNetworks() {
+        for ( ObjectTypeNode otn : this.rete.getObjectTypeNodes() ) {
+            if ( otn.getCompiledNetwork() != null ) {
+                otn.setCompiledNetwork( null );
+            }
+        }
+        this.alphaNetworkChanged = true;
+        this.alphaNetworkVersion++;
+    }
+
+    /**
+     * Compiles the alpha network of the ObjectTypeNodes when the drools.compiledAlphaNetwork option is enabled.
+     * The sources are generated and compiled holding only the read lock, so that the sessions aren't stopped,
+     * and the compiled networks are set under the write lock, unless the network changed in the meanwhile.
+     * The compiler is part of drools-compiler, so without it the nodes keep propagating through their sinks.
+     */
+    private void compileAlphaNetwork() {
+        if ( !this.config.isCompiledAlphaNetwork() ) {
+            return;
+        }
+        AlphaNetworkCompiler compiler = AlphaNetworkCompilerHolder.compiler;
+        if ( compiler == null ) {
+            return;
+        }
+
+        Map<ObjectTypeNode, CompiledNetwork> networks;
+        int version;
+        readLock();
+        try {
+            version = this.alphaNetworkVersion;
+            networks = compiler.compile( this );
+        } catch ( RuntimeException e ) {
+            // this runs while unlocking the kbase, so it must not throw
+            logger.warn( "Unable to compile the alpha network, the ObjectTypeNodes will propagate through their sinks", e );
+            return;
+        } finally {
+            readUnlock();
+        }
+        if ( networks.isEmpty() ) {
+            return;
+        }
+
+        lock();
+        try {
+            // otherwise the thread that changed the network compiles it again
+            if ( version == this.alphaNetworkVersion ) {
+                for ( Map.Entry<ObjectTypeNode, CompiledNetwork> entry : networks.entrySet() ) {
+                    entry.getKey().setCompiledNetwork( entry.getValue() );
+                }
+            }
+        } finally {
+            unlock();
+        }
+    }
+
+    private static class AlphaNetworkCompilerHolder {
+        private static final AlphaNetworkCompiler compiler = loadCompiler();
+
+        private static AlphaNetworkCompiler loadCompiler() {
+            try {
+                ServiceRegistryImpl.getInstance().addDefault( AlphaNetworkCompiler.class, AlphaNetworkCompiler.IMPLEMENTATION_CLASS );
+                return ServiceRegistryImpl.getInstance().get( AlphaNetworkCompiler.class );
+            } catch ( IllegalArgumentException e ) {
+                logger.warn( "Cannot find drools-compiler.jar on the classpath, the alpha network will not be compiled" );
+                return null;
+            }
+        }
     }
 
     protected void addEntryPoint(final String id) throws InvalidPatternException {
@@ -1497,6 +1592,7 @@ public class KnowledgeBaseImpl
     protected void addWindowDeclaration(final WindowDeclaration window) throws InvalidPatternException {
         // This adds the named window. ReteBuilder has a reference to the WorkingMemories and will propagate any existing facts.
         this.reteooBuilder.addNamedWindow(window);
+        resetCompiledNetworks();
     }
 
     public void removeQuery( final String packageName,
@@ -1557,6 +1653,7 @@ public class KnowledgeBaseImpl
 
     protected void removeRule(final RuleImpl rule) {
         this.reteooBuilder.removeRule(rule);
+        resetCompiledNetworks();
     }
 
     public void removeFunction( final String packageName,
@@ -63,6 +63,7 @@ import org.drools.core.marshalling.impl.MarshallerWriteContext;
 import org.drools.core.marshalling.impl.ObjectMarshallingStrategyStoreImpl;
 import org.drools.core.marshalling.impl.PersisterHelper;
 import org.drools.core.marshalling.impl.ProtobufMessages;
+import org.drools.core.phreak.NodeProfiler;
 import org.drools.core.phreak.RuleAgendaItem;
 import org.drools.core.phreak.RuleExecutor;
 import org.drools.core.phreak.SegmentUtilities;
@@ -85,6 +86,7 @@ import org.drools.core.rule.EntryPointId;
 import org.drools.core.runtime.impl.ExecutionResultImpl;
 import org.drools.core.runtime.process.InternalProcessRuntime;
 import org.drools.core.runtime.process.ProcessRuntimeFactory;
+import org.drools.core.runtime.rule.impl.BoundedQueryViewChangedEventListenerAdapter;
 import org.drools.core.runtime.rule.impl.LiveQueryImpl;
 import org.drools.core.runtime.rule.impl.OpenQueryViewChangedEventListenerAdapter;
 import org.drools.core.spi.Activation;
@@ -210,6 +212,9 @@ public class StatefulKnowledgeSessionImpl extends AbstractRuntime
 
     protected AtomicBoolean evaluatingActionQueue;
 
+    /** Set when an entry point has objects staged for insertion by other threads. */
+    private volatile boolean stagedInsertsPending;
+
     protected ReentrantLock lock;
 
     /**
@@ -257,6 +262,8 @@ public class StatefulKnowledgeSessionImpl extends AbstractRuntime
 
     private boolean alive = true;
 
+    private NodeProfiler nodeProfiler;
+
     // ------------------------------------------------------------
     // Constructors
     // ------------------------------------------------------------
@@ -334,6 +341,9 @@ public class StatefulKnowledgeSessionImpl extends AbstractRuntime
         this.environment = environment;
 
         nodeMemories = new ConcurrentNodeMemories(this.kBase);
+        if (kBase.getConfiguration().isNodeProfiling()) {
+            nodeProfiler = new NodeProfiler();
+        }
         actionQueue = new ConcurrentLinkedQueue<WorkingMemoryAction>();
 
         Globals globals = (Globals) this.environment.get(EnvironmentName.GLOBALS);
@@ -812,6 +822,57 @@ public class StatefulKnowledgeSessionImpl extends AbstractRuntime
         }
     }
 
+    /**
+     * Runs a query passing its rows to the given listener while they are produced, instead of collecting
+     * them in a QueryResults. At most limit rows are notified, or all of them if limit is negative.
+     * The query isn't kept open, so the rows can be read only inside the listener.
+     *
+     * @return the number of rows notified
+     */
+    public int streamQueryResults(String queryName, int limit, ViewChangedEventListener listener, Object... arguments) {
+
+        try {
+            startOperation();
+
+            this.lock.lock();
+            this.kBase.readLock();
+
+            this.kBase.executeQueuedActions();
+            executeQueuedActions();
+
+            BoundedQueryViewChangedEventListenerAdapter collector = new BoundedQueryViewChangedEventListenerAdapter( listener, limit );
+            DroolsQuery queryObject = new DroolsQuery( queryName,
+                                                       arguments,
+                                                       collector,
+                                                       false ,
+                                                       null,
+                                                       null,
+                                                       null,
+                                                       null,
+                                                       null );
+
+            InternalFactHandle handle = this.handleFactory.newFactHandle( queryObject,
+                                                                          null,
+                                                                          this,
+                                                                          this );
+
+            final PropagationContext pCtx = pctxFactory.createPropagationContext(getNextPropagationIdCounter(), PropagationContext.INSERTION,
+                                                                                 null, null, handle, getEntryPoint());
+
+            evalQuery(queryName, queryObject, handle, pCtx);
+
+            executeQueuedActions();
+
+            this.handleFactory.destroyFactHandle( handle );
+
+            return collector.getCount();
+        } finally {
+            this.kBase.readUnlock();
+            this.lock.unlock();
+            endOperation();
+        }
+    }
+
     private InternalViewChangedEventListener getQueryListenerInstance() {
         switch ( this.config.getQueryListenerOption() ) {
             case STANDARD :
@@ -1035,6 +1096,7 @@ public class StatefulKnowledgeSessionImpl extends AbstractRuntime
         if (actionQueue != null) {
             actionQueue.clear();
         }
+        this.stagedInsertsPending = false;
 
         if (nodeMemories != null) {
             nodeMemories.resetAllMemories(this);
@@ -1079,6 +1141,7 @@ public class StatefulKnowledgeSessionImpl extends AbstractRuntime
                                   handleCounter );
 
         if (actionQueue != null) actionQueue.clear();
+        this.stagedInsertsPending = false;
 
         this.propagationIdCounter = new AtomicLong( propagationCounter );
         this.opCounter.set( 0 );
@@ -1366,6 +1429,40 @@ public class StatefulKnowledgeSessionImpl extends AbstractRuntime
         return getObjectStore().getHandleForObjectIdentity( object );
     }
 
+    /**
+     * @see NamedEntryPoint#stageInsert(Object)
+     */
+    public void stageInsert(final Object object) {
+        this.defaultEntryPoint.stageInsert( object );
+    }
+
+    public List<FactHandle> insertAll(final Collection<?> objects) {
+        checkAlive();
+        return this.defaultEntryPoint.insertAll( objects );
+    }
+
+    public void notifyStagedInserts() {
+        this.stagedInsertsPending = true;
+        this.agenda.notifyHalt();
+    }
+
+    public boolean hasStagedInserts() {
+        return this.stagedInsertsPending;
+    }
+
+    /**
+     * Inserts the objects staged on all the entry points. This is done by the thread evaluating the session,
+     * before it executes the queued actions.
+     */
+    public void drainStagedInserts() {
+        if ( this.stagedInsertsPending ) {
+            this.stagedInsertsPending = false;
+            for ( WorkingMemoryEntryPoint ep : this.entryPoints.values() ) {
+                ((NamedEntryPoint) ep).drainStagedInserts();
+            }
+        }
+    }
+
     /**
      * This class is not thread safe, changes to the working memory during
      * iteration may give unexpected results
@@ -1549,6 +1646,8 @@ public class StatefulKnowledgeSessionImpl extends AbstractRuntime
             if ( evaluatingActionQueue.compareAndSet( false,
                                                       true ) ) {
                 try {
+                    drainStagedInserts();
+
                     if ( actionQueue!= null && !actionQueue.isEmpty() ) {
                         WorkingMemoryAction action = null;
 
@@ -1604,6 +1703,10 @@ public class StatefulKnowledgeSessionImpl extends AbstractRuntime
         return nodeMemories;
     }
 
+    public NodeProfiler getNodeProfiler() {
+        return nodeProfiler;
+    }
+
     public RuleRuntimeEventSupport getRuleRuntimeEventSupport() {
         return this.ruleRuntimeEventSupport;
     }
@@ -1838,16 +1941,22 @@ public class StatefulKnowledgeSessionImpl extends AbstractRuntime
         }
 
         public void execute(InternalWorkingMemory workingMemory) {
-            if (this.factHandle.isValid()) {
+            expire(this.factHandle, this.node, workingMemory);
+        }
+
+        public static void expire(InternalFactHandle factHandle,
+                                  ObjectTypeNode node,
+                                  InternalWorkingMemory workingMemory) {
+            if (factHandle.isValid()) {
                 PropagationContextFactory pctxFactory = workingMemory.getKnowledgeBase().getConfiguration().getComponentFactory().getPropagationContextFactory();
 
                 // if the fact is still in the working memory (since it may have been previously retracted already
                 final PropagationContext context = pctxFactory.createPropagationContext(workingMemory.getNextPropagationIdCounter(), PropagationContext.EXPIRATION,
-                                                                                        null, null, this.factHandle);
+                                                                                        null, null, factHandle);
                 ((EventFactHandle) factHandle).setExpired(true);
-                this.node.retractObject(factHandle,
-                                        context,
-                                        workingMemory);
+                node.retractObject(factHandle,
+                                   context,
+                                   workingMemory);
 
                 context.evaluateActionQueue(workingMemory);
                 // if no activations for this expired event
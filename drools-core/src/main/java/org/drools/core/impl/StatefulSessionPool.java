@@ -0,0 +1,251 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.drools.core.SessionConfiguration;
+import org.kie.api.event.kiebase.KieBaseEventListener;
+import org.kie.api.event.process.ProcessEventListener;
+import org.kie.api.event.rule.AgendaEventListener;
+import org.kie.api.event.rule.RuleRuntimeEventListener;
+import org.kie.api.runtime.Environment;
+import org.kie.internal.concurrent.ExecutorProviderFactory;
+
+/**
+ * A pool of stateful sessions of the same KieBase and configuration, so that short lived sessions
+ * don't pay the cost of their creation, as the node memories and the initial fact are reused.
+ * A session is borrowed from the pool and must be given back with release(), instead of being disposed:
+ * it is then reset, clearing its facts, node memories, agenda and globals, and made available again.
+ * The event listeners added by the borrower are removed, the ones the session had when created are kept.
+ * At least minIdle sessions are kept ready, creating them in background; when more than maxIdle
+ * sessions are released, the exceeding ones are disposed.
+ */
+public class StatefulSessionPool {
+
+    private final InternalKnowledgeBase                     kBase;
+    private final SessionConfiguration                      sessionConfig;
+    private final Environment                               environment;
+    private final int                                       minIdle;
+    private final int                                       maxIdle;
+
+    private final Queue<StatefulKnowledgeSessionImpl>       idleSessions = new ConcurrentLinkedQueue<StatefulKnowledgeSessionImpl>();
+    // the size of a ConcurrentLinkedQueue isn't a constant time operation
+    private final AtomicInteger                             idleCount    = new AtomicInteger();
+    private final AtomicBoolean                             refilling    = new AtomicBoolean();
+
+    // the listeners of each session of the pool when it was created, borrowed or idle
+    private final Map<StatefulKnowledgeSessionImpl, SessionListeners> initialListeners =
+            Collections.synchronizedMap( new IdentityHashMap<StatefulKnowledgeSessionImpl, SessionListeners>() );
+    // the sessions of the pool currently given to a borrower and not yet released
+    private final Set<StatefulKnowledgeSessionImpl>         borrowed     =
+            Collections.synchronizedSet( Collections.newSetFromMap( new IdentityHashMap<StatefulKnowledgeSessionImpl, Boolean>() ) );
+
+    private final AtomicLong                                hits         = new AtomicLong();
+    private final AtomicLong                                misses       = new AtomicLong();
+    private final AtomicLong                                created      = new AtomicLong();
+
+    private volatile boolean                                closed;
+
+    public StatefulSessionPool(InternalKnowledgeBase kBase,
+                               SessionConfiguration sessionConfig,
+                               Environment environment,
+                               int minIdle,
+                               int maxIdle) {
+        if ( !kBase.getConfiguration().isPhreakEnabled() ) {
+            throw new IllegalStateException( "Sessions can be pooled only in PHREAK mode" );
+        }
+        if ( minIdle < 0 || maxIdle < minIdle ) {
+            throw new IllegalArgumentException( "Invalid pool size: min " + minIdle + ", max " + maxIdle );
+        }
+        this.kBase = kBase;
+        this.sessionConfig = sessionConfig;
+        this.environment = environment;
+        this.minIdle = minIdle;
+        this.maxIdle = maxIdle;
+        refill();
+    }
+
+    /**
+     * Returns an idle session of the pool, creating a new one when none is available.
+     */
+    public StatefulKnowledgeSessionImpl borrow() {
+        if ( closed ) {
+            throw new IllegalStateException( "The session pool has been closed" );
+        }
+        StatefulKnowledgeSessionImpl session = idleSessions.poll();
+        if ( session != null ) {
+            idleCount.decrementAndGet();
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+            session = createSession();
+        }
+        borrowed.add( session );
+        refill();
+        return session;
+    }
+
+    /**
+     * Gives a borrowed session back to the pool, removing the listeners added to it and resetting it.
+     * A session can be released only once for each time it has been borrowed.
+     */
+    public void release(StatefulKnowledgeSessionImpl session) {
+        SessionListeners listeners = initialListeners.get( session );
+        if ( listeners == null ) {
+            throw new IllegalArgumentException( "The session doesn't belong to this pool" );
+        }
+        if ( !borrowed.remove( session ) ) {
+            throw new IllegalStateException( "The session isn't borrowed, it has already been released" );
+        }
+        if ( closed || idleCount.get() >= maxIdle ) {
+            dispose( session );
+            return;
+        }
+        listeners.removeAddedListeners( session );
+        // the reset creates a new timer service
+        session.getTimerService().shutdown();
+        session.reset();
+        idleSessions.offer( session );
+        idleCount.incrementAndGet();
+    }
+
+    /**
+     * Disposes all the idle sessions. The sessions released after the pool has been closed are disposed too.
+     */
+    public void close() {
+        closed = true;
+        for ( StatefulKnowledgeSessionImpl session = idleSessions.poll(); session != null; session = idleSessions.poll() ) {
+            idleCount.decrementAndGet();
+            dispose( session );
+        }
+    }
+
+    private StatefulKnowledgeSessionImpl createSession() {
+        created.incrementAndGet();
+        StatefulKnowledgeSessionImpl session = (StatefulKnowledgeSessionImpl) kBase.newStatefulKnowledgeSession( sessionConfig, environment );
+        initialListeners.put( session, new SessionListeners( session ) );
+        return session;
+    }
+
+    private void dispose(StatefulKnowledgeSessionImpl session) {
+        initialListeners.remove( session );
+        session.dispose();
+    }
+
+    /**
+     * Creates in background the sessions missing to have minIdle ones ready.
+     */
+    private void refill() {
+        if ( idleCount.get() >= minIdle || !refilling.compareAndSet( false, true ) ) {
+            return;
+        }
+        ExecutorProviderFactory.getExecutorProvider().getExecutor().execute( new Runnable() {
+            public void run() {
+                try {
+                    while ( !closed && idleCount.get() < minIdle ) {
+                        idleSessions.offer( createSession() );
+                        idleCount.incrementAndGet();
+                    }
+                    if ( closed ) {
+                        // disposes the session possibly created while closing the pool
+                        close();
+                    }
+                } finally {
+                    refilling.set( false );
+                }
+            }
+        } );
+    }
+
+    public int getIdleCount() {
+        return idleCount.get();
+    }
+
+    /**
+     * The number of times a session was borrowed and an idle one was available.
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * The number of times a session was borrowed and it had to be created.
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getCreatedCount() {
+        return created.get();
+    }
+
+    private static class SessionListeners {
+        private final List<RuleRuntimeEventListener> ruleRuntimeEventListeners;
+        private final List<AgendaEventListener>      agendaEventListeners;
+        private final List<KieBaseEventListener>     kieBaseEventListeners;
+        private final List<ProcessEventListener>     processEventListeners;
+
+        private SessionListeners(StatefulKnowledgeSessionImpl session) {
+            ruleRuntimeEventListeners = new ArrayList<RuleRuntimeEventListener>( session.getRuleRuntimeEventListeners() );
+            agendaEventListeners = new ArrayList<AgendaEventListener>( session.getAgendaEventListeners() );
+            kieBaseEventListeners = new ArrayList<KieBaseEventListener>( session.getKieBaseEventListeners() );
+            processEventListeners = session.getProcessRuntime() != null ?
+                                    new ArrayList<ProcessEventListener>( session.getProcessEventListeners() ) :
+                                    Collections.<ProcessEventListener>emptyList();
+        }
+
+        private void removeAddedListeners(StatefulKnowledgeSessionImpl session) {
+            for ( RuleRuntimeEventListener listener : added( session.getRuleRuntimeEventListeners(), ruleRuntimeEventListeners ) ) {
+                session.removeEventListener( listener );
+            }
+            for ( AgendaEventListener listener : added( session.getAgendaEventListeners(), agendaEventListeners ) ) {
+                session.removeEventListener( listener );
+            }
+            // the kbase listeners are registered on the kbase, so they would outlive the reset
+            for ( KieBaseEventListener listener : added( session.getKieBaseEventListeners(), kieBaseEventListeners ) ) {
+                session.removeEventListener( listener );
+            }
+            if ( session.getProcessRuntime() != null ) {
+                for ( ProcessEventListener listener : added( session.getProcessEventListeners(), processEventListeners ) ) {
+                    session.removeEventListener( listener );
+                }
+            }
+        }
+
+        private static <T> List<T> added(Collection<T> current, List<T> initial) {
+            List<T> added = new ArrayList<T>();
+            for ( T listener : current ) {
+                if ( !initial.contains( listener ) ) {
+                    added.add( listener );
+                }
+            }
+            return added;
+        }
+    }
+}
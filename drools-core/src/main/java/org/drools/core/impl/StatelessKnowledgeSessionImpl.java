@@ -24,6 +24,7 @@ import org.drools.core.command.impl.GenericCommand;
 import org.drools.core.command.runtime.BatchExecutionCommandImpl;
 import org.drools.core.command.runtime.rule.FireAllRulesCommand;
 import org.drools.core.common.InternalFactHandle;
+import org.drools.core.common.InternalWorkingMemoryEntryPoint;
 import org.drools.core.common.WorkingMemoryFactory;
 import org.drools.core.event.AgendaEventSupport;
 import org.drools.core.event.ProcessEventSupport;
@@ -359,22 +360,28 @@ public class StatelessKnowledgeSessionImpl extends AbstractRuntime
     public void execute(Iterable objects) {
         newWorkingMemory();
         try {
-            for ( Object object : objects ) {
-                ksession.insert( object );
-            }
+            insertAll( objects );
             ksession.fireAllRules();
         } finally {
             dispose();
         }
     }
 
+    private void insertAll(Iterable objects) {
+        if ( objects instanceof Collection ) {
+            ((InternalWorkingMemoryEntryPoint) ksession).insertAll( (Collection<?>) objects );
+        } else {
+            for ( Object object : objects ) {
+                ksession.insert( object );
+            }
+        }
+    }
+
     public List executeWithResults(Iterable objects, ObjectFilter filter) {
         List list = new ArrayList();
         newWorkingMemory();
         try {
-            for ( Object object : objects ) {
-                ksession.insert( object );
-            }
+            insertAll( objects );
             ksession.fireAllRules();
             for (FactHandle fh : ksession.getFactHandles(filter)) {
                 list.add(((InternalFactHandle) fh).getObject());
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.io.impl;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * An InputStream reading the remaining bytes of a ByteBuffer, like a memory-mapped file,
+ * without copying them on the heap.
+ */
+public class ByteBufferInputStream extends InputStream {
+
+    private final ByteBuffer buffer;
+
+    public ByteBufferInputStream(ByteBuffer buffer) {
+        if ( buffer == null ) {
+            throw new IllegalArgumentException("buffer must not be null");
+        }
+        this.buffer = buffer;
+    }
+
+    public int read() {
+        return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+    }
+
+    public int read(byte[] b, int off, int len) {
+        if ( len == 0 ) {
+            return 0;
+        }
+        if ( !buffer.hasRemaining() ) {
+            return -1;
+        }
+        int read = Math.min( len, buffer.remaining() );
+        buffer.get( b, off, read );
+        return read;
+    }
+
+    public long skip(long n) {
+        int skipped = (int) Math.min( Math.max( n, 0 ), buffer.remaining() );
+        buffer.position( buffer.position() + skipped );
+        return skipped;
+    }
+
+    public int available() {
+        return buffer.remaining();
+    }
+
+    public boolean markSupported() {
+        return true;
+    }
+
+    public void mark(int readlimit) {
+        buffer.mark();
+    }
+
+    public void reset() {
+        buffer.reset();
+    }
+}
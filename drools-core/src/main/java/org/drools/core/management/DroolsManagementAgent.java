@@ -19,7 +19,6 @@ package org.drools.core.management;
 import org.drools.core.common.InternalWorkingMemory;
 import org.drools.core.impl.InternalKnowledgeBase;
 import org.kie.api.management.KieManagementAgentMBean;
-import org.kie.api.management.KieSessionMonitoringMBean;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -108,7 +107,7 @@ public class DroolsManagementAgent
     public void registerKnowledgeSession(InternalWorkingMemory ksession) {
         KieSessionMonitoringImpl mbean = new KieSessionMonitoringImpl( ksession );
         try {
-            final StandardMBean adapter = new StandardMBean( mbean, KieSessionMonitoringMBean.class );
+            final StandardMBean adapter = new StandardMBean( mbean, KieSessionProfilingMBean.class );
             registerMBean( ksession,
                            adapter,
                            mbean.getName() );
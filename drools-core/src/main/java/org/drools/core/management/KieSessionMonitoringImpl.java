@@ -17,10 +17,17 @@
 package org.drools.core.management;
 
 import org.drools.core.common.InternalWorkingMemory;
+import org.drools.core.common.Memory;
+import org.drools.core.common.NodeMemories;
 import org.drools.core.impl.InternalKnowledgeBase;
 import org.drools.core.management.KieSessionMonitoringImpl.AgendaStats.AgendaStatsData;
 import org.drools.core.management.KieSessionMonitoringImpl.ProcessStats.ProcessInstanceStatsData;
 import org.drools.core.management.KieSessionMonitoringImpl.ProcessStats.ProcessStatsData;
+import org.drools.core.phreak.NodeProfiler;
+import org.drools.core.phreak.NodeProfiler.NodeStats;
+import org.drools.core.phreak.RuleEvaluationStats;
+import org.drools.core.reteoo.PathMemory;
+import org.drools.core.reteoo.RiaPathMemory;
 import org.kie.api.event.process.ProcessCompletedEvent;
 import org.kie.api.event.process.ProcessNodeLeftEvent;
 import org.kie.api.event.process.ProcessNodeTriggeredEvent;
@@ -30,11 +37,12 @@ import org.kie.api.event.rule.AfterMatchFiredEvent;
 import org.kie.api.event.rule.BeforeMatchFiredEvent;
 import org.kie.api.event.rule.MatchCancelledEvent;
 import org.kie.api.event.rule.MatchCreatedEvent;
-import org.kie.api.management.KieSessionMonitoringMBean;
 
 import javax.management.ObjectName;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
@@ -43,7 +51,7 @@ import java.util.concurrent.atomic.AtomicReference;
 /**
  * An MBean to monitor a given knowledge session
  */
-public class KieSessionMonitoringImpl implements KieSessionMonitoringMBean {
+public class KieSessionMonitoringImpl implements KieSessionProfilingMBean {
 
     private static final String KSESSION_PREFIX = "org.drools.kbases";
     
@@ -80,6 +88,12 @@ public class KieSessionMonitoringImpl implements KieSessionMonitoringMBean {
     public void reset() {
         this.agendaStats.reset();
         this.processStats.reset();
+        if (ksession.getNodeProfiler() != null) {
+            ksession.getNodeProfiler().reset();
+        }
+        for (RuleEvaluationStats stats : getPathEvaluationStats()) {
+            stats.reset();
+        }
     }
 
     public InternalWorkingMemory getKsession() {
@@ -178,6 +192,78 @@ public class KieSessionMonitoringImpl implements KieSessionMonitoringMBean {
         return result;
     }
     
+    public String getStatsForNode( int nodeId ) {
+        NodeProfiler profiler = ksession.getNodeProfiler();
+        if (profiler != null) {
+            for (NodeStats stats : profiler.getAllStats()) {
+                if (stats.getNode().getId() == nodeId) {
+                    return stats.toString();
+                }
+            }
+        }
+        return "evaluations=0 leftTuplesIn=0 rightTuplesIn=0 tuplesOut=0 indexedLookups=0 scans=0 time=0ms";
+    }
+
+    public Map<String,String> getStatsByNode() {
+        Map<String, String> result = new HashMap<String, String>();
+        NodeProfiler profiler = ksession.getNodeProfiler();
+        if (profiler != null) {
+            for (NodeStats stats : profiler.getAllStats()) {
+                result.put( stats.getNodeName(), stats.toString() );
+            }
+        }
+        return result;
+    }
+
+    public String getNodeProfile() {
+        NodeProfiler profiler = ksession.getNodeProfiler();
+        return profiler != null ? profiler.dump() : "Node profiling is not enabled";
+    }
+
+    public String getEvaluationStatsForRule( String ruleName ) {
+        RuleEvaluationStats stats = getEvaluationStatsByRuleName().get( ruleName );
+        return stats == null ? new RuleEvaluationStats( 0 ).toString() : stats.toString();
+    }
+
+    public Map<String,String> getEvaluationStatsByRule() {
+        Map<String, String> result = new HashMap<String, String>();
+        for( Map.Entry<String, RuleEvaluationStats> entry : getEvaluationStatsByRuleName().entrySet() ) {
+            result.put( entry.getKey(), entry.getValue().toString() );
+        }
+        return result;
+    }
+
+    private Map<String, RuleEvaluationStats> getEvaluationStatsByRuleName() {
+        Map<String, RuleEvaluationStats> result = new HashMap<String, RuleEvaluationStats>();
+        NodeMemories memories = ksession.getNodeMemories();
+        for (int i = 0; i < memories.length(); i++) {
+            Memory memory = memories.peekNodeMemory( i );
+            if (memory instanceof PathMemory && !(memory instanceof RiaPathMemory) && ((PathMemory) memory).getEvaluationStats() != null) {
+                PathMemory pmem = (PathMemory) memory;
+                // the branches of a rule have a path each, so their costs are added
+                RuleEvaluationStats stats = result.get( pmem.getRule().getName() );
+                if (stats == null) {
+                    stats = new RuleEvaluationStats( 0 );
+                    result.put( pmem.getRule().getName(), stats );
+                }
+                stats.add( pmem.getEvaluationStats() );
+            }
+        }
+        return result;
+    }
+
+    private List<RuleEvaluationStats> getPathEvaluationStats() {
+        List<RuleEvaluationStats> result = new ArrayList<RuleEvaluationStats>();
+        NodeMemories memories = ksession.getNodeMemories();
+        for (int i = 0; i < memories.length(); i++) {
+            Memory memory = memories.peekNodeMemory( i );
+            if (memory instanceof PathMemory && ((PathMemory) memory).getEvaluationStats() != null) {
+                result.add( ((PathMemory) memory).getEvaluationStats() );
+            }
+        }
+        return result;
+    }
+
     public static class AgendaStats implements org.kie.api.event.rule.AgendaEventListener {
         
         private AgendaStatsData consolidated = new AgendaStatsData();
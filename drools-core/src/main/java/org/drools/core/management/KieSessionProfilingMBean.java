@@ -0,0 +1,55 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.management;
+
+import java.util.Map;
+
+import org.kie.api.management.KieSessionMonitoringMBean;
+
+/**
+ * The monitor MBean of a session, adding the counters of the nodes of the network
+ * when the drools.nodeProfiling option of its kbase is enabled, and the cost of the
+ * evaluation of the network of each rule when that option is enabled or a drools.ruleEvaluationThreshold is set
+ */
+public interface KieSessionProfilingMBean extends KieSessionMonitoringMBean {
+
+    /**
+     * Returns the counters of the node with the given id
+     */
+    String getStatsForNode(int nodeId);
+
+    /**
+     * Returns the counters of all the evaluated nodes, by node name
+     */
+    Map<String,String> getStatsByNode();
+
+    /**
+     * Returns the counters of all the evaluated nodes with the rules using them,
+     * starting from the node taking the longest time
+     */
+    String getNodeProfile();
+
+    /**
+     * Returns the number and time of the evaluations of the network of the given rule
+     */
+    String getEvaluationStatsForRule(String ruleName);
+
+    /**
+     * Returns the number and time of the evaluations of the network of all the rules, by rule name
+     */
+    Map<String,String> getEvaluationStatsByRule();
+}
@@ -17,7 +17,6 @@
 package org.drools.core.marshalling.impl;
 
 import org.drools.core.common.BaseNode;
-import org.drools.core.common.InternalFactHandle;
 import org.drools.core.common.InternalWorkingMemory;
 import org.drools.core.impl.InternalKnowledgeBase;
 import org.drools.core.marshalling.impl.ProtobufInputMarshaller.PBActivationsFilter;
@@ -28,6 +27,7 @@ import org.drools.core.reteoo.LeftTuple;
 import org.drools.core.reteoo.RightTuple;
 import org.drools.core.rule.EntryPointId;
 import org.drools.core.spi.PropagationContext;
+import org.drools.core.util.FactHandleIdMap;
 import org.kie.api.marshalling.ObjectMarshallingStrategy;
 import org.kie.api.marshalling.ObjectMarshallingStrategyStore;
 import org.kie.api.runtime.Environment;
@@ -49,7 +49,7 @@ public class MarshallerReaderContext extends ObjectInputStream {
     public KnowledgeRuntime                                                        kruntime;
     public final Map<Integer, BaseNode>                                            sinks;
 
-    public Map<Integer, InternalFactHandle>                                        handles;
+    public FactHandleIdMap                                                         handles;
 
     public final Map<RightTupleKey, RightTuple>                                    rightTuples;
     public final Map<Integer, LeftTuple>                                           terminalTupleMap;
@@ -107,7 +107,7 @@ public class MarshallerReaderContext extends ObjectInputStream {
 
         this.readersByInt = timerReaders;
 
-        this.handles = new HashMap<Integer, InternalFactHandle>();
+        this.handles = new FactHandleIdMap();
         this.rightTuples = new HashMap<RightTupleKey, RightTuple>();
         this.terminalTupleMap = new HashMap<Integer, LeftTuple>();
         this.filter = new PBActivationsFilter();
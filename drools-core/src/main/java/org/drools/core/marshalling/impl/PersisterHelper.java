@@ -37,6 +37,7 @@ import org.kie.api.marshalling.ObjectMarshallingStrategy;
 import org.kie.api.marshalling.ObjectMarshallingStrategy.Context;
 
 import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.security.InvalidKeyException;
@@ -46,6 +47,12 @@ import java.security.SignatureException;
 import java.util.Map.Entry;
 
 public class PersisterHelper {
+
+    // the kinds of the chunks of a session marshalled in chunks
+    public static final int SESSION_HEAD_CHUNK        = 1;
+    public static final int SESSION_ENTRY_POINT_CHUNK = 2;
+    public static final int SESSION_TAIL_CHUNK        = 3;
+
     public static WorkingMemoryAction readWorkingMemoryAction(MarshallerReaderContext context) throws IOException,
                                                                                               ClassNotFoundException {
         int type = context.readShort();
@@ -188,6 +195,25 @@ public class PersisterHelper {
     
     public static void writeToStreamWithHeader( MarshallerWriteContext context,
                                                 Message payload ) throws IOException {
+        context.stream.write( buildHeader( context, payload ).toByteArray() );
+    }
+
+    /**
+     * Writes a chunk of a session marshalled in chunks: its kind, followed by a length-delimited header
+     * carrying the strategies used by the given payload only. The strategies of the context are then
+     * forgotten, so that the objects of the next chunk are marshalled in new strategy contexts.
+     */
+    public static void writeChunkToStreamWithHeader( MarshallerWriteContext context,
+                                                     int kind,
+                                                     Message payload ) throws IOException {
+        context.stream.write( kind );
+        buildHeader( context, payload ).writeDelimitedTo( context.stream );
+        context.usedStrategies.clear();
+        context.strategyContext.clear();
+    }
+
+    private static ProtobufMessages.Header buildHeader( MarshallerWriteContext context,
+                                                        Message payload ) throws IOException {
         ProtobufMessages.Header.Builder _header = ProtobufMessages.Header.newBuilder();
         _header.setVersion( ProtobufMessages.Version.newBuilder()
                                             .setVersionMajor( Drools.getMajorVersion() )
@@ -203,7 +229,7 @@ public class PersisterHelper {
 
 //        LoggerFactory.getLogger(PersisterHelper.class).trace("=============================================================================================================");
 //        LoggerFactory.getLogger(PersisterHelper.class).trace(payload);
-        context.stream.write( _header.build().toByteArray() );
+        return _header.build();
     }
     
     private static void writeStrategiesIndex(MarshallerWriteContext context,
@@ -259,6 +285,28 @@ public class PersisterHelper {
         return loadStrategiesCheckSignature(context, _header);
     }
     
+    /**
+     * Reads the kind of the next chunk of a session marshalled in chunks, or -1 if the stream is over
+     */
+    public static int readChunkKind( MarshallerReaderContext context ) throws IOException {
+        return context.stream.read();
+    }
+
+    /**
+     * Reads the header of a chunk of a session marshalled in chunks, replacing the strategies of the
+     * context with the ones the chunk has been written with
+     */
+    public static ProtobufMessages.Header readChunkFromStreamWithHeader( MarshallerReaderContext context, ExtensionRegistry registry ) throws IOException, ClassNotFoundException {
+        ProtobufMessages.Header _header = ProtobufMessages.Header.parseDelimitedFrom( context.stream, registry );
+        if ( _header == null ) {
+            throw new EOFException( "Unexpected end of stream while reading a session chunk" );
+        }
+        context.usedStrategies.clear();
+        context.strategyContexts.clear();
+
+        return loadStrategiesCheckSignature(context, _header);
+    }
+
     /* Method that preloads the source stream into a byte array to bypass the message size limitations in Protobuf unmarshalling.
        (Protobuf does not enforce a message size limit when unmarshalling from a byte array)
     */
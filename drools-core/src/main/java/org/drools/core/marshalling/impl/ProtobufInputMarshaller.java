@@ -197,7 +197,7 @@ public class ProtobufInputMarshaller {
         return session;
     }
 
-    private static ProtobufMessages.KnowledgeSession loadAndParseSession(MarshallerReaderContext context) throws IOException,
+    static ProtobufMessages.KnowledgeSession loadAndParseSession(MarshallerReaderContext context) throws IOException,
                                                                                                          ClassNotFoundException {
         ExtensionRegistry registry = PersisterHelper.buildRegistry( context, processMarshaller );
 
@@ -211,6 +211,96 @@ public class ProtobufInputMarshaller {
                                                     InternalAgenda agenda,
                                                     MarshallerReaderContext context) throws IOException,
                                                                                     ClassNotFoundException {
+        readSessionHead( _session,
+                         session,
+                         context );
+
+        List<PropagationContext> pctxs = new ArrayList<PropagationContext>();
+
+        for ( ProtobufMessages.EntryPoint _ep : _session.getRuleData().getEntryPointList() ) {
+            readEntryPoint( context,
+                            _ep,
+                            pctxs );
+        }
+
+        cleanReaderContexts( pctxs );
+
+        readSessionTail( _session,
+                         agenda,
+                         context );
+
+        return session;
+    }
+
+    /**
+     * Creates a new session into which to read a stream written in chunks by
+     * {@link ProtobufOutputMarshaller#writeSessionInChunks}. The facts of each chunk are inserted
+     * as soon as it is read, so that the whole session is never held in memory in its marshalled form.
+     */
+    public static StatefulKnowledgeSessionImpl readSessionInChunks(MarshallerReaderContext context,
+                                                                   int id,
+                                                                   Environment environment,
+                                                                   SessionConfiguration config) throws IOException,
+                                                                                               ClassNotFoundException {
+        ExtensionRegistry registry = PersisterHelper.buildRegistry( context, processMarshaller );
+
+        ProtobufMessages.KnowledgeSession _head = ProtobufMessages.KnowledgeSession.parseFrom( readChunk( context,
+                                                                                                         registry,
+                                                                                                         PersisterHelper.SESSION_HEAD_CHUNK ).getPayload(),
+                                                                                               registry );
+
+        StatefulKnowledgeSessionImpl session = createAndInitializeSession( context,
+                                                                           id,
+                                                                           environment,
+                                                                           config,
+                                                                           _head );
+        readSessionHead( _head,
+                         session,
+                         context );
+
+        List<PropagationContext> pctxs = new ArrayList<PropagationContext>();
+
+        int kind = PersisterHelper.readChunkKind( context );
+        while ( kind == PersisterHelper.SESSION_ENTRY_POINT_CHUNK ) {
+            ProtobufMessages.EntryPoint _ep = ProtobufMessages.EntryPoint.parseFrom( PersisterHelper.readChunkFromStreamWithHeader( context,
+                                                                                                                                  registry ).getPayload(),
+                                                                                     registry );
+            readEntryPoint( context,
+                            _ep,
+                            pctxs );
+            kind = PersisterHelper.readChunkKind( context );
+        }
+
+        cleanReaderContexts( pctxs );
+
+        if ( kind != PersisterHelper.SESSION_TAIL_CHUNK ) {
+            throw new IllegalStateException( "Unexpected chunk of kind " + kind + " while reading the end of a session" );
+        }
+        ProtobufMessages.KnowledgeSession _tail = ProtobufMessages.KnowledgeSession.parseFrom( PersisterHelper.readChunkFromStreamWithHeader( context,
+                                                                                                                                            registry ).getPayload(),
+                                                                                               registry );
+        readSessionTail( _tail,
+                         (InternalAgenda) session.getAgenda(),
+                         context );
+
+        return session;
+    }
+
+    private static ProtobufMessages.Header readChunk(MarshallerReaderContext context,
+                                                     ExtensionRegistry registry,
+                                                     int expectedKind) throws IOException,
+                                                                      ClassNotFoundException {
+        int kind = PersisterHelper.readChunkKind( context );
+        if ( kind != expectedKind ) {
+            throw new IllegalStateException( "Unexpected chunk of kind " + kind + " while expecting one of kind " + expectedKind );
+        }
+        return PersisterHelper.readChunkFromStreamWithHeader( context,
+                                                              registry );
+    }
+
+    private static void readSessionHead(ProtobufMessages.KnowledgeSession _session,
+                                        StatefulKnowledgeSessionImpl session,
+                                        MarshallerReaderContext context) {
         GlobalResolver globalResolver = (GlobalResolver) context.env.get( EnvironmentName.GLOBALS );
         if ( globalResolver != null ) {
             session.setGlobalResolver( globalResolver );
@@ -234,27 +324,31 @@ public class ProtobufInputMarshaller {
         readNodeMemories( context,
                           _session.getRuleData() );
 
-        List<PropagationContext> pctxs = new ArrayList<PropagationContext>();
-
         if ( context.kBase.getConfiguration().isPhreakEnabled() || _session.getRuleData().hasInitialFact() ) {
             ((StatefulKnowledgeSessionImpl)context.wm).initInitialFact(context.kBase, context);
             context.handles.put( session.getInitialFactHandle().getId(), session.getInitialFactHandle() );
         }
+    }
 
-        for ( ProtobufMessages.EntryPoint _ep : _session.getRuleData().getEntryPointList() ) {
-            EntryPoint wmep = ((StatefulKnowledgeSessionImpl)context.wm).getEntryPointMap().get(_ep.getEntryPointId());
-            readFactHandles( context,
-                             _ep,
-                             ((InternalWorkingMemoryEntryPoint) wmep).getObjectStore(),
-                             pctxs );
-            readTruthMaintenanceSystem( context,
-                                        wmep,
-                                        _ep,
-                                        pctxs );
-        }
-
-        cleanReaderContexts( pctxs );
+    private static void readEntryPoint(MarshallerReaderContext context,
+                                       ProtobufMessages.EntryPoint _ep,
+                                       List<PropagationContext> pctxs) throws IOException,
+                                                                      ClassNotFoundException {
+        EntryPoint wmep = ((StatefulKnowledgeSessionImpl)context.wm).getEntryPointMap().get(_ep.getEntryPointId());
+        readFactHandles( context,
+                         _ep,
+                         ((InternalWorkingMemoryEntryPoint) wmep).getObjectStore(),
+                         pctxs );
+        readTruthMaintenanceSystem( context,
+                                    wmep,
+                                    _ep,
+                                    pctxs );
+    }
 
+    private static void readSessionTail(ProtobufMessages.KnowledgeSession _session,
+                                        InternalAgenda agenda,
+                                        MarshallerReaderContext context) throws IOException,
+                                                                        ClassNotFoundException {
         readActionQueue( context,
                          _session.getRuleData() );
 
@@ -295,8 +389,6 @@ public class ProtobufInputMarshaller {
 
         // remove the activations filter
         agenda.setActivationsFilter( null );
-
-        return session;
     }
 
     private static void readNodeMemories(MarshallerReaderContext context,
@@ -23,6 +23,7 @@ import org.drools.core.common.Scheduler.ActivationTimerInputMarshaller;
 import org.drools.core.impl.InternalKnowledgeBase;
 import org.drools.core.impl.KnowledgeBaseImpl;
 import org.drools.core.impl.StatefulKnowledgeSessionImpl;
+import org.drools.core.io.impl.ByteBufferInputStream;
 import org.drools.core.phreak.PhreakTimerNode.TimerNodeTimerInputMarshaller;
 import org.drools.core.reteoo.ObjectTypeNode.ExpireJobContextTimerInputMarshaller;
 import org.drools.core.rule.SlidingTimeWindow.BehaviorJobContextTimerInputMarshaller;
@@ -38,10 +39,16 @@ import org.kie.api.time.SessionClock;
 import org.kie.internal.KnowledgeBaseFactory;
 import org.kie.internal.runtime.StatefulKnowledgeSession;
 
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -63,6 +70,8 @@ public class ProtobufMarshaller
         TIMER_READERS.put( ProtobufMessages.Timers.TimerType.TIMER_NODE_VALUE, new TimerNodeTimerInputMarshaller() );
     }
     
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+
     KieBase                             kbase;
     RuleBaseConfiguration               ruleBaseConfig;
     MarshallingConfiguration            marshallingConfig;
@@ -85,6 +94,42 @@ public class ProtobufMarshaller
                                                KieSessionConfiguration config,
                                                Environment environment) throws IOException,
                                                                        ClassNotFoundException {
+        return unmarshall( stream, config, environment, false );
+    }
+
+    /**
+     * Reads a session written with {@link #marshallInChunks}, inserting the facts of each chunk as soon as it is read
+     */
+    public StatefulKnowledgeSession unmarshallInChunks(final InputStream stream,
+                                                       KieSessionConfiguration config,
+                                                       Environment environment) throws IOException,
+                                                                               ClassNotFoundException {
+        return unmarshall( stream, config, environment, true );
+    }
+
+    /**
+     * Reads a session written with {@link #marshallInChunks} from a file, that is memory-mapped
+     * instead of being loaded on the heap
+     */
+    public StatefulKnowledgeSession unmarshallInChunks(final File file,
+                                                       KieSessionConfiguration config,
+                                                       Environment environment) throws IOException,
+                                                                               ClassNotFoundException {
+        FileInputStream stream = new FileInputStream( file );
+        try {
+            FileChannel channel = stream.getChannel();
+            MappedByteBuffer buffer = channel.map( FileChannel.MapMode.READ_ONLY, 0, channel.size() );
+            return unmarshall( new ByteBufferInputStream( buffer ), config, environment, true );
+        } finally {
+            stream.close();
+        }
+    }
+
+    private StatefulKnowledgeSession unmarshall(final InputStream stream,
+                                                KieSessionConfiguration config,
+                                                Environment environment,
+                                                boolean inChunks) throws IOException,
+                                                                 ClassNotFoundException {
         if ( config == null ) {
             config = KnowledgeBaseFactory.newKnowledgeSessionConfiguration();
         }
@@ -105,10 +150,18 @@ public class ProtobufMarshaller
         int id = ((KnowledgeBaseImpl) this.kbase).nextWorkingMemoryCounter();
         RuleBaseConfiguration conf = ((KnowledgeBaseImpl) this.kbase).getConfiguration();
 
-        StatefulKnowledgeSessionImpl session = ProtobufInputMarshaller.readSession( context,
-                                                                             id,
-                                                                             environment,
-                                                                             (SessionConfiguration) config );
+        StatefulKnowledgeSessionImpl session;
+        if ( inChunks ) {
+            session = ProtobufInputMarshaller.readSessionInChunks( context,
+                                                                   id,
+                                                                   environment,
+                                                                   (SessionConfiguration) config );
+        } else {
+            session = ProtobufInputMarshaller.readSession( context,
+                                                           id,
+                                                           environment,
+                                                           (SessionConfiguration) config );
+        }
         context.close();
         if ( ((SessionConfiguration) config).isKeepReference() ) {
             ((KnowledgeBaseImpl) this.kbase).addStatefulSession(session);
@@ -143,6 +196,105 @@ public class ProtobufMarshaller
     public void marshall(final OutputStream stream,
                          final KieSession ksession,
                          final long clockTime) throws IOException {
+        MarshallerWriteContext context = createWriteContext( stream,
+                                                             ksession,
+                                                             clockTime );
+        ProtobufOutputMarshaller.writeSession( context );
+        context.close();
+    }
+
+    /**
+     * Writes the session in chunks of at most {@link #DEFAULT_CHUNK_SIZE} fact handles, to be read with
+     * {@link #unmarshallInChunks}
+     */
+    public void marshallInChunks(final OutputStream stream,
+                                 final KieSession ksession) throws IOException {
+        marshallInChunks( stream, ksession, DEFAULT_CHUNK_SIZE );
+    }
+
+    /**
+     * Writes the session in chunks of at most chunkSize fact handles, to be read with {@link #unmarshallInChunks}
+     */
+    public void marshallInChunks(final OutputStream stream,
+                                 final KieSession ksession,
+                                 final int chunkSize) throws IOException {
+        MarshallerWriteContext context = createWriteContext( stream,
+                                                             ksession,
+                                                             ksession.<SessionClock> getSessionClock().getCurrentTime() );
+        ProtobufOutputMarshaller.writeSessionInChunks( context,
+                                                       chunkSize );
+        context.close();
+    }
+
+    /**
+     * Writes a full snapshot of the session and sets the checkpoint of the given tracker at it, so that the
+     * following incremental snapshots only hold the changes made after this one.
+     */
+    public void marshall(final OutputStream stream,
+                         final KieSession ksession,
+                         final SessionChangeTracker changes) throws IOException {
+        MarshallerWriteContext context = createWriteContext( stream,
+                                                             ksession,
+                                                             ksession.<SessionClock> getSessionClock().getCurrentTime() );
+        ProtobufOutputMarshaller.writeSession( context,
+                                               changes );
+        context.close();
+    }
+
+    /**
+     * Writes an incremental snapshot of the session, holding only the facts inserted, updated and deleted
+     * since the last checkpoint of the given tracker. The incremental snapshots can be read only once folded,
+     * with {@link #compact(List, OutputStream)}, into the full snapshot they start from.
+     */
+    public void marshallIncrement(final OutputStream stream,
+                                  final KieSession ksession,
+                                  final SessionChangeTracker changes) throws IOException {
+        MarshallerWriteContext context = createWriteContext( stream,
+                                                             ksession,
+                                                             ksession.<SessionClock> getSessionClock().getCurrentTime() );
+        ProtobufOutputMarshaller.writeSessionIncrement( context,
+                                                        changes );
+        context.close();
+    }
+
+    /**
+     * Folds a full snapshot followed by its incremental snapshots, in the order they have been written, into
+     * a single full snapshot that can be unmarshalled as any other session.
+     */
+    public void compact(final List<InputStream> snapshots,
+                        final OutputStream stream) throws IOException,
+                                                          ClassNotFoundException {
+        List<MarshallerReaderContext> contexts = new ArrayList<MarshallerReaderContext>( snapshots.size() );
+        for ( InputStream snapshot : snapshots ) {
+            contexts.add( new MarshallerReaderContext( snapshot,
+                                                       (KnowledgeBaseImpl) kbase,
+                                                       RuleBaseNodes.getNodeMap( (KnowledgeBaseImpl) kbase ),
+                                                       this.strategyStore,
+                                                       TIMER_READERS,
+                                                       this.marshallingConfig.isMarshallProcessInstances(),
+                                                       this.marshallingConfig.isMarshallWorkItems(),
+                                                       KnowledgeBaseFactory.newEnvironment() ) );
+        }
+
+        MarshallerWriteContext context = new MarshallerWriteContext( stream,
+                                                                     (InternalKnowledgeBase) kbase,
+                                                                     null,
+                                                                     RuleBaseNodes.getNodeMap( (InternalKnowledgeBase) kbase ),
+                                                                     this.strategyStore,
+                                                                     this.marshallingConfig.isMarshallProcessInstances(),
+                                                                     this.marshallingConfig.isMarshallWorkItems(),
+                                                                     KnowledgeBaseFactory.newEnvironment() );
+        ProtobufOutputMarshaller.writeCompactedSession( context,
+                                                        contexts );
+        context.close();
+        for ( MarshallerReaderContext snapshotContext : contexts ) {
+            snapshotContext.close();
+        }
+    }
+
+    private MarshallerWriteContext createWriteContext(final OutputStream stream,
+                                                      final KieSession ksession,
+                                                      final long clockTime) throws IOException {
         MarshallerWriteContext context = new MarshallerWriteContext( stream,
                                                                      (InternalKnowledgeBase) kbase,
                                                                      (InternalWorkingMemory) ksession,
@@ -152,8 +304,7 @@ public class ProtobufMarshaller
                                                                      this.marshallingConfig.isMarshallWorkItems(),
                                                                      ksession.getEnvironment() );
         context.clockTime = clockTime;
-        ProtobufOutputMarshaller.writeSession( context );
-        context.close();
+        return context;
     }
 
     public MarshallingConfiguration getMarshallingConfiguration() {
@@ -44,6 +44,7 @@ import org.drools.core.common.TruthMaintenanceSystem;
 import org.drools.core.common.WorkingMemoryAction;
 import org.drools.core.definitions.rule.impl.RuleImpl;
 import org.drools.core.impl.StatefulKnowledgeSessionImpl;
+import org.drools.core.impl.StatefulKnowledgeSessionImpl.WorkingMemoryReteExpireAction;
 import org.drools.core.marshalling.impl.ProtobufMessages.FactHandle;
 import org.drools.core.marshalling.impl.ProtobufMessages.ObjectTypeConfiguration;
 import org.drools.core.marshalling.impl.ProtobufMessages.ProcessData.Builder;
@@ -61,6 +62,7 @@ import org.drools.core.reteoo.LeftTuple;
 import org.drools.core.reteoo.NodeTypeEnums;
 import org.drools.core.reteoo.ObjectSink;
 import org.drools.core.reteoo.ObjectTypeConf;
+import org.drools.core.reteoo.ExpirationWheel;
 import org.drools.core.reteoo.ObjectTypeNode;
 import org.drools.core.reteoo.ObjectTypeNode.ObjectTypeNodeMemory;
 import org.drools.core.reteoo.QueryElementNode.QueryElementNodeMemory;
@@ -93,9 +95,11 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * An output marshaller that uses ProtoBuf as the marshalling framework
@@ -116,8 +120,19 @@ public class ProtobufOutputMarshaller {
     }
 
     public static void writeSession(MarshallerWriteContext context) throws IOException {
+        writeSession( context,
+                      null );
+    }
+
+    /**
+     * Writes a full snapshot of the session and, if a tracker is given, sets its checkpoint at this snapshot
+     */
+    public static void writeSession(MarshallerWriteContext context,
+                                    SessionChangeTracker changes) throws IOException {
 
-        ProtobufMessages.KnowledgeSession _session = serializeSession( context );
+        ProtobufMessages.KnowledgeSession _session = serializeSession( context,
+                                                                       changes,
+                                                                       false );
         
 //        System.out.println("=============================================================================");
 //        System.out.println(_session);
@@ -126,44 +141,146 @@ public class ProtobufOutputMarshaller {
                                                  _session );
     }
 
-    private static ProtobufMessages.KnowledgeSession serializeSession(MarshallerWriteContext context) throws IOException {
-        StatefulKnowledgeSessionImpl wm = (StatefulKnowledgeSessionImpl) context.wm;
+    /**
+     * Writes an incremental snapshot of the session, holding only the fact handles inserted, updated and deleted
+     * since the last checkpoint of the tracker, that is then moved to this snapshot. The agenda, node memories,
+     * truth maintenance system, action queue, process data and timers are written in full, as in any snapshot.
+     * A deleted fact handle is written as a handle carrying only its id.
+     *
+     * An incremental snapshot cannot be read as a session on its own: it has to be folded, together with the
+     * preceding ones, into the full snapshot they start from with {@link #writeCompactedSession}.
+     */
+    public static void writeSessionIncrement(MarshallerWriteContext context,
+                                             SessionChangeTracker changes) throws IOException {
+
+        ProtobufMessages.KnowledgeSession _session = serializeSession( context,
+                                                                       changes,
+                                                                       true );
 
-        try {
-            wm.getLock().lock();
-            for (WorkingMemoryEntryPoint ep : wm.getWorkingMemoryEntryPoints().values()) {
-                if (ep instanceof NamedEntryPoint) {
-                    ((NamedEntryPoint)ep).lock();
-                }
-            }
+        PersisterHelper.writeToStreamWithHeader( context,
+                                                 _session );
+    }
 
-            ((InternalAgenda)wm.getAgenda()).unstageActivations();
+    /**
+     * Folds a full snapshot and the incremental snapshots following it, in the order they have been written,
+     * into a single full snapshot readable by the {@link ProtobufInputMarshaller}. The fact handles of each snapshot
+     * replace the ones with the same id of the previous snapshots, while all the other data is taken from the last one.
+     */
+    public static void writeCompactedSession(MarshallerWriteContext context,
+                                             List<MarshallerReaderContext> snapshots) throws IOException,
+                                                                                     ClassNotFoundException {
+        if ( snapshots.isEmpty() ) {
+            throw new IllegalArgumentException( "At least a snapshot is needed to write a compacted session" );
+        }
 
-            evaluateRuleActivations( wm );
+        List<ProtobufMessages.KnowledgeSession> _sessions = new ArrayList<ProtobufMessages.KnowledgeSession>( snapshots.size() );
+        for ( MarshallerReaderContext snapshot : snapshots ) {
+            _sessions.add( ProtobufInputMarshaller.loadAndParseSession( snapshot ) );
+        }
 
-            ProtobufMessages.RuleData.Builder _ruleData = ProtobufMessages.RuleData.newBuilder();
+        // the objects of the last snapshot are kept as they are, so its strategies and their contexts are reused
+        MarshallerReaderContext lastSnapshot = snapshots.get( snapshots.size() - 1 );
+        for ( Map.Entry<Integer, ObjectMarshallingStrategy> entry : lastSnapshot.usedStrategies.entrySet() ) {
+            context.usedStrategies.put( entry.getValue(),
+                                        entry.getKey() );
+            context.strategyContext.put( entry.getValue(),
+                                         lastSnapshot.strategyContexts.get( entry.getValue() ) );
+        }
 
-            long time = 0;
-            if ( context.wm.getTimerService() instanceof PseudoClockScheduler ) {
-                time = context.clockTime;
+        Map<String, Map<Integer, SnapshotFactHandle>> handlesByEntryPoint = new LinkedHashMap<String, Map<Integer, SnapshotFactHandle>>();
+        for ( int i = 0; i < snapshots.size(); i++ ) {
+            for ( ProtobufMessages.EntryPoint _ep : _sessions.get( i ).getRuleData().getEntryPointList() ) {
+                Map<Integer, SnapshotFactHandle> handles = handlesByEntryPoint.get( _ep.getEntryPointId() );
+                if ( handles == null ) {
+                    handles = new TreeMap<Integer, SnapshotFactHandle>();
+                    handlesByEntryPoint.put( _ep.getEntryPointId(), handles );
+                }
+                for ( ProtobufMessages.FactHandle _handle : _ep.getHandleList() ) {
+                    if ( isDeletedFactHandle( _handle ) ) {
+                        handles.remove( _handle.getId() );
+                    } else {
+                        handles.put( _handle.getId(), new SnapshotFactHandle( _handle, snapshots.get( i ) ) );
+                    }
+                }
             }
-            _ruleData.setLastId( wm.getFactHandleFactory().getId() );
-            _ruleData.setLastRecency( wm.getFactHandleFactory().getRecency() );
+        }
 
-            InternalFactHandle handle = context.wm.getInitialFactHandle();
-            if ( handle != null ) {
-                // can be null for RETE, if fireAllRules has not yet been called
-                ProtobufMessages.FactHandle _ifh = ProtobufMessages.FactHandle.newBuilder()
-                        .setType( ProtobufMessages.FactHandle.HandleType.INITIAL_FACT )
-                        .setId( handle.getId() )
-                        .setRecency( handle.getRecency() )
-                        .build();
-                _ruleData.setInitialFact( _ifh );
+        ProtobufMessages.KnowledgeSession _lastSession = _sessions.get( _sessions.size() - 1 );
+        ProtobufMessages.RuleData.Builder _ruleData = _lastSession.getRuleData().toBuilder().clearEntryPoint();
+        for ( ProtobufMessages.EntryPoint _ep : _lastSession.getRuleData().getEntryPointList() ) {
+            Map<Integer, SnapshotFactHandle> handles = handlesByEntryPoint.remove( _ep.getEntryPointId() );
+            _ruleData.addEntryPoint( writeCompactedFactHandles( context,
+                                                                _ep.toBuilder().clearHandle(),
+                                                                handles,
+                                                                lastSnapshot ) );
+        }
+        for ( Map.Entry<String, Map<Integer, SnapshotFactHandle>> entry : handlesByEntryPoint.entrySet() ) {
+            _ruleData.addEntryPoint( writeCompactedFactHandles( context,
+                                                                ProtobufMessages.EntryPoint.newBuilder().setEntryPointId( entry.getKey() ),
+                                                                entry.getValue(),
+                                                                lastSnapshot ) );
+        }
+
+        PersisterHelper.writeToStreamWithHeader( context,
+                                                 _lastSession.toBuilder().setRuleData( _ruleData.build() ).build() );
+    }
+
+    private static ProtobufMessages.EntryPoint writeCompactedFactHandles(MarshallerWriteContext context,
+                                                                         ProtobufMessages.EntryPoint.Builder _epb,
+                                                                         Map<Integer, SnapshotFactHandle> handles,
+                                                                         MarshallerReaderContext lastSnapshot) throws IOException,
+                                                                                                              ClassNotFoundException {
+        for ( SnapshotFactHandle handle : handles.values() ) {
+            if ( handle.snapshot == lastSnapshot || !handle._handle.hasStrategyIndex() ) {
+                _epb.addHandle( handle._handle );
+                continue;
             }
 
-            writeAgenda( context, _ruleData );
+            // the object has been written by a former snapshot, with its own strategy contexts
+            ObjectMarshallingStrategy strategy = handle.snapshot.usedStrategies.get( handle._handle.getStrategyIndex() );
+            Object object = strategy.unmarshal( handle.snapshot.strategyContexts.get( strategy ),
+                                                handle.snapshot,
+                                                handle._handle.getObject().toByteArray(),
+                                                (handle.snapshot.kBase == null) ? null : handle.snapshot.kBase.getRootClassLoader() );
+            Integer index = context.getStrategyIndex( strategy );
+            _epb.addHandle( handle._handle.toBuilder()
+                                    .setStrategyIndex( index.intValue() )
+                                    .setObject( ByteString.copyFrom( strategy.marshal( context.strategyContext.get( strategy ),
+                                                                                       context,
+                                                                                       object ) ) )
+                                    .build() );
+        }
+        return _epb.build();
+    }
 
-            writeNodeMemories( context, _ruleData );
+    public static boolean isDeletedFactHandle(ProtobufMessages.FactHandle _handle) {
+        // the handles of the facts in a session always have a type
+        return !_handle.hasType();
+    }
+
+    private static class SnapshotFactHandle {
+        private final ProtobufMessages.FactHandle _handle;
+        private final MarshallerReaderContext snapshot;
+
+        private SnapshotFactHandle(ProtobufMessages.FactHandle _handle,
+                                   MarshallerReaderContext snapshot) {
+            this._handle = _handle;
+            this.snapshot = snapshot;
+        }
+    }
+
+    private static ProtobufMessages.KnowledgeSession serializeSession(MarshallerWriteContext context,
+                                                                      SessionChangeTracker changes,
+                                                                      boolean incremental) throws IOException {
+        StatefulKnowledgeSessionImpl wm = (StatefulKnowledgeSessionImpl) context.wm;
+
+        try {
+            lockSession( wm );
+
+            ProtobufMessages.RuleData.Builder _ruleData = ProtobufMessages.RuleData.newBuilder();
+
+            writeRuleDataHead( context,
+                               _ruleData );
 
             for ( EntryPoint wmep : wm.getWorkingMemoryEntryPoints().values() ) {
                 org.drools.core.marshalling.impl.ProtobufMessages.EntryPoint.Builder _epb = ProtobufMessages.EntryPoint.newBuilder();
@@ -173,9 +290,16 @@ public class ProtobufOutputMarshaller {
                                               ((InternalWorkingMemoryEntryPoint)wmep).getObjectTypeConfigurationRegistry(),
                                               _epb );
 
-                writeFactHandles( context,
-                                  _epb,
-                                  ((NamedEntryPoint) wmep).getObjectStore() );
+                if ( incremental ) {
+                    writeChangedFactHandles( context,
+                                             _epb,
+                                             changes,
+                                             wmep.getEntryPointId() );
+                } else {
+                    writeFactHandles( context,
+                                      _epb,
+                                      ((NamedEntryPoint) wmep).getObjectStore() );
+                }
 
                 writeTruthMaintenanceSystem( context,
                                              wmep,
@@ -189,42 +313,197 @@ public class ProtobufOutputMarshaller {
 
             ProtobufMessages.KnowledgeSession.Builder _session = ProtobufMessages.KnowledgeSession.newBuilder()
                     .setMultithread( false )
-                    .setTime( time )
+                    .setTime( getSessionTime( context ) )
                     .setRuleData( _ruleData.build() );
 
-            if ( processMarshaller != null ) {
-                Builder _pdata = ProtobufMessages.ProcessData.newBuilder();
-                if ( context.marshalProcessInstances ) {
-                    context.parameterObject = _pdata;
-                    processMarshaller.writeProcessInstances( context );
+            writeProcessDataAndTimers( context,
+                                       _session );
+
+            if ( changes != null ) {
+                // the entry points are still locked, so no change can be lost between the snapshot and the checkpoint
+                changes.checkpoint();
+            }
+
+            return _session.build();
+        } finally {
+            unlockSession( wm );
+        }
+    }
+
+    /**
+     * Writes the session as a sequence of chunks, each one made of its kind and of a length-delimited header
+     * carrying its own strategies data, so that it can be read without loading the chunks following it:
+     * <ul>
+     * <li>a head chunk, with the agenda and the node memories</li>
+     * <li>for each entry point, chunks of at most chunkSize fact handles, followed by chunks of at most
+     * chunkSize equality keys of its truth maintenance system</li>
+     * <li>a tail chunk, with the action queue, the process data and the timers</li>
+     * </ul>
+     * Since every chunk has its own strategies data, objects referenced by facts in different chunks and
+     * marshalled by value, as the SerializablePlaceholderResolverStrategy does, are read back as distinct copies.
+     */
+    public static void writeSessionInChunks(MarshallerWriteContext context,
+                                            int chunkSize) throws IOException {
+        if ( chunkSize <= 0 ) {
+            throw new IllegalArgumentException( "The chunk size must be positive: " + chunkSize );
+        }
+        StatefulKnowledgeSessionImpl wm = (StatefulKnowledgeSessionImpl) context.wm;
+
+        try {
+            lockSession( wm );
+
+            ProtobufMessages.RuleData.Builder _ruleData = ProtobufMessages.RuleData.newBuilder();
+            writeRuleDataHead( context,
+                               _ruleData );
+            PersisterHelper.writeChunkToStreamWithHeader( context,
+                                                          PersisterHelper.SESSION_HEAD_CHUNK,
+                                                          ProtobufMessages.KnowledgeSession.newBuilder()
+                                                                  .setMultithread( false )
+                                                                  .setTime( getSessionTime( context ) )
+                                                                  .setRuleData( _ruleData.build() )
+                                                                  .build() );
+
+            ObjectMarshallingStrategyStore objectMarshallingStrategyStore = context.objectMarshallingStrategyStore;
+            for ( EntryPoint wmep : wm.getWorkingMemoryEntryPoints().values() ) {
+                ProtobufMessages.EntryPoint.Builder _epb = ProtobufMessages.EntryPoint.newBuilder()
+                        .setEntryPointId( wmep.getEntryPointId() );
+                for ( InternalFactHandle handle : orderFacts( ((NamedEntryPoint) wmep).getObjectStore() ) ) {
+                    _epb.addHandle( writeFactHandle( context,
+                                                     objectMarshallingStrategyStore,
+                                                     handle ) );
+                    if ( _epb.getHandleCount() == chunkSize ) {
+                        PersisterHelper.writeChunkToStreamWithHeader( context,
+                                                                      PersisterHelper.SESSION_ENTRY_POINT_CHUNK,
+                                                                      _epb.build() );
+                        _epb.clearHandle();
+                    }
+                }
+                if ( _epb.getHandleCount() > 0 ) {
+                    PersisterHelper.writeChunkToStreamWithHeader( context,
+                                                                  PersisterHelper.SESSION_ENTRY_POINT_CHUNK,
+                                                                  _epb.build() );
+                    _epb.clearHandle();
                 }
 
-                if ( context.marshalWorkItems ) {
-                    context.parameterObject = _pdata;
-                    processMarshaller.writeWorkItems( context );
+                EqualityKey[] keys = orderEqualityKeys( ((NamedEntryPoint) wmep).getTruthMaintenanceSystem() );
+                if ( keys.length > 0 ) {
+                    // the object type configurations are needed to read the equality keys of each chunk
+                    writeObjectTypeConfiguration( context,
+                                                  ((InternalWorkingMemoryEntryPoint) wmep).getObjectTypeConfigurationRegistry(),
+                                                  _epb );
+                    ProtobufMessages.TruthMaintenanceSystem.Builder _tms = ProtobufMessages.TruthMaintenanceSystem.newBuilder();
+                    for ( EqualityKey key : keys ) {
+                        _tms.addKey( writeEqualityKey( context,
+                                                       key ) );
+                        if ( _tms.getKeyCount() == chunkSize ) {
+                            PersisterHelper.writeChunkToStreamWithHeader( context,
+                                                                          PersisterHelper.SESSION_ENTRY_POINT_CHUNK,
+                                                                          _epb.setTms( _tms.build() ).build() );
+                            _tms.clearKey();
+                        }
+                    }
+                    if ( _tms.getKeyCount() > 0 ) {
+                        PersisterHelper.writeChunkToStreamWithHeader( context,
+                                                                      PersisterHelper.SESSION_ENTRY_POINT_CHUNK,
+                                                                      _epb.setTms( _tms.build() ).build() );
+                    }
                 }
+            }
 
-                // this now just assigns the writer, it will not write out any timer information
-                context.parameterObject = _pdata;
-                processMarshaller.writeProcessTimers( context );
+            ProtobufMessages.KnowledgeSession.Builder _session = ProtobufMessages.KnowledgeSession.newBuilder()
+                    .setMultithread( false );
+            _ruleData = ProtobufMessages.RuleData.newBuilder();
+            writeActionQueue( context,
+                              _ruleData );
+            _session.setRuleData( _ruleData.build() );
+            writeProcessDataAndTimers( context,
+                                       _session );
+            PersisterHelper.writeChunkToStreamWithHeader( context,
+                                                          PersisterHelper.SESSION_TAIL_CHUNK,
+                                                          _session.build() );
+        } finally {
+            unlockSession( wm );
+        }
+    }
 
-                _session.setProcessData( _pdata.build() );
+    private static void lockSession(StatefulKnowledgeSessionImpl wm) {
+        // the objects staged by other threads are not in the session yet, insert them so that they are not lost
+        wm.drainStagedInserts();
+        wm.getLock().lock();
+        for (WorkingMemoryEntryPoint ep : wm.getWorkingMemoryEntryPoints().values()) {
+            if (ep instanceof NamedEntryPoint) {
+                ((NamedEntryPoint)ep).lock();
             }
+        }
 
-            Timers _timers = writeTimers( context.wm.getTimerService().getTimerJobInstances( context.wm.getId() ),
-                                          context );
-            if ( _timers != null ) {
-                _session.setTimers( _timers );
+        ((InternalAgenda)wm.getAgenda()).unstageActivations();
+
+        evaluateRuleActivations( wm );
+    }
+
+    private static void unlockSession(StatefulKnowledgeSessionImpl wm) {
+        for (WorkingMemoryEntryPoint ep : wm.getWorkingMemoryEntryPoints().values()) {
+            if (ep instanceof NamedEntryPoint) {
+                ((NamedEntryPoint)ep).unlock();
             }
+        }
+        wm.getLock().unlock();
+    }
 
-            return _session.build();
-        } finally {
-            for (WorkingMemoryEntryPoint ep : wm.getWorkingMemoryEntryPoints().values()) {
-                if (ep instanceof NamedEntryPoint) {
-                    ((NamedEntryPoint)ep).unlock();
-                }
+    private static long getSessionTime(MarshallerWriteContext context) {
+        if ( context.wm.getTimerService() instanceof PseudoClockScheduler ) {
+            return context.clockTime;
+        }
+        return 0;
+    }
+
+    private static void writeRuleDataHead(MarshallerWriteContext context,
+                                          ProtobufMessages.RuleData.Builder _ruleData) throws IOException {
+        InternalWorkingMemory wm = context.wm;
+        _ruleData.setLastId( wm.getFactHandleFactory().getId() );
+        _ruleData.setLastRecency( wm.getFactHandleFactory().getRecency() );
+
+        InternalFactHandle handle = wm.getInitialFactHandle();
+        if ( handle != null ) {
+            // can be null for RETE, if fireAllRules has not yet been called
+            ProtobufMessages.FactHandle _ifh = ProtobufMessages.FactHandle.newBuilder()
+                    .setType( ProtobufMessages.FactHandle.HandleType.INITIAL_FACT )
+                    .setId( handle.getId() )
+                    .setRecency( handle.getRecency() )
+                    .build();
+            _ruleData.setInitialFact( _ifh );
+        }
+
+        writeAgenda( context, _ruleData );
+
+        writeNodeMemories( context, _ruleData );
+    }
+
+    private static void writeProcessDataAndTimers(MarshallerWriteContext context,
+                                                  ProtobufMessages.KnowledgeSession.Builder _session) throws IOException {
+        if ( processMarshaller != null ) {
+            Builder _pdata = ProtobufMessages.ProcessData.newBuilder();
+            if ( context.marshalProcessInstances ) {
+                context.parameterObject = _pdata;
+                processMarshaller.writeProcessInstances( context );
             }
-            wm.getLock().unlock();
+
+            if ( context.marshalWorkItems ) {
+                context.parameterObject = _pdata;
+                processMarshaller.writeWorkItems( context );
+            }
+
+            // this now just assigns the writer, it will not write out any timer information
+            context.parameterObject = _pdata;
+            processMarshaller.writeProcessTimers( context );
+
+            _session.setProcessData( _pdata.build() );
+        }
+
+        Timers _timers = writeTimers( context.wm.getTimerService().getTimerJobInstances( context.wm.getId() ),
+                                      context );
+        if ( _timers != null ) {
+            _session.setTimers( _timers );
         }
     }
 
@@ -578,7 +857,18 @@ public class ProtobufOutputMarshaller {
 
             WorkingMemoryAction[] queue = wm.getActionQueue().toArray( new WorkingMemoryAction[wm.getActionQueue().size()] );
             for ( int i = queue.length - 1; i >= 0; i-- ) {
-                _queue.addAction( queue[i].serialize( context ) );
+                if ( queue[i] instanceof ExpirationWheel.ExpireBucketAction ) {
+                    // a bucket is written as the expiration of each of its events
+                    ExpirationWheel.Bucket bucket = ((ExpirationWheel.ExpireBucketAction) queue[i]).getBucket();
+                    for ( InternalFactHandle factHandle : bucket.getFactHandles() ) {
+                        if ( factHandle.isValid() ) {
+                            _queue.addAction( new WorkingMemoryReteExpireAction( factHandle,
+                                                                                 bucket.getWheel().getObjectTypeNode() ).serialize( context ) );
+                        }
+                    }
+                } else {
+                    _queue.addAction( queue[i].serialize( context ) );
+                }
             }
             _session.setActionQueue( _queue.build() );
         }
@@ -587,46 +877,56 @@ public class ProtobufOutputMarshaller {
     public static void writeTruthMaintenanceSystem(MarshallerWriteContext context,
                                                    EntryPoint wmep,
                                                    ProtobufMessages.EntryPoint.Builder _epb) throws IOException {
-        TruthMaintenanceSystem tms = ((NamedEntryPoint) wmep).getTruthMaintenanceSystem();
-        ObjectHashMap justifiedMap = tms.getEqualityKeyMap();
-
-        if ( !justifiedMap.isEmpty() ) {
-            EqualityKey[] keys = new EqualityKey[justifiedMap.size()];
-            org.drools.core.util.Iterator it = justifiedMap.iterator();
-            int i = 0;
-            for ( org.drools.core.util.ObjectHashMap.ObjectEntry entry = (org.drools.core.util.ObjectHashMap.ObjectEntry) it.next(); entry != null; entry = (org.drools.core.util.ObjectHashMap.ObjectEntry) it.next() ) {
-                EqualityKey key = (EqualityKey) entry.getKey();
-                keys[i++] = key;
-            }
-
-            Arrays.sort( keys,
-                         EqualityKeySorter.instance );
+        EqualityKey[] keys = orderEqualityKeys( ((NamedEntryPoint) wmep).getTruthMaintenanceSystem() );
 
+        if ( keys.length > 0 ) {
             ProtobufMessages.TruthMaintenanceSystem.Builder _tms = ProtobufMessages.TruthMaintenanceSystem.newBuilder();
 
             // write the assert map of Equality keys
             for ( EqualityKey key : keys ) {
-                ProtobufMessages.EqualityKey.Builder _key = ProtobufMessages.EqualityKey.newBuilder();
-                _key.setStatus( key.getStatus() );
-                _key.setHandleId( key.getFactHandle().getId() );
-
-                if ( key.size() > 1 ) {
-                    // add all the other key's if they exist
-                    FastIterator keyIter = key.fastIterator();
-                    for ( DefaultFactHandle handle = key.getFirst().getNext(); handle != null; handle = (DefaultFactHandle) keyIter.next( handle ) ) {
-                        _key.addOtherHandle( handle.getId() );
-                    }
-                }
+                _tms.addKey( writeEqualityKey( context,
+                                               key ) );
+            }
 
-                if ( key.getBeliefSet() != null ) {
-                    writeBeliefSet( context, key.getBeliefSet(), _key );
-                }
+            _epb.setTms( _tms.build() );
+        }
+    }
+
+    private static EqualityKey[] orderEqualityKeys(TruthMaintenanceSystem tms) {
+        ObjectHashMap justifiedMap = tms.getEqualityKeyMap();
+
+        EqualityKey[] keys = new EqualityKey[justifiedMap.size()];
+        org.drools.core.util.Iterator it = justifiedMap.iterator();
+        int i = 0;
+        for ( org.drools.core.util.ObjectHashMap.ObjectEntry entry = (org.drools.core.util.ObjectHashMap.ObjectEntry) it.next(); entry != null; entry = (org.drools.core.util.ObjectHashMap.ObjectEntry) it.next() ) {
+            EqualityKey key = (EqualityKey) entry.getKey();
+            keys[i++] = key;
+        }
+
+        Arrays.sort( keys,
+                     EqualityKeySorter.instance );
+        return keys;
+    }
 
-                _tms.addKey( _key.build() );
+    private static ProtobufMessages.EqualityKey writeEqualityKey(MarshallerWriteContext context,
+                                                                 EqualityKey key) throws IOException {
+        ProtobufMessages.EqualityKey.Builder _key = ProtobufMessages.EqualityKey.newBuilder();
+        _key.setStatus( key.getStatus() );
+        _key.setHandleId( key.getFactHandle().getId() );
+
+        if ( key.size() > 1 ) {
+            // add all the other key's if they exist
+            FastIterator keyIter = key.fastIterator();
+            for ( DefaultFactHandle handle = key.getFirst().getNext(); handle != null; handle = (DefaultFactHandle) keyIter.next( handle ) ) {
+                _key.addOtherHandle( handle.getId() );
             }
+        }
 
-            _epb.setTms( _tms.build() );
+        if ( key.getBeliefSet() != null ) {
+            writeBeliefSet( context, key.getBeliefSet(), _key );
         }
+
+        return _key.build();
     }
 
     private static void writeBeliefSet(MarshallerWriteContext context,
@@ -703,6 +1003,28 @@ public class ProtobufOutputMarshaller {
         }
     }
 
+    private static void writeChangedFactHandles(MarshallerWriteContext context,
+                                                org.drools.core.marshalling.impl.ProtobufMessages.EntryPoint.Builder _epb,
+                                                SessionChangeTracker changes,
+                                                String entryPointId) throws IOException {
+        ObjectMarshallingStrategyStore objectMarshallingStrategyStore = context.objectMarshallingStrategyStore;
+
+        // Write out the inserted and updated FactHandles
+        for ( InternalFactHandle handle : orderFacts( new ArrayList<InternalFactHandle>( changes.getChangedHandles( entryPointId ) ) ) ) {
+            ProtobufMessages.FactHandle _handle = writeFactHandle( context,
+                                                                   objectMarshallingStrategyStore,
+                                                                   handle );
+            _epb.addHandle( _handle );
+        }
+
+        // Write out the deleted FactHandles, as handles without type
+        List<Integer> deletedIds = new ArrayList<Integer>( changes.getDeletedHandleIds( entryPointId ) );
+        Collections.sort( deletedIds );
+        for ( Integer id : deletedIds ) {
+            _epb.addHandle( ProtobufMessages.FactHandle.newBuilder().setId( id.intValue() ).build() );
+        }
+    }
+
     private static ProtobufMessages.FactHandle writeFactHandle(MarshallerWriteContext context,
                                                                ObjectMarshallingStrategyStore objectMarshallingStrategyStore,
                                                                InternalFactHandle handle) throws IOException {
@@ -868,6 +1190,18 @@ public class ProtobufOutputMarshaller {
             ProtobufMessages.Timers.Builder _timers = ProtobufMessages.Timers.newBuilder();
             for ( TimerJobInstance timer : sortedTimers ) {
                 JobContext jctx = ((SelfRemovalJobContext) timer.getJobContext()).getJobContext();
+                if (jctx instanceof ExpirationWheel.Bucket) {
+                    // a bucket is written as the expiration of each of its events, so it doesn't depend on the wheel tick
+                    ExpirationWheel.Bucket bucket = (ExpirationWheel.Bucket) jctx;
+                    for ( InternalFactHandle factHandle : bucket.getFactHandles() ) {
+                        if ( factHandle.isValid() ) {
+                            _timers.addTimer( ObjectTypeNode.ExpireJobContextTimerOutputMarshaller.serializeExpireTimer( factHandle,
+                                                                                                                       bucket.getWheel().getObjectTypeNode(),
+                                                                                                                       bucket.getTime() ) );
+                        }
+                    }
+                    continue;
+                }
                 if (jctx instanceof ObjectTypeNode.ExpireJobContext &&
                     !((ObjectTypeNode.ExpireJobContext) jctx).getExpireAction().getFactHandle().isValid()) {
                     continue;
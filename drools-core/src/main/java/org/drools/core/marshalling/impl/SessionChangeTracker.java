@@ -0,0 +1,183 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.marshalling.impl;
+
+import org.drools.core.common.InternalFactHandle;
+import org.kie.api.event.rule.AfterMatchFiredEvent;
+import org.kie.api.event.rule.AgendaEventListener;
+import org.kie.api.event.rule.AgendaGroupPoppedEvent;
+import org.kie.api.event.rule.AgendaGroupPushedEvent;
+import org.kie.api.event.rule.BeforeMatchFiredEvent;
+import org.kie.api.event.rule.MatchCancelledEvent;
+import org.kie.api.event.rule.MatchCreatedEvent;
+import org.kie.api.event.rule.ObjectDeletedEvent;
+import org.kie.api.event.rule.ObjectInsertedEvent;
+import org.kie.api.event.rule.ObjectUpdatedEvent;
+import org.kie.api.event.rule.RuleFlowGroupActivatedEvent;
+import org.kie.api.event.rule.RuleFlowGroupDeactivatedEvent;
+import org.kie.api.event.rule.RuleRuntimeEventListener;
+import org.kie.api.runtime.KieSession;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps track, per entry point, of the fact handles inserted, updated and deleted in a session
+ * since the last checkpoint, so that an incremental snapshot containing only them can be written.
+ * It also records whether the agenda changed, so that a snapshot is written only for the
+ * transactions that changed the session.
+ * The checkpoint is moved forward each time the session is marshalled with this tracker.
+ *
+ * Facts modified in place without updating them in the session are not tracked.
+ */
+public class SessionChangeTracker implements RuleRuntimeEventListener, AgendaEventListener {
+
+    private final Map<String, Map<Integer, InternalFactHandle>> changedHandles = new HashMap<String, Map<Integer, InternalFactHandle>>();
+    private final Map<String, Set<Integer>> deletedHandleIds = new HashMap<String, Set<Integer>>();
+
+    private boolean agendaChanged;
+
+    /**
+     * Creates a tracker and registers it on the given session
+     */
+    public static SessionChangeTracker track(KieSession ksession) {
+        SessionChangeTracker tracker = new SessionChangeTracker();
+        ksession.addEventListener( (RuleRuntimeEventListener) tracker );
+        ksession.addEventListener( (AgendaEventListener) tracker );
+        return tracker;
+    }
+
+    public synchronized void objectInserted(ObjectInsertedEvent event) {
+        handleChanged( (InternalFactHandle) event.getFactHandle() );
+    }
+
+    public synchronized void objectUpdated(ObjectUpdatedEvent event) {
+        handleChanged( (InternalFactHandle) event.getFactHandle() );
+    }
+
+    public synchronized void objectDeleted(ObjectDeletedEvent event) {
+        InternalFactHandle handle = (InternalFactHandle) event.getFactHandle();
+        String entryPointId = handle.getEntryPoint().getEntryPointId();
+        Map<Integer, InternalFactHandle> changed = changedHandles.get( entryPointId );
+        if ( changed != null ) {
+            changed.remove( handle.getId() );
+        }
+        Set<Integer> deleted = deletedHandleIds.get( entryPointId );
+        if ( deleted == null ) {
+            deleted = new HashSet<Integer>();
+            deletedHandleIds.put( entryPointId, deleted );
+        }
+        deleted.add( handle.getId() );
+    }
+
+    public synchronized void matchCreated(MatchCreatedEvent event) {
+        agendaChanged = true;
+    }
+
+    public synchronized void matchCancelled(MatchCancelledEvent event) {
+        agendaChanged = true;
+    }
+
+    public void beforeMatchFired(BeforeMatchFiredEvent event) {
+    }
+
+    public synchronized void afterMatchFired(AfterMatchFiredEvent event) {
+        agendaChanged = true;
+    }
+
+    public synchronized void agendaGroupPopped(AgendaGroupPoppedEvent event) {
+        agendaChanged = true;
+    }
+
+    public synchronized void agendaGroupPushed(AgendaGroupPushedEvent event) {
+        agendaChanged = true;
+    }
+
+    public void beforeRuleFlowGroupActivated(RuleFlowGroupActivatedEvent event) {
+    }
+
+    public synchronized void afterRuleFlowGroupActivated(RuleFlowGroupActivatedEvent event) {
+        agendaChanged = true;
+    }
+
+    public void beforeRuleFlowGroupDeactivated(RuleFlowGroupDeactivatedEvent event) {
+    }
+
+    public synchronized void afterRuleFlowGroupDeactivated(RuleFlowGroupDeactivatedEvent event) {
+        agendaChanged = true;
+    }
+
+    private void handleChanged(InternalFactHandle handle) {
+        String entryPointId = handle.getEntryPoint().getEntryPointId();
+        Map<Integer, InternalFactHandle> changed = changedHandles.get( entryPointId );
+        if ( changed == null ) {
+            changed = new HashMap<Integer, InternalFactHandle>();
+            changedHandles.put( entryPointId, changed );
+        }
+        changed.put( handle.getId(), handle );
+    }
+
+    /**
+     * Returns the handles inserted or updated in the given entry point since the last checkpoint
+     */
+    public synchronized Collection<InternalFactHandle> getChangedHandles(String entryPointId) {
+        Map<Integer, InternalFactHandle> changed = changedHandles.get( entryPointId );
+        return changed != null ? changed.values() : Collections.<InternalFactHandle>emptyList();
+    }
+
+    /**
+     * Returns the ids of the handles deleted from the given entry point since the last checkpoint
+     */
+    public synchronized Collection<Integer> getDeletedHandleIds(String entryPointId) {
+        Set<Integer> deleted = deletedHandleIds.get( entryPointId );
+        return deleted != null ? deleted : Collections.<Integer>emptySet();
+    }
+
+    public synchronized boolean isEmpty() {
+        for ( Map<Integer, InternalFactHandle> changed : changedHandles.values() ) {
+            if ( !changed.isEmpty() ) {
+                return false;
+            }
+        }
+        for ( Set<Integer> deleted : deletedHandleIds.values() ) {
+            if ( !deleted.isEmpty() ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns true if facts or the agenda changed since the last checkpoint
+     */
+    public synchronized boolean hasChanges() {
+        return agendaChanged || !isEmpty();
+    }
+
+    /**
+     * Moves the checkpoint forward, forgetting all the changes tracked so far
+     */
+    public synchronized void checkpoint() {
+        changedHandles.clear();
+        deletedHandleIds.clear();
+        agendaChanged = false;
+    }
+}
@@ -40,178 +40,257 @@ import org.drools.core.util.FastIterator;
 import org.drools.core.util.Iterator;
 import org.drools.core.util.LinkedList;
 import org.drools.core.util.ObjectHashSet.ObjectEntry;
+import org.kie.internal.concurrent.ExecutorProviderFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 public class AddRemoveRule {
 
     private static final Logger log = LoggerFactory.getLogger(AddRemoveRule.class);
 
-    public static void addRule(TerminalNode tn, InternalWorkingMemory[] wms, InternalKnowledgeBase kBase) {
+    public static void addRule(final TerminalNode tn, InternalWorkingMemory[] wms, InternalKnowledgeBase kBase) {
         if ( log.isTraceEnabled() ) {
             log.trace("Adding Rule {}", tn.getRule().getName() );
         }
-        LeftTupleSource splitStartLeftTupleSource = getNetworkSplitPoint(tn);
+        final LeftTupleSource splitStartLeftTupleSource = getNetworkSplitPoint(tn);
 
         kBase.invalidateSegmentPrototype(splitStartLeftTupleSource);
 
-        for (InternalWorkingMemory wm : wms) {
+        forEachWorkingMemory(wms, kBase, new WorkingMemoryTask() {
+            public void execute(InternalWorkingMemory wm) {
+                addRule(tn, splitStartLeftTupleSource, wm);
+            }
+        });
+    }
 
-            if (splitStartLeftTupleSource.getAssociations().size() > 1) {
-                List<PathMemory> pathMems = new ArrayList<PathMemory>();
+    private static void addRule(TerminalNode tn, LeftTupleSource splitStartLeftTupleSource, InternalWorkingMemory wm) {
+        if (splitStartLeftTupleSource.getAssociations().size() > 1) {
+            List<PathMemory> pathMems = new ArrayList<PathMemory>();
 
-                collectRtnPathMemories(splitStartLeftTupleSource, wm, pathMems, tn); // get all PathMemories, except current
+            collectRtnPathMemories(splitStartLeftTupleSource, wm, pathMems, tn); // get all PathMemories, except current
 
-                PathMemory newPmem = (PathMemory) wm.getNodeMemory((MemoryFactory) tn);
+            PathMemory newPmem = (PathMemory) wm.getNodeMemory((MemoryFactory) tn);
 
-                int s = getSegmentPos(splitStartLeftTupleSource, null);
+            int s = getSegmentPos(splitStartLeftTupleSource, null);
 
-                LeftTupleSink[] sinks = splitStartLeftTupleSource.getSinkPropagator().getSinks();
-                if (sinks.length == 2 || (sinks.length == 3 && NodeTypeEnums.isBetaNode(sinks[2])) && ((BetaNode) sinks[2]).isRightInputIsRiaNode()) {
-                    List<SegmentMemory[]> previousSmems = reInitPathMemories(wm, pathMems, null);
+            LeftTupleSink[] sinks = splitStartLeftTupleSource.getSinkPropagator().getSinks();
+            if (sinks.length == 2 || (sinks.length == 3 && NodeTypeEnums.isBetaNode(sinks[2])) && ((BetaNode) sinks[2]).isRightInputIsRiaNode()) {
+                List<SegmentMemory[]> previousSmems = reInitPathMemories(wm, pathMems, null);
 
-                    // can only be two if the adding node caused the split to be created
-                    int p = 0;
-                    SegmentMemory splitSmem = null;
-                    for (PathMemory pmem : pathMems) {
-                        SegmentMemory[] smems = previousSmems.get(p);
+                // can only be two if the adding node caused the split to be created
+                int p = 0;
+                SegmentMemory splitSmem = null;
+                for (PathMemory pmem : pathMems) {
+                    SegmentMemory[] smems = previousSmems.get(p);
 
-                        for (int i = 0; i < smems.length; i++) {
-                            SegmentMemory sm = smems[i];
-                            if (sm == null) {
-                                continue; // SegmentMemory is not yet initialized
-                            }
+                    for (int i = 0; i < smems.length; i++) {
+                        SegmentMemory sm = smems[i];
+                        if (sm == null) {
+                            continue; // SegmentMemory is not yet initialized
+                        }
 
-                            if (i < s) {
-                                correctSegmentBeforeSplitOnAdd(wm, newPmem, p, pmem, sm);
-                            } else if (i == s) {
-                                splitSmem = correctSegmentOnSplitOnAdd(splitStartLeftTupleSource, wm, newPmem, p, splitSmem, pmem, sm);
-                            } else if (i > s) {
-                                correctSegmentAfterSplitOnAdd(wm, pmem, i, sm);
-                            }
+                        if (i < s) {
+                            correctSegmentBeforeSplitOnAdd(wm, newPmem, p, pmem, sm);
+                        } else if (i == s) {
+                            splitSmem = correctSegmentOnSplitOnAdd(splitStartLeftTupleSource, wm, newPmem, p, splitSmem, pmem, sm);
+                        } else if (i > s) {
+                            correctSegmentAfterSplitOnAdd(wm, pmem, i, sm);
                         }
-                        p++;
-                    }
-                } else {
-                    SegmentMemory sm = pathMems.get(0).getSegmentMemories()[s];
-                    if (sm == null) {
-                        continue; // Segments are initialised lazily, so the SM may not yet exist yet, and thus no processing needed
                     }
-                    initNewSegment(splitStartLeftTupleSource, wm, sm);
-                    correctSegmentBeforeSplitOnAdd(wm, newPmem, 0, pathMems.get(0), sm);
+                    p++;
                 }
+            } else {
+                SegmentMemory sm = pathMems.get(0).getSegmentMemories()[s];
+                if (sm == null) {
+                    return; // Segments are initialised lazily, so the SM may not yet exist yet, and thus no processing needed
+                }
+                initNewSegment(splitStartLeftTupleSource, wm, sm);
+                correctSegmentBeforeSplitOnAdd(wm, newPmem, 0, pathMems.get(0), sm);
             }
+        }
 
-            if (NodeTypeEnums.LeftInputAdapterNode == splitStartLeftTupleSource.getType() && splitStartLeftTupleSource.getAssociations().size() == 1) {
-                // rule added with no sharing
-                insertLiaFacts(splitStartLeftTupleSource, wm);
-            }
-
-            insertFacts( splitStartLeftTupleSource.getSinkPropagator().getLastLeftTupleSink(), wm);
+        if (NodeTypeEnums.LeftInputAdapterNode == splitStartLeftTupleSource.getType() && splitStartLeftTupleSource.getAssociations().size() == 1) {
+            // rule added with no sharing
+            insertLiaFacts(splitStartLeftTupleSource, wm);
         }
+
+        insertFacts( splitStartLeftTupleSource.getSinkPropagator().getLastLeftTupleSink(), wm);
     }
 
-     public static void removeRule(TerminalNode tn, InternalWorkingMemory[] wms, InternalKnowledgeBase kBase) {
+     public static void removeRule(final TerminalNode tn, InternalWorkingMemory[] wms, InternalKnowledgeBase kBase) {
          if ( log.isTraceEnabled() ) {
              log.trace("Removing Rule {}", tn.getRule().getName() );
          }
 
-         LeftTupleSource splitStartNode = getNetworkSplitPoint(tn);
+         final LeftTupleSource splitStartNode = getNetworkSplitPoint(tn);
 
          kBase.invalidateSegmentPrototype(splitStartNode);
 
-         for ( InternalWorkingMemory wm : wms ) {
+         forEachWorkingMemory(wms, kBase, new WorkingMemoryTask() {
+             public void execute(InternalWorkingMemory wm) {
+                 removeRule(tn, splitStartNode, wm);
+             }
+         });
+     }
+
+     private static void removeRule(TerminalNode tn, LeftTupleSource splitStartNode, InternalWorkingMemory wm) {
+         PathMemory removedPmem = (PathMemory) wm.getNodeMemory( (MemoryFactory) tn);
+         int s = getSegmentPos(splitStartNode, null);
 
-             PathMemory removedPmem = (PathMemory) wm.getNodeMemory( (MemoryFactory) tn);
-             int s = getSegmentPos(splitStartNode, null);
+         // if a segment is going to be merged it is necessary to flush all its staged left tuples before doing any change to the network
+         flushSegmentIfMerge(wm, tn, splitStartNode, s);
 
-             // if a segment is going to be merged it is necessary to flush all its staged left tuples before doing any change to the network
-             flushSegmentIfMerge(wm, tn, splitStartNode, s);
+         // must be done before segments are mutated
+         flushStagedTuples(splitStartNode, removedPmem, wm, true);
 
-             // must be done before segments are mutated
-             flushStagedTuples(splitStartNode, removedPmem, wm, true);
+         //
+         if (NodeTypeEnums.LeftInputAdapterNode == splitStartNode.getType() && splitStartNode.getAssociations().size() == 1) {
+             // rule added with no sharing
+             deleteLiaFacts(splitStartNode, wm);
+         }
 
-             //
-             if (NodeTypeEnums.LeftInputAdapterNode == splitStartNode.getType() && splitStartNode.getAssociations().size() == 1) {
-                 // rule added with no sharing
-                 deleteLiaFacts(splitStartNode, wm);
+         LeftTupleSink sink;
+         if ( splitStartNode.getAssociations().size() == 1 ) {
+             // there is no sharing, so get the node after the root of the only SegmentMemory
+             SegmentMemory sm =  removedPmem.getSegmentMemories()[s];
+             if ( sm == null ) {
+                 return; // this rule has not been initialized yet
              }
-
-             LeftTupleSink sink;
-             if ( splitStartNode.getAssociations().size() == 1 ) {
-                 // there is no sharing, so get the node after the root of the only SegmentMemory
-                 SegmentMemory sm =  removedPmem.getSegmentMemories()[s];
-                 if ( sm == null ) {
-                     continue; // this rule has not been initialized yet
-                 }
-                 sink = ((LeftInputAdapterNode)sm.getRootNode()).getSinkPropagator().getFirstLeftTupleSink();
-             } else {
-                 // Sharing exists, get the root of the SegmentMemory after the split
-                 SegmentMemory sm =  removedPmem.getSegmentMemories()[s+1];
-                 if ( sm == null ) {
-                     continue; // this rule has not been initialized yet
-                 }
-                 sink = (LeftTupleSink) removedPmem.getSegmentMemories()[s+1].getRootNode();
+             sink = ((LeftInputAdapterNode)sm.getRootNode()).getSinkPropagator().getFirstLeftTupleSink();
+         } else {
+             // Sharing exists, get the root of the SegmentMemory after the split
+             SegmentMemory sm =  removedPmem.getSegmentMemories()[s+1];
+             if ( sm == null ) {
+                 return; // this rule has not been initialized yet
              }
-             deleteFacts( sink, wm);
+             sink = (LeftTupleSink) removedPmem.getSegmentMemories()[s+1].getRootNode();
+         }
+         deleteFacts( sink, wm);
 
-             if ( splitStartNode.getAssociations().size() > 1 ) {
-                 List<PathMemory> pathMems = new ArrayList<PathMemory>();
+         if ( splitStartNode.getAssociations().size() > 1 ) {
+             List<PathMemory> pathMems = new ArrayList<PathMemory>();
 
-                 collectRtnPathMemories(splitStartNode, wm, pathMems, tn); // get all PathMemories, except current
+             collectRtnPathMemories(splitStartNode, wm, pathMems, tn); // get all PathMemories, except current
 
-                 List<SegmentMemory[]> previousSmems = reInitPathMemories(wm, pathMems, tn.getRule() );
+             List<SegmentMemory[]> previousSmems = reInitPathMemories(wm, pathMems, tn.getRule() );
 
-                 if ( splitStartNode.getSinkPropagator().size() == 2 ) {
-                     // can only be two if the removing node causes the split to be removed
-                     int p = 0;
-                     for ( PathMemory pmem : pathMems) {
-                         SegmentMemory[] smems = previousSmems.get(p);
+             if ( splitStartNode.getSinkPropagator().size() == 2 ) {
+                 // can only be two if the removing node causes the split to be removed
+                 int p = 0;
+                 for ( PathMemory pmem : pathMems) {
+                     SegmentMemory[] smems = previousSmems.get(p);
 
-                         for (int i = 0; i < smems.length; i++ ) {
-                             SegmentMemory sm = smems[i];
-                             if ( sm == null ) {
-                                 continue; // SegmentMemory is not yet initialized
-                             }
+                     for (int i = 0; i < smems.length; i++ ) {
+                         SegmentMemory sm = smems[i];
+                         if ( sm == null ) {
+                             continue; // SegmentMemory is not yet initialized
+                         }
 
-                             if ( i < s ) {
-                                 correctSegmentBeforeSplitOnRemove(wm, removedPmem, pmem, sm, p);
-                             } else if ( i == s ) {
-                                 if (smems[i+1] != null) {
-                                     correctSegmentOnSplitOnRemove(wm,  sm, smems[i+1], pmem, removedPmem, p);
-                                     i++; // increase to skip merged segment
-                                 }
-                             } else if (i > s) {
-                                 correctSegmentAfterSplitOnRemove(wm, pmem, i, sm);
+                         if ( i < s ) {
+                             correctSegmentBeforeSplitOnRemove(wm, removedPmem, pmem, sm, p);
+                         } else if ( i == s ) {
+                             if (smems[i+1] != null) {
+                                 correctSegmentOnSplitOnRemove(wm,  sm, smems[i+1], pmem, removedPmem, p);
+                                 i++; // increase to skip merged segment
                              }
+                         } else if (i > s) {
+                             correctSegmentAfterSplitOnRemove(wm, pmem, i, sm);
                          }
-                         p++;
                      }
-                 } else {
-                     int p = 0;
-                     for ( PathMemory pmem : pathMems) {
-                         SegmentMemory[] smems = previousSmems.get(p++);
-                         for (int i = 0; i < pmem.getSegmentMemories().length; i++) {
-                             if ( smems[i] == null) {
-                                 continue;
-                             }
-                             smems[i].getPathMemories().remove(removedPmem);
-                             pmem.getSegmentMemories()[i] = smems[i];
+                     p++;
+                 }
+             } else {
+                 int p = 0;
+                 for ( PathMemory pmem : pathMems) {
+                     SegmentMemory[] smems = previousSmems.get(p++);
+                     for (int i = 0; i < pmem.getSegmentMemories().length; i++) {
+                         if ( smems[i] == null) {
+                             continue;
                          }
+                         smems[i].getPathMemories().remove(removedPmem);
+                         pmem.getSegmentMemories()[i] = smems[i];
                      }
                  }
              }
-             if ( removedPmem.getRuleAgendaItem() != null && removedPmem.getRuleAgendaItem().isQueued() ) {
-                 removedPmem.getRuleAgendaItem().dequeue();
-             }
+         }
+         if ( removedPmem.getRuleAgendaItem() != null && removedPmem.getRuleAgendaItem().isQueued() ) {
+             removedPmem.getRuleAgendaItem().dequeue();
          }
      }
 
+    private interface WorkingMemoryTask {
+        void execute(InternalWorkingMemory wm);
+    }
+
+    /**
+     * The segments and tuples changed by adding or removing a rule belong to a single session, so with
+     * multithread evaluation enabled the sessions are processed concurrently, while the caller holds the kbase lock.
+     * The calling thread takes part in the work, so that a busy executor can only slow it down.
+     */
+    private static void forEachWorkingMemory(InternalWorkingMemory[] wms, InternalKnowledgeBase kBase, final WorkingMemoryTask task) {
+        int maxThreads = kBase.getConfiguration().getMaxThreads();
+        int parallelism = Math.min( wms.length, maxThreads > 0 ? maxThreads : Runtime.getRuntime().availableProcessors() );
+        if ( !kBase.getConfiguration().isMultithreadEvaluation() || parallelism < 2 ) {
+            for ( InternalWorkingMemory wm : wms ) {
+                task.execute( wm );
+            }
+            return;
+        }
+
+        final ConcurrentLinkedQueue<InternalWorkingMemory> queue = new ConcurrentLinkedQueue<InternalWorkingMemory>( Arrays.asList( wms ) );
+        Callable<Boolean> worker = new Callable<Boolean>() {
+            public Boolean call() {
+                for ( InternalWorkingMemory wm = queue.poll(); wm != null; wm = queue.poll() ) {
+                    task.execute( wm );
+                }
+                return true;
+            }
+        };
+
+        CompletionService<Boolean> ecs = ExecutorProviderFactory.getExecutorProvider().getCompletionService();
+        List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>( parallelism - 1 );
+        for ( int i = 1; i < parallelism; i++ ) {
+            futures.add( ecs.submit( worker ) );
+        }
+
+        RuntimeException failure = null;
+        try {
+            worker.call();
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        for ( Future<Boolean> future : futures ) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if ( failure == null ) {
+                    failure = new RuntimeException( e );
+                }
+            } catch (ExecutionException e) {
+                if ( failure == null ) {
+                    failure = e.getCause() instanceof RuntimeException ?
+                              (RuntimeException) e.getCause() :
+                              new RuntimeException( e.getCause() );
+                }
+            }
+        }
+        if ( failure != null ) {
+            throw failure;
+        }
+    }
+
     private static void flushSegmentIfMerge(InternalWorkingMemory wm, TerminalNode tn, LeftTupleSource splitStartNode, int segmentPos) {
         if ( splitStartNode.getAssociations().size() == 2 ) {
             // only handle for the first PathMemory, all others are shared and duplicate until this point
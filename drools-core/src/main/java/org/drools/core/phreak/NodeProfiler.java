@@ -0,0 +1,198 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.phreak;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.drools.core.common.LeftTupleSets;
+import org.drools.core.common.Memory;
+import org.drools.core.common.NetworkNode;
+import org.drools.core.common.RightTupleSets;
+import org.drools.core.reteoo.AccumulateNode.AccumulateMemory;
+import org.drools.core.reteoo.BetaMemory;
+import org.drools.core.reteoo.NodeTypeEnums;
+import org.kie.api.definition.rule.Rule;
+
+/**
+ * The counters of the nodes evaluated by a session, kept only when the
+ * drools.nodeProfiling option of its kbase is enabled.
+ * The counters are plain fields updated by the thread evaluating the node, so with multithread
+ * evaluation a few increments may be lost.
+ */
+public class NodeProfiler {
+
+    private static final long NANO_TO_MILLISEC = 1000000;
+
+    private volatile NodeStats[] stats = new NodeStats[64];
+
+    public NodeStats getStats(NetworkNode node) {
+        NodeStats[] current = this.stats;
+        int id = node.getId();
+        if ( id < current.length && current[id] != null ) {
+            return current[id];
+        }
+        return createStats( node );
+    }
+
+    private synchronized NodeStats createStats(NetworkNode node) {
+        int id = node.getId();
+        if ( id >= this.stats.length ) {
+            this.stats = Arrays.copyOf( this.stats, Math.max( id + 1, this.stats.length << 1 ) );
+        }
+        if ( this.stats[id] == null ) {
+            this.stats[id] = new NodeStats( node );
+        }
+        return this.stats[id];
+    }
+
+    /**
+     * Counts the tuples staged for the given node before it is evaluated
+     */
+    public NodeStats beforeNode(NetworkNode node, LeftTupleSets srcTuples, Memory nodeMem) {
+        NodeStats nodeStats = getStats( node );
+        nodeStats.evaluations++;
+        int leftTuples = size( srcTuples );
+        nodeStats.leftTuplesIn += leftTuples;
+        if ( NodeTypeEnums.isBetaNode( node ) ) {
+            BetaMemory bm = NodeTypeEnums.AccumulateNode == node.getType() ?
+                            ((AccumulateMemory) nodeMem).getBetaMemory() :
+                            (BetaMemory) nodeMem;
+            RightTupleSets rightTuples = bm.getStagedRightTuples();
+            nodeStats.rightTuplesIn += rightTuples.insertSize() + rightTuples.updateSize() + rightTuples.deleteSize();
+            if ( bm.getRightTupleMemory().isIndexed() ) {
+                nodeStats.indexedLookups += leftTuples;
+            } else {
+                nodeStats.scans += leftTuples;
+            }
+        }
+        return nodeStats;
+    }
+
+    public List<NodeStats> getAllStats() {
+        List<NodeStats> result = new ArrayList<NodeStats>();
+        for ( NodeStats nodeStats : this.stats ) {
+            if ( nodeStats != null ) {
+                result.add( nodeStats );
+            }
+        }
+        return result;
+    }
+
+    public void reset() {
+        for ( NodeStats nodeStats : this.stats ) {
+            if ( nodeStats != null ) {
+                nodeStats.reset();
+            }
+        }
+    }
+
+    /**
+     * Returns one line for each evaluated node, with the rules using it, starting from the node taking the longest time
+     */
+    public String dump() {
+        List<NodeStats> sorted = getAllStats();
+        Collections.sort( sorted, new Comparator<NodeStats>() {
+            public int compare(NodeStats s1, NodeStats s2) {
+                return s1.time > s2.time ? -1 : (s1.time == s2.time ? 0 : 1);
+            }
+        } );
+        StringBuilder sb = new StringBuilder();
+        for ( NodeStats nodeStats : sorted ) {
+            sb.append( nodeStats.getNodeName() ).append( " rules=" ).append( nodeStats.getRuleNames() )
+              .append( ' ' ).append( nodeStats ).append( '\n' );
+        }
+        return sb.toString();
+    }
+
+    private static int size(LeftTupleSets tuples) {
+        return tuples.insertSize() + tuples.updateSize() + tuples.deleteSize();
+    }
+
+    public static class NodeStats {
+        private final NetworkNode node;
+
+        public long evaluations;
+        public long leftTuplesIn;
+        public long rightTuplesIn;
+        public long tuplesOut;
+        public long indexedLookups;
+        public long scans;
+        public long time;
+
+        NodeStats(NetworkNode node) {
+            this.node = node;
+        }
+
+        /**
+         * Counts the tuples produced by the node and the time spent evaluating it
+         */
+        public void afterNode(LeftTupleSets trgTuples, long elapsed) {
+            if ( trgTuples != null ) {
+                this.tuplesOut += size( trgTuples );
+            }
+            this.time += elapsed;
+        }
+
+        /**
+         * Counts the evaluation of the constraint of an alpha node
+         */
+        public void alphaEvaluated(boolean allowed) {
+            this.evaluations++;
+            if ( allowed ) {
+                this.tuplesOut++;
+            }
+        }
+
+        public NetworkNode getNode() {
+            return this.node;
+        }
+
+        public String getNodeName() {
+            return this.node.getClass().getSimpleName() + "[" + this.node.getId() + "]";
+        }
+
+        public Set<String> getRuleNames() {
+            Set<String> names = new TreeSet<String>();
+            for ( Rule rule : this.node.getAssociations().keySet() ) {
+                names.add( rule.getName() );
+            }
+            return names;
+        }
+
+        public void reset() {
+            this.evaluations = 0;
+            this.leftTuplesIn = 0;
+            this.rightTuplesIn = 0;
+            this.tuplesOut = 0;
+            this.indexedLookups = 0;
+            this.scans = 0;
+            this.time = 0;
+        }
+
+        public String toString() {
+            return "evaluations=" + evaluations + " leftTuplesIn=" + leftTuplesIn + " rightTuplesIn=" + rightTuplesIn +
+                   " tuplesOut=" + tuplesOut + " indexedLookups=" + indexedLookups + " scans=" + scans +
+                   " time=" + (time / NANO_TO_MILLISEC) + "ms";
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package org.drools.core.phreak;
+
+import org.drools.core.common.EventSupport;
+import org.drools.core.common.InternalAgendaGroup;
+import org.drools.core.common.InternalWorkingMemory;
+import org.drools.core.common.Memory;
+import org.drools.core.definitions.rule.impl.RuleImpl;
+import org.drools.core.reteoo.AccumulateNode.AccumulateMemory;
+import org.drools.core.reteoo.BetaMemory;
+import org.drools.core.reteoo.BetaNode;
+import org.drools.core.reteoo.LeftTupleSource;
+import org.drools.core.reteoo.NodeTypeEnums;
+import org.drools.core.reteoo.PathMemory;
+import org.drools.core.reteoo.RightInputAdapterNode;
+import org.drools.core.reteoo.RiaPathMemory;
+import org.drools.core.reteoo.SegmentMemory;
+import org.drools.core.reteoo.TerminalNode;
+import org.drools.core.spi.Activation;
+import org.kie.internal.concurrent.ExecutorProviderFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Evaluates the networks of the dirty rules of an agenda group on the threads of the executor
+ * provided by the ExecutorProviderFactory, using at most drools.maxThreads of them.
+ *
+ * The rules are first split into partitions: two rules end up in the same partition
+ * when their paths (including the paths of their subnetworks) share at least one segment,
+ * as evaluating one of them may stage tuples into the segments of the other. Partitions
+ * are then evaluated concurrently, each partition serially on a single thread, while
+ * the firing of the resulting matches stays on the thread owning the agenda.
+ *
+ * Only rules whose terminal node has no side effect on the agenda other than queueing
+ * its own matches are evaluated in parallel, everything else is left to the usual lazy
+ * evaluation performed when the rule reaches the top of the agenda.
+ */
+public class ParallelRuleEvaluator {
+
+    private static final Logger log = LoggerFactory.getLogger(ParallelRuleEvaluator.class);
+
+    private final int parallelism;
+
+    private volatile boolean evaluating;
+
+    public ParallelRuleEvaluator(int maxThreads) {
+        this.parallelism = maxThreads > 0 ? maxThreads : Runtime.getRuntime().availableProcessors();
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * @return true while the partitions are being evaluated by the worker threads
+     */
+    public boolean isEvaluating() {
+        return evaluating;
+    }
+
+    public void evaluate(InternalAgendaGroup group, InternalWorkingMemory wm) {
+        Activation head = group.peek();
+        if ( head == null || !head.isRuleAgendaItem() || !((RuleAgendaItem) head).getRuleExecutor().isDirty() ) {
+            // nothing needs to be evaluated before the next firing
+            return;
+        }
+
+        if ( !((EventSupport) wm).getAgendaEventSupport().isEmpty() ) {
+            // agenda listeners are notified during evaluation and are not required to be thread safe
+            return;
+        }
+
+        List<RuleAgendaItem> candidates = new ArrayList<RuleAgendaItem>();
+        for ( Activation activation : group.getActivations() ) {
+            if ( activation.isRuleAgendaItem() ) {
+                RuleAgendaItem item = (RuleAgendaItem) activation;
+                if ( item.getRuleExecutor().isDirty() && isParallelEvaluable( item ) ) {
+                    candidates.add( item );
+                }
+            }
+        }
+
+        if ( candidates.size() < 2 ) {
+            return;
+        }
+
+        List<List<RuleAgendaItem>> partitions = partition( candidates );
+        if ( partitions.size() < 2 ) {
+            // a single partition would be evaluated serially anyway, leave it to the lazy evaluation
+            return;
+        }
+
+        if ( log.isTraceEnabled() ) {
+            log.trace( "Evaluating {} rules in {} partitions", candidates.size(), partitions.size() );
+        }
+
+        evaluating = true;
+        try {
+            evaluatePartitions( partitions, wm );
+        } finally {
+            evaluating = false;
+        }
+
+        // actions queued by the evaluation must be executed by the thread owning the agenda
+        wm.executeQueuedActions();
+    }
+
+    private void evaluatePartitions(List<List<RuleAgendaItem>> partitions, InternalWorkingMemory wm) {
+        ConcurrentLinkedQueue<List<RuleAgendaItem>> queue = new ConcurrentLinkedQueue<List<RuleAgendaItem>>( partitions );
+        int workers = Math.min( parallelism, partitions.size() ) - 1;
+
+        Executor executor = ExecutorProviderFactory.getExecutorProvider().getExecutor();
+        List<PartitionEvaluator> evaluators = new ArrayList<PartitionEvaluator>( workers );
+        List<FutureTask<Object>> futures = new ArrayList<FutureTask<Object>>( workers );
+        for ( int i = 0; i < workers; i++ ) {
+            PartitionEvaluator evaluator = new PartitionEvaluator( queue, wm );
+            FutureTask<Object> future = new FutureTask<Object>( evaluator, null );
+            evaluators.add( evaluator );
+            futures.add( future );
+            executor.execute( future );
+        }
+
+        RuntimeException error = null;
+        try {
+            // the calling thread takes part in the evaluation
+            new PartitionEvaluator( queue, wm ).run();
+        } catch (RuntimeException e) {
+            error = e;
+        }
+
+        for ( int i = 0; i < workers; i++ ) {
+            if ( evaluators.get( i ).claim() ) {
+                // not started yet, as the shared executor is busy: there is nothing left for it to evaluate
+                continue;
+            }
+            try {
+                futures.get( i ).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if ( error == null ) {
+                    error = new RuntimeException( e );
+                }
+            } catch (ExecutionException e) {
+                if ( error == null ) {
+                    error = e.getCause() instanceof RuntimeException ?
+                            (RuntimeException) e.getCause() :
+                            new RuntimeException( e.getCause() );
+                }
+            }
+        }
+
+        if ( error != null ) {
+            throw error;
+        }
+    }
+
+    public static boolean isParallelEvaluable(RuleAgendaItem item) {
+        RuleImpl rule = item.getRule();
+        if ( rule.isQuery() || rule.isEager() || rule.getAutoFocus() || rule.isLockOnActive() ||
+             rule.hasLogicalDependency() || rule.getSalience().isDynamic() ||
+             ( rule.getActivationGroup() != null && rule.getActivationGroup().length() > 0 ) ) {
+            return false;
+        }
+
+        RuleExecutor executor = item.getRuleExecutor();
+        if ( executor.isDeclarativeAgendaEnabled() ) {
+            return false;
+        }
+
+        PathMemory pmem = executor.getPathMemory();
+        if ( pmem.getStreamQueue() != null && !pmem.getStreamQueue().isEmpty() ) {
+            // queued stream entries must be flushed in order by the owning thread
+            return false;
+        }
+
+        SegmentMemory[] smems = pmem.getSegmentMemories();
+        if ( smems == null ) {
+            return false;
+        }
+        for ( SegmentMemory smem : smems ) {
+            if ( smem == null ) {
+                return false;
+            }
+        }
+
+        return isParallelEvaluable( ((TerminalNode) pmem.getNetworkNode()).getLeftTupleSource(), null );
+    }
+
+    private static boolean isParallelEvaluable(LeftTupleSource lts, LeftTupleSource stopAt) {
+        while ( lts != null && lts != stopAt ) {
+            switch ( lts.getType() ) {
+                case NodeTypeEnums.QueryElementNode:
+                case NodeTypeEnums.TimerConditionNode:
+                case NodeTypeEnums.ConditionalBranchNode:
+                    // these nodes interact with other networks, the scheduler or other terminal nodes
+                    return false;
+            }
+            if ( NodeTypeEnums.isBetaNode( lts ) && ((BetaNode) lts).isRightInputIsRiaNode() ) {
+                RightInputAdapterNode riaNode = (RightInputAdapterNode) ((BetaNode) lts).getRightInput();
+                if ( !isParallelEvaluable( riaNode.getLeftTupleSource(), riaNode.getStartTupleSource() ) ) {
+                    return false;
+                }
+            }
+            lts = lts.getLeftTupleSource();
+        }
+        return true;
+    }
+
+    static List<List<RuleAgendaItem>> partition(List<RuleAgendaItem> items) {
+        Map<SegmentMemory, Partition> owners = new IdentityHashMap<SegmentMemory, Partition>();
+        List<Partition> created = new ArrayList<Partition>( items.size() );
+        List<SegmentMemory> smems = new ArrayList<SegmentMemory>();
+
+        for ( RuleAgendaItem item : items ) {
+            Partition partition = new Partition();
+            partition.items.add( item );
+            created.add( partition );
+
+            smems.clear();
+            collectSegments( item.getRuleExecutor().getPathMemory(), smems );
+            for ( SegmentMemory smem : smems ) {
+                Partition owner = owners.get( smem );
+                if ( owner == null ) {
+                    owners.put( smem, partition );
+                } else {
+                    owner.find().union( partition.find() );
+                }
+            }
+        }
+
+        List<List<RuleAgendaItem>> partitions = new ArrayList<List<RuleAgendaItem>>();
+        for ( Partition partition : created ) {
+            if ( partition.parent == partition && !partition.items.isEmpty() ) {
+                partitions.add( partition.items );
+            }
+        }
+        return partitions;
+    }
+
+    private static void collectSegments(PathMemory pmem, List<SegmentMemory> smems) {
+        for ( SegmentMemory smem : pmem.getSegmentMemories() ) {
+            if ( smem == null ) {
+                continue;
+            }
+            smems.add( smem );
+            for ( Memory mem = smem.getNodeMemories().getFirst(); mem != null; mem = mem.getNext() ) {
+                RiaPathMemory riaPmem = null;
+                if ( mem instanceof BetaMemory ) {
+                    riaPmem = ((BetaMemory) mem).getRiaRuleMemory();
+                } else if ( mem instanceof AccumulateMemory ) {
+                    riaPmem = ((AccumulateMemory) mem).getBetaMemory().getRiaRuleMemory();
+                }
+                if ( riaPmem != null && riaPmem.getSegmentMemories() != null ) {
+                    collectSegments( riaPmem, smems );
+                }
+            }
+        }
+    }
+
+    private static class Partition {
+        private Partition                  parent = this;
+        private final List<RuleAgendaItem> items  = new ArrayList<RuleAgendaItem>();
+
+        private Partition find() {
+            Partition p = this;
+            while ( p.parent != p ) {
+                p.parent = p.parent.parent;
+                p = p.parent;
+            }
+            return p;
+        }
+
+        private void union(Partition other) {
+            if ( other == this ) {
+                return;
+            }
+            Partition larger = items.size() >= other.items.size() ? this : other;
+            Partition smaller = larger == this ? other : this;
+            smaller.parent = larger;
+            larger.items.addAll( smaller.items );
+            smaller.items.clear();
+        }
+    }
+
+    private static class PartitionEvaluator implements Runnable {
+        private final ConcurrentLinkedQueue<List<RuleAgendaItem>> queue;
+        private final InternalWorkingMemory                       wm;
+        private final AtomicBoolean                               claimed = new AtomicBoolean();
+
+        private PartitionEvaluator(ConcurrentLinkedQueue<List<RuleAgendaItem>> queue, InternalWorkingMemory wm) {
+            this.queue = queue;
+            this.wm = wm;
+        }
+
+        /**
+         * @return true if this evaluator had not been started yet, so that it won't evaluate anything anymore
+         */
+        private boolean claim() {
+            return claimed.compareAndSet( false, true );
+        }
+
+        public void run() {
+            if ( !claim() ) {
+                return;
+            }
+            for ( List<RuleAgendaItem> partition = queue.poll(); partition != null; partition = queue.poll() ) {
+                for ( RuleAgendaItem item : partition ) {
+                    item.getRuleExecutor().evaluateNetworkOnly( wm );
+                }
+            }
+        }
+    }
+}
@@ -193,7 +193,9 @@ public class PhreakJoinNode {
 
             // first check our index (for indexed nodes only) hasn't changed and we are returning the same bucket
             // if rightTuple is null, we assume there was a bucket change and that bucket is empty
-            if (childLeftTuple != null && rtm.isIndexed() && !it.isFullIterator() && (rightTuple == null || (rightTuple.getMemory() != childLeftTuple.getRightParent().getMemory()))) {
+            // comparison indexes spread the matches over many buckets, whose order isn't preserved by updates, so always start again
+            if (childLeftTuple != null && rtm.isIndexed() && !it.isFullIterator() &&
+                (rtm.getIndexType().isComparison() || rightTuple == null || (rightTuple.getMemory() != childLeftTuple.getRightParent().getMemory()))) {
                 // our index has changed, so delete all the previous propagations
                 while (childLeftTuple != null) {
                     childLeftTuple = RuleNetworkEvaluator.deleteLeftChild(childLeftTuple, trgLeftTuples, stagedLeftTuples);
@@ -293,7 +295,9 @@ public class PhreakJoinNode {
 
             // first check our index (for indexed nodes only) hasn't changed and we are returning the same bucket
             // We assume a bucket change if leftTuple == null
-            if (childLeftTuple != null && ltm.isIndexed() && !it.isFullIterator() && (leftTuple == null || (leftTuple.getMemory() != childLeftTuple.getLeftParent().getMemory()))) {
+            // comparison indexes spread the matches over many buckets, whose order isn't preserved by updates, so always start again
+            if (childLeftTuple != null && ltm.isIndexed() && !it.isFullIterator() &&
+                (ltm.getIndexType().isComparison() || leftTuple == null || (leftTuple.getMemory() != childLeftTuple.getLeftParent().getMemory()))) {
                 // our index has changed, so delete all the previous propagations
                 while (childLeftTuple != null) {
                     childLeftTuple.setPropagationContext(rightTuple.getPropagationContext());
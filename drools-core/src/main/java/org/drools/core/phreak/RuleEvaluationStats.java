@@ -0,0 +1,91 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.phreak;
+
+import org.drools.core.definitions.rule.impl.RuleImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The cost of the lazy evaluation of the network of a rule in a session, that is not included
+ * in the firing time of its matches. It is kept by the PathMemory of the rule only when the
+ * drools.nodeProfiling option of its kbase is enabled or a drools.ruleEvaluationThreshold is set.
+ * When a single evaluation takes longer than the threshold a warning is logged.
+ */
+public class RuleEvaluationStats {
+
+    protected static final transient Logger log = LoggerFactory.getLogger(RuleEvaluationStats.class);
+
+    private static final long NANO_TO_MILLISEC = 1000000;
+
+    private final long threshold;
+
+    // no need for synch, because the network of a rule is evaluated while holding its RuleExecutor
+    public long evaluations;
+    public long tuplesIn;
+    public long time;
+    public long maxTime;
+    public long slowEvaluations;
+
+    /**
+     * @param threshold the time in milliseconds above which an evaluation is logged, or 0 to never log it
+     */
+    public RuleEvaluationStats(long threshold) {
+        this.threshold = threshold * NANO_TO_MILLISEC;
+    }
+
+    /**
+     * Counts an evaluation of the network of the given rule, processing the given number of staged left tuples
+     */
+    public void evaluated(RuleImpl rule, int tuples, long elapsed) {
+        this.evaluations++;
+        this.tuplesIn += tuples;
+        this.time += elapsed;
+        if ( elapsed > this.maxTime ) {
+            this.maxTime = elapsed;
+        }
+        if ( this.threshold > 0 && elapsed > this.threshold ) {
+            this.slowEvaluations++;
+            log.warn( "Evaluation of rule {} took {}ms, more than the threshold of {}ms, processing {} staged tuples",
+                      rule.getName(), elapsed / NANO_TO_MILLISEC, this.threshold / NANO_TO_MILLISEC, tuples );
+        }
+    }
+
+    /**
+     * Adds the counters of another path of the same rule, like the branches of an or
+     */
+    public void add(RuleEvaluationStats other) {
+        this.evaluations += other.evaluations;
+        this.tuplesIn += other.tuplesIn;
+        this.time += other.time;
+        this.maxTime = Math.max( this.maxTime, other.maxTime );
+        this.slowEvaluations += other.slowEvaluations;
+    }
+
+    public void reset() {
+        this.evaluations = 0;
+        this.tuplesIn = 0;
+        this.time = 0;
+        this.maxTime = 0;
+        this.slowEvaluations = 0;
+    }
+
+    public String toString() {
+        return "evaluations=" + evaluations + " tuplesIn=" + tuplesIn + " evaluationTime=" + (time / NANO_TO_MILLISEC) +
+               "ms maxEvaluationTime=" + (maxTime / NANO_TO_MILLISEC) + "ms slowEvaluations=" + slowEvaluations;
+    }
+}
@@ -86,6 +86,15 @@ public class RuleExecutor {
         wm.executeQueuedActions();
     }
 
+    /**
+     * Evaluates the network without executing the working memory actions queued during
+     * the evaluation, as they must be executed by the thread owning the agenda.
+     */
+    public synchronized void evaluateNetworkOnly(InternalWorkingMemory wm) {
+        NETWORK_EVALUATOR.evaluateNetwork(pmem, null, this, wm);
+        setDirty(false);
+    }
+
     public synchronized int evaluateNetworkAndFire(InternalWorkingMemory wm,
             final AgendaFilter filter,
             int fireCount,
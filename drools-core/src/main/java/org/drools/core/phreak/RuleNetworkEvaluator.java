@@ -9,6 +9,7 @@ import org.drools.core.common.LeftTupleSetsImpl;
 import org.drools.core.common.Memory;
 import org.drools.core.common.NetworkNode;
 import org.drools.core.common.RightTupleSets;
+import org.drools.core.phreak.NodeProfiler.NodeStats;
 import org.drools.core.reteoo.AccumulateNode;
 import org.drools.core.reteoo.AccumulateNode.AccumulateMemory;
 import org.drools.core.reteoo.BetaMemory;
@@ -78,6 +79,29 @@ public class RuleNetworkEvaluator {
     }
 
     public void evaluateNetwork(PathMemory pmem, LinkedList<StackEntry> outerStack, RuleExecutor executor, InternalWorkingMemory wm) {
+        RuleEvaluationStats evaluationStats = pmem.getEvaluationStats();
+        if (evaluationStats == null) {
+            doEvaluateNetwork(pmem, outerStack, executor, wm);
+        } else {
+            int stagedTuples = countStagedLeftTuples(pmem.getSegmentMemories());
+            long start = System.nanoTime();
+            doEvaluateNetwork(pmem, outerStack, executor, wm);
+            evaluationStats.evaluated(pmem.getRule(), stagedTuples, System.nanoTime() - start);
+        }
+    }
+
+    private static int countStagedLeftTuples(SegmentMemory[] smems) {
+        int count = 0;
+        for (SegmentMemory smem : smems) {
+            if (smem != null) {
+                LeftTupleSets staged = smem.getStagedLeftTuples();
+                count += staged.insertSize() + staged.updateSize() + staged.deleteSize();
+            }
+        }
+        return count;
+    }
+
+    private void doEvaluateNetwork(PathMemory pmem, LinkedList<StackEntry> outerStack, RuleExecutor executor, InternalWorkingMemory wm) {
         SegmentMemory[] smems = pmem.getSegmentMemories();
 
         int smemIndex = 0;
@@ -241,6 +265,7 @@ public class RuleNetworkEvaluator {
         LeftTupleSets srcTuples;
         SegmentMemory smem = smems[smemIndex];
         LeftTupleSets stagedLeftTuples = null;
+        NodeProfiler profiler = wm.getNodeProfiler();
         while (true) {
             srcTuples = trgTuples; // previous target, is now the source
             if (log.isTraceEnabled()) {
@@ -305,6 +330,13 @@ public class RuleNetworkEvaluator {
                 }
             }
 
+            NodeStats nodeStats = null;
+            long start = 0;
+            if (profiler != null) {
+                nodeStats = profiler.beforeNode(node, srcTuples, nodeMem);
+                start = System.nanoTime();
+            }
+
             if (NodeTypeEnums.isTerminalNode(node)) {
                 TerminalNode rtn = ( TerminalNode ) node;
                 if (node.getType() == NodeTypeEnums.QueryTerminalNode) {
@@ -318,9 +350,15 @@ public class RuleNetworkEvaluator {
                                    srcTuples,
                                    executor);
                 }
+                if (nodeStats != null) {
+                    nodeStats.afterNode(null, System.nanoTime() - start);
+                }
                 break;
             } else if (NodeTypeEnums.RightInputAdaterNode == node.getType()) {
                 doRiaNode2(wm, srcTuples, (RightInputAdapterNode) node, stack);
+                if (nodeStats != null) {
+                    nodeStats.afterNode(null, System.nanoTime() - start);
+                }
                 break;
             }
 
@@ -332,6 +370,9 @@ public class RuleNetworkEvaluator {
 
             if (NodeTypeEnums.isBetaNode(node)) {
                 boolean exitInnerEval = evalBetaNode(liaNode, pmem, node, nodeMem, smems, smemIndex, trgTuples, wm, stack, outerStack, visitedRules, processRian, executor, srcTuples, stagedLeftTuples, sink);
+                if (nodeStats != null) {
+                    nodeStats.afterNode(trgTuples, System.nanoTime() - start);
+                }
                 if ( exitInnerEval ) {
                     break; // RiaNode exists and has placed StackEntry on the Stack
                 }
@@ -363,6 +404,9 @@ public class RuleNetworkEvaluator {
                         break;
                     }
                 }
+                if (nodeStats != null) {
+                    nodeStats.afterNode(trgTuples, System.nanoTime() - start);
+                }
                 if ( exitInnerEval && trgTuples.isEmpty() ) {
                     break; // Queries exists and has been placed StackEntry, and there are no current trgTuples to process
                 }
@@ -9,6 +9,7 @@ import org.drools.core.common.Memory;
 import org.drools.core.common.MemoryFactory;
 import org.drools.core.common.RuleBasePartitionId;
 import org.drools.core.definitions.rule.impl.RuleImpl;
+import org.drools.core.phreak.RuleEvaluationStats;
 import org.drools.core.phreak.SegmentUtilities;
 import org.drools.core.reteoo.RightInputAdapterNode.RiaNodeMemory;
 import org.drools.core.reteoo.builder.BuildContext;
@@ -114,6 +115,9 @@ public abstract class AbstractTerminalNode extends BaseNode implements TerminalN
 
     public Memory createMemory(RuleBaseConfiguration config, InternalWorkingMemory wm) {
         PathMemory pmem = new PathMemory(this);
+        if ( config.isRuleEvaluationProfiling() ) {
+            pmem.setEvaluationStats( new RuleEvaluationStats( config.getRuleEvaluationThreshold() ) );
+        }
         initPathMemory(pmem, getLeftTupleSource(), null, wm, null );
         return pmem;
     }
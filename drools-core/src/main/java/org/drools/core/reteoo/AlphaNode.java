@@ -22,6 +22,7 @@ import org.drools.core.common.InternalWorkingMemory;
 import org.drools.core.common.Memory;
 import org.drools.core.common.MemoryFactory;
 import org.drools.core.common.RuleBasePartitionId;
+import org.drools.core.phreak.NodeProfiler;
 import org.drools.core.reteoo.builder.BuildContext;
 import org.drools.core.rule.ContextEntry;
 import org.drools.core.rule.constraint.EvaluatorConstraint;
@@ -131,9 +132,14 @@ public class AlphaNode extends ObjectSource
                              final PropagationContext context,
                              final InternalWorkingMemory workingMemory) {
         final AlphaMemory memory = (AlphaMemory) workingMemory.getNodeMemory( this );
-        if ( this.constraint.isAllowed( factHandle,
-                                        workingMemory,
-                                        memory.context ) ) {
+        boolean allowed = this.constraint.isAllowed( factHandle,
+                                                     workingMemory,
+                                                     memory.context );
+        NodeProfiler profiler = workingMemory.getNodeProfiler();
+        if ( profiler != null ) {
+            profiler.getStats( this ).alphaEvaluated( allowed );
+        }
+        if ( allowed ) {
 
             this.sink.propagateAssertObject( factHandle,
                                              context,
@@ -148,9 +154,14 @@ public class AlphaNode extends ObjectSource
         if ( intersect(context.getModificationMask(), inferredMask ) ) {
 
             final AlphaMemory memory = (AlphaMemory) workingMemory.getNodeMemory( this );
-            if ( this.constraint.isAllowed( factHandle,
-                    workingMemory,
-                    memory.context ) ) {
+            boolean allowed = this.constraint.isAllowed( factHandle,
+                                                         workingMemory,
+                                                         memory.context );
+            NodeProfiler profiler = workingMemory.getNodeProfiler();
+            if ( profiler != null ) {
+                profiler.getStats( this ).alphaEvaluated( allowed );
+            }
+            if ( allowed ) {
                 this.sink.propagateModifyObject( factHandle,
                         modifyPreviousTuples,
                         context,
@@ -22,6 +22,7 @@ import org.drools.core.common.BaseNode;
 import org.drools.core.common.InternalFactHandle;
 import org.drools.core.common.InternalWorkingMemory;
 import org.drools.core.common.RuleBasePartitionId;
+import org.drools.core.util.AbstractHashTable;
 import org.drools.core.util.Iterator;
 import org.drools.core.util.LinkedList;
 import org.drools.core.util.LinkedListNode;
@@ -104,6 +105,14 @@ public class CompositeObjectSinkAdapter extends AbstractObjectSinkAdapter {
         return this.hashedSinkMap;
     }
 
+    public LinkedList<FieldIndex> getHashedFieldIndexes() {
+        return this.hashedFieldIndexes;
+    }
+
+    public FieldIndex getHashedFieldIndex(final int index) {
+        return this.hashedFieldIndexes != null ? findFieldIndex( index ) : null;
+    }
+
     public void addObjectSink(final ObjectSink sink) {
         this.sinks = null; // dirty it, so it'll rebuild on next get
         if ( sink.getType() ==  NodeTypeEnums.AlphaNode ) {
@@ -358,12 +367,8 @@ public class CompositeObjectSinkAdapter extends AbstractObjectSinkAdapter {
                 if ( !fieldIndex.isHashed() ) {
                     continue;
                 }
-                // this field is hashed so set the existing hashKey and see if there is a sink for it
-                final int index = fieldIndex.getIndex();
-                final HashKey hashKey = new HashKey( index,
-                                                     object,
-                                                     fieldIndex.getFieldExtractor() );
-                final AlphaNode sink = (AlphaNode) this.hashedSinkMap.get( hashKey );
+                // this field is hashed so see if there is a sink for the value of the current object
+                final AlphaNode sink = getHashedSink( fieldIndex, object );
                 if ( sink != null ) {
                     // go straight to the AlphaNode's propagator, as we know it's true and no need to retest
                     sink.getSinkPropagator().propagateAssertObject( factHandle, context, workingMemory );
@@ -407,12 +412,8 @@ public class CompositeObjectSinkAdapter extends AbstractObjectSinkAdapter {
                 if ( !fieldIndex.isHashed() ) {
                     continue;
                 }
-                // this field is hashed so set the existing hashKey and see if there is a sink for it
-                final int index = fieldIndex.getIndex();
-                final HashKey hashKey = new HashKey( index,
-                                                     object,
-                                                     fieldIndex.getFieldExtractor() );
-                final AlphaNode sink = (AlphaNode) this.hashedSinkMap.get( hashKey );
+                // this field is hashed so see if there is a sink for the value of the current object
+                final AlphaNode sink = getHashedSink( fieldIndex, object );
                 if ( sink != null ) {
                     // go straight to the AlphaNode's propagator, as we know it's true and no need to retest
                     sink.getSinkPropagator().propagateModifyObject( factHandle, modifyPreviousTuples, context, workingMemory );
@@ -452,16 +453,12 @@ public class CompositeObjectSinkAdapter extends AbstractObjectSinkAdapter {
         // We need to iterate in the same order as the assert
         if ( this.hashedFieldIndexes != null ) {
             // Iterate the FieldIndexes to see if any are hashed
-            for ( FieldIndex fieldIndex = (FieldIndex) this.hashedFieldIndexes.getFirst(); fieldIndex != null; fieldIndex = fieldIndex.getNext() ) {
+            for ( FieldIndex fieldIndex = this.hashedFieldIndexes.getFirst(); fieldIndex != null; fieldIndex = fieldIndex.getNext() ) {
                 if ( !fieldIndex.isHashed() ) {
                     continue;
                 }
-                // this field is hashed so set the existing hashKey and see if there is a sink for it
-                final int index = fieldIndex.getIndex();
-                final HashKey hashKey = new HashKey( index,
-                                                     object,
-                                                     fieldIndex.getFieldExtractor() );
-                final AlphaNode sink = (AlphaNode) this.hashedSinkMap.get( hashKey );
+                // this field is hashed so see if there is a sink for the value of the current object
+                final AlphaNode sink = getHashedSink( fieldIndex, object );
                 if ( sink != null ) {
                     // only alpha nodes are hashable
                     sink.getSinkPropagator().byPassModifyToBetaNode( factHandle, modifyPreviousTuples, context, workingMemory );
@@ -486,6 +483,72 @@ public class CompositeObjectSinkAdapter extends AbstractObjectSinkAdapter {
         }        
     }
 
+    /**
+     * Returns the sink hashed on the value of the given field of the object, if any. The value is read
+     * through the primitive getters of the extractor and compared with the keys of the hashed sinks
+     * in place, so that no HashKey is created and no primitive value is boxed on propagation.
+     */
+    public AlphaNode getHashedSink(final FieldIndex fieldIndex,
+                                   final Object object) {
+        final int index = fieldIndex.getIndex();
+        final InternalReadAccessor extractor = fieldIndex.getFieldExtractor();
+        final ValueType vtype = extractor.getValueType();
+
+        if ( extractor.isNullValue( null, object ) ) {
+            final int hashCode = HashKey.hashCodeOf( index, 0 );
+            for ( ObjectEntry entry = getHashedSinkBucket( hashCode ); entry != null; entry = (ObjectEntry) entry.getNext() ) {
+                final HashKey hashKey = (HashKey) entry.getKey();
+                if ( hashKey.hashCode() == hashCode && hashKey.isNull() && hashKey.getIndex() == index ) {
+                    return (AlphaNode) entry.getValue();
+                }
+            }
+        } else if ( vtype.isBoolean() ) {
+            final boolean value = extractor.getBooleanValue( null, object );
+            final int hashCode = HashKey.hashCodeOf( index, value ? 1231 : 1237 );
+            for ( ObjectEntry entry = getHashedSinkBucket( hashCode ); entry != null; entry = (ObjectEntry) entry.getNext() ) {
+                final HashKey hashKey = (HashKey) entry.getKey();
+                if ( hashKey.hashCode() == hashCode && hashKey.hasValue( index, value ) ) {
+                    return (AlphaNode) entry.getValue();
+                }
+            }
+        } else if ( vtype.isIntegerNumber() || vtype.isChar() ) {
+            final long value = extractor.getLongValue( null, object );
+            final int hashCode = HashKey.hashCodeOf( index, (int) (value ^ (value >>> 32)) );
+            for ( ObjectEntry entry = getHashedSinkBucket( hashCode ); entry != null; entry = (ObjectEntry) entry.getNext() ) {
+                final HashKey hashKey = (HashKey) entry.getKey();
+                if ( hashKey.hashCode() == hashCode && hashKey.hasValue( index, value ) ) {
+                    return (AlphaNode) entry.getValue();
+                }
+            }
+        } else if ( vtype.isFloatNumber() ) {
+            final double value = extractor.getDoubleValue( null, object );
+            final long temp = Double.doubleToLongBits( value );
+            final int hashCode = HashKey.hashCodeOf( index, (int) (temp ^ (temp >>> 32)) );
+            for ( ObjectEntry entry = getHashedSinkBucket( hashCode ); entry != null; entry = (ObjectEntry) entry.getNext() ) {
+                final HashKey hashKey = (HashKey) entry.getKey();
+                if ( hashKey.hashCode() == hashCode && hashKey.hasValue( index, value ) ) {
+                    return (AlphaNode) entry.getValue();
+                }
+            }
+        } else {
+            // Strings and enums are returned as they are, so no allocation happens here either
+            final Object value = extractor.getValue( null, object );
+            final int hashCode = HashKey.hashCodeOf( index, value != null ? value.hashCode() : 0 );
+            for ( ObjectEntry entry = getHashedSinkBucket( hashCode ); entry != null; entry = (ObjectEntry) entry.getNext() ) {
+                final HashKey hashKey = (HashKey) entry.getKey();
+                if ( hashKey.hashCode() == hashCode && hashKey.hasValue( index, value ) ) {
+                    return (AlphaNode) entry.getValue();
+                }
+            }
+        }
+        return null;
+    }
+
+    private ObjectEntry getHashedSinkBucket(final int hashCode) {
+        // the hashed sinks map uses the default comparator, that rehashes the hash code of the keys
+        return (ObjectEntry) this.hashedSinkMap.getBucketByHashCode( AbstractHashTable.rehash( hashCode ) );
+    }
+
     /**
      * This is a Hook method for subclasses to override. Please keep it protected unless you know
      * what you are doing.
@@ -768,11 +831,52 @@ public class CompositeObjectSinkAdapter extends AbstractObjectSinkAdapter {
         }
 
         private void setHashCode(final int hashSeed) {
+            this.hashCode = hashCodeOf( this.index, hashSeed );
+        }
+
+        /**
+         * Returns the hash code of a key for the given field index whose value hashes to the given seed.
+         */
+        public static int hashCodeOf(final int index,
+                                     final int hashSeed) {
             final int PRIME = 31;
             int result = 1;
             result = PRIME * result + hashSeed;
-            result = PRIME * result + this.index;
-            this.hashCode = result;
+            result = PRIME * result + index;
+            return result;
+        }
+
+        public boolean isNull() {
+            return this.isNull;
+        }
+
+        // the hasValue methods compare a non null value as equals() does for a key holding that value
+
+        public boolean hasValue(final int index,
+                                final boolean value) {
+            return !this.isNull && this.index == index && value == getBooleanValue();
+        }
+
+        public boolean hasValue(final int index,
+                                final long value) {
+            return !this.isNull && this.index == index && value == getLongValue();
+        }
+
+        public boolean hasValue(final int index,
+                                final double value) {
+            return !this.isNull && this.index == index && value == getDoubleValue();
+        }
+
+        public boolean hasValue(final int index,
+                                final Object value) {
+            if ( this.isNull || this.index != index ) {
+                return false;
+            }
+            final Object thisValue = getObjectValue();
+            if ( value instanceof Number && thisValue instanceof Number ) {
+                return ((Number) value).doubleValue() == ((Number) thisValue).doubleValue();
+            }
+            return value == null ? thisValue == null : value.equals( thisValue );
         }
 
         public boolean getBooleanValue() {
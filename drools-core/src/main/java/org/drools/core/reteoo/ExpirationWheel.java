@@ -0,0 +1,248 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.reteoo;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.Arrays;
+
+import org.drools.core.common.InternalFactHandle;
+import org.drools.core.common.InternalKnowledgeRuntime;
+import org.drools.core.common.InternalWorkingMemory;
+import org.drools.core.common.WorkingMemoryAction;
+import org.drools.core.impl.StatefulKnowledgeSessionImpl;
+import org.drools.core.impl.StatefulKnowledgeSessionImpl.WorkingMemoryReteExpireAction;
+import org.drools.core.marshalling.impl.MarshallerWriteContext;
+import org.drools.core.marshalling.impl.ProtobufMessages;
+import org.drools.core.time.Job;
+import org.drools.core.time.JobContext;
+import org.drools.core.time.JobHandle;
+import org.drools.core.time.TimerService;
+import org.drools.core.time.impl.PointInTimeTrigger;
+
+/**
+ * A hashed timing wheel collecting the events of an ObjectTypeNode by expiration tick.
+ * All the events expiring in the same tick share a single bucket, which is expired by a single timer job
+ * and retracted by a single action, instead of scheduling a job for each event.
+ * A slot of the wheel chains the buckets of all the ticks mapped to it, the following rounds included,
+ * so that adding an event is constant time however far its expiration is.
+ */
+public class ExpirationWheel {
+
+    private static final int  SLOTS = 256;
+    private static final int  MASK  = SLOTS - 1;
+
+    public static final transient ExpireBucketJob job = new ExpireBucketJob();
+
+    private final ObjectTypeNode otn;
+    private final long           tick;
+    private final Bucket[]       slots = new Bucket[SLOTS];
+
+    public ExpirationWheel(ObjectTypeNode otn,
+                           long tick) {
+        this.otn = otn;
+        this.tick = tick;
+    }
+
+    public ObjectTypeNode getObjectTypeNode() {
+        return otn;
+    }
+
+    /**
+     * Adds the event to the bucket of the tick of its expiration time, scheduling the expiration
+     * of the bucket when it's the first event expiring in that tick.
+     */
+    public void add(InternalFactHandle factHandle,
+                    long expirationTime,
+                    InternalWorkingMemory workingMemory) {
+        long tickIndex = expirationTime / tick;
+        if ( expirationTime % tick != 0 && tickIndex < Long.MAX_VALUE / tick ) {
+            tickIndex++;
+        }
+
+        Bucket created = null;
+        synchronized ( this ) {
+            int slot = (int) ( tickIndex & MASK );
+            Bucket bucket = slots[slot];
+            while ( bucket != null && bucket.tickIndex != tickIndex ) {
+                bucket = bucket.next;
+            }
+            if ( bucket == null ) {
+                long time = tickIndex * tick;
+                bucket = new Bucket( this, tickIndex, time >= expirationTime ? time : expirationTime, workingMemory );
+                bucket.next = slots[slot];
+                slots[slot] = bucket;
+                created = bucket;
+            }
+            bucket.add( factHandle );
+        }
+
+        if ( created != null ) {
+            TimerService clock = workingMemory.getTimerService();
+            JobHandle handle = clock.scheduleJob( job,
+                                                  created,
+                                                  new PointInTimeTrigger( created.time,
+                                                                          null,
+                                                                          null ) );
+            created.setJobHandle( handle );
+        }
+    }
+
+    /**
+     * Removes the bucket from the wheel, so that no more events are added to it,
+     * and returns its events.
+     */
+    synchronized InternalFactHandle[] remove(Bucket bucket) {
+        int slot = (int) ( bucket.tickIndex & MASK );
+        Bucket previous = null;
+        for ( Bucket current = slots[slot]; current != null; previous = current, current = current.next ) {
+            if ( current == bucket ) {
+                if ( previous == null ) {
+                    slots[slot] = current.next;
+                } else {
+                    previous.next = current.next;
+                }
+                current.next = null;
+                break;
+            }
+        }
+        return bucket.getFactHandles();
+    }
+
+    public static class Bucket
+            implements
+            JobContext {
+
+        private final ExpirationWheel       wheel;
+        private final long                  tickIndex;
+        private final long                  time;
+        private final InternalWorkingMemory workingMemory;
+        private InternalFactHandle[]        factHandles = new InternalFactHandle[4];
+        private int                         size;
+        private Bucket                      next;
+        private JobHandle                   jobHandle;
+
+        Bucket(ExpirationWheel wheel,
+               long tickIndex,
+               long time,
+               InternalWorkingMemory workingMemory) {
+            this.wheel = wheel;
+            this.tickIndex = tickIndex;
+            this.time = time;
+            this.workingMemory = workingMemory;
+        }
+
+        private void add(InternalFactHandle factHandle) {
+            if ( size == factHandles.length ) {
+                factHandles = Arrays.copyOf( factHandles, size << 1 );
+            }
+            factHandles[size++] = factHandle;
+        }
+
+        public ExpirationWheel getWheel() {
+            return wheel;
+        }
+
+        /**
+         * The time when the events of this bucket expire.
+         */
+        public long getTime() {
+            return time;
+        }
+
+        public InternalFactHandle[] getFactHandles() {
+            synchronized ( wheel ) {
+                return Arrays.copyOf( factHandles, size );
+            }
+        }
+
+        public InternalWorkingMemory getWorkingMemory() {
+            return workingMemory;
+        }
+
+        public JobHandle getJobHandle() {
+            return this.jobHandle;
+        }
+
+        public void setJobHandle(JobHandle jobHandle) {
+            this.jobHandle = jobHandle;
+        }
+    }
+
+    public static class ExpireBucketJob
+            implements
+            Job {
+
+        public void execute(JobContext ctx) {
+            Bucket bucket = (Bucket) ctx;
+            bucket.workingMemory.queueWorkingMemoryAction( new ExpireBucketAction( bucket ) );
+        }
+    }
+
+    /**
+     * Retracts all the events of a bucket in a single action.
+     */
+    public static class ExpireBucketAction
+            implements
+            WorkingMemoryAction {
+
+        private Bucket bucket;
+
+        public ExpireBucketAction() {
+        }
+
+        public ExpireBucketAction(Bucket bucket) {
+            this.bucket = bucket;
+        }
+
+        public Bucket getBucket() {
+            return bucket;
+        }
+
+        public void execute(InternalWorkingMemory workingMemory) {
+            ObjectTypeNode node = bucket.wheel.getObjectTypeNode();
+            for ( InternalFactHandle factHandle : bucket.wheel.remove( bucket ) ) {
+                WorkingMemoryReteExpireAction.expire( factHandle,
+                                                      node,
+                                                      workingMemory );
+            }
+        }
+
+        public void execute(InternalKnowledgeRuntime kruntime) {
+            execute( ((StatefulKnowledgeSessionImpl) kruntime).getInternalWorkingMemory() );
+        }
+
+        public void write(MarshallerWriteContext context) throws IOException {
+            throw new UnsupportedOperationException( "Written as the expiration of each event of the bucket" );
+        }
+
+        /**
+         * The bucket is serialized as one expire action for each of its events, see ProtobufOutputMarshaller.writeActionQueue.
+         */
+        public ProtobufMessages.ActionQueue.Action serialize(MarshallerWriteContext context) throws IOException {
+            throw new UnsupportedOperationException( "Serialized as the expiration of each event of the bucket" );
+        }
+
+        public void writeExternal(ObjectOutput out) throws IOException {
+        }
+
+        public void readExternal(ObjectInput in) throws IOException,
+                                                ClassNotFoundException {
+        }
+    }
+}
@@ -35,6 +35,8 @@ public interface LeftTupleMemory {
 
     boolean isIndexed();
 
+    RightTupleMemory.IndexType getIndexType();
+
     int size();
 
     Entry[] toArray();
@@ -100,7 +100,8 @@ public class ObjectTypeNode extends ObjectSource
 
     private boolean                         queryNode;
 
-    protected CompiledNetwork               compiledNetwork;
+    /* generated by the kbase, it is compiled again after serialisation */
+    protected transient CompiledNetwork     compiledNetwork;
 
     /* always dirty after serialisation */
     protected transient boolean             dirty;
@@ -249,10 +250,20 @@ public class ObjectTypeNode extends ObjectSource
         return this.objectType.isAssignableFrom( objectType );
     }
 
+    public CompiledNetwork getCompiledNetwork() {
+        return this.compiledNetwork;
+    }
+
+    /**
+     * Sets the network compiled from the alpha nodes of this node, a null network restores
+     * the node by node propagation.
+     */
     public void setCompiledNetwork(CompiledNetwork compiledNetwork) {
         this.compiledNetwork = compiledNetwork;
 
-        this.compiledNetwork.setObjectTypeNode( this );
+        if ( compiledNetwork != null ) {
+            this.compiledNetwork.setObjectTypeNode( this );
+        }
     }
 
     /**
@@ -292,26 +303,32 @@ public class ObjectTypeNode extends ObjectSource
 
         if ( context.getReaderContext() == null && this.objectType.isEvent() && this.expirationOffset >= 0 && this.expirationOffset != Long.MAX_VALUE ) {
             // schedule expiration
-            WorkingMemoryReteExpireAction expire = new WorkingMemoryReteExpireAction( factHandle,
-                                                                                      this );
             TimerService clock = workingMemory.getTimerService();
 
             // DROOLS-455 the calculation of the effectiveEnd may overflow and become negative
             long effectiveEnd = ((EventFactHandle) factHandle).getEndTimestamp() + this.expirationOffset;
             long nextTimestamp = Math.max( clock.getCurrentTime(),
                                            effectiveEnd >= 0 ? effectiveEnd : Long.MAX_VALUE );
-            JobContext jobctx = new ExpireJobContext( expire,
-                                                      workingMemory );
-            JobHandle handle = clock.scheduleJob( job,
-                                                  jobctx,
-                                                  new PointInTimeTrigger( nextTimestamp,
-                                                                          null,
-                                                                          null ) );
-            jobctx.setJobHandle( handle );
+            scheduleExpiration( factHandle,
+                                nextTimestamp,
+                                workingMemory );
         }
 
     }
 
+    /**
+     * Schedules the expiration of the event, adding it to the bucket of the expiration wheel
+     * holding all the events of this type expiring in the same tick.
+     */
+    public void scheduleExpiration(final InternalFactHandle factHandle,
+                                   final long expirationTime,
+                                   final InternalWorkingMemory workingMemory) {
+        final ObjectTypeNodeMemory memory = (ObjectTypeNodeMemory) workingMemory.getNodeMemory( this );
+        memory.getExpirationWheel().add( factHandle,
+                                         expirationTime,
+                                         workingMemory );
+    }
+
     /**
      * Retract the <code>FactHandleimpl</code> from the <code>Rete</code> network. Also remove the
      * <code>FactHandleImpl</code> from the node memory.
@@ -482,7 +499,7 @@ public class ObjectTypeNode extends ObjectSource
      * to switch back to a standard HashMap.
      */
     public Memory createMemory(final RuleBaseConfiguration config, InternalWorkingMemory wm) {
-        return new ObjectTypeNodeMemory(this);
+        return new ObjectTypeNodeMemory(this, config.getEventExpirationTick());
     }
 
     public boolean isObjectMemoryEnabled() {
@@ -666,13 +683,21 @@ public class ObjectTypeNode extends ObjectSource
             DefaultJobHandle jobHandle = ( DefaultJobHandle ) ejobCtx.getJobHandle();
             PointInTimeTrigger trigger = ( PointInTimeTrigger ) jobHandle.getTimerJobInstance().getTrigger();
             
+            return serializeExpireTimer( expireAction.getFactHandle(),
+                                         expireAction.getNode(),
+                                         trigger.hasNextFireTime().getTime() );
+        }
+
+        public static ProtobufMessages.Timers.Timer serializeExpireTimer(InternalFactHandle factHandle,
+                                                                        ObjectTypeNode otn,
+                                                                        long nextFireTimestamp) {
             return ProtobufMessages.Timers.Timer.newBuilder()
                     .setType( ProtobufMessages.Timers.TimerType.EXPIRE )
                     .setExpire( ProtobufMessages.Timers.ExpireTimer.newBuilder()
-                                .setHandleId( expireAction.getFactHandle().getId() )
-                                .setEntryPointId( expireAction.getNode().getEntryPoint().getEntryPointId() )
-                                .setClassName( ((ClassObjectType)expireAction.getNode().getObjectType()).getClassType().getName() )
-                                .setNextFireTimestamp( trigger.hasNextFireTime().getTime() )
+                                .setHandleId( factHandle.getId() )
+                                .setEntryPointId( otn.getEntryPoint().getEntryPointId() )
+                                .setClassName( ((ClassObjectType)otn.getObjectType()).getClassType().getName() )
+                                .setNextFireTimestamp( nextFireTimestamp )
                                 .build() )
                     .build();
         }
@@ -695,17 +720,9 @@ public class ObjectTypeNode extends ObjectSource
 
             long nextTimeStamp = inCtx.readLong();
 
-            TimerService clock = inCtx.wm.getTimerService();
-
-            JobContext jobctx = new ExpireJobContext( new WorkingMemoryReteExpireAction( factHandle, otn ),
-                                                      inCtx.wm );
-            JobHandle handle = clock.scheduleJob( job,
-                                                  jobctx,
-                                                  new PointInTimeTrigger( nextTimeStamp,
-                                                                          null,
-                                                                          null ) );
-            jobctx.setJobHandle( handle );
-
+            otn.scheduleExpiration( factHandle,
+                                    nextTimeStamp,
+                                    inCtx.wm );
         }
         
         public void deserialize(MarshallerReaderContext inCtx,
@@ -715,17 +732,10 @@ public class ObjectTypeNode extends ObjectSource
             EntryPointNode epn = inCtx.wm.getKnowledgeBase().getRete().getEntryPointNode( new EntryPointId( _expire.getEntryPointId() ) );
             Class<?> cls = inCtx.wm.getKnowledgeBase().getRootClassLoader().loadClass( _expire.getClassName() );
             ObjectTypeNode otn = epn.getObjectTypeNodes().get( new ClassObjectType( cls ) );
-            
-            TimerService clock = inCtx.wm.getTimerService();
-            
-            JobContext jobctx = new ExpireJobContext( new WorkingMemoryReteExpireAction(factHandle, otn),
-                                                      inCtx.wm );
-            JobHandle handle = clock.scheduleJob( job,
-                                                  jobctx,
-                                                  new PointInTimeTrigger( _expire.getNextFireTimestamp(),
-                                                                          null,
-                                                                          null ) );
-            jobctx.setJobHandle( handle );
+
+            otn.scheduleExpiration( factHandle,
+                                    _expire.getNextFireTimestamp(),
+                                    inCtx.wm );
         }
     }
 
@@ -740,9 +750,12 @@ public class ObjectTypeNode extends ObjectSource
     public static class ObjectTypeNodeMemory implements Memory {
         public ObjectHashSet memory = new ObjectHashSet();
         private ObjectTypeNode otn;
+        private long expirationTick;
+        private ExpirationWheel expirationWheel;
 
-        ObjectTypeNodeMemory(ObjectTypeNode otn) {
+        ObjectTypeNodeMemory(ObjectTypeNode otn, long expirationTick) {
             this.otn = otn;
+            this.expirationTick = expirationTick;
         }
 
         public short getNodeType() {
@@ -753,6 +766,13 @@ public class ObjectTypeNode extends ObjectSource
             return memory;
         }
 
+        public ExpirationWheel getExpirationWheel() {
+            if ( expirationWheel == null ) {
+                expirationWheel = new ExpirationWheel( otn, expirationTick );
+            }
+            return expirationWheel;
+        }
+
         public SegmentMemory getSegmentMemory() {
             return null;
         }
@@ -783,6 +803,7 @@ public class ObjectTypeNode extends ObjectSource
 
         public void reset() {
             memory.clear();
+            expirationWheel = null;
         }
 
         public String toString() {
@@ -10,6 +10,7 @@ import org.drools.core.common.NetworkNode;
 import org.drools.core.common.StreamTupleEntryQueue;
 import org.drools.core.definitions.rule.impl.RuleImpl;
 import org.drools.core.phreak.RuleAgendaItem;
+import org.drools.core.phreak.RuleEvaluationStats;
 import org.drools.core.util.AbstractBaseLinkedListNode;
 import org.drools.core.util.AtomicBitwiseLong;
 import org.slf4j.Logger;
@@ -29,6 +30,7 @@ public class PathMemory extends AbstractBaseLinkedListNode<Memory>
     private          SegmentMemory[]   segmentMemories;
     private          SegmentMemory     segmentMemory;
     protected StreamTupleEntryQueue queue;
+    private          RuleEvaluationStats evaluationStats;
 
     public PathMemory(NetworkNode networkNode) {
         this.networkNode = networkNode;
@@ -43,6 +45,17 @@ public class PathMemory extends AbstractBaseLinkedListNode<Memory>
         return queue;
     }
 
+    /**
+     * Returns the cost of the evaluations of this path, or null when the kbase doesn't profile the rules
+     */
+    public RuleEvaluationStats getEvaluationStats() {
+        return evaluationStats;
+    }
+
+    public void setEvaluationStats(RuleEvaluationStats evaluationStats) {
+        this.evaluationStats = evaluationStats;
+    }
+
     public NetworkNode getNetworkNode() {
         return networkNode;
     }
@@ -145,7 +158,10 @@ public class PathMemory extends AbstractBaseLinkedListNode<Memory>
                     log.trace("Queue RuleAgendaItem {}", agendaItem);
                 }
                 InternalAgendaGroup ag = agendaItem.getAgendaGroup();
-                ag.add( agendaItem );
+                synchronized ( ag ) {
+                    // rules sharing no segment may be linked concurrently during multithread evaluation
+                    ag.add( agendaItem );
+                }
             }
         }
 
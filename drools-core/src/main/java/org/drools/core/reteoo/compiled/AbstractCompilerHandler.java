@@ -18,23 +18,29 @@ package org.drools.core.reteoo.compiled;
 
 import org.drools.core.base.ClassFieldReader;
 import org.drools.core.reteoo.AlphaNode;
+import org.drools.core.reteoo.ObjectSource;
 import org.drools.core.reteoo.Sink;
 import org.drools.core.rule.ContextEntry;
+import org.drools.core.spi.AlphaNodeFieldConstraint;
+
+import java.lang.reflect.Modifier;
 
 /**
  * This handler is used as a base class for all {@link org.kie.reteoo.compiled.NetworkHandler}s used for
  * generating a compiled network. It provides methods to return the variable type and names used for storing
- * refernces to different {@link org.kie.common.NetworkNode}s and variable names for {@link ClassFieldReader}s.
+ * refernces to different {@link org.kie.common.NetworkNode}s and to the hashed alphas of a {@link ClassFieldReader}.
  */
 abstract class AbstractCompilerHandler extends NetworkHandlerAdaptor {
     protected static final String NEWLINE = "\n";
 
-    private static final String MAP_VARIABLE_NAME_SUFFIX = "ToNodeId";
+    protected static final String FACT_HANDLE_PARAM_NAME = "handle";
+    protected static final String PROP_CONTEXT_PARAM_NAME = "context";
+    protected static final String WORKING_MEMORY_PARAM_NAME = "wm";
 
     protected Class<?> getVariableType(AlphaNode alphaNode) {
-
-        // for alphas, we use the constraint of the alpha for the declaration
-        return alphaNode.getConstraint().getClass();
+        // for alphas, we use the constraint of the alpha for the declaration, unless the generated class can't see it
+        Class<?> constraintClass = alphaNode.getConstraint().getClass();
+        return isAccessible(constraintClass) ? constraintClass : AlphaNodeFieldConstraint.class;
     }
 
     protected Class<?> getVariableType(Sink sink) {
@@ -54,14 +60,46 @@ abstract class AbstractCompilerHandler extends NetworkHandlerAdaptor {
         return getVariableName(variableType, alphaNode.getId());
     }
 
+    /**
+     * Returns the name of the variable holding the node itself, rather than its constraint, for
+     * non-hashed {@link AlphaNode}s.
+     */
+    protected String getNodeVariableName(AlphaNode alphaNode) {
+        return getVariableName(AlphaNode.class, alphaNode.getId());
+    }
+
     protected String getVariableName(Sink sink) {
         Class<?> variableType = getVariableType(sink);
 
         return getVariableName(variableType, sink.getId());
     }
 
-    protected String getVariableName(ClassFieldReader fieldReader) {
-        return fieldReader.getFieldName() + MAP_VARIABLE_NAME_SUFFIX;
+    /**
+     * Returns the name of the variable holding the CompositeObjectSinkAdapter of the given source, whose
+     * alphas are hashed on the given field.
+     */
+    protected String getHashedSinksVariableName(ObjectSource source, ClassFieldReader fieldReader) {
+        return "hashedSinks" + source.getId() + "_" + fieldReader.getIndex();
+    }
+
+    protected String getHashedFieldIndexVariableName(ObjectSource source, ClassFieldReader fieldReader) {
+        return "hashedFieldIndex" + source.getId() + "_" + fieldReader.getIndex();
+    }
+
+    protected String getHashedSinkVariableName(ObjectSource source, ClassFieldReader fieldReader) {
+        return "hashedSink" + source.getId() + "_" + fieldReader.getIndex();
+    }
+
+    /**
+     * Returns the name of the specified class as it has to be written in the generated source
+     */
+    protected String getTypeName(Class<?> clazz) {
+        return clazz.getCanonicalName();
+    }
+
+    private boolean isAccessible(Class<?> clazz) {
+        return clazz.getCanonicalName() != null && Modifier.isPublic(clazz.getModifiers()) &&
+               (clazz.getEnclosingClass() == null || isAccessible(clazz.getEnclosingClass()));
     }
 
     /**
@@ -77,4 +115,30 @@ abstract class AbstractCompilerHandler extends NetworkHandlerAdaptor {
         String type = clazz.getSimpleName();
         return Character.toLowerCase(type.charAt(0)) + type.substring(1) + nodeId;
     }
+
+    /**
+     * Appends the lookup of the alpha hashed on the value of the fact for the given field, followed by
+     * the opening of the switch statement on its node id.
+     */
+    protected void appendHashedAlphaNodesSwitch(StringBuilder builder, ObjectSource source, ClassFieldReader hashedFieldReader) {
+        String hashedSinkVariableName = getHashedSinkVariableName(source, hashedFieldReader);
+
+        // example of what this will look like
+        // AlphaNode hashedSink5_2 = hashedSinks5_2.getHashedSink(hashedFieldIndex5_2, handle.getObject());
+        builder.append(AlphaNode.class.getName()).append(" ").append(hashedSinkVariableName).
+                append(" = ").append(getHashedSinksVariableName(source, hashedFieldReader)).
+                append(".getHashedSink(").append(getHashedFieldIndexVariableName(source, hashedFieldReader)).
+                append(", ").append(FACT_HANDLE_PARAM_NAME).append(".getObject());").append(NEWLINE);
+
+        // ensure that there is an alpha for the value
+        builder.append("if(").append(hashedSinkVariableName).append(" != null) {").append(NEWLINE);
+        builder.append("switch(").append(hashedSinkVariableName).append(".getId()) {").append(NEWLINE);
+    }
+
+    protected void appendHashedAlphaNodesSwitchEnd(StringBuilder builder) {
+        // close switch statement
+        builder.append("}").append(NEWLINE);
+        // and if statement for ensuring non-null
+        builder.append("}").append(NEWLINE);
+    }
 }
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.reteoo.compiled;
+
+import java.util.Map;
+
+import org.drools.core.impl.InternalKnowledgeBase;
+import org.drools.core.reteoo.ObjectTypeNode;
+import org.kie.api.Service;
+
+/**
+ * Compiles the alpha network of the ObjectTypeNodes of a kbase into {@link CompiledNetwork}s.
+ * The implementation generates java source, so it is provided by drools-compiler and looked up
+ * through the ServiceRegistry when a kbase with the drools.compiledAlphaNetwork option enabled is built or read.
+ */
+public interface AlphaNetworkCompiler extends Service {
+
+    String IMPLEMENTATION_CLASS = "org.drools.compiler.reteoo.compiled.AlphaNetworkCompilerImpl";
+
+    /**
+     * Compiles a {@link CompiledNetwork} for each ObjectTypeNode of the given kbase whose alpha network can be
+     * compiled, without setting it on its node. Returns an empty map when nothing can be compiled
+     */
+    Map<ObjectTypeNode, CompiledNetwork> compile(InternalKnowledgeBase kBase);
+}
@@ -22,63 +22,34 @@ import org.drools.core.common.InternalWorkingMemory;
 import org.drools.core.reteoo.AlphaNode;
 import org.drools.core.reteoo.BetaNode;
 import org.drools.core.reteoo.LeftInputAdapterNode;
+import org.drools.core.reteoo.ObjectSource;
 import org.drools.core.reteoo.ObjectTypeNode;
 import org.drools.core.spi.PropagationContext;
 
 /**
- * todo: document
+ * This handler is used to create the {@link CompiledNetwork#assertObject} method of a generated subclass of a
+ * {@link CompiledNetwork}. Non-hashed alphas become if statements evaluating their constraint, hashed alphas
+ * a switch on the id of the alpha matching the value of the fact, while betas and lias are asserted directly.
  */
 public class AssertHandler extends AbstractCompilerHandler {
-    private static final String LOCAL_FACT_VAR_NAME = "fact";
-
     private static final String FACT_HANDLE_PARAM_TYPE = InternalFactHandle.class.getName();
     private static final String PROP_CONTEXT_PARAM_TYPE = PropagationContext.class.getName();
     private static final String WORKING_MEMORY_PARAM_TYPE = InternalWorkingMemory.class.getName();
 
-    private static final String FACT_HANDLE_PARAM_NAME = "handle";
-    private static final String PROP_CONTEXT_PARAM_NAME = "context";
-    private static final String WORKING_MEMORY_PARAM_NAME = "wm";
-
     private static final String ASSERT_METHOD_SIGNATURE = "public final void assertObject("
             + FACT_HANDLE_PARAM_TYPE + " " + FACT_HANDLE_PARAM_NAME + ","
             + PROP_CONTEXT_PARAM_TYPE + " " + PROP_CONTEXT_PARAM_NAME + ","
             + WORKING_MEMORY_PARAM_TYPE + " " + WORKING_MEMORY_PARAM_NAME + "){";
 
-    /**
-     * This flag is used to instruct the AssertHandler to tell it to generate a local varible
-     * in the {@link org.kie.reteoo.compiled.CompiledNetwork#assertObject} for holding the value returned
-     * from the {@link org.kie.common.InternalFactHandle#getFactHandle()}.
-     *
-     * This is only needed if there is at least 1 set of hashed alpha nodes in the network
-     */
-    private final boolean alphaNetContainsHashedField;
-
     private final StringBuilder builder;
-    private final String factClassName;
-
-    AssertHandler(StringBuilder builder, String factClassName) {
-        this(builder, factClassName, false);
-    }
 
-    public AssertHandler(StringBuilder builder, String factClassName, boolean alphaNetContainsHashedField) {
+    public AssertHandler(StringBuilder builder) {
         this.builder = builder;
-        this.factClassName = factClassName;
-        this.alphaNetContainsHashedField = alphaNetContainsHashedField;
     }
 
     @Override
     public void startObjectTypeNode(ObjectTypeNode objectTypeNode) {
         builder.append(ASSERT_METHOD_SIGNATURE).append(NEWLINE);
-
-        // we only need to create a reference to the object, not handle, if there is a hashed alpha in the network
-        if (alphaNetContainsHashedField) {
-            // example of what this will look like
-            // ExampleFact fact = (ExampleFact) handle.getObject();
-            builder.append(factClassName).append(" ").append(LOCAL_FACT_VAR_NAME).
-                    append(" = (").append(factClassName).append(")").
-                    append(FACT_HANDLE_PARAM_NAME).append(".getObject();").
-                    append(NEWLINE);
-        }
     }
 
     @Override
@@ -113,24 +84,8 @@ public class AssertHandler extends AbstractCompilerHandler {
     }
 
     @Override
-    public void startHashedAlphaNodes(ClassFieldReader hashedFieldReader) {
-        String attributeName = hashedFieldReader.getFieldName();
-        String localVariableName = attributeName + "NodeId";
-
-        // todo get accessor smarter because of booleans. Note that right now booleans wouldn't be hashed
-        String attributeGetterName = "get" + Character.toTitleCase(attributeName.charAt(0)) + attributeName.substring(1);
-
-        // get the attribute from the fact that we are switching over
-        builder.append("Integer ").append(localVariableName);
-        // todo we are casting to Integer because generics aren't supported
-        builder.append(" = (Integer)").append(getVariableName(hashedFieldReader)).append(".get(").
-                append(LOCAL_FACT_VAR_NAME).append(".").append(attributeGetterName)
-                .append("());").append(NEWLINE);
-
-        // ensure that the value is present in the node map
-        builder.append("if(").append(localVariableName).append(" != null) {").append(NEWLINE);
-        // todo we had the .intValue() because JANINO has a problem with it
-        builder.append("switch(").append(localVariableName).append(".intValue()) {").append(NEWLINE);
+    public void startHashedAlphaNodes(ObjectSource source, ClassFieldReader hashedFieldReader) {
+        appendHashedAlphaNodesSwitch(builder, source, hashedFieldReader);
     }
 
     @Override
@@ -144,11 +99,8 @@ public class AssertHandler extends AbstractCompilerHandler {
     }
 
     @Override
-    public void endHashedAlphaNodes(ClassFieldReader hashedFieldReader) {
-        // close switch statement
-        builder.append("}").append(NEWLINE);
-        // and if statement for ensuring non-null
-        builder.append("}").append(NEWLINE);
+    public void endHashedAlphaNodes(ObjectSource source, ClassFieldReader hashedFieldReader) {
+        appendHashedAlphaNodesSwitchEnd(builder);
     }
 
     @Override
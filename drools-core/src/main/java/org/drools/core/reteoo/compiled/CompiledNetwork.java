@@ -16,17 +16,25 @@
 
 package org.drools.core.reteoo.compiled;
 
+import org.drools.core.common.InternalFactHandle;
+import org.drools.core.common.InternalWorkingMemory;
 import org.drools.core.common.NetworkNode;
 import org.drools.core.common.RuleBasePartitionId;
 import org.drools.core.reteoo.*;
+import org.drools.core.spi.PropagationContext;
+import org.drools.core.spi.RuleComponent;
+import org.kie.api.definition.rule.Rule;
 
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.util.Map;
 
 /**
  * This is the base type for all generated classes that that represent a "compiled" portion of the RETE network.
  * By compiled we mean IF statements, switch statements, etc. as opposed to nodes, propagators, etc.
+ * Generated subclasses implement {@link #assertObject} and {@link #modifyObject}, the ObjectTypeNode
+ * propagating through them in place of its sink propagator.
  */
 public abstract class CompiledNetwork implements ObjectSink {
 
@@ -50,6 +58,25 @@ public abstract class CompiledNetwork implements ObjectSink {
         return objectTypeNode.getPartitionId();
     }
 
+    public short getType() {
+        return objectTypeNode.getType();
+    }
+
+    public Map<Rule, RuleComponent> getAssociations() {
+        return objectTypeNode.getAssociations();
+    }
+
+    public ObjectTypeNode getObjectTypeNode() {
+        return objectTypeNode;
+    }
+
+    public void byPassModifyToBetaNode(final InternalFactHandle factHandle,
+                                       final ModifyPreviousTuples modifyPreviousTuples,
+                                       final PropagationContext context,
+                                       final InternalWorkingMemory workingMemory) {
+        objectTypeNode.getSinkPropagator().byPassModifyToBetaNode( factHandle, modifyPreviousTuples, context, workingMemory );
+    }
+
     /**
      * The object implements the writeExternal method to save its contents
      * by calling the methods of DataOutput for its primitive values or
@@ -19,44 +19,29 @@ package org.drools.core.reteoo.compiled;
 import org.drools.core.base.ClassFieldReader;
 import org.drools.core.reteoo.AlphaNode;
 import org.drools.core.reteoo.BetaNode;
+import org.drools.core.reteoo.CompositeObjectSinkAdapter;
 import org.drools.core.reteoo.LeftInputAdapterNode;
+import org.drools.core.reteoo.ObjectSource;
 import org.drools.core.reteoo.Sink;
 import org.drools.core.rule.ContextEntry;
 
-import java.util.*;
-
 /**
  * This handler is used to create the member declarations section of a generated subclass of a {@link CompiledNetwork}.
  * Currently we only create member variables for the following types of nodes:
  * <p/>
- * <li>Non-hashed {@link AlphaNode}s</li>
+ * <li>Non-hashed {@link AlphaNode}s, along with their constraint and context entry</li>
  * <li>{@link LeftInputAdapterNode}s</li>
  * <li>{@link BetaNode}s</li>
- * <li>A {@link Map} for each set of hashed {@link AlphaNode}s. The keys are the hashed values, and the values are
- * the IDs of the alphas</li>
+ * <li>The {@link CompositeObjectSinkAdapter} and its field index for each set of hashed {@link AlphaNode}s, used to
+ * look up the alpha matching the value of a fact</li>
  */
 public class DeclarationsHandler extends AbstractCompilerHandler {
     private static final String PRIVATE_MODIFIER = "private";
 
-    /**
-     * This field keeps track of the current set of hashed AlphaNodes for a ClassReader.
-     *
-     * @see #startHashedAlphaNodes(org.kie.base.ClassFieldReader)
-     * @see #startHashedAlphaNode(org.kie.reteoo.AlphaNode, Object)
-     */
-    private HashedAlphasDeclaration currentHashedAlpha;
-
     private final StringBuilder builder;
 
-    /**
-     * Keeps track of all the ClassFieldReaders for hashed alphas, and the maps that contain hashed values/node ids
-     * for said alphas.
-     */
-    private final Collection<HashedAlphasDeclaration> hashedAlphaDeclarations;
-
     public DeclarationsHandler(StringBuilder builder) {
         this.builder = builder;
-        this.hashedAlphaDeclarations = new LinkedList<HashedAlphasDeclaration>();
     }
 
     private String getVariableDeclaration(AlphaNode alphaNode) {
@@ -65,14 +50,21 @@ public class DeclarationsHandler extends AbstractCompilerHandler {
         // comment for variable declaration is just the toString of the node
         String comment = alphaNode.toString();
 
-        return PRIVATE_MODIFIER + " " + variableType.getName() + " " + variableName + "; // " + comment;
+        return PRIVATE_MODIFIER + " " + getTypeName(variableType) + " " + variableName + "; // " + comment;
     }
 
     private String getContextVariableDeclaration(AlphaNode alphaNode){
         Class<?> variableType = ContextEntry.class;
         String variableName = getContextVariableName(alphaNode);
 
-        return PRIVATE_MODIFIER + " " + variableType.getName() + " " + variableName + ";";
+        return PRIVATE_MODIFIER + " " + getTypeName(variableType) + " " + variableName + ";";
+    }
+
+    private String getNodeVariableDeclaration(AlphaNode alphaNode){
+        Class<?> variableType = AlphaNode.class;
+        String variableName = getNodeVariableName(alphaNode);
+
+        return PRIVATE_MODIFIER + " " + getTypeName(variableType) + " " + variableName + ";";
     }
 
     private String getVariableDeclaration(Sink sink) {
@@ -81,28 +73,14 @@ public class DeclarationsHandler extends AbstractCompilerHandler {
         // comment for variable declaration is just the toString of the node
         String comment = sink.toString();
 
-        return PRIVATE_MODIFIER + " " + declarationType.getName() + " " + variableName + "; // " + comment;
-    }
-
-    private String getVariableDeclaration(ClassFieldReader fieldReader) {
-        Class<?> declarationType = Map.class;
-        Class<?> createType = HashMap.class;
-        String variableName = getVariableName(fieldReader);
-
-        // todo JANINO doesn't support generics
-        // return "private java.util.Map<Object,Integer> " + variableName + " = new java.util.HashMap<Object,Integer>();";
-        return PRIVATE_MODIFIER + " " + declarationType.getName() + " " + variableName
-                + " = new " + createType.getName() + "();";
-    }
-
-    public Collection<HashedAlphasDeclaration> getHashedAlphaDeclarations() {
-        return Collections.unmodifiableCollection(hashedAlphaDeclarations);
+        return PRIVATE_MODIFIER + " " + getTypeName(declarationType) + " " + variableName + "; // " + comment;
     }
 
     @Override
     public void startNonHashedAlphaNode(AlphaNode alphaNode) {
         builder.append(getVariableDeclaration(alphaNode)).append(NEWLINE);
         builder.append(getContextVariableDeclaration(alphaNode)).append(NEWLINE);
+        builder.append(getNodeVariableDeclaration(alphaNode)).append(NEWLINE);
     }
 
     @Override
@@ -116,20 +94,11 @@ public class DeclarationsHandler extends AbstractCompilerHandler {
     }
 
     @Override
-    public void startHashedAlphaNodes(ClassFieldReader hashedFieldReader) {
-        // we create a new hashed alpha that will be used to keep track of the hashes values to node ID for each
-        // class field reader.
-        currentHashedAlpha = new HashedAlphasDeclaration(getVariableName(hashedFieldReader),
-                hashedFieldReader.getValueType());
-
-        // add the new declaration
-        hashedAlphaDeclarations.add(currentHashedAlpha);
-
-        builder.append(getVariableDeclaration(hashedFieldReader)).append(NEWLINE);
-    }
-
-    @Override
-    public void startHashedAlphaNode(AlphaNode hashedAlpha, Object hashedValue) {
-        currentHashedAlpha.add(hashedValue, String.valueOf(hashedAlpha.getId()));
+    public void startHashedAlphaNodes(ObjectSource source, ClassFieldReader hashedFieldReader) {
+        builder.append(PRIVATE_MODIFIER).append(" ").append(getTypeName(CompositeObjectSinkAdapter.class)).append(" ").
+                append(getHashedSinksVariableName(source, hashedFieldReader)).append("; // ").
+                append(hashedFieldReader.getFieldName()).append(NEWLINE);
+        builder.append(PRIVATE_MODIFIER).append(" ").append(getTypeName(CompositeObjectSinkAdapter.FieldIndex.class)).append(" ").
+                append(getHashedFieldIndexVariableName(source, hashedFieldReader)).append(";").append(NEWLINE);
     }
 }
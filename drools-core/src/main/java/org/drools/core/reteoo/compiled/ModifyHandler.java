@@ -0,0 +1,131 @@
+/*
+ * Copyright 2010 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.reteoo.compiled;
+
+import org.drools.core.base.ClassFieldReader;
+import org.drools.core.common.InternalFactHandle;
+import org.drools.core.common.InternalWorkingMemory;
+import org.drools.core.reteoo.AlphaNode;
+import org.drools.core.reteoo.BetaNode;
+import org.drools.core.reteoo.LeftInputAdapterNode;
+import org.drools.core.reteoo.ModifyPreviousTuples;
+import org.drools.core.reteoo.ObjectSource;
+import org.drools.core.reteoo.ObjectTypeNode;
+import org.drools.core.spi.PropagationContext;
+import org.drools.core.util.BitMaskUtil;
+
+/**
+ * This handler is used to create the {@link CompiledNetwork#modifyObject} method of a generated subclass of a
+ * {@link CompiledNetwork}. It mirrors the {@link AssertHandler}, except that a non-hashed alpha is evaluated only
+ * when the modification mask intersects its inferred mask, otherwise the modification bypasses it as
+ * {@link AlphaNode#modifyObject} does, so property reactivity is preserved.
+ *
+ * Deletes don't need to be compiled, as the fact handle already references all the tuples to be retracted.
+ */
+public class ModifyHandler extends AbstractCompilerHandler {
+    private static final String MODIFY_PREVIOUS_TUPLES_PARAM_NAME = "modifyPreviousTuples";
+
+    private static final String FACT_HANDLE_PARAM_TYPE = InternalFactHandle.class.getName();
+    private static final String MODIFY_PREVIOUS_TUPLES_PARAM_TYPE = ModifyPreviousTuples.class.getName();
+    private static final String PROP_CONTEXT_PARAM_TYPE = PropagationContext.class.getName();
+    private static final String WORKING_MEMORY_PARAM_TYPE = InternalWorkingMemory.class.getName();
+
+    private static final String MODIFY_METHOD_SIGNATURE = "public final void modifyObject("
+            + FACT_HANDLE_PARAM_TYPE + " " + FACT_HANDLE_PARAM_NAME + ","
+            + MODIFY_PREVIOUS_TUPLES_PARAM_TYPE + " " + MODIFY_PREVIOUS_TUPLES_PARAM_NAME + ","
+            + PROP_CONTEXT_PARAM_TYPE + " " + PROP_CONTEXT_PARAM_NAME + ","
+            + WORKING_MEMORY_PARAM_TYPE + " " + WORKING_MEMORY_PARAM_NAME + "){";
+
+    private static final String PROPAGATION_ARGUMENTS = "(" + FACT_HANDLE_PARAM_NAME + ","
+            + MODIFY_PREVIOUS_TUPLES_PARAM_NAME + ","
+            + PROP_CONTEXT_PARAM_NAME + ","
+            + WORKING_MEMORY_PARAM_NAME + ");";
+
+    private final StringBuilder builder;
+
+    public ModifyHandler(StringBuilder builder) {
+        this.builder = builder;
+    }
+
+    @Override
+    public void startObjectTypeNode(ObjectTypeNode objectTypeNode) {
+        builder.append(MODIFY_METHOD_SIGNATURE).append(NEWLINE);
+    }
+
+    @Override
+    public void startBetaNode(BetaNode betaNode) {
+        builder.append(getVariableName(betaNode)).append(".modifyObject").
+                append(PROPAGATION_ARGUMENTS).append(NEWLINE);
+    }
+
+    @Override
+    public void startLeftInputAdapterNode(LeftInputAdapterNode leftInputAdapterNode) {
+        builder.append(getVariableName(leftInputAdapterNode)).append(".modifyObject").
+                append(PROPAGATION_ARGUMENTS).append(NEWLINE);
+    }
+
+    @Override
+    public void startNonHashedAlphaNode(AlphaNode alphaNode) {
+        // example of what this will look like
+        // if ( BitMaskUtil.intersect(context.getModificationMask(), alphaNode24.getInferredMask()) ) {
+        //     if ( mvelConstraint24.isAllowed(handle, wm, contextEntry24) ) {
+        builder.append("if ( ").append(BitMaskUtil.class.getName()).append(".intersect(").
+                append(PROP_CONTEXT_PARAM_NAME).append(".getModificationMask(), ").
+                append(getNodeVariableName(alphaNode)).append(".getInferredMask()) ) {").append(NEWLINE);
+        builder.append("if ( ").append(getVariableName(alphaNode)).
+                append(".isAllowed(").append(FACT_HANDLE_PARAM_NAME).append(",").
+                append(WORKING_MEMORY_PARAM_NAME).append(", ").
+                append(getContextVariableName(alphaNode)).append(") ) {").append(NEWLINE);
+    }
+
+    @Override
+    public void endNonHashedAlphaNode(AlphaNode alphaNode) {
+        // close the constraint if statement, then bypass the alpha when the modification isn't relevant for it
+        builder.append("}").append(NEWLINE);
+        builder.append("} else {").append(NEWLINE);
+        builder.append(getNodeVariableName(alphaNode)).append(".byPassModifyToBetaNode").
+                append(PROPAGATION_ARGUMENTS).append(NEWLINE);
+        builder.append("}").append(NEWLINE);
+    }
+
+    @Override
+    public void startHashedAlphaNodes(ObjectSource source, ClassFieldReader hashedFieldReader) {
+        // like the CompositeObjectSinkAdapter, hashed alphas are not checked against the modification mask
+        appendHashedAlphaNodesSwitch(builder, source, hashedFieldReader);
+    }
+
+    @Override
+    public void startHashedAlphaNode(AlphaNode hashedAlpha, Object hashedValue) {
+        builder.append("case ").append(hashedAlpha.getId()).append(" : ").append(NEWLINE);
+    }
+
+    @Override
+    public void endHashedAlphaNode(AlphaNode hashedAlpha, Object hashedValue) {
+        builder.append("break;").append(NEWLINE);
+    }
+
+    @Override
+    public void endHashedAlphaNodes(ObjectSource source, ClassFieldReader hashedFieldReader) {
+        appendHashedAlphaNodesSwitchEnd(builder);
+    }
+
+    @Override
+    public void endObjectTypeNode(ObjectTypeNode objectTypeNode) {
+        // close the modifyObject method
+        builder.append("}").append(NEWLINE);
+    }
+}
@@ -20,6 +20,7 @@ import org.drools.core.base.ClassFieldReader;
 import org.drools.core.reteoo.AlphaNode;
 import org.drools.core.reteoo.BetaNode;
 import org.drools.core.reteoo.LeftInputAdapterNode;
+import org.drools.core.reteoo.ObjectSource;
 import org.drools.core.reteoo.ObjectTypeNode;
 
 /**
@@ -79,13 +80,14 @@ public interface NetworkHandler {
      * node's decendants, in order, before the corresponding {@link #endHashedAlphaNode}
      * event.</p>
      *
+     * @param source node whose propagator holds the hashed alphas
      * @param hashedFieldReader field reader that is used to access the hashed attribute
      * @see #endHashedAlphaNodes
      * @see #startHashedAlphaNode
      */
-    void startHashedAlphaNodes(ClassFieldReader hashedFieldReader);
+    void startHashedAlphaNodes(ObjectSource source, ClassFieldReader hashedFieldReader);
 
-    void endHashedAlphaNodes(ClassFieldReader hashedFieldReader);
+    void endHashedAlphaNodes(ObjectSource source, ClassFieldReader hashedFieldReader);
 
     void startHashedAlphaNode(AlphaNode hashedAlpha, Object hashedValue);
 
@@ -20,6 +20,7 @@ import org.drools.core.base.ClassFieldReader;
 import org.drools.core.reteoo.AlphaNode;
 import org.drools.core.reteoo.BetaNode;
 import org.drools.core.reteoo.LeftInputAdapterNode;
+import org.drools.core.reteoo.ObjectSource;
 import org.drools.core.reteoo.ObjectTypeNode;
 
 /**
@@ -62,11 +63,11 @@ public class NetworkHandlerAdaptor implements NetworkHandler {
 
     }
 
-    public void startHashedAlphaNodes(ClassFieldReader hashedFieldReader) {
+    public void startHashedAlphaNodes(ObjectSource source, ClassFieldReader hashedFieldReader) {
 
     }
 
-    public void endHashedAlphaNodes(ClassFieldReader hashedFieldReader) {
+    public void endHashedAlphaNodes(ObjectSource source, ClassFieldReader hashedFieldReader) {
 
     }
 
@@ -67,11 +67,64 @@ public class ObjectTypeNodeParser {
         ObjectSinkPropagator propagator = objectTypeNode.getSinkPropagator();
 
         handler.startObjectTypeNode(objectTypeNode);
-        traversePropagator(propagator, handler);
+        traversePropagator(objectTypeNode, propagator, handler);
         handler.endObjectTypeNode(objectTypeNode);
     }
 
-    private void traversePropagator(ObjectSinkPropagator propagator, NetworkHandler handler) {
+    /**
+     * Returns true if every node reachable from the {@link #objectTypeNode} through its alpha network is
+     * reported by this parser, so that a network generated from the parsing events propagates exactly as
+     * the nodes do.
+     *
+     * @return true if the alpha network of the OTN can be compiled
+     */
+    public boolean isCompilable() {
+        return isCompilable(objectTypeNode.getSinkPropagator());
+    }
+
+    private boolean isCompilable(ObjectSinkPropagator propagator) {
+        if (propagator instanceof EmptyObjectSinkAdapter) {
+            return true;
+        }
+        if (!(propagator instanceof SingleObjectSinkAdapter) && !(propagator instanceof CompositeObjectSinkAdapter)) {
+            return false;
+        }
+
+        for (ObjectSink sink : propagator.getSinks()) {
+            if (sink.getType() == NodeTypeEnums.AlphaNode) {
+                AlphaNode alphaNode = (AlphaNode) sink;
+                if (isHashed(propagator, alphaNode) && !(alphaNode.getConstraint() instanceof MvelConstraint &&
+                                                         ((MvelConstraint) alphaNode.getConstraint()).getFieldExtractor() instanceof ClassFieldReader)) {
+                    return false;
+                }
+                if (!isCompilable(alphaNode.getSinkPropagator())) {
+                    return false;
+                }
+            } else if (!NodeTypeEnums.isBetaNode(sink) && sink.getType() != NodeTypeEnums.LeftInputAdapterNode) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isHashed(ObjectSinkPropagator propagator, AlphaNode alphaNode) {
+        if (!(propagator instanceof CompositeObjectSinkAdapter)) {
+            return false;
+        }
+        ObjectHashMap hashedSinkMap = ((CompositeObjectSinkAdapter) propagator).getHashedSinkMap();
+        if (hashedSinkMap == null) {
+            return false;
+        }
+        Iterator iter = hashedSinkMap.iterator();
+        for (ObjectHashMap.ObjectEntry entry = (ObjectHashMap.ObjectEntry) iter.next(); entry != null; entry = (ObjectHashMap.ObjectEntry) iter.next()) {
+            if (entry.getValue() == alphaNode) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void traversePropagator(ObjectSource source, ObjectSinkPropagator propagator, NetworkHandler handler) {
         if (propagator instanceof SingleObjectSinkAdapter) {
             // we know there is only a single child sink for this propagator
             ObjectSink sink = propagator.getSinks()[0];
@@ -80,9 +133,10 @@ public class ObjectTypeNodeParser {
         } else if (propagator instanceof CompositeObjectSinkAdapter) {
             CompositeObjectSinkAdapter composite = (CompositeObjectSinkAdapter) propagator;
 
+            // same order used by the composite to propagate
+            traverseHashedAlphaNodes(source, composite, handler);
             traverseSinkLisk(composite.getHashableSinks(), handler);
             traverseSinkLisk(composite.getOthers(), handler);
-            traverseHashedAlphaNodes(composite.getHashedSinkMap(), handler);
         }
     }
 
@@ -117,28 +171,41 @@ public class ObjectTypeNodeParser {
         }
     }
 
-    private void traverseHashedAlphaNodes(ObjectHashMap hashedAlphaNodes, NetworkHandler handler) {
-        if (hashedAlphaNodes != null && hashedAlphaNodes.size() > 0) {
-            AlphaNode firstAlpha = getFirstAlphaNode(hashedAlphaNodes);
+    private void traverseHashedAlphaNodes(ObjectSource source, CompositeObjectSinkAdapter composite, NetworkHandler handler) {
+        ObjectHashMap hashedAlphaNodes = composite.getHashedSinkMap();
+        if (hashedAlphaNodes == null || hashedAlphaNodes.size() == 0) {
+            return;
+        }
+
+        // the alphas of all the hashed fields share the same map, they are reported grouped by field
+        for (CompositeObjectSinkAdapter.FieldIndex fieldIndex = composite.getHashedFieldIndexes().getFirst(); fieldIndex != null; fieldIndex = fieldIndex.getNext()) {
+            if (!fieldIndex.isHashed()) {
+                continue;
+            }
+
+            AlphaNode firstAlpha = getFirstAlphaNode(hashedAlphaNodes, fieldIndex.getIndex());
             ClassFieldReader hashedFieldReader = getClassFieldReaderForHashedAlpha(firstAlpha);
 
             // start the hashed alphas
-            handler.startHashedAlphaNodes(hashedFieldReader);
+            handler.startHashedAlphaNodes(source, hashedFieldReader);
 
             Iterator iter = hashedAlphaNodes.iterator();
             for (ObjectHashMap.ObjectEntry entry = (ObjectHashMap.ObjectEntry) iter.next(); entry != null; entry = (ObjectHashMap.ObjectEntry) iter.next()) {
                 CompositeObjectSinkAdapter.HashKey hashKey = (CompositeObjectSinkAdapter.HashKey) entry.getKey();
+                if (hashKey.getIndex() != fieldIndex.getIndex()) {
+                    continue;
+                }
                 AlphaNode alphaNode = (AlphaNode) entry.getValue();
 
                 handler.startHashedAlphaNode(alphaNode, hashKey.getObjectValue());
                 // traverse the propagator for each alpha
-                traversePropagator(alphaNode.getSinkPropagator(), handler);
+                traversePropagator(alphaNode, alphaNode.getSinkPropagator(), handler);
 
                 handler.endHashedAlphaNode(alphaNode, hashKey.getObjectValue());
             }
 
             // end of the hashed alphas
-            handler.endHashedAlphaNodes(hashedFieldReader);
+            handler.endHashedAlphaNodes(source, hashedFieldReader);
         }
     }
 
@@ -148,7 +215,7 @@ public class ObjectTypeNodeParser {
 
             handler.startNonHashedAlphaNode(alphaNode);
 
-            traversePropagator(alphaNode.getSinkPropagator(), handler);
+            traversePropagator(alphaNode, alphaNode.getSinkPropagator(), handler);
 
             handler.endNonHashedAlphaNode(alphaNode);
         } else if (NodeTypeEnums.isBetaNode( sink ) ) {
@@ -171,25 +238,22 @@ public class ObjectTypeNodeParser {
     }
 
     /**
-     * Returns the first {@link org.kie.reteoo.AlphaNode} from the specified {@link ObjectHashMap}.
+     * Returns the first {@link org.kie.reteoo.AlphaNode} hashed on the given field from the specified {@link ObjectHashMap}.
      *
      * @param hashedAlphaNodes map of hashed AlphaNodes
+     * @param index index of the hashed field
      * @return first alpha from the specified map
-     * @throws IllegalArgumentException thrown if the map doesn't contain any alpha nodes
+     * @throws IllegalArgumentException thrown if the map doesn't contain any alpha nodes for the field
      */
-    private AlphaNode getFirstAlphaNode(final ObjectHashMap hashedAlphaNodes) throws IllegalArgumentException {
-        AlphaNode firstAlphaNode;
-
+    private AlphaNode getFirstAlphaNode(final ObjectHashMap hashedAlphaNodes, final int index) throws IllegalArgumentException {
         final Iterator iter = hashedAlphaNodes.iterator();
-        final ObjectHashMap.ObjectEntry entry = (ObjectHashMap.ObjectEntry) iter.next();
-
-        if (entry != null) {
-            firstAlphaNode = (AlphaNode) entry.getValue();
-        } else {
-            throw new IllegalArgumentException("ObjectHashMap does not contain any hashed AlphaNodes!");
+        for (ObjectHashMap.ObjectEntry entry = (ObjectHashMap.ObjectEntry) iter.next(); entry != null; entry = (ObjectHashMap.ObjectEntry) iter.next()) {
+            if (((CompositeObjectSinkAdapter.HashKey) entry.getKey()).getIndex() == index) {
+                return (AlphaNode) entry.getValue();
+            }
         }
 
-        return firstAlphaNode;
+        throw new IllegalArgumentException("ObjectHashMap does not contain any hashed AlphaNodes for field " + index + "!");
     }
 
     /**
@@ -16,6 +16,7 @@
 
 package org.drools.core.reteoo.compiled;
 
+import org.drools.core.base.ClassFieldReader;
 import org.drools.core.common.NetworkNode;
 import org.drools.core.reteoo.*;
 
@@ -27,6 +28,7 @@ import org.drools.core.reteoo.*;
  * <li>Non-hashed {@link AlphaNode}s</li>
  * <li>{@link LeftInputAdapterNode}s</li>
  * <li>{@link BetaNode}s</li>
+ * <li>Hashed {@link AlphaNode}s, whose parent propagator holds the alphas hashed on the same field</li>
  */
 public class SetNodeReferenceHandler extends AbstractCompilerHandler {
 
@@ -37,6 +39,12 @@ public class SetNodeReferenceHandler extends AbstractCompilerHandler {
 
     private final StringBuilder builder;
 
+    /**
+     * Source and field of the hashed alphas being parsed
+     */
+    private ObjectSource hashedSource;
+    private ClassFieldReader hashedFieldReader;
+
     public SetNodeReferenceHandler(StringBuilder builder) {
         this.builder = builder;
     }
@@ -46,7 +54,7 @@ public class SetNodeReferenceHandler extends AbstractCompilerHandler {
         String assignmentStatement;
 
         // for non alphas, we just need to cast to the right variable type
-        assignmentStatement = getVariableName(sink) + " = (" + variableType.getName() + ")" + nodeVariableName + ";";
+        assignmentStatement = getVariableName(sink) + " = (" + getTypeName(variableType) + ")" + nodeVariableName + ";";
 
         return assignmentStatement;
     }
@@ -57,7 +65,7 @@ public class SetNodeReferenceHandler extends AbstractCompilerHandler {
 
         // we need the constraint for an alpha node assignment, so generate a cast, plus the method call to get
         // the constraint
-        assignmentStatement = getVariableName(alphaNode) + " = (" + variableType.getName() + ") ((" + AlphaNode.class.getName() + ")" + nodeVariableName + ").getConstraint();";
+        assignmentStatement = getVariableName(alphaNode) + " = (" + getTypeName(variableType) + ") ((" + AlphaNode.class.getName() + ")" + nodeVariableName + ").getConstraint();";
 
         return assignmentStatement;
     }
@@ -74,6 +82,10 @@ public class SetNodeReferenceHandler extends AbstractCompilerHandler {
         return assignmentStatement;
     }
 
+    private String getNodeVariableAssignmentStatement(AlphaNode alphaNode, String nodeVariableName) {
+        return getNodeVariableName(alphaNode) + " = (" + AlphaNode.class.getName() + ")" + nodeVariableName + ";";
+    }
+
 
     @Override
     public void startObjectTypeNode(ObjectTypeNode objectTypeNode) {
@@ -100,6 +112,33 @@ public class SetNodeReferenceHandler extends AbstractCompilerHandler {
         builder.append("case ").append(alphaNode.getId()).append(": ").append(NEWLINE);
         builder.append(getVariableAssignmentStatement(alphaNode, PARAM_NAME)).append(NEWLINE);
         builder.append(getContextVariableAssignmentStatement(alphaNode)).append(NEWLINE);
+        builder.append(getNodeVariableAssignmentStatement(alphaNode, PARAM_NAME)).append(NEWLINE);
+        builder.append("break;").append(NEWLINE);
+    }
+
+    @Override
+    public void startHashedAlphaNodes(ObjectSource source, ClassFieldReader hashedFieldReader) {
+        this.hashedSource = source;
+        this.hashedFieldReader = hashedFieldReader;
+    }
+
+    @Override
+    public void startHashedAlphaNode(AlphaNode hashedAlpha, Object hashedValue) {
+        // case statement for the hashed alphas looks like the following, the same assignments are repeated
+        // for every alpha hashed on the same field
+        // case 24:
+        //      hashedSinks5_2 = (CompositeObjectSinkAdapter) ((AlphaNode) node).getParentObjectSource().getSinkPropagator();
+        //      hashedFieldIndex5_2 = hashedSinks5_2.getHashedFieldIndex(2);
+        //      break;
+        String hashedSinksVariableName = getHashedSinksVariableName(hashedSource, hashedFieldReader);
+
+        builder.append("case ").append(hashedAlpha.getId()).append(": ").append(NEWLINE);
+        builder.append(hashedSinksVariableName).append(" = (").append(getTypeName(CompositeObjectSinkAdapter.class)).
+                append(") ((").append(AlphaNode.class.getName()).append(")").append(PARAM_NAME).
+                append(").getParentObjectSource().getSinkPropagator();").append(NEWLINE);
+        builder.append(getHashedFieldIndexVariableName(hashedSource, hashedFieldReader)).append(" = ").
+                append(hashedSinksVariableName).append(".getHashedFieldIndex(").
+                append(hashedFieldReader.getIndex()).append(");").append(NEWLINE);
         builder.append("break;").append(NEWLINE);
     }
 
@@ -122,11 +122,10 @@ public class SlidingLengthWindow
                             final PropagationContext pctx,
                             final InternalWorkingMemory workingMemory) {
         SlidingLengthWindowContext window = (SlidingLengthWindowContext) context;
-        final int last = (window.pos == 0) ? window.handles.length - 1 : window.pos - 1;
-        // we start the loop on current pos because the most common scenario is to retract the
-        // right tuple referenced by the current "pos" position, causing this loop to only execute
-        // the first iteration
-        for ( int i = window.pos; i != last; i = (i + 1) % window.handles.length ) {
+        final int length = window.handles.length;
+        // we go backwards from the current pos because the most common scenario is to retract the
+        // most recent handles, causing this loop to only execute the first iterations
+        for ( int n = 0, i = window.pos; n < length; n++, i = (i == 0) ? length - 1 : i - 1 ) {
             if ( window.handles[i] == handle ) {
                 window.handles[i] = null;
                 break;
@@ -20,7 +20,6 @@ import java.io.Externalizable;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
-import java.util.PriorityQueue;
 
 import org.drools.core.common.EventFactHandle;
 import org.drools.core.common.InternalFactHandle;
@@ -46,6 +45,7 @@ import org.drools.core.time.JobContext;
 import org.drools.core.time.JobHandle;
 import org.drools.core.time.TimerService;
 import org.drools.core.time.impl.PointInTimeTrigger;
+import org.drools.core.util.EventRingBuffer;
 
 public class SlidingTimeWindow
     implements
@@ -179,15 +179,16 @@ public class SlidingTimeWindow
         TimerService clock = workingMemory.getTimerService();
         long currentTime = clock.getCurrentTime();
         SlidingTimeWindowContext queue = (SlidingTimeWindowContext) context;
+        PropagationContextFactory pctxFactory = workingMemory.getKnowledgeBase().getConfiguration().getComponentFactory().getPropagationContextFactory();
         synchronized (queue.queue) {
+            // all the events older than the horizon are expired in a single pass, as they are at the head of the queue
             EventFactHandle handle = queue.queue.peek();
             while ( handle != null && isExpired( currentTime,
                                                  handle ) ) {
                 queue.expiringHandle = handle;
-                queue.queue.remove();
+                queue.queue.poll();
                 if( handle.isValid()) {
                     // if not expired yet, expire it
-                    PropagationContextFactory pctxFactory = workingMemory.getKnowledgeBase().getConfiguration().getComponentFactory().getPropagationContextFactory();
                     final PropagationContext expiresPctx = pctxFactory.createPropagationContext(workingMemory.getNextPropagationIdCounter(), PropagationContext.EXPIRATION,
                                                                                                 null, null, handle);
                     ObjectTypeNode.doRetractObject(handle, expiresPctx, workingMemory);
@@ -250,17 +251,16 @@ public class SlidingTimeWindow
         implements
         Externalizable {
 
-        public PriorityQueue<EventFactHandle> queue;
-        public EventFactHandle                expiringHandle;
+        public EventRingBuffer queue;
+        public EventFactHandle expiringHandle;
 
         public SlidingTimeWindowContext() {
-            this.queue = new PriorityQueue<EventFactHandle>( 16 ); // arbitrary size... can we improve it?
+            this.queue = new EventRingBuffer();
         }
 
-        @SuppressWarnings("unchecked")
         public void readExternal(ObjectInput in) throws IOException,
                                                 ClassNotFoundException {
-            this.queue = (PriorityQueue<EventFactHandle>) in.readObject();
+            this.queue = (EventRingBuffer) in.readObject();
             this.expiringHandle = (EventFactHandle) in.readObject();
         }
 
@@ -269,11 +269,11 @@ public class SlidingTimeWindow
             out.writeObject( this.expiringHandle );
         }
 
-        public PriorityQueue<EventFactHandle> getQueue() {
+        public EventRingBuffer getQueue() {
             return queue;
         }
 
-        public void setQueue(PriorityQueue<EventFactHandle> queue) {
+        public void setQueue(EventRingBuffer queue) {
             this.queue = queue;
         }
 
@@ -1,5 +1,6 @@
 package org.drools.core.rule.constraint;
 
+import org.drools.core.RuleBaseConfiguration;
 import org.drools.core.base.ClassFieldReader;
 import org.drools.core.base.DroolsQuery;
 import org.drools.core.base.extractors.ArrayElementReader;
@@ -56,12 +57,13 @@ import static org.drools.core.util.StringUtils.skipBlanks;
 
 public class MvelConstraint extends MutableTypeConstraint implements IndexableConstraint, AcceptsReadAccessor {
     protected static final boolean TEST_JITTING = false;
-    protected static final int JIT_THRESOLD = 20; // Integer.MAX_VALUE;
+    protected static final int JIT_THRESOLD = RuleBaseConfiguration.DEFAULT_JITTING_THRESHOLD;
 
     private static final Logger logger = LoggerFactory.getLogger(MvelConstraint.class);
 
     protected final transient AtomicInteger invocationCounter = new AtomicInteger(1);
     protected transient boolean jitted = false;
+    protected transient int jittingThreshold = JIT_THRESOLD;
 
     private Set<String> packageNames;
     protected String expression;
@@ -157,6 +159,15 @@ public class MvelConstraint extends MutableTypeConstraint implements IndexableCo
         return isUnification;
     }
 
+    /**
+     * Returns true if this constraint is evaluated by a jitted evaluator instead of being interpreted by mvel.
+     * The jitting may have been started but not yet completed when the threshold is reached
+     */
+    public boolean isJitted() {
+        ConditionEvaluator evaluator = conditionEvaluator;
+        return evaluator != null && !(evaluator instanceof MvelConditionEvaluator);
+    }
+
     public void unsetUnification() {
         isUnification = false;
     }
@@ -214,10 +225,13 @@ public class MvelConstraint extends MutableTypeConstraint implements IndexableCo
                 createMvelConditionEvaluator(workingMemory);
                 if (TEST_JITTING && !isDynamic) { // Only for test purposes
                     boolean mvelValue = forceJitEvaluator(handle, workingMemory, leftTuple);
+                } else if (jittingThreshold == 0 && !isDynamic) {
+                    // eager jitting: the constraint is jitted in this thread before being evaluated for the first time
+                    jitEvaluator(handle, workingMemory, leftTuple);
                 }
             }
 
-            if (!TEST_JITTING && !isDynamic && invocationCounter.getAndIncrement() == JIT_THRESOLD) {
+            if (!TEST_JITTING && !isDynamic && invocationCounter.getAndIncrement() == jittingThreshold) {
                 jitEvaluator(handle, workingMemory, leftTuple);
             }
         }
@@ -225,6 +239,9 @@ public class MvelConstraint extends MutableTypeConstraint implements IndexableCo
     }
 
     protected void createMvelConditionEvaluator(InternalWorkingMemory workingMemory) {
+        if (workingMemory != null && workingMemory.getKnowledgeBase() != null) {
+            jittingThreshold = workingMemory.getKnowledgeBase().getConfiguration().getJittingThreshold();
+        }
         if (compilationUnit != null) {
             MVELDialectRuntimeData data = getMVELDialectRuntimeData(workingMemory);
             ExecutableStatement statement = (ExecutableStatement)compilationUnit.getCompiledExpression(data);
@@ -250,7 +267,7 @@ public class MvelConstraint extends MutableTypeConstraint implements IndexableCo
 
     protected void jitEvaluator(InternalFactHandle handle, InternalWorkingMemory workingMemory, LeftTuple leftTuple) {
         jitted = true;
-        if (TEST_JITTING) {
+        if (TEST_JITTING || jittingThreshold == 0) {
             executeJitting(handle, workingMemory, leftTuple);
         } else {
             ExecutorHolder.executor.execute(new ConditionJitter(this, handle, workingMemory, leftTuple));
@@ -524,6 +541,7 @@ public class MvelConstraint extends MutableTypeConstraint implements IndexableCo
         clone.isUnification = isUnification;
         clone.isDynamic = isDynamic;
         clone.conditionEvaluator = conditionEvaluator;
+        clone.jittingThreshold = jittingThreshold;
         clone.compilationUnit = compilationUnit != null ? compilationUnit.clone() : null;
         return clone;
     }
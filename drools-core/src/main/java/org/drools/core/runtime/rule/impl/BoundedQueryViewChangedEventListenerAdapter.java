@@ -0,0 +1,89 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.runtime.rule.impl;
+
+import java.util.List;
+
+import org.drools.core.base.InternalViewChangedEventListener;
+import org.drools.core.common.InternalWorkingMemory;
+import org.drools.core.definitions.rule.impl.RuleImpl;
+import org.drools.core.reteoo.LeftTuple;
+import org.drools.core.spi.PropagationContext;
+import org.kie.api.runtime.rule.ViewChangedEventListener;
+
+/**
+ * Passes the rows of a one shot query to a ViewChangedEventListener as soon as they are produced,
+ * up to the given limit, instead of collecting them. The rows past the limit are dropped without
+ * being wrapped. As the query isn't kept open, a row can be read only while it's notified.
+ */
+public class BoundedQueryViewChangedEventListenerAdapter
+    implements
+    InternalViewChangedEventListener {
+
+    private final ViewChangedEventListener viewEventListener;
+    private final int                      limit;
+    private int                            count;
+
+    /**
+     * @param limit the maximum number of rows to be notified, or a negative number to notify all of them
+     */
+    public BoundedQueryViewChangedEventListenerAdapter(ViewChangedEventListener viewEventListener,
+                                                       int limit) {
+        this.viewEventListener = viewEventListener;
+        this.limit = limit;
+    }
+
+    public void rowAdded(final RuleImpl rule,
+                         final LeftTuple leftTuple,
+                         final PropagationContext context,
+                         final InternalWorkingMemory workingMemory) {
+        if ( isFull() ) {
+            return;
+        }
+        count++;
+        this.viewEventListener.rowInserted( new RowAdapter( rule,
+                                                            leftTuple ) );
+    }
+
+    public void rowRemoved(final RuleImpl rule,
+                           final LeftTuple leftTuple,
+                           final PropagationContext context,
+                           final InternalWorkingMemory workingMemory) {
+    }
+
+    public void rowUpdated(final RuleImpl rule,
+                           final LeftTuple leftTuple,
+                           final PropagationContext context,
+                           final InternalWorkingMemory workingMemory) {
+    }
+
+    public boolean isFull() {
+        return limit >= 0 && count >= limit;
+    }
+
+    /**
+     * The number of rows notified so far.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    public List< ? extends Object> getResults() {
+        throw new UnsupportedOperationException(getClass().getCanonicalName()+" does not support the getResults() method.");
+    }
+
+}
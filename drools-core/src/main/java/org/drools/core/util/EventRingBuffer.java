@@ -0,0 +1,210 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.util;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.PriorityQueue;
+
+import org.drools.core.common.EventFactHandle;
+
+/**
+ * A queue of events ordered by start timestamp, optimized for events arriving in timestamp order.
+ * Those are appended to a growable ring buffer, so that adding and polling them is amortized O(1),
+ * while the few events arriving out of order fall back to a priority queue.
+ * Removing an event from the middle of the ring only leaves an empty slot, found by binary search
+ * on the timestamps, which is skipped when it reaches the head.
+ */
+public class EventRingBuffer
+    implements
+    Externalizable {
+
+    private EventFactHandle[]              handles;
+    private long[]                         timestamps;
+    private int                            head;
+    // number of slots in use from the head, the empty ones included
+    private int                            count;
+    private int                            size;
+    private PriorityQueue<EventFactHandle> late;
+
+    public EventRingBuffer() {
+        this( 16 );
+    }
+
+    public EventRingBuffer(int capacity) {
+        int length = Integer.highestOneBit( Math.max( capacity - 1, 1 ) ) << 1;
+        this.handles = new EventFactHandle[length];
+        this.timestamps = new long[length];
+    }
+
+    public void add(EventFactHandle handle) {
+        long timestamp = handle.getStartTimestamp();
+        if ( count == 0 || timestamp >= timestamps[index( count - 1 )] ) {
+            if ( count == handles.length ) {
+                grow();
+            }
+            int i = index( count++ );
+            handles[i] = handle;
+            timestamps[i] = timestamp;
+        } else {
+            if ( late == null ) {
+                late = new PriorityQueue<EventFactHandle>( 16 );
+            }
+            late.add( handle );
+        }
+        size++;
+    }
+
+    /**
+     * Returns the event with the lowest start timestamp, without removing it.
+     */
+    public EventFactHandle peek() {
+        EventFactHandle first = count > 0 ? handles[head] : null;
+        EventFactHandle firstLate = late != null ? late.peek() : null;
+        if ( firstLate != null && ( first == null || firstLate.getStartTimestamp() < first.getStartTimestamp() ) ) {
+            return firstLate;
+        }
+        return first;
+    }
+
+    /**
+     * Removes and returns the event with the lowest start timestamp.
+     */
+    public EventFactHandle poll() {
+        EventFactHandle first = peek();
+        if ( first == null ) {
+            return null;
+        }
+        if ( count > 0 && handles[head] == first ) {
+            handles[head] = null;
+            skipEmptyHead();
+        } else {
+            late.poll();
+        }
+        size--;
+        return first;
+    }
+
+    /**
+     * Removes the given event, or an event equal to it, from anywhere in the queue.
+     */
+    public boolean remove(EventFactHandle handle) {
+        long timestamp = handle.getStartTimestamp();
+        for ( int n = firstIndexOf( timestamp ); n < count && timestamps[index( n )] == timestamp; n++ ) {
+            int i = index( n );
+            if ( handles[i] != null && handles[i].equals( handle ) ) {
+                handles[i] = null;
+                if ( n == 0 ) {
+                    skipEmptyHead();
+                }
+                size--;
+                return true;
+            }
+        }
+        if ( late != null && late.remove( handle ) ) {
+            size--;
+            return true;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        for ( int n = 0; n < count; n++ ) {
+            handles[index( n )] = null;
+        }
+        head = 0;
+        count = 0;
+        size = 0;
+        late = null;
+    }
+
+    private int index(int n) {
+        return ( head + n ) & ( handles.length - 1 );
+    }
+
+    /**
+     * Returns the position, relative to the head, of the first slot with the given timestamp or a later one.
+     */
+    private int firstIndexOf(long timestamp) {
+        int low = 0;
+        int high = count;
+        while ( low < high ) {
+            int mid = ( low + high ) >>> 1;
+            if ( timestamps[index( mid )] < timestamp ) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void skipEmptyHead() {
+        while ( count > 0 && handles[head] == null ) {
+            head = ( head + 1 ) & ( handles.length - 1 );
+            count--;
+        }
+        if ( count == 0 ) {
+            head = 0;
+        }
+    }
+
+    private void grow() {
+        EventFactHandle[] newHandles = new EventFactHandle[handles.length << 1];
+        long[] newTimestamps = new long[handles.length << 1];
+        for ( int n = 0; n < count; n++ ) {
+            newHandles[n] = handles[index( n )];
+            newTimestamps[n] = timestamps[index( n )];
+        }
+        handles = newHandles;
+        timestamps = newTimestamps;
+        head = 0;
+    }
+
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeInt( size );
+        for ( int n = 0; n < count; n++ ) {
+            EventFactHandle handle = handles[index( n )];
+            if ( handle != null ) {
+                out.writeObject( handle );
+            }
+        }
+        if ( late != null ) {
+            for ( EventFactHandle handle : late ) {
+                out.writeObject( handle );
+            }
+        }
+    }
+
+    public void readExternal(ObjectInput in) throws IOException,
+                                            ClassNotFoundException {
+        int n = in.readInt();
+        for ( int i = 0; i < n; i++ ) {
+            add( (EventFactHandle) in.readObject() );
+        }
+    }
+}
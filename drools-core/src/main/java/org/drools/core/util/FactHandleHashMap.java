@@ -0,0 +1,243 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.util;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.NoSuchElementException;
+
+import org.drools.core.common.InternalFactHandle;
+import org.drools.core.util.AbstractHashTable.ObjectComparator;
+import org.kie.api.runtime.ObjectFilter;
+
+/**
+ * An open addressing hash table of fact handles, where each handle is both the key and the value,
+ * so that no entry is allocated per fact. A handle can be looked up either by itself or by its object,
+ * as defined by the given comparator, usually an IdentityAssertMapComparator or an EqualityAssertMapComparator.
+ * Collisions are resolved with linear probing; removed handles leave a marker in their slot, so that
+ * the handles can be removed while iterating the table.
+ */
+public class FactHandleHashMap implements Externalizable {
+
+    private static final long   serialVersionUID = 510l;
+
+    private static final int    MIN_CAPACITY     = 16;
+    private static final float  LOAD_FACTOR      = 0.75f;
+
+    private static final Object REMOVED          = new Object();
+
+    private ObjectComparator    comparator;
+
+    private Object[]            table;
+    private int                 threshold;
+    private int                 size;
+    private int                 removed;
+
+    public FactHandleHashMap() {
+        this( null );
+    }
+
+    public FactHandleHashMap(ObjectComparator comparator) {
+        this.comparator = comparator;
+        resize( MIN_CAPACITY );
+    }
+
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+        comparator = (ObjectComparator) in.readObject();
+        int handles = in.readInt();
+        resize( capacityFor( handles ) );
+        for ( int i = 0; i < handles; i++ ) {
+            put( (InternalFactHandle) in.readObject() );
+        }
+    }
+
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeObject( comparator );
+        out.writeInt( size );
+        for ( Object slot : table ) {
+            if ( slot != null && slot != REMOVED ) {
+                out.writeObject( slot );
+            }
+        }
+    }
+
+    public ObjectComparator getComparator() {
+        return comparator;
+    }
+
+    public void setComparator(ObjectComparator comparator) {
+        this.comparator = comparator;
+    }
+
+    /**
+     * Returns the handle matching the given key, either a fact handle or the object of one, or null if none matches.
+     */
+    public InternalFactHandle get(Object key) {
+        Object[] table = this.table;
+        int mask = table.length - 1;
+        for ( int i = comparator.hashCodeOf( key ) & mask; ; i = ( i + 1 ) & mask ) {
+            Object slot = table[i];
+            if ( slot == null ) {
+                return null;
+            }
+            if ( slot != REMOVED && comparator.equal( key, slot ) ) {
+                return (InternalFactHandle) slot;
+            }
+        }
+    }
+
+    /**
+     * Adds a handle to the table, without checking if it's already there: as for an ObjectHashMap
+     * put with checkExists set to false, the caller has to remove it first.
+     */
+    public void put(InternalFactHandle handle) {
+        if ( size + removed >= threshold ) {
+            // when most of the used slots are markers the table is just cleaned, otherwise grown
+            resize( size >= threshold / 2 ? table.length << 1 : table.length );
+        }
+        Object[] table = this.table;
+        int mask = table.length - 1;
+        int i = comparator.hashCodeOf( handle ) & mask;
+        while ( table[i] != null && table[i] != REMOVED ) {
+            i = ( i + 1 ) & mask;
+        }
+        if ( table[i] == REMOVED ) {
+            removed--;
+        }
+        table[i] = handle;
+        size++;
+    }
+
+    /**
+     * Removes the handle matching the given key, returning it, or null if none matches.
+     */
+    public InternalFactHandle remove(Object key) {
+        Object[] table = this.table;
+        int mask = table.length - 1;
+        for ( int i = comparator.hashCodeOf( key ) & mask; ; i = ( i + 1 ) & mask ) {
+            Object slot = table[i];
+            if ( slot == null ) {
+                return null;
+            }
+            if ( slot != REMOVED && comparator.equal( key, slot ) ) {
+                table[i] = REMOVED;
+                size--;
+                removed++;
+                return (InternalFactHandle) slot;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+        resize( MIN_CAPACITY );
+    }
+
+    /**
+     * Iterates the handles of the table, or their objects when type is JavaIteratorAdapter.OBJECT,
+     * skipping the ones whose object isn't accepted by the given filter, if any.
+     */
+    public java.util.Iterator iterator(int type,
+                                       ObjectFilter filter) {
+        return new HandleIterator( table, type, filter );
+    }
+
+    private int capacityFor(int handles) {
+        int capacity = MIN_CAPACITY;
+        while ( capacity * LOAD_FACTOR <= handles ) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private void resize(int capacity) {
+        Object[] oldTable = this.table;
+        this.table = new Object[capacity];
+        this.threshold = (int) ( capacity * LOAD_FACTOR );
+        this.removed = 0;
+        if ( oldTable == null || size == 0 ) {
+            return;
+        }
+        int mask = capacity - 1;
+        for ( Object slot : oldTable ) {
+            if ( slot != null && slot != REMOVED ) {
+                int i = comparator.hashCodeOf( slot ) & mask;
+                while ( table[i] != null ) {
+                    i = ( i + 1 ) & mask;
+                }
+                table[i] = slot;
+            }
+        }
+    }
+
+    private static class HandleIterator implements java.util.Iterator {
+        private final Object[]     table;
+        private final int          type;
+        private final ObjectFilter filter;
+
+        private int                index = -1;
+        private InternalFactHandle next;
+
+        private HandleIterator(Object[] table,
+                               int type,
+                               ObjectFilter filter) {
+            this.table = table;
+            this.type = type;
+            this.filter = filter;
+            setNext();
+        }
+
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        public Object next() {
+            InternalFactHandle current = next;
+            if ( current == null ) {
+                throw new NoSuchElementException( "No more elements to return" );
+            }
+            setNext();
+            return type == JavaIteratorAdapter.OBJECT ? current.getObject() : current;
+        }
+
+        private void setNext() {
+            for ( index++; index < table.length; index++ ) {
+                Object slot = table[index];
+                if ( slot != null && slot != REMOVED &&
+                     ( filter == null || filter.accept( ( (InternalFactHandle) slot ).getObject() ) ) ) {
+                    next = (InternalFactHandle) slot;
+                    return;
+                }
+            }
+            next = null;
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException( "remove() is not support" );
+        }
+    }
+}
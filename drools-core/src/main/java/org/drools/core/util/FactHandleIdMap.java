@@ -0,0 +1,100 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.util;
+
+import org.drools.core.common.InternalFactHandle;
+
+/**
+ * A map of fact handles keyed by their id, with the ids kept as primitives in an open addressing
+ * table, so that neither the keys are boxed nor an entry is allocated per handle.
+ */
+public class FactHandleIdMap {
+
+    private static final int     MIN_CAPACITY = 16;
+    private static final float   LOAD_FACTOR  = 0.75f;
+
+    private int[]                ids;
+    private InternalFactHandle[] handles;
+    private int                  threshold;
+    private int                  size;
+
+    public FactHandleIdMap() {
+        resize( MIN_CAPACITY );
+    }
+
+    public InternalFactHandle get(int id) {
+        int mask = ids.length - 1;
+        for ( int i = AbstractHashTable.rehash( id ) & mask; handles[i] != null; i = ( i + 1 ) & mask ) {
+            if ( ids[i] == id ) {
+                return handles[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Maps the given id to the handle, returning the handle previously mapped to it, if any.
+     */
+    public InternalFactHandle put(int id,
+                                  InternalFactHandle handle) {
+        int mask = ids.length - 1;
+        int i = AbstractHashTable.rehash( id ) & mask;
+        for ( ; handles[i] != null; i = ( i + 1 ) & mask ) {
+            if ( ids[i] == id ) {
+                InternalFactHandle previous = handles[i];
+                handles[i] = handle;
+                return previous;
+            }
+        }
+        ids[i] = id;
+        handles[i] = handle;
+        if ( ++size >= threshold ) {
+            resize( ids.length << 1 );
+        }
+        return null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private void resize(int capacity) {
+        int[] oldIds = this.ids;
+        InternalFactHandle[] oldHandles = this.handles;
+        this.ids = new int[capacity];
+        this.handles = new InternalFactHandle[capacity];
+        this.threshold = (int) ( capacity * LOAD_FACTOR );
+        if ( oldHandles == null ) {
+            return;
+        }
+        int mask = capacity - 1;
+        for ( int j = 0; j < oldHandles.length; j++ ) {
+            if ( oldHandles[j] != null ) {
+                int i = AbstractHashTable.rehash( oldIds[j] ) & mask;
+                while ( handles[i] != null ) {
+                    i = ( i + 1 ) & mask;
+                }
+                ids[i] = oldIds[j];
+                handles[i] = oldHandles[j];
+            }
+        }
+    }
+}
@@ -136,6 +136,14 @@ public class ObjectHashMap extends AbstractHashTable implements Externalizable {
         return this.table[index];
     }
 
+    /**
+     * Returns the bucket for the given hash code, already rehashed as done by the comparator,
+     * so that the entries can be compared with a value without creating a key for it.
+     */
+    public Entry getBucketByHashCode(final int hashCode) {
+        return getBucket( hashCode );
+    }
+
     @Override
     public int getResizeHashcode(Entry entry) {
         // ObjectEntry always caches after rehash, so use the cached value
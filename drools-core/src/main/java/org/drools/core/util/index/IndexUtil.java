@@ -23,7 +23,6 @@ import static org.drools.core.util.ClassUtils.getter2property;
 public class IndexUtil {
 
     private static final boolean USE_COMPARISON_INDEX = true;
-    private static final boolean USE_RANGE_INDEX = USE_COMPARISON_INDEX && false;
 
     public static boolean compositeAllowed(BetaNodeFieldConstraint[] constraints, short betaNodeType) {
         // 1) If there is 1 or more unification restrictions it cannot be composite
@@ -56,42 +55,56 @@ public class IndexUtil {
         return constraint instanceof IndexableConstraint && ((IndexableConstraint)constraint).isIndexable(nodeType);
     }
 
-    private static boolean canHaveRangeIndex(short nodeType) {
-        return USE_COMPARISON_INDEX && ( nodeType == NodeTypeEnums.NotNode || nodeType == NodeTypeEnums.ExistsNode );
+    private static boolean isIndexable(BetaNodeFieldConstraint constraint, short nodeType, RuleBaseConfiguration config) {
+        return constraint instanceof IndexableConstraint && ((IndexableConstraint)constraint).getConstraintType().isIndexableForNode(nodeType, config);
     }
 
-    public static boolean isIndexableForNode(short nodeType, BetaNodeFieldConstraint constraint) {
+    private static boolean canHaveRangeIndex(short nodeType, RuleBaseConfiguration config) {
+        if ( !USE_COMPARISON_INDEX ) {
+            return false;
+        }
+        if ( nodeType == NodeTypeEnums.NotNode || nodeType == NodeTypeEnums.ExistsNode ) {
+            return true;
+        }
+        return nodeType == NodeTypeEnums.JoinNode && isBetaRangeIndexEnabled(config);
+    }
+
+    private static boolean isBetaRangeIndexEnabled(RuleBaseConfiguration config) {
+        return config != null && config.isBetaRangeIndexEnabled();
+    }
+
+    public static boolean isIndexableForNode(short nodeType, BetaNodeFieldConstraint constraint, RuleBaseConfiguration config) {
         if ( !(constraint instanceof IndexableConstraint) ) {
             return false;
         }
 
         ConstraintType constraintType = ((IndexableConstraint)constraint).getConstraintType();
-        return constraintType.isIndexableForNode(nodeType);
+        return constraintType.isIndexableForNode(nodeType, config);
     }
 
-    public static boolean[] isIndexableForNode(IndexPrecedenceOption indexPrecedenceOption, short nodeType, int keyDepth, BetaNodeFieldConstraint[] constraints) {
+    public static boolean[] isIndexableForNode(IndexPrecedenceOption indexPrecedenceOption, short nodeType, int keyDepth, BetaNodeFieldConstraint[] constraints, RuleBaseConfiguration config) {
         if (keyDepth < 1) {
             return new boolean[constraints.length];
         }
 
         return indexPrecedenceOption == IndexPrecedenceOption.EQUALITY_PRIORITY ?
-                findIndexableWithEqualityPriority(nodeType, keyDepth, constraints) :
-                findIndexableWithPatternOrder(nodeType, keyDepth, constraints);
+                findIndexableWithEqualityPriority(nodeType, keyDepth, constraints, config) :
+                findIndexableWithPatternOrder(nodeType, keyDepth, constraints, config);
     }
 
-    private static boolean[] findIndexableWithEqualityPriority(short nodeType, int keyDepth, BetaNodeFieldConstraint[] constraints) {
+    private static boolean[] findIndexableWithEqualityPriority(short nodeType, int keyDepth, BetaNodeFieldConstraint[] constraints, RuleBaseConfiguration config) {
         boolean[] indexable = new boolean[constraints.length];
         if (hasEqualIndexable(keyDepth, indexable, constraints)) {
             return indexable;
         }
 
-        if (!canHaveRangeIndex(nodeType)) {
+        if (!canHaveRangeIndex(nodeType, config)) {
             return indexable;
         }
 
         for (int i = 0; i < constraints.length; i++) {
-            if (isIndexable(constraints[i], nodeType)) {
-                sortRangeIndexable(constraints, indexable, i);
+            if (isIndexable(constraints[i], nodeType, config)) {
+                sortRangeIndexable(constraints, indexable, i, config);
                 break;
             }
         }
@@ -99,14 +112,14 @@ public class IndexUtil {
         return indexable;
     }
 
-    private static boolean[] findIndexableWithPatternOrder(short nodeType, int keyDepth, BetaNodeFieldConstraint[] constraints) {
+    private static boolean[] findIndexableWithPatternOrder(short nodeType, int keyDepth, BetaNodeFieldConstraint[] constraints, RuleBaseConfiguration config) {
         boolean[] indexable = new boolean[constraints.length];
         for (int i = 0; i < constraints.length; i++) {
-            if (isIndexable(constraints[i], nodeType)) {
+            if (isIndexable(constraints[i], nodeType, config)) {
                 if (isEqualIndexable(constraints[i])) {
                     sortEqualIndexable(keyDepth, indexable, constraints, i);
                 } else {
-                    sortRangeIndexable(constraints, indexable, i);
+                    sortRangeIndexable(constraints, indexable, i, config);
                 }
                 break;
             }
@@ -134,8 +147,8 @@ public class IndexUtil {
         return hasEqualIndexable;
     }
 
-    private static void sortRangeIndexable(BetaNodeFieldConstraint[] constraints, boolean[] indexable, int i) {
-        int dualConstraintPosition = findDualConstraint(constraints, i);
+    private static void sortRangeIndexable(BetaNodeFieldConstraint[] constraints, boolean[] indexable, int i, RuleBaseConfiguration config) {
+        int dualConstraintPosition = findDualConstraint(constraints, i, config);
         swap(constraints, i, 0);
         indexable[0] = true;
         if (dualConstraintPosition > 0) {
@@ -144,8 +157,8 @@ public class IndexUtil {
         }
     }
 
-    private static int findDualConstraint(BetaNodeFieldConstraint[] constraints, int comparisonPos) {
-        if ( !(USE_RANGE_INDEX && constraints[comparisonPos] instanceof MvelConstraint) ) {
+    private static int findDualConstraint(BetaNodeFieldConstraint[] constraints, int comparisonPos, RuleBaseConfiguration config) {
+        if ( !(isBetaRangeIndexEnabled(config) && constraints[comparisonPos] instanceof MvelConstraint) ) {
             return -1;
         }
         MvelConstraint firstConstraint = (MvelConstraint) constraints[comparisonPos];
@@ -210,6 +223,10 @@ public class IndexUtil {
         }
 
         public boolean isIndexableForNode(short nodeType) {
+            return isIndexableForNode(nodeType, null);
+        }
+
+        public boolean isIndexableForNode(short nodeType, RuleBaseConfiguration config) {
             switch (this) {
                 case EQUAL:
                     return true;
@@ -217,7 +234,7 @@ public class IndexUtil {
                 case UNKNOWN:
                     return false;
                 default:
-                    return canHaveRangeIndex(nodeType);
+                    return canHaveRangeIndex(nodeType, config);
             }
         }
 
@@ -254,7 +271,7 @@ public class IndexUtil {
             return Collections.emptyList();
         }
 
-        Factory.IndexSpec indexSpec = new Factory.IndexSpec(config.getIndexPrecedenceOption(), keyDepth, betaNode.getType(), betaNode.getConstraints());
+        Factory.IndexSpec indexSpec = new Factory.IndexSpec(config, keyDepth, betaNode.getType(), betaNode.getConstraints());
         List<String> indexedProps = new ArrayList<String>();
         for (FieldIndex fieldIndex : indexSpec.indexes) {
             indexedProps.add( getter2property(fieldIndex.getExtractor().getNativeReadMethodName()) );
@@ -273,7 +290,7 @@ public class IndexUtil {
                                        nodeType );
             }
 
-            IndexSpec indexSpec = new IndexSpec(config.getIndexPrecedenceOption(), keyDepth, nodeType, constraints);
+            IndexSpec indexSpec = new IndexSpec(config, keyDepth, nodeType, constraints);
             return new BetaMemory( createLeftMemory(config, indexSpec),
                                    createRightMemory(config, indexSpec),
                                    createContext(constraints),
@@ -294,7 +311,6 @@ public class IndexUtil {
             }
 
             if (indexSpec.constraintType == ConstraintType.RANGE) {
-                // missing TreeMap based implementation for range indexes
                 return new RightTupleIndexRangeRBTree( indexSpec.ascendingConstraintType, indexSpec.indexes[0],
                                                        indexSpec.descendingConstraintType, indexSpec.indexes[1] );
             }
@@ -319,7 +335,6 @@ public class IndexUtil {
             }
 
             if (indexSpec.constraintType == ConstraintType.RANGE) {
-                // missing TreeMap based implementation for range indexes
                 return new LeftTupleIndexRangeRBTree( indexSpec.ascendingConstraintType, indexSpec.indexes[0],
                                                       indexSpec.descendingConstraintType, indexSpec.indexes[1] );
             }
@@ -342,14 +357,14 @@ public class IndexUtil {
             private ConstraintType ascendingConstraintType = null;
             private ConstraintType descendingConstraintType = null;
 
-            private IndexSpec(IndexPrecedenceOption indexPrecedenceOption, int keyDepth, short nodeType, BetaNodeFieldConstraint[] constraints) {
-                init(indexPrecedenceOption, keyDepth, nodeType, constraints);
+            private IndexSpec(RuleBaseConfiguration config, int keyDepth, short nodeType, BetaNodeFieldConstraint[] constraints) {
+                init(config, keyDepth, nodeType, constraints);
             }
 
-            private void init(IndexPrecedenceOption indexPrecedenceOption, int keyDepth, short nodeType, BetaNodeFieldConstraint[] constraints) {
-                int firstIndexableConstraint = indexPrecedenceOption == IndexPrecedenceOption.EQUALITY_PRIORITY ?
-                        determineTypeWithEqualityPriority(nodeType, constraints) :
-                        determineTypeWithPatternOrder(nodeType, constraints);
+            private void init(RuleBaseConfiguration config, int keyDepth, short nodeType, BetaNodeFieldConstraint[] constraints) {
+                int firstIndexableConstraint = config.getIndexPrecedenceOption() == IndexPrecedenceOption.EQUALITY_PRIORITY ?
+                        determineTypeWithEqualityPriority(nodeType, constraints, config) :
+                        determineTypeWithPatternOrder(nodeType, constraints, config);
 
                 if (constraintType == ConstraintType.EQUAL) {
                     List<FieldIndex> indexList = new ArrayList<FieldIndex>();
@@ -365,7 +380,7 @@ public class IndexUtil {
 
                 } else if (constraintType.isComparison()) {
                     // look for a dual constraint to create a range index
-                    if (USE_RANGE_INDEX && constraints[firstIndexableConstraint] instanceof MvelConstraint) {
+                    if (isBetaRangeIndexEnabled(config) && constraints[firstIndexableConstraint] instanceof MvelConstraint) {
                         MvelConstraint firstConstraint = (MvelConstraint) constraints[firstIndexableConstraint];
                         String leftValue = getLeftValueInExpression(firstConstraint.getExpression());
                         for (int i = firstIndexableConstraint+1; i < constraints.length; i++) {
@@ -392,7 +407,7 @@ public class IndexUtil {
                 }
             }
 
-            private int determineTypeWithEqualityPriority(short nodeType, BetaNodeFieldConstraint[] constraints) {
+            private int determineTypeWithEqualityPriority(short nodeType, BetaNodeFieldConstraint[] constraints, RuleBaseConfiguration config) {
                 int indexedConstraintPos = 0;
                 for (int i = 0; i < constraints.length; i++) {
                     if (constraints[i] instanceof IndexableConstraint) {
@@ -401,7 +416,7 @@ public class IndexUtil {
                         if (type == ConstraintType.EQUAL) {
                             constraintType = type;
                             return i;
-                        } else if (constraintType == ConstraintType.UNKNOWN && type.isIndexableForNode(nodeType)) {
+                        } else if (constraintType == ConstraintType.UNKNOWN && type.isIndexableForNode(nodeType, config)) {
                             constraintType = type;
                             indexedConstraintPos = i;
                         }
@@ -410,10 +425,10 @@ public class IndexUtil {
                 return indexedConstraintPos;
             }
 
-            private int determineTypeWithPatternOrder(short nodeType, BetaNodeFieldConstraint[] constraints) {
+            private int determineTypeWithPatternOrder(short nodeType, BetaNodeFieldConstraint[] constraints, RuleBaseConfiguration config) {
                 for (int i = 0; i < constraints.length; i++) {
                     ConstraintType type = ConstraintType.getType(constraints[i]);
-                    if ( type.isIndexableForNode(nodeType) ) {
+                    if ( type.isIndexableForNode(nodeType, config) ) {
                         constraintType = type;
                         return i;
                     }
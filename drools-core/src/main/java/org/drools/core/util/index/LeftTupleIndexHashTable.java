@@ -19,6 +19,7 @@ package org.drools.core.util.index;
 import org.drools.core.reteoo.LeftTuple;
 import org.drools.core.reteoo.LeftTupleMemory;
 import org.drools.core.reteoo.RightTuple;
+import org.drools.core.reteoo.RightTupleMemory.IndexType;
 import org.drools.core.util.AbstractHashTable;
 import org.drools.core.util.Entry;
 import org.drools.core.util.FastIterator;
@@ -235,6 +236,10 @@ public class LeftTupleIndexHashTable extends AbstractHashTable
         return true;
     }
 
+    public IndexType getIndexType() {
+        return IndexType.EQUAL;
+    }
+
     public Index getIndex() {
         return this.index;
     }
@@ -10,6 +10,7 @@ import org.drools.core.util.LeftTupleRBTree.Boundary;
 import org.drools.core.reteoo.LeftTuple;
 import org.drools.core.reteoo.LeftTupleMemory;
 import org.drools.core.reteoo.RightTuple;
+import org.drools.core.reteoo.RightTupleMemory.IndexType;
 
 import java.io.Externalizable;
 import java.io.IOException;
@@ -22,6 +23,9 @@ public class LeftTupleIndexRBTree implements LeftTupleMemory, Externalizable {
 
     private LeftTupleRBTree<Comparable<Comparable>> tree;
 
+    // the tree can't hold null keys, the tuples with a null value are kept apart since they match no comparison
+    private LeftTupleList nullTuples;
+
     private AbstractHashTable.FieldIndex index;
     private IndexUtil.ConstraintType constraintType;
 
@@ -35,10 +39,12 @@ public class LeftTupleIndexRBTree implements LeftTupleMemory, Externalizable {
         this.index = index;
         this.constraintType = constraintType;
         tree = new LeftTupleRBTree<Comparable<Comparable>>();
+        nullTuples = new LeftTupleList();
     }
 
     public void writeExternal(ObjectOutput out) throws IOException {
         out.writeObject( tree );
+        out.writeObject( nullTuples );
         out.writeObject( index );
         out.writeObject( constraintType );
         out.writeInt(size);
@@ -46,6 +52,7 @@ public class LeftTupleIndexRBTree implements LeftTupleMemory, Externalizable {
 
     public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
         tree = (LeftTupleRBTree<Comparable<Comparable>>) in.readObject();
+        nullTuples = (LeftTupleList) in.readObject();
         index = (AbstractHashTable.FieldIndex) in.readObject();
         constraintType = (IndexUtil.ConstraintType) in.readObject();
         size = in.readInt();
@@ -53,7 +60,7 @@ public class LeftTupleIndexRBTree implements LeftTupleMemory, Externalizable {
 
     public void add(LeftTuple tuple) {
         Comparable key = getIndexedValue(tuple);
-        LeftTupleList list = tree.insert(key);
+        LeftTupleList list = key == null ? nullTuples : tree.insert(key);
         list.add(tuple);
         size++;
     }
@@ -61,7 +68,7 @@ public class LeftTupleIndexRBTree implements LeftTupleMemory, Externalizable {
     public void remove(LeftTuple tuple) {
         LeftTupleList list = tuple.getMemory();
         list.remove(tuple);
-        if (list.getFirst() == null) {
+        if (list != nullTuples && list.getFirst() == null) {
             tree.delete(((Node<Comparable<Comparable>>)list).key);
         }
         size--;
@@ -76,26 +83,20 @@ public class LeftTupleIndexRBTree implements LeftTupleMemory, Externalizable {
         return true;
     }
 
+    public IndexType getIndexType() {
+        return IndexType.COMPARISON;
+    }
+
     public int size() {
         return size;
     }
 
     public Entry[] toArray() {
-        FastIterator it = tree.fastIterator();
-        if (it == null) {
-            return new Entry[0];
-        }
-
-        List<Comparable> toBeRemoved = new ArrayList<Comparable>();
         List<LeftTuple> result = new ArrayList<LeftTuple>();
 
-        LeftTupleList list = null;
-        while ( (list = (LeftTupleList) it.next( list )) != null ) {
-            LeftTuple entry = list.getFirst();
-            while (entry != null) {
-                result.add(entry);
-                entry = (LeftTuple) entry.getNext();
-            }
+        FastIterator it = fullFastIterator();
+        for (LeftTuple entry = (LeftTuple) it.next(null); entry != null; entry = (LeftTuple) it.next(entry)) {
+            result.add(entry);
         }
 
         return result.toArray(new LeftTuple[result.size()]);
@@ -103,18 +104,16 @@ public class LeftTupleIndexRBTree implements LeftTupleMemory, Externalizable {
 
     public LeftTuple getFirst(RightTuple rightTuple) {
         Comparable key = getIndexedValue(rightTuple);
-        return getNext(key, true);
+        return key == null ? null : getNext(key, true);
     }
 
     public Iterator iterator() {
-        LeftTupleList list = tree.first();
-        LeftTuple firstTuple = list != null ? list.first : null;
-        return new FastIterator.IteratorAdapter(fastIterator(), firstTuple);
+        return new FastIterator.IteratorAdapter(fullFastIterator(), (LeftTuple) fullFastIterator().next(null));
     }
 
     public boolean contains(LeftTuple leftTuple) {
         Comparable key = getIndexedValue(leftTuple);
-        return tree.lookup(key) != null;
+        return key == null ? nullTuples.getFirst() != null : tree.lookup(key) != null;
     }
 
     public FastIterator fastIterator() {
@@ -122,14 +121,12 @@ public class LeftTupleIndexRBTree implements LeftTupleMemory, Externalizable {
     }
 
     public FastIterator fullFastIterator() {
-        return new LeftTupleFastIterator();
+        return new LeftTupleFullFastIterator();
     }
 
     public FastIterator fullFastIterator(LeftTuple leftTuple) {
-        FastIterator fastIterator = fullFastIterator();
-        Comparable key = getIndexedValue(leftTuple);
-        fastIterator.next(getNext(key, true));
-        return fastIterator;
+        // the full iterator is stateless, it resumes from the bucket of the given tuple
+        return fullFastIterator();
     }
 
     private Comparable getIndexedValue(LeftTuple leftTuple) {
@@ -172,8 +169,8 @@ public class LeftTupleIndexRBTree implements LeftTupleMemory, Externalizable {
             if (next != null) {
                 return next;
             }
-            Comparable key = getIndexedValue(leftTuple);
-            return getNext(key, false);
+            // use the key of the bucket, the indexed value of the tuple could have been changed by a pending modify
+            return getNext(getBucketKey(leftTuple), false);
         }
 
         public boolean isFullIterator() {
@@ -181,7 +178,40 @@ public class LeftTupleIndexRBTree implements LeftTupleMemory, Externalizable {
         }
     }
 
+    public class LeftTupleFullFastIterator implements FastIterator {
+        public Entry next(Entry object) {
+            if (object == null) {
+                return nullTuples.getFirst() != null ? nullTuples.getFirst() : getFirstInTree();
+            }
+            LeftTuple leftTuple = (LeftTuple) object;
+            LeftTuple next = (LeftTuple) leftTuple.getNext();
+            if (next != null) {
+                return next;
+            }
+            if (leftTuple.getMemory() == nullTuples) {
+                return getFirstInTree();
+            }
+            Node<Comparable<Comparable>> nextNode = tree.findNearestNode(getBucketKey(leftTuple), false, Boundary.LOWER);
+            return nextNode == null ? null : nextNode.getFirst();
+        }
+
+        public boolean isFullIterator() {
+            return true;
+        }
+    }
+
+    private LeftTuple getFirstInTree() {
+        Node<Comparable<Comparable>> firstNode = tree.first();
+        return firstNode == null ? null : firstNode.getFirst();
+    }
+
+    private Comparable getBucketKey(LeftTuple leftTuple) {
+        return ((Node<Comparable<Comparable>>) leftTuple.getMemory()).key;
+    }
+
     public void clear() {
         tree = new LeftTupleRBTree<Comparable<Comparable>>();
+        nullTuples = new LeftTupleList();
+        size = 0;
     }
 }
@@ -8,6 +8,7 @@ import org.drools.core.util.RBTree;
 import org.drools.core.reteoo.LeftTuple;
 import org.drools.core.reteoo.LeftTupleMemory;
 import org.drools.core.reteoo.RightTuple;
+import org.drools.core.reteoo.RightTupleMemory.IndexType;
 
 import java.io.Externalizable;
 import java.io.IOException;
@@ -16,18 +17,28 @@ import java.io.ObjectOutput;
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Left memory for a pair of dual comparisons, like <code>Price( value &gt; $min, value &lt; $max )</code>.
+ * The LeftTuples are stored in buckets sharing the same lower and upper bound, held in a tree ordered
+ * by lower bound whose entries are trees ordered by upper bound. The matches of a RightTuple are all
+ * the buckets whose lower bound is below and whose upper bound is above its indexed value.
+ */
 public class LeftTupleIndexRangeRBTree implements LeftTupleMemory, Externalizable {
 
-    private RBTree<Comparable<Comparable>, RBTree<Comparable<Comparable>, LeftTupleList>> tree;
+    private RBTree<Comparable<Comparable>, RBTree<Comparable<Comparable>, RangeBucket>> tree;
+
+    // the trees can't hold null keys, the tuples with a null bound are kept apart since they match no value
+    private RangeBucket nullTuples;
 
     private AbstractHashTable.FieldIndex ascendingIndex;
     private IndexUtil.ConstraintType ascendingConstraintType;
 
     private AbstractHashTable.FieldIndex descendingIndex;
     private IndexUtil.ConstraintType descendingConstraintType;
-    
-    
-    private transient LeftTupleFastIterator leftTupleFastIterator;
+
+    // the value of the RightTuple passed to the last getFirst, the memory of a node is only
+    // iterated by the thread evaluating its segment and iterations over it are never nested
+    private transient Comparable rightValue;
 
     private int size;
 
@@ -36,17 +47,18 @@ public class LeftTupleIndexRangeRBTree implements LeftTupleMemory, Externalizabl
     }
 
     public LeftTupleIndexRangeRBTree(IndexUtil.ConstraintType ascendingConstraintType, AbstractHashTable.FieldIndex ascendingIndex,
-                                      IndexUtil.ConstraintType descendingConstraintType, AbstractHashTable.FieldIndex descendingIndex) {
+                                     IndexUtil.ConstraintType descendingConstraintType, AbstractHashTable.FieldIndex descendingIndex) {
         this.ascendingIndex = ascendingIndex;
         this.ascendingConstraintType = ascendingConstraintType;
         this.descendingIndex = descendingIndex;
         this.descendingConstraintType = descendingConstraintType;
-        tree = new RBTree<Comparable<Comparable>, RBTree<Comparable<Comparable>, LeftTupleList>>();
+        tree = new RBTree<Comparable<Comparable>, RBTree<Comparable<Comparable>, RangeBucket>>();
+        nullTuples = new RangeBucket(null, null);
     }
 
-
     public void writeExternal(ObjectOutput out) throws IOException {
         out.writeObject( tree );
+        out.writeObject( nullTuples );
         out.writeObject( ascendingIndex );
         out.writeObject( ascendingConstraintType );
         out.writeObject( descendingIndex );
@@ -55,7 +67,8 @@ public class LeftTupleIndexRangeRBTree implements LeftTupleMemory, Externalizabl
     }
 
     public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
-        tree = (RBTree<Comparable<Comparable>, RBTree<Comparable<Comparable>, LeftTupleList>>) in.readObject();
+        tree = (RBTree<Comparable<Comparable>, RBTree<Comparable<Comparable>, RangeBucket>>) in.readObject();
+        nullTuples = (RangeBucket) in.readObject();
         ascendingIndex = (AbstractHashTable.FieldIndex) in.readObject();
         ascendingConstraintType = (IndexUtil.ConstraintType) in.readObject();
         descendingIndex = (AbstractHashTable.FieldIndex) in.readObject();
@@ -66,121 +79,100 @@ public class LeftTupleIndexRangeRBTree implements LeftTupleMemory, Externalizabl
     public void add(LeftTuple leftTuple) {
         Comparable lowerBound = getLeftAscendingIndexedValue(leftTuple);
         Comparable upperBound = getLeftDescendingIndexedValue(leftTuple);
-        RBTree<Comparable<Comparable>, LeftTupleList> nestedTree = tree.lookup(lowerBound);
+        if (lowerBound == null || upperBound == null) {
+            nullTuples.add(leftTuple);
+            size++;
+            return;
+        }
+        RBTree<Comparable<Comparable>, RangeBucket> nestedTree = tree.lookup(lowerBound);
         if (nestedTree == null) {
-            nestedTree = new RBTree<Comparable<Comparable>, LeftTupleList>();
+            nestedTree = new RBTree<Comparable<Comparable>, RangeBucket>();
             tree.insert(lowerBound, nestedTree);
         }
-        LeftTupleList list = nestedTree.lookup(upperBound);
-        if (list == null) {
-            list = new LeftTupleList();
-            nestedTree.insert(upperBound, list);
+        RangeBucket bucket = nestedTree.lookup(upperBound);
+        if (bucket == null) {
+            bucket = new RangeBucket(lowerBound, upperBound);
+            nestedTree.insert(upperBound, bucket);
         }
-        list.add(leftTuple);
+        bucket.add(leftTuple);
         size++;
     }
 
-    public void remove(LeftTuple tuple) {
-        tuple.getMemory().remove(tuple);
+    public void remove(LeftTuple leftTuple) {
+        RangeBucket bucket = (RangeBucket) leftTuple.getMemory();
+        bucket.remove(leftTuple);
+        if (bucket != nullTuples && bucket.getFirst() == null) {
+            RBTree<Comparable<Comparable>, RangeBucket> nestedTree = tree.lookup(bucket.lowerBound);
+            nestedTree.delete(bucket.upperBound);
+            if (nestedTree.isEmpty()) {
+                tree.delete(bucket.lowerBound);
+            }
+        }
         size--;
     }
 
-    public void removeAdd(LeftTuple tuple) {
-        remove(tuple);
-        add(tuple);
+    public void removeAdd(LeftTuple leftTuple) {
+        remove(leftTuple);
+        add(leftTuple);
     }
 
     public boolean isIndexed() {
         return true;
     }
 
+    public IndexType getIndexType() {
+        return IndexType.RANGE;
+    }
+
     public int size() {
         return size;
     }
 
     public Entry[] toArray() {
-        FastIterator it = tree.fastIterator();
-        if (it == null) {
-            return new Entry[0];
-        }
-
-        List<Comparable> toBeRemoved = new ArrayList<Comparable>();
-        List<Comparable> nestedToBeRemoved = new ArrayList<Comparable>();
         List<LeftTuple> result = new ArrayList<LeftTuple>();
 
-        RBTree.Node<Comparable<Comparable>, RBTree<Comparable<Comparable>, LeftTupleList>> node = null;
-        RBTree.Node<Comparable<Comparable>, LeftTupleList> nestedNode = null;
-
-        while ( (node = (RBTree.Node<Comparable<Comparable>, RBTree<Comparable<Comparable>, LeftTupleList>>) it.next( node )) != null ) {
-            nestedToBeRemoved.clear();
-            RBTree<Comparable<Comparable>, LeftTupleList> nestedTree = node.value;
-            FastIterator nestedIt = nestedTree.fastIterator();
-
-            while ( (nestedNode = (RBTree.Node<Comparable<Comparable>, LeftTupleList>) nestedIt.next( nestedNode )) != null ) {
-                LeftTupleList list = nestedNode.value;
-                int listSize = list.size();
-                if (listSize == 0) {
-                    nestedToBeRemoved.add(nestedNode.key);
-                } else {
-                    LeftTuple entry = list.getFirst();
-                    while (entry != null) {
-                        result.add(entry);
-                        entry = (LeftTuple) entry.getNext();
-                    }
-                }
-            }
-
-            for (Comparable key : nestedToBeRemoved) {
-                nestedTree.delete(key);
-            }
-
-            if (nestedTree.isEmpty()) {
-                toBeRemoved.add(node.key);
-            }
-        }
-
-        for (Comparable key : toBeRemoved) {
-            tree.delete(key);
+        FastIterator it = fullFastIterator();
+        for (LeftTuple entry = (LeftTuple) it.next(null); entry != null; entry = (LeftTuple) it.next(entry)) {
+            result.add(entry);
         }
 
         return result.toArray(new LeftTuple[result.size()]);
     }
 
     public LeftTuple getFirst(RightTuple rightTuple) {
-        Comparable key = getRightIndexedValue(rightTuple);
-        return getFirst(key);
+        rightValue = getRightIndexedValue(rightTuple);
+        if (rightValue == null) {
+            return null;
+        }
+        RBTree.Node<Comparable<Comparable>, RBTree<Comparable<Comparable>, RangeBucket>> node = tree.first();
+        return node == null ? null : findFirst(node, rightValue);
     }
 
     public Iterator iterator() {
-        LeftTupleList list = tree.first().value.first().value;
-        LeftTuple firstTuple = list != null ? list.first : null;
-        return new FastIterator.IteratorAdapter(fastIterator(), firstTuple);
+        return new FastIterator.IteratorAdapter(fullFastIterator(), (LeftTuple) fullFastIterator().next(null));
     }
 
     public boolean contains(LeftTuple leftTuple) {
         Comparable lowerBound = getLeftAscendingIndexedValue(leftTuple);
-        RBTree<Comparable<Comparable>, LeftTupleList> nestedTree = tree.lookup(lowerBound);
-        return nestedTree == null ? false : nestedTree.lookup(getLeftDescendingIndexedValue(leftTuple)) != null;
+        Comparable upperBound = getLeftDescendingIndexedValue(leftTuple);
+        if (lowerBound == null || upperBound == null) {
+            return nullTuples.getFirst() != null;
+        }
+        RBTree<Comparable<Comparable>, RangeBucket> nestedTree = tree.lookup(lowerBound);
+        return nestedTree == null ? false : nestedTree.lookup(upperBound) != null;
     }
 
     public FastIterator fastIterator() {
-        if ( leftTupleFastIterator == null ) {
-            leftTupleFastIterator = new LeftTupleFastIterator();
-        }
-        return leftTupleFastIterator;
+        return new LeftTupleFastIterator();
     }
 
     public FastIterator fullFastIterator() {
-        if ( leftTupleFastIterator == null ) {
-            leftTupleFastIterator = new LeftTupleFastIterator();
-        }
-        return leftTupleFastIterator;
+        return new LeftTupleFullFastIterator();
     }
 
     public FastIterator fullFastIterator(LeftTuple leftTuple) {
-        FastIterator fastIterator = fullFastIterator();
-        fastIterator.next(getNext(leftTuple));
-        return fastIterator;
+        // the full iterator is stateless, it resumes from the bucket of the given tuple
+        return fullFastIterator();
     }
 
     private Comparable getLeftAscendingIndexedValue(LeftTuple leftTuple) {
@@ -195,107 +187,109 @@ public class LeftTupleIndexRangeRBTree implements LeftTupleMemory, Externalizabl
         return (Comparable) ascendingIndex.getExtractor().getValue( rightTuple.getFactHandle().getObject() );
     }
 
-    private LeftTuple getFirst(Comparable key) {
-        RBTree.Node<Comparable<Comparable>, RBTree<Comparable<Comparable>, LeftTupleList>> nestedNode = null;
-        RBTree.Node<Comparable<Comparable>, LeftTupleList> firstNode;
-
-        boolean findNextNestedNode = true;
-        while (true) {
-            if (findNextNestedNode) {
-                switch (ascendingConstraintType) {
-                    case GREATER_THAN:
-                        nestedNode = tree.findNearestNode(key, false, RBTree.Boundary.UPPER);
-                        break;
-                    case GREATER_OR_EQUAL:
-                        nestedNode = tree.findNearestNode(key, true, RBTree.Boundary.UPPER);
-                        break;
-                    default:
-                        throw new UnsupportedOperationException("Cannot call remove constraint of type: " + ascendingConstraintType);
-                }
+    /**
+     * Returns the first LeftTuple matching the given value, starting from the nested tree in the given node
+     * and moving to the ones with a greater lower bound, as long as the lower bound is below the value.
+     */
+    private LeftTuple findFirst(RBTree.Node<Comparable<Comparable>, RBTree<Comparable<Comparable>, RangeBucket>> node, Comparable value) {
+        boolean includeUpperBound = descendingConstraintType == IndexUtil.ConstraintType.LESS_OR_EQUAL;
+        while (node != null && isLowerBoundMatching(node.key, value)) {
+            RBTree.Node<Comparable<Comparable>, RangeBucket> nestedNode = node.value.findNearestNode(value, includeUpperBound, RBTree.Boundary.LOWER);
+            if (nestedNode != null) {
+                return nestedNode.value.getFirst();
             }
+            node = tree.findNearestNode(node.key, false, RBTree.Boundary.LOWER);
+        }
+        return null;
+    }
 
-            findNextNestedNode = true;
-            if (nestedNode == null) {
-                return null;
-            }
-            if (nestedNode.value.isEmpty()) {
-                tree.delete(nestedNode.key);
-                continue;
-            }
+    private boolean isLowerBoundMatching(Comparable lowerBound, Comparable value) {
+        int compResult = lowerBound.compareTo(value);
+        return compResult < 0 || (compResult == 0 && ascendingConstraintType == IndexUtil.ConstraintType.GREATER_OR_EQUAL);
+    }
 
-            RBTree<Comparable<Comparable>, LeftTupleList> nestedTree = nestedNode.value;
-            while (true) {
-                switch (descendingConstraintType) {
-                    case LESS_THAN:
-                        firstNode = nestedTree.findNearestNode(key, false, RBTree.Boundary.LOWER);
-                        break;
-                    case LESS_OR_EQUAL:
-                        firstNode = nestedTree.findNearestNode(key, true, RBTree.Boundary.LOWER);
-                        break;
-                    default:
-                        throw new UnsupportedOperationException("Cannot call remove constraint of type: " + descendingConstraintType);
-                }
-
-                if (firstNode != null && firstNode.value.size() == 0) {
-                    nestedTree.delete(firstNode.key);
-                    firstNode = null;
-                }
-
-                if (firstNode == null) {
-                    nestedNode = tree.findNearestNode(nestedNode.key, false, RBTree.Boundary.UPPER);
-                    if (nestedNode == null) {
-                        return null;
-                    }
-                    findNextNestedNode = false;
-                    break;
-                }
-
-                return firstNode.value.getFirst();
-            }
+    private RangeBucket getNextBucket(RangeBucket bucket) {
+        RBTree<Comparable<Comparable>, RangeBucket> nestedTree = tree.lookup(bucket.lowerBound);
+        if (nestedTree == null) {
+            return null;
         }
+        RBTree.Node<Comparable<Comparable>, RangeBucket> nestedNode = nestedTree.findNearestNode(bucket.upperBound, false, RBTree.Boundary.LOWER);
+        return nestedNode == null ? null : nestedNode.value;
     }
 
-    private Entry getNext(LeftTuple leftTuple) {
-        LeftTuple next = (LeftTuple) leftTuple.getNext();
-        if (next != null) {
-            return next;
-        }
+    public class LeftTupleFastIterator implements FastIterator {
+        public Entry next(Entry object) {
+            if (object == null) {
+                return null;
+            }
+            LeftTuple leftTuple = (LeftTuple) object;
+            LeftTuple next = (LeftTuple) leftTuple.getNext();
+            if (next != null) {
+                return next;
+            }
 
-        Comparable ascendingKey = getLeftAscendingIndexedValue(leftTuple);
-        Comparable descendingKey = getLeftDescendingIndexedValue(leftTuple);
-
-        RBTree<Comparable<Comparable>, LeftTupleList> nestedTree = tree.lookup(ascendingKey);
-        while (nestedTree != null) {
-            while (true) {
-                RBTree.Node<Comparable<Comparable>, LeftTupleList> nextNode = nestedTree.findNearestNode(descendingKey, false, RBTree.Boundary.LOWER);
-                if (nextNode == null) {
-                    break;
-                }
-                if (nextNode.value.size() == 0) {
-                    nestedTree.delete(nextNode.key);
-                } else {
-                    return nextNode.value.getFirst();
-                }
+            // all the buckets with the same lower bound and a greater upper bound are matching as well
+            RangeBucket bucket = (RangeBucket) leftTuple.getMemory();
+            RangeBucket nextBucket = getNextBucket(bucket);
+            if (nextBucket != null) {
+                return nextBucket.getFirst();
             }
 
-            RBTree.Node<Comparable<Comparable>, RBTree<Comparable<Comparable>, LeftTupleList>> nextNode = tree.findNearestNode(ascendingKey, false, RBTree.Boundary.UPPER);
-            nestedTree = nextNode == null ? null : nextNode.value;
+            return findFirst(tree.findNearestNode(bucket.lowerBound, false, RBTree.Boundary.LOWER), rightValue);
         }
 
-        return null;
+        public boolean isFullIterator() {
+            return false;
+        }
     }
 
-    public class LeftTupleFastIterator implements FastIterator {
+    public class LeftTupleFullFastIterator implements FastIterator {
         public Entry next(Entry object) {
-            return object == null ? null : getNext((LeftTuple) object);
+            if (object == null) {
+                return nullTuples.getFirst() != null ? nullTuples.getFirst() : getFirstInTree();
+            }
+            LeftTuple leftTuple = (LeftTuple) object;
+            LeftTuple next = (LeftTuple) leftTuple.getNext();
+            if (next != null) {
+                return next;
+            }
+
+            RangeBucket bucket = (RangeBucket) leftTuple.getMemory();
+            if (bucket == nullTuples) {
+                return getFirstInTree();
+            }
+            RangeBucket nextBucket = getNextBucket(bucket);
+            if (nextBucket != null) {
+                return nextBucket.getFirst();
+            }
+
+            RBTree.Node<Comparable<Comparable>, RBTree<Comparable<Comparable>, RangeBucket>> node = tree.findNearestNode(bucket.lowerBound, false, RBTree.Boundary.LOWER);
+            return node == null ? null : node.value.first().value.getFirst();
         }
 
         public boolean isFullIterator() {
-            return false;
+            return true;
         }
     }
 
+    private LeftTuple getFirstInTree() {
+        RBTree.Node<Comparable<Comparable>, RBTree<Comparable<Comparable>, RangeBucket>> node = tree.first();
+        return node == null ? null : node.value.first().value.getFirst();
+    }
+
     public void clear() {
-        tree = new RBTree<Comparable<Comparable>, RBTree<Comparable<Comparable>, LeftTupleList>>();
+        tree = new RBTree<Comparable<Comparable>, RBTree<Comparable<Comparable>, RangeBucket>>();
+        nullTuples = new RangeBucket(null, null);
+        size = 0;
+    }
+
+    public static class RangeBucket extends LeftTupleList {
+        private final Comparable lowerBound;
+        private final Comparable upperBound;
+
+        public RangeBucket(Comparable lowerBound, Comparable upperBound) {
+            this.lowerBound = lowerBound;
+            this.upperBound = upperBound;
+        }
     }
 }
@@ -24,6 +24,7 @@ import org.drools.core.util.LinkedList;
 import org.drools.core.reteoo.LeftTuple;
 import org.drools.core.reteoo.LeftTupleMemory;
 import org.drools.core.reteoo.RightTuple;
+import org.drools.core.reteoo.RightTupleMemory.IndexType;
 
 public class LeftTupleList
     implements
@@ -261,6 +262,10 @@ public class LeftTupleList
         return false;
     }
 
+    public IndexType getIndexType() {
+        return IndexType.NONE;
+    }
+
     public boolean matches(final Object object,
                            final int objectHashCode) {
         return this.hashCode == objectHashCode && this.index.equal( object,
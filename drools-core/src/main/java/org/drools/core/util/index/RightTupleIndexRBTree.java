@@ -24,6 +24,9 @@ public class RightTupleIndexRBTree implements RightTupleMemory, Externalizable {
 
     private RightTupleRBTree<Comparable<Comparable>> tree;
 
+    // the tree can't hold null keys, the tuples with a null value are kept apart since they match no comparison
+    private RightTupleList nullTuples;
+
     private FieldIndex index;
     private ConstraintType constraintType;
 
@@ -37,10 +40,12 @@ public class RightTupleIndexRBTree implements RightTupleMemory, Externalizable {
         this.index = index;
         this.constraintType = constraintType;
         tree = new RightTupleRBTree<Comparable<Comparable>>();
+        nullTuples = new RightTupleList();
     }
 
     public void writeExternal(ObjectOutput out) throws IOException {
         out.writeObject( tree );
+        out.writeObject( nullTuples );
         out.writeObject( index );
         out.writeObject( constraintType );
         out.writeInt(size);
@@ -48,6 +53,7 @@ public class RightTupleIndexRBTree implements RightTupleMemory, Externalizable {
 
     public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
         tree = (RightTupleRBTree<Comparable<Comparable>>) in.readObject();
+        nullTuples = (RightTupleList) in.readObject();
         index = (FieldIndex) in.readObject();
         constraintType = (ConstraintType) in.readObject();
         size = in.readInt();
@@ -55,7 +61,7 @@ public class RightTupleIndexRBTree implements RightTupleMemory, Externalizable {
 
     public void add(RightTuple tuple) {
         Comparable key = getIndexedValue(tuple);
-        RightTupleList list = tree.insert(key);
+        RightTupleList list = key == null ? nullTuples : tree.insert(key);
         list.add(tuple);
         size++;
     }
@@ -63,7 +69,7 @@ public class RightTupleIndexRBTree implements RightTupleMemory, Externalizable {
     public void remove(RightTuple tuple) {
         RightTupleList list = tuple.getMemory();
         list.remove(tuple);
-        if (list.getFirst() == null) {
+        if (list != nullTuples && list.getFirst() == null) {
             tree.delete(((RightTupleRBTree.Node<Comparable<Comparable>>)list).key);
         }
         size--;
@@ -83,40 +89,28 @@ public class RightTupleIndexRBTree implements RightTupleMemory, Externalizable {
     }
 
     public Entry[] toArray() {
-        FastIterator it = tree.fastIterator();
-        if (it == null) {
-            return new Entry[0];
-        }
-
-        List<Comparable> toBeRemoved = new ArrayList<Comparable>();
         List<RightTuple> result = new ArrayList<RightTuple>();
 
-        RightTupleList list = null;
-        while ( (list = (RightTupleList) it.next( list )) != null ) {
-            RightTuple entry = list.getFirst();
-            while (entry != null) {
-                result.add(entry);
-                entry = (RightTuple) entry.getNext();
-            }
+        FastIterator it = fullFastIterator();
+        for (RightTuple entry = (RightTuple) it.next(null); entry != null; entry = (RightTuple) it.next(entry)) {
+            result.add(entry);
         }
 
-        return result.toArray(new LeftTuple[result.size()]);
+        return result.toArray(new RightTuple[result.size()]);
     }
 
     public RightTuple getFirst(LeftTuple tuple, InternalFactHandle factHandle, FastIterator rightTupleIterator) {
         Comparable key = getIndexedValue(tuple);
-        return getNext(key, true);
+        return key == null ? null : getNext(key, true);
     }
 
     public Iterator iterator() {
-        RightTupleList list = tree.first();
-        RightTuple firstTuple = list != null ? list.first : null;
-        return new FastIterator.IteratorAdapter(fastIterator(), firstTuple);
+        return new FastIterator.IteratorAdapter(fullFastIterator(), (RightTuple) fullFastIterator().next(null));
     }
 
     public boolean contains(RightTuple tuple) {
         Comparable key = getIndexedValue(tuple);
-        return tree.lookup(key) != null;
+        return key == null ? nullTuples.getFirst() != null : tree.lookup(key) != null;
     }
 
     public FastIterator fastIterator() {
@@ -124,14 +118,12 @@ public class RightTupleIndexRBTree implements RightTupleMemory, Externalizable {
     }
 
     public FastIterator fullFastIterator() {
-        return new RightTupleFastIterator();
+        return new RightTupleFullFastIterator();
     }
 
     public FastIterator fullFastIterator(RightTuple tuple) {
-        FastIterator fastIterator = fullFastIterator();
-        Comparable key = getIndexedValue(tuple);
-        fastIterator.next(getNext(key, true));
-        return fastIterator;
+        // the full iterator is stateless, it resumes from the bucket of the given tuple
+        return fullFastIterator();
     }
 
     public IndexType getIndexType() {
@@ -178,8 +170,8 @@ public class RightTupleIndexRBTree implements RightTupleMemory, Externalizable {
             if (next != null) {
                 return next;
             }
-            Comparable key = getIndexedValue(rightTuple);
-            return getNext(key, false);
+            // use the key of the bucket, the indexed value of the fact could have been changed by a pending modify
+            return getNext(getBucketKey(rightTuple), false);
         }
 
         public boolean isFullIterator() {
@@ -187,7 +179,40 @@ public class RightTupleIndexRBTree implements RightTupleMemory, Externalizable {
         }
     }
 
+    public class RightTupleFullFastIterator implements FastIterator {
+        public Entry next(Entry object) {
+            if (object == null) {
+                return nullTuples.getFirst() != null ? nullTuples.getFirst() : getFirstInTree();
+            }
+            RightTuple rightTuple = (RightTuple) object;
+            RightTuple next = (RightTuple) rightTuple.getNext();
+            if (next != null) {
+                return next;
+            }
+            if (rightTuple.getMemory() == nullTuples) {
+                return getFirstInTree();
+            }
+            Node<Comparable<Comparable>> nextNode = tree.findNearestNode(getBucketKey(rightTuple), false, Boundary.LOWER);
+            return nextNode == null ? null : nextNode.getFirst();
+        }
+
+        public boolean isFullIterator() {
+            return true;
+        }
+    }
+
+    private RightTuple getFirstInTree() {
+        Node<Comparable<Comparable>> firstNode = tree.first();
+        return firstNode == null ? null : firstNode.getFirst();
+    }
+
+    private Comparable getBucketKey(RightTuple rightTuple) {
+        return ((Node<Comparable<Comparable>>) rightTuple.getMemory()).key;
+    }
+
     public void clear() {
         tree = new RightTupleRBTree<Comparable<Comparable>>();
+        nullTuples = new RightTupleList();
+        size = 0;
     }
 }
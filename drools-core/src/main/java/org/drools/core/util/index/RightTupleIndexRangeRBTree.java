@@ -8,7 +8,9 @@ import org.drools.core.util.AbstractHashTable.FieldIndex;
 import org.drools.core.util.Entry;
 import org.drools.core.util.FastIterator;
 import org.drools.core.util.Iterator;
-import org.drools.core.util.RBTree;
+import org.drools.core.util.RightTupleRBTree;
+import org.drools.core.util.RightTupleRBTree.Boundary;
+import org.drools.core.util.RightTupleRBTree.Node;
 import org.drools.core.util.index.IndexUtil.ConstraintType;
 
 import java.io.Externalizable;
@@ -18,17 +20,24 @@ import java.io.ObjectOutput;
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Right memory indexed on a single field constrained by a pair of dual comparisons,
+ * like <code>Price( value &gt; $min, value &lt; $max )</code>. The RightTuples are stored in
+ * buckets ordered by their indexed value, so the matches of a LeftTuple are all the tuples in the
+ * buckets between its lower and upper bounds.
+ */
 public class RightTupleIndexRangeRBTree implements RightTupleMemory, Externalizable {
 
-    private RBTree<Comparable<Comparable>, RightTupleList> tree;
+    private RightTupleRBTree<Comparable<Comparable>> tree;
+
+    // the tree can't hold null keys, the tuples with a null value are kept apart since they match no range
+    private RightTupleList nullTuples;
 
     private FieldIndex ascendingIndex;
     private ConstraintType ascendingConstraintType;
 
     private FieldIndex descendingIndex;
     private ConstraintType descendingConstraintType;
-    
-    private RightTupleBoundedFastIterator rightTupleBoundedFastIterator;
 
     private int size;
 
@@ -42,12 +51,13 @@ public class RightTupleIndexRangeRBTree implements RightTupleMemory, Externaliza
         this.ascendingConstraintType = ascendingConstraintType;
         this.descendingIndex = descendingIndex;
         this.descendingConstraintType = descendingConstraintType;
-        tree = new RBTree<Comparable<Comparable>, RightTupleList>();
+        tree = new RightTupleRBTree<Comparable<Comparable>>();
+        nullTuples = new RightTupleList();
     }
 
-
     public void writeExternal(ObjectOutput out) throws IOException {
         out.writeObject( tree );
+        out.writeObject( nullTuples );
         out.writeObject( ascendingIndex );
         out.writeObject( ascendingConstraintType );
         out.writeObject( descendingIndex );
@@ -56,7 +66,8 @@ public class RightTupleIndexRangeRBTree implements RightTupleMemory, Externaliza
     }
 
     public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
-        tree = (RBTree<Comparable<Comparable>, RightTupleList>) in.readObject();
+        tree = (RightTupleRBTree<Comparable<Comparable>>) in.readObject();
+        nullTuples = (RightTupleList) in.readObject();
         ascendingIndex = (FieldIndex) in.readObject();
         ascendingConstraintType = (ConstraintType) in.readObject();
         descendingIndex = (FieldIndex) in.readObject();
@@ -66,17 +77,17 @@ public class RightTupleIndexRangeRBTree implements RightTupleMemory, Externaliza
 
     public void add(RightTuple tuple) {
         Comparable key = getRightIndexedValue(tuple);
-        RightTupleList list = tree.lookup(key);
-        if (list == null) {
-            list = new RightTupleList();
-            tree.insert(key, list);
-        }
+        RightTupleList list = key == null ? nullTuples : tree.insert(key);
         list.add(tuple);
         size++;
     }
 
     public void remove(RightTuple tuple) {
-        tuple.getMemory().remove(tuple);
+        RightTupleList list = tuple.getMemory();
+        list.remove(tuple);
+        if (list != nullTuples && list.getFirst() == null) {
+            tree.delete(((Node<Comparable<Comparable>>) list).key);
+        }
         size--;
     }
 
@@ -94,106 +105,63 @@ public class RightTupleIndexRangeRBTree implements RightTupleMemory, Externaliza
     }
 
     public Entry[] toArray() {
-        FastIterator it = tree.fastIterator();
-        if (it == null) {
-            return new Entry[0];
-        }
-
-        List<Comparable> toBeRemoved = new ArrayList<Comparable>();
         List<RightTuple> result = new ArrayList<RightTuple>();
 
-        RBTree.Node<Comparable<Comparable>, RightTupleList> node;
-        while ( (node = (RBTree.Node<Comparable<Comparable>, RightTupleList>) it.next( null )) != null ) {
-            RightTupleList bucket = node.value;
-            if (bucket.size() == 0) {
-                toBeRemoved.add(node.key);
-            } else {
-                RightTuple entry = bucket.getFirst();
-                while (entry != null) {
-                    result.add(entry);
-                    entry = (RightTuple) entry.getNext();
-                }
-            }
+        FastIterator it = fullFastIterator();
+        for (RightTuple entry = (RightTuple) it.next(null); entry != null; entry = (RightTuple) it.next(entry)) {
+            result.add(entry);
         }
 
-        for (Comparable key : toBeRemoved) {
-            tree.delete(key);
-        }
-
-        return result.toArray(new LeftTuple[result.size()]);
+        return result.toArray(new RightTuple[result.size()]);
     }
 
     public RightTuple getFirst(LeftTuple leftTuple, InternalFactHandle factHandle, FastIterator rightTupleIterator) {
+        Comparable upperBound = getLeftDescendingIndexedValue(leftTuple);
         if ( rightTupleIterator instanceof RightTupleBoundedFastIterator ) {
-            ((RightTupleBoundedFastIterator) rightTupleIterator).setUpperBound(leftTuple);
+            ((RightTupleBoundedFastIterator) rightTupleIterator).upperBound = upperBound;
         }
 
         Comparable lowerBound = getLeftAscendingIndexedValue(leftTuple);
-        RightTuple rightTuple = getNext(lowerBound, true);
-        return rightTuple == null ? null : checkUpperBound(rightTuple, getLeftDescendingIndexedValue(leftTuple));
+        if (lowerBound == null || upperBound == null) {
+            return null;
+        }
+        Node<Comparable<Comparable>> firstNode = tree.findNearestNode(lowerBound, ascendingConstraintType == ConstraintType.GREATER_OR_EQUAL, Boundary.LOWER);
+        return checkUpperBound(firstNode, upperBound);
     }
 
-    private RightTuple checkUpperBound(RightTuple rightTuple, Comparable upperBound) {
-        int compResult = getRightIndexedValue(rightTuple).compareTo(upperBound);
-        return compResult < 0 || (compResult == 0 && descendingConstraintType == ConstraintType.LESS_OR_EQUAL) ? rightTuple : null;
+    private RightTuple checkUpperBound(Node<Comparable<Comparable>> node, Comparable upperBound) {
+        if (node == null) {
+            return null;
+        }
+        int compResult = node.key.compareTo(upperBound);
+        return compResult < 0 || (compResult == 0 && descendingConstraintType == ConstraintType.LESS_OR_EQUAL) ? node.getFirst() : null;
     }
 
     public Iterator iterator() {
-        RightTupleList list = tree.first().value;
-        RightTuple firstTuple = list != null ? list.first : null;
-        return new FastIterator.IteratorAdapter(fastIterator(), firstTuple);
+        return new FastIterator.IteratorAdapter(fullFastIterator(), (RightTuple) fullFastIterator().next(null));
     }
 
     public boolean contains(RightTuple tuple) {
         Comparable key = getRightIndexedValue(tuple);
-        return tree.lookup(key) != null;
+        return key == null ? nullTuples.getFirst() != null : tree.lookup(key) != null;
     }
 
     public FastIterator fastIterator() {
-        if ( rightTupleBoundedFastIterator != null ) {
-            rightTupleBoundedFastIterator = new RightTupleBoundedFastIterator();
-        }
-        return rightTupleBoundedFastIterator;
+        // the upper bound is set when the iteration is started by getFirst
+        return new RightTupleBoundedFastIterator();
     }
 
     public FastIterator fullFastIterator() {
-        if ( rightTupleBoundedFastIterator != null ) {
-            rightTupleBoundedFastIterator = new RightTupleBoundedFastIterator();
-        }
-        return rightTupleBoundedFastIterator;
+        return new RightTupleFullFastIterator();
     }
 
     public FastIterator fullFastIterator(RightTuple tuple) {
-        FastIterator fastIterator = fullFastIterator();
-        Comparable key = getRightIndexedValue(tuple);
-        fastIterator.next(getNext(key, true));
-        return fastIterator;
+        // the full iterator is stateless, it resumes from the bucket of the given tuple
+        return fullFastIterator();
     }
 
     public IndexType getIndexType() {
-        return IndexType.COMPARISON;
-    }
-
-    private RightTuple getNext(Comparable lowerBound, boolean first) {
-        RBTree.Node<Comparable<Comparable>, RightTupleList> firstNode;
-        while (true) {
-            switch (ascendingConstraintType) {
-                case GREATER_THAN:
-                    firstNode = tree.findNearestNode(lowerBound, false, RBTree.Boundary.LOWER);
-                    break;
-                case GREATER_OR_EQUAL:
-                    firstNode = tree.findNearestNode(lowerBound, first, RBTree.Boundary.LOWER);
-                    break;
-                default:
-                    throw new UnsupportedOperationException("Cannot call remove constraint of type: " + ascendingConstraintType);
-            }
-            if (firstNode != null && firstNode.value.size() == 0) {
-                tree.delete(firstNode.key);
-            } else {
-                break;
-            }
-        }
-        return firstNode == null ? null : firstNode.value.getFirst();
+        return IndexType.RANGE;
     }
 
     private Comparable getLeftAscendingIndexedValue(LeftTuple leftTuple) {
@@ -208,14 +176,21 @@ public class RightTupleIndexRangeRBTree implements RightTupleMemory, Externaliza
         return (Comparable) ascendingIndex.getExtractor().getValue( rightTuple.getFactHandle().getObject() );
     }
 
+    private RightTuple getFirstInTree() {
+        Node<Comparable<Comparable>> firstNode = tree.first();
+        return firstNode == null ? null : firstNode.getFirst();
+    }
+
+    private Node<Comparable<Comparable>> getNextNode(RightTuple rightTuple) {
+        // use the key of the bucket, the indexed value of the fact could have been changed by a pending modify
+        Comparable key = ((Node<Comparable<Comparable>>) rightTuple.getMemory()).key;
+        return tree.findNearestNode(key, false, Boundary.LOWER);
+    }
+
     public class RightTupleBoundedFastIterator implements FastIterator {
 
         private Comparable upperBound;
 
-        public void setUpperBound(LeftTuple leftTuple) {
-            upperBound = getLeftDescendingIndexedValue(leftTuple);
-        }
-
         public Entry next(Entry object) {
             if (object == null) {
                 return null;
@@ -225,9 +200,7 @@ public class RightTupleIndexRangeRBTree implements RightTupleMemory, Externaliza
             if (next != null) {
                 return next;
             }
-            Comparable key = getRightIndexedValue(rightTuple);
-            next = getNext(key, false);
-            return next == null ? null : checkUpperBound(next, upperBound);
+            return checkUpperBound(getNextNode(rightTuple), upperBound);
         }
 
         public boolean isFullIterator() {
@@ -235,7 +208,31 @@ public class RightTupleIndexRangeRBTree implements RightTupleMemory, Externaliza
         }
     }
 
+    public class RightTupleFullFastIterator implements FastIterator {
+        public Entry next(Entry object) {
+            if (object == null) {
+                return nullTuples.getFirst() != null ? nullTuples.getFirst() : getFirstInTree();
+            }
+            RightTuple rightTuple = (RightTuple) object;
+            RightTuple next = (RightTuple) rightTuple.getNext();
+            if (next != null) {
+                return next;
+            }
+            if (rightTuple.getMemory() == nullTuples) {
+                return getFirstInTree();
+            }
+            Node<Comparable<Comparable>> nextNode = getNextNode(rightTuple);
+            return nextNode == null ? null : nextNode.getFirst();
+        }
+
+        public boolean isFullIterator() {
+            return true;
+        }
+    }
+
     public void clear() {
-        tree = new RBTree<Comparable<Comparable>, RightTupleList>();
+        tree = new RightTupleRBTree<Comparable<Comparable>>();
+        nullTuples = new RightTupleList();
+        size = 0;
     }
 }
@@ -90,7 +90,7 @@ public abstract class BaseBetaConstraintsTest {
             throw new RuntimeException( "could not invoke constructor for " + cls.getName() );
         }
 
-        betaConstraints.initIndexes(depth, betaNodeType);
+        betaConstraints.initIndexes(depth, betaNodeType, config);
 
         //BetaConstraints betaConstraints = new DefaultBetaConstraints(constraints, config );
 
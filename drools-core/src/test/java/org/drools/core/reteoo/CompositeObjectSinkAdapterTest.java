@@ -51,6 +51,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 public class CompositeObjectSinkAdapterTest {
@@ -446,6 +447,64 @@ public class CompositeObjectSinkAdapterTest {
         assertNull( ad.hashedSinkMap );
     }    
 
+    @Test
+    public void testHashedSinkLookup() {
+        final CompositeObjectSinkAdapter ad = new CompositeObjectSinkAdapter();
+        InternalReadAccessor priceExtractor = store.getReader( Cheese.class,
+                                                               "price",
+                                                               this.getClass().getClassLoader() );
+        InternalReadAccessor typeExtractor = store.getReader( Cheese.class,
+                                                              "type",
+                                                              this.getClass().getClassLoader() );
+
+        final AlphaNode[] priceSinks = new AlphaNode[3];
+        final AlphaNode[] typeSinks = new AlphaNode[3];
+        final String[] types = new String[] { "stilton", "brie", "cheddar" };
+        for ( int i = 0; i < 3; i++ ) {
+            priceSinks[i] = new AlphaNode( buildContext.getNextId(),
+                                           new MvelConstraintTestUtil( "price == " + (i + 1) * 10,
+                                                                       new LongFieldImpl( (i + 1) * 10 ),
+                                                                       priceExtractor ),
+                                           new MockObjectSource( buildContext.getNextId() ),
+                                           buildContext );
+            ad.addObjectSink( priceSinks[i] );
+            typeSinks[i] = new AlphaNode( buildContext.getNextId(),
+                                          new MvelConstraintTestUtil( "type == \"" + types[i] + "\"",
+                                                                      new ObjectFieldImpl( types[i] ),
+                                                                      typeExtractor ),
+                                          new MockObjectSource( buildContext.getNextId() ),
+                                          buildContext );
+            ad.addObjectSink( typeSinks[i] );
+        }
+
+        assertNotNull( ad.hashedSinkMap );
+        CompositeObjectSinkAdapter.FieldIndex priceIndex = null;
+        CompositeObjectSinkAdapter.FieldIndex typeIndex = null;
+        for ( CompositeObjectSinkAdapter.FieldIndex fieldIndex = ad.hashedFieldIndexes.getFirst(); fieldIndex != null; fieldIndex = fieldIndex.getNext() ) {
+            assertTrue( fieldIndex.isHashed() );
+            if ( fieldIndex.getIndex() == priceExtractor.getIndex() ) {
+                priceIndex = fieldIndex;
+            } else {
+                typeIndex = fieldIndex;
+            }
+        }
+
+        final Cheese cheese = new Cheese( "brie", 30 );
+        assertSame( priceSinks[2], ad.getHashedSink( priceIndex, cheese ) );
+        assertSame( typeSinks[1], ad.getHashedSink( typeIndex, cheese ) );
+
+        // the lookup must agree with the one done through a HashKey
+        assertSame( ad.hashedSinkMap.get( new CompositeObjectSinkAdapter.HashKey( priceExtractor.getIndex(), cheese, priceExtractor ) ),
+                    ad.getHashedSink( priceIndex, cheese ) );
+        assertSame( ad.hashedSinkMap.get( new CompositeObjectSinkAdapter.HashKey( typeExtractor.getIndex(), cheese, typeExtractor ) ),
+                    ad.getHashedSink( typeIndex, cheese ) );
+
+        cheese.setPrice( 40 );
+        cheese.setType( null );
+        assertNull( ad.getHashedSink( priceIndex, cheese ) );
+        assertNull( ad.getHashedSink( typeIndex, cheese ) );
+    }
+
     @Test
     public void testPropagationWithNullValue() {
 
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.rule;
+
+import org.drools.core.common.EventFactHandle;
+import org.drools.core.rule.SlidingLengthWindow.SlidingLengthWindowContext;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SlidingLengthWindowTest {
+
+    @Test
+    public void testRetractEveryPosition() {
+        // the window wraps after the third event, so its current position is the first slot
+        // and the event before it is in the last one
+        for ( int retracted = 1; retracted <= 3; retracted++ ) {
+            SlidingLengthWindow window = new SlidingLengthWindow( 3 );
+            SlidingLengthWindowContext context = (SlidingLengthWindowContext) window.createContext();
+            EventFactHandle[] events = new EventFactHandle[4];
+            for ( int i = 1; i <= 3; i++ ) {
+                events[i] = new EventFactHandle( i, "event" + i, i, i, 0, null );
+                // the window is not full yet, so nothing is expired and no working memory is needed
+                window.assertFact( null, context, events[i], null, null );
+            }
+
+            window.retractFact( null, context, events[retracted], null, null );
+
+            for ( int i = 1; i <= 3; i++ ) {
+                assertEquals( "event" + i + " after retracting event" + retracted,
+                              i != retracted, contains( context, events[i] ) );
+            }
+        }
+    }
+
+    private static boolean contains(SlidingLengthWindowContext context, EventFactHandle handle) {
+        for ( EventFactHandle windowHandle : context.handles ) {
+            if ( windowHandle == handle ) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
+import org.drools.core.common.EventFactHandle;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class EventRingBufferTest {
+
+    @Test
+    public void testEventsInOrder() {
+        EventRingBuffer buffer = new EventRingBuffer();
+        assertTrue( buffer.isEmpty() );
+        assertNull( buffer.peek() );
+        assertNull( buffer.poll() );
+
+        for ( int i = 1; i <= 5; i++ ) {
+            buffer.add( event( i, i * 10 ) );
+        }
+        assertEquals( 5, buffer.size() );
+        assertPolled( buffer, 10, 20, 30, 40, 50 );
+        assertTrue( buffer.isEmpty() );
+    }
+
+    @Test
+    public void testLateEvents() {
+        EventRingBuffer buffer = new EventRingBuffer();
+        buffer.add( event( 1, 10 ) );
+        buffer.add( event( 2, 20 ) );
+        buffer.add( event( 3, 30 ) );
+        // these ones arrive out of order, so they are kept apart
+        buffer.add( event( 4, 15 ) );
+        buffer.add( event( 5, 5 ) );
+        assertEquals( 5, buffer.size() );
+
+        assertEquals( 5, buffer.peek().getStartTimestamp() );
+        assertTrue( buffer.remove( event( 4, 15 ) ) );
+        assertEquals( 4, buffer.size() );
+        assertPolled( buffer, 5, 10, 20, 30 );
+        assertTrue( buffer.isEmpty() );
+    }
+
+    @Test
+    public void testRemoveFromTheMiddle() {
+        EventRingBuffer buffer = new EventRingBuffer();
+        buffer.add( event( 1, 10 ) );
+        buffer.add( event( 2, 20 ) );
+        buffer.add( event( 3, 20 ) );
+        buffer.add( event( 4, 30 ) );
+        buffer.add( event( 5, 40 ) );
+
+        // an event with the same timestamp of another one
+        assertTrue( buffer.remove( event( 3, 20 ) ) );
+        assertFalse( buffer.remove( event( 3, 20 ) ) );
+        // an event that has never been added
+        assertFalse( buffer.remove( event( 6, 30 ) ) );
+        assertTrue( buffer.remove( event( 4, 30 ) ) );
+        assertEquals( 3, buffer.size() );
+
+        assertEquals( 1, buffer.poll().getId() );
+        assertEquals( 2, buffer.poll().getId() );
+        // the empty slots are skipped
+        assertEquals( 5, buffer.peek().getId() );
+        assertEquals( 5, buffer.poll().getId() );
+        assertTrue( buffer.isEmpty() );
+        assertNull( buffer.poll() );
+
+        // removing the head leaves the following event at the head
+        buffer.add( event( 7, 50 ) );
+        buffer.add( event( 8, 60 ) );
+        assertTrue( buffer.remove( event( 7, 50 ) ) );
+        assertEquals( 8, buffer.peek().getId() );
+    }
+
+    @Test
+    public void testGrowWithWrappedHead() {
+        EventRingBuffer buffer = new EventRingBuffer( 4 );
+        for ( int i = 1; i <= 4; i++ ) {
+            buffer.add( event( i, i ) );
+        }
+        assertPolled( buffer, 1, 2 );
+
+        // these ones wrap around the end of the ring
+        buffer.add( event( 5, 5 ) );
+        buffer.add( event( 6, 6 ) );
+        assertTrue( buffer.remove( event( 5, 5 ) ) );
+        buffer.add( event( 7, 7 ) );
+        // the ring is full, so it grows
+        buffer.add( event( 8, 8 ) );
+        buffer.add( event( 9, 9 ) );
+        assertEquals( 6, buffer.size() );
+
+        assertPolled( buffer, 3, 4, 6, 7, 8, 9 );
+        assertTrue( buffer.isEmpty() );
+    }
+
+    @Test
+    public void testExternalizable() throws Exception {
+        EventRingBuffer buffer = new EventRingBuffer();
+        buffer.add( event( 1, 10 ) );
+        buffer.add( event( 2, 20 ) );
+        buffer.add( event( 3, 30 ) );
+        buffer.add( event( 4, 15 ) );
+        buffer.remove( event( 2, 20 ) );
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream( bytes );
+        out.writeObject( buffer );
+        out.close();
+        ObjectInputStream in = new ObjectInputStream( new ByteArrayInputStream( bytes.toByteArray() ) );
+        EventRingBuffer read = (EventRingBuffer) in.readObject();
+        in.close();
+
+        assertEquals( 3, read.size() );
+        assertPolled( read, 10, 15, 30 );
+        assertTrue( read.isEmpty() );
+    }
+
+    private static void assertPolled(EventRingBuffer buffer, long... timestamps) {
+        for ( long timestamp : timestamps ) {
+            assertEquals( timestamp, buffer.poll().getStartTimestamp() );
+        }
+    }
+
+    private static EventFactHandle event(int id, long timestamp) {
+        return new TestEventFactHandle( id, timestamp );
+    }
+
+    /**
+     * A handle serialized as its id and timestamp, since the fact handles are written by the marshallers
+     */
+    private static class TestEventFactHandle extends EventFactHandle implements Serializable {
+        TestEventFactHandle(int id, long timestamp) {
+            super( id, "event" + id, id, timestamp, 0, null );
+        }
+
+        private Object writeReplace() {
+            return new SerializedEvent( getId(), getStartTimestamp() );
+        }
+    }
+
+    private static class SerializedEvent implements Serializable {
+        private final int  id;
+        private final long timestamp;
+
+        SerializedEvent(int id, long timestamp) {
+            this.id = id;
+            this.timestamp = timestamp;
+        }
+
+        private Object readResolve() {
+            return new TestEventFactHandle( id, timestamp );
+        }
+    }
+}
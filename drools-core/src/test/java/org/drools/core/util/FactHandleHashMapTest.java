@@ -0,0 +1,122 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.drools.core.util;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import org.drools.core.common.DefaultFactHandle;
+import org.drools.core.common.EqualityAssertMapComparator;
+import org.drools.core.common.IdentityAssertMapComparator;
+import org.drools.core.common.InternalFactHandle;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FactHandleHashMapTest {
+
+    @Test
+    public void testIdentityMap() {
+        FactHandleHashMap map = new FactHandleHashMap( new IdentityAssertMapComparator() );
+        InternalFactHandle[] handles = new InternalFactHandle[1000];
+        for ( int i = 0; i < handles.length; i++ ) {
+            handles[i] = new DefaultFactHandle( i, new String( "fact" + ( i % 10 ) ) );
+            map.put( handles[i] );
+        }
+        assertEquals( 1000, map.size() );
+
+        for ( InternalFactHandle handle : handles ) {
+            assertSame( handle, map.get( handle ) );
+            assertSame( handle, map.get( handle.getObject() ) );
+        }
+        assertNull( map.get( "fact1" ) );
+
+        for ( int i = 0; i < handles.length; i += 2 ) {
+            assertSame( handles[i], map.remove( handles[i] ) );
+        }
+        assertNull( map.remove( handles[0] ) );
+        assertEquals( 500, map.size() );
+        for ( int i = 0; i < handles.length; i++ ) {
+            assertEquals( i % 2 == 0 ? null : handles[i], map.get( handles[i].getObject() ) );
+        }
+
+        map.clear();
+        assertTrue( map.isEmpty() );
+        assertNull( map.get( handles[1] ) );
+    }
+
+    @Test
+    public void testEqualityMap() {
+        FactHandleHashMap map = new FactHandleHashMap( new EqualityAssertMapComparator() );
+        InternalFactHandle stilton = new DefaultFactHandle( 1, "stilton" );
+        InternalFactHandle brie = new DefaultFactHandle( 2, "brie" );
+        map.put( stilton );
+        map.put( brie );
+
+        assertSame( stilton, map.get( new String( "stilton" ) ) );
+        assertSame( brie, map.get( brie ) );
+        assertNull( map.get( "cheddar" ) );
+
+        map.remove( stilton );
+        stilton.setObject( "cheddar" );
+        map.put( stilton );
+        assertNull( map.get( "stilton" ) );
+        assertSame( stilton, map.get( "cheddar" ) );
+    }
+
+    @Test
+    public void testRemoveWhileIterating() {
+        FactHandleHashMap map = new FactHandleHashMap( new IdentityAssertMapComparator() );
+        for ( int i = 0; i < 100; i++ ) {
+            map.put( new DefaultFactHandle( i, new Integer( i ) ) );
+        }
+
+        Set<Object> objects = new HashSet<Object>();
+        for ( Iterator it = map.iterator( JavaIteratorAdapter.FACT_HANDLE, null ); it.hasNext(); ) {
+            InternalFactHandle handle = (InternalFactHandle) it.next();
+            assertTrue( objects.add( handle.getObject() ) );
+            map.remove( handle );
+        }
+        assertEquals( 100, objects.size() );
+        assertTrue( map.isEmpty() );
+
+        // the slots left by the removed handles are reused
+        for ( int i = 0; i < 100; i++ ) {
+            map.put( new DefaultFactHandle( i, new Integer( i ) ) );
+        }
+        assertEquals( 100, map.size() );
+    }
+
+    @Test
+    public void testIdMap() {
+        FactHandleIdMap map = new FactHandleIdMap();
+        for ( int i = 0; i < 1000; i++ ) {
+            assertNull( map.put( i * 16, new DefaultFactHandle( i * 16, "fact" + i ) ) );
+        }
+        assertEquals( 1000, map.size() );
+        for ( int i = 0; i < 1000; i++ ) {
+            assertEquals( "fact" + i, map.get( i * 16 ).getObject() );
+        }
+        assertNull( map.get( 1 ) );
+
+        InternalFactHandle handle = new DefaultFactHandle( 0, "other" );
+        assertEquals( "fact0", map.put( 0, handle ).getObject() );
+        assertSame( handle, map.get( 0 ) );
+        assertEquals( 1000, map.size() );
+    }
+}
@@ -3,7 +3,13 @@ package org.drools.persistence;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
+import org.drools.core.marshalling.impl.ProtobufMarshaller;
+import org.drools.core.marshalling.impl.SessionChangeTracker;
 import org.kie.api.KieBase;
 import org.kie.api.marshalling.Marshaller;
 import org.kie.internal.marshalling.MarshallerFactory;
@@ -15,11 +21,27 @@ import org.kie.api.runtime.KieSessionConfiguration;
 
 public class SessionMarshallingHelper {
 
+    /**
+     * Environment entry that, when set to true, makes each transaction write only an incremental snapshot
+     * of the facts it changed, instead of the whole session
+     */
+    public static final String INCREMENTAL_SNAPSHOTS = "org.drools.persistence.incrementalSnapshots";
+
+    /**
+     * Environment entry with the number of incremental snapshots after which a full snapshot is written again
+     */
+    public static final String SNAPSHOT_COMPACTION_THRESHOLD = "org.drools.persistence.snapshotCompactionThreshold";
+
+    public static final int DEFAULT_SNAPSHOT_COMPACTION_THRESHOLD = 100;
+
     private KieBase kbase;
     private KieSessionConfiguration       conf;
     private KieSession      			  ksession;
     private Marshaller                    marshaller;
     private Environment                   env;
+    private boolean                       incrementalSnapshots;
+    private int                           snapshotCompactionThreshold;
+    private SessionChangeTracker          changes;
 
     /**
      * Exist Info, so load session from here
@@ -37,6 +59,7 @@ public class SessionMarshallingHelper {
         } else {
             this.marshaller = MarshallerFactory.newMarshaller( kbase ) ;
         }
+        initIncrementalSnapshots();
     }
 
     /** 
@@ -55,14 +78,30 @@ public class SessionMarshallingHelper {
         } else {
             this.marshaller = MarshallerFactory.newMarshaller( kbase ) ;
         }
-        
+        initIncrementalSnapshots();
+        if ( this.incrementalSnapshots ) {
+            this.changes = SessionChangeTracker.track( ksession );
+        }
+    }
+
+    private void initIncrementalSnapshots() {
+        this.incrementalSnapshots = Boolean.TRUE.equals( this.env.get( INCREMENTAL_SNAPSHOTS ) );
+        Integer threshold = (Integer) this.env.get( SNAPSHOT_COMPACTION_THRESHOLD );
+        this.snapshotCompactionThreshold = threshold != null ? threshold.intValue() : DEFAULT_SNAPSHOT_COMPACTION_THRESHOLD;
     }
 
     public byte[] getSnapshot() {
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
         try {
-            marshaller.marshall( baos,
-                                 ksession );
+            if ( this.changes != null ) {
+                // moves the checkpoint of the tracker, so that the next increment starts from this snapshot
+                ((ProtobufMarshaller) marshaller).marshall( baos,
+                                                            ksession,
+                                                            this.changes );
+            } else {
+                marshaller.marshall( baos,
+                                     ksession );
+            }
         } catch ( IOException e ) {
             throw new RuntimeException( "Unable to get session snapshot",
                                         e );
@@ -71,10 +110,77 @@ public class SessionMarshallingHelper {
         return baos.toByteArray();
     }
 
+    /**
+     * Returns an incremental snapshot of the facts changed since the last snapshot
+     */
+    public byte[] getSnapshotIncrement() {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try {
+            ((ProtobufMarshaller) marshaller).marshallIncrement( baos,
+                                                                 ksession,
+                                                                 this.changes );
+        } catch ( IOException e ) {
+            throw new RuntimeException( "Unable to get session snapshot increment",
+                                        e );
+        }
+
+        return baos.toByteArray();
+    }
+
+    public KieSession loadSnapshot(byte[] bytes,
+                                   KieSession ksession) {
+        return loadSnapshot( bytes,
+                             Collections.<byte[]>emptyList(),
+                             ksession );
+    }
+
+    /**
+     * Loads a full snapshot followed by the incremental snapshots written after it
+     */
     public KieSession loadSnapshot(byte[] bytes,
+                                   List<byte[]> increments,
                                    KieSession ksession) {
+        if ( !increments.isEmpty() ) {
+            bytes = compactSnapshots( bytes,
+                                      increments );
+        }
+        loadSnapshot( new ByteArrayInputStream( bytes ),
+                      ksession );
+        if ( this.incrementalSnapshots ) {
+            if ( this.changes == null ) {
+                this.changes = SessionChangeTracker.track( this.ksession );
+            } else {
+                // the changes not yet persisted are lost with the session they have been made in
+                this.changes.checkpoint();
+            }
+        }
+        return this.ksession;
+    }
+
+    /**
+     * Folds a full snapshot and the incremental snapshots written after it into a single full snapshot
+     */
+    public byte[] compactSnapshots(byte[] bytes,
+                                   List<byte[]> increments) {
+        List<InputStream> snapshots = new ArrayList<InputStream>( increments.size() + 1 );
+        snapshots.add( new ByteArrayInputStream( bytes ) );
+        for ( byte[] increment : increments ) {
+            snapshots.add( new ByteArrayInputStream( increment ) );
+        }
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try {
+            ((ProtobufMarshaller) marshaller).compact( snapshots,
+                                                       baos );
+        } catch ( Exception e ) {
+            throw new RuntimeException( "Unable to compact session snapshots",
+                                        e );
+        }
+        return baos.toByteArray();
+    }
+
+    private void loadSnapshot(ByteArrayInputStream bais,
+                              KieSession ksession) {
         this.ksession = ksession;
-        ByteArrayInputStream bais = new ByteArrayInputStream( bytes );
         try {
             if ( this.ksession != null ) {
                 this.marshaller.unmarshall( bais,
@@ -88,7 +194,6 @@ public class SessionMarshallingHelper {
             throw new RuntimeException( "Unable to load session snapshot",
                                         e );
         }
-        return this.ksession;
     }
 
 
@@ -108,5 +213,20 @@ public class SessionMarshallingHelper {
     	return marshaller;
     }
 
+    /**
+     * Returns true if the session changed since the last snapshot, always true without incremental snapshots
+     */
+    public boolean hasChanges() {
+        return this.changes == null || this.changes.hasChanges();
+    }
+
+    public boolean isIncrementalSnapshots() {
+        return incrementalSnapshots;
+    }
+
+    public int getSnapshotCompactionThreshold() {
+        return snapshotCompactionThreshold;
+    }
+
     
 }
@@ -48,7 +48,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.lang.reflect.Constructor;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 
 public class SingleSessionCommandService
     implements
@@ -235,9 +237,21 @@ public class SingleSessionCommandService
         //  they will retrieve a null commandService (instead of a reference to this) and fail.
         ((SessionConfiguration) conf).getTimerJobFactoryManager().setCommandService(this);
 
+        List<byte[]> changes = this.sessionInfo.getChangesData();
+        if ( !changes.isEmpty() && ( !this.marshallingHelper.isIncrementalSnapshots() ||
+                                     changes.size() >= this.marshallingHelper.getSnapshotCompactionThreshold() ) ) {
+            // the incremental snapshots are replaced by the full one they are folded into, so that
+            // they aren't folded again by the next loads
+            this.sessionInfo.setData( this.marshallingHelper.compactSnapshots( this.sessionInfo.getData(),
+                                                                               changes ) );
+            this.sessionInfo.clearChanges();
+            changes = Collections.emptyList();
+        }
+
         // if this.ksession is null, it'll create a new one, else it'll use the existing one
         this.ksession = (StatefulKnowledgeSession)
             this.marshallingHelper.loadSnapshot( this.sessionInfo.getData(),
+                                                 changes,
                                                  this.ksession );
 
         // update the session id to be the same as the session info id
@@ -509,6 +523,10 @@ public class SingleSessionCommandService
                     result = executeNext((GenericCommand<T>) command);
                 }
 
+                if ( marshallingHelper.isIncrementalSnapshots() ) {
+                    sessionInfo.updateChanges();
+                }
+
                 txm.commit( transactionOwner );
 
                 return result;
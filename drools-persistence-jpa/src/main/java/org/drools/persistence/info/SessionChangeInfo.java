@@ -0,0 +1,42 @@
+package org.drools.persistence.info;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Lob;
+import javax.persistence.SequenceGenerator;
+
+/**
+ * An incremental snapshot of a persisted session, holding the facts changed by a transaction.
+ * The changes of a {@link SessionInfo} are folded into its full snapshot when the session is loaded.
+ */
+@Entity
+@SequenceGenerator(name="sessionChangeInfoIdSeq", sequenceName="SESSIONCHANGEINFO_ID_SEQ")
+public class SessionChangeInfo {
+
+    private @Id
+    @GeneratedValue(strategy = GenerationType.AUTO, generator="sessionChangeInfoIdSeq")
+    Long                       id;
+
+    @Lob
+    @Column(length=2147483647)
+    private byte[]             changeByteArray;
+
+    protected SessionChangeInfo() {
+    }
+
+    public SessionChangeInfo(byte[] data) {
+        this.changeByteArray = data;
+    }
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public byte[] getData() {
+        return this.changeByteArray;
+    }
+
+}
@@ -1,13 +1,19 @@
 package org.drools.persistence.info;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 
+import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.JoinColumn;
 import javax.persistence.Lob;
+import javax.persistence.OneToMany;
+import javax.persistence.OrderColumn;
 import javax.persistence.PrePersist;
 import javax.persistence.PreUpdate;
 import javax.persistence.SequenceGenerator;
@@ -35,6 +41,12 @@ public class SessionInfo {
     @Column(length=2147483647)
     private byte[]             rulesByteArray;
 
+    // the incremental snapshots written since the full one, in the order they have been written
+    @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true)
+    @JoinColumn(name = "SESSIONINFO_ID")
+    @OrderColumn(name = "CHANGE_INDEX")
+    private List<SessionChangeInfo> changes = new ArrayList<SessionChangeInfo>();
+
     @Transient
     SessionMarshallingHelper helper;
     
@@ -66,6 +78,18 @@ public class SessionInfo {
         return this.rulesByteArray;
     }
     
+    public List<byte[]> getChangesData() {
+        List<byte[]> data = new ArrayList<byte[]>( this.changes.size() );
+        for ( SessionChangeInfo change : this.changes ) {
+            data.add( change.getData() );
+        }
+        return data;
+    }
+
+    public void clearChanges() {
+        this.changes.clear();
+    }
+
     public Date getStartDate() {
         return this.startDate;
     }
@@ -82,7 +106,27 @@ public class SessionInfo {
     @PrePersist 
     @PreUpdate 
     public void update() {
-        this.rulesByteArray  = this.helper.getSnapshot();
+        // with incremental snapshots the session is written by updateChanges, once it has been persisted
+        if ( this.rulesByteArray == null || !this.helper.isIncrementalSnapshots() ) {
+            this.rulesByteArray  = this.helper.getSnapshot();
+        }
+    }
+
+    /**
+     * Appends an incremental snapshot of the session or, once there are as many of them as the compaction
+     * threshold of the helper, replaces them with a full snapshot. Nothing is written when the session
+     * didn't change since the last snapshot.
+     */
+    public void updateChanges() {
+        if ( !this.helper.hasChanges() ) {
+            return;
+        }
+        if ( this.changes.size() >= this.helper.getSnapshotCompactionThreshold() ) {
+            this.rulesByteArray = this.helper.getSnapshot();
+            this.changes.clear();
+        } else {
+            this.changes.add( new SessionChangeInfo( this.helper.getSnapshotIncrement() ) );
+        }
     }
 
     public void setId(Integer ksessionId) {
@@ -27,11 +27,14 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.Random;
 
+import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.Persistence;
 
 import org.drools.core.common.DefaultFactHandle;
 import org.drools.persistence.PersistenceContextManager;
+import org.drools.persistence.SessionMarshallingHelper;
+import org.drools.persistence.info.SessionInfo;
 import org.drools.persistence.util.PersistenceUtil;
 import org.junit.After;
 import org.junit.Before;
@@ -176,6 +179,108 @@ public class ReloadSessionTest {
         assertEquals( 1, list.size() );
     }
 
+    @Test
+    public void reloadSessionWithIncrementalSnapshotsTest() {
+        Environment env = createEnvironment();
+        env.set( SessionMarshallingHelper.INCREMENTAL_SNAPSHOTS, true );
+        env.set( SessionMarshallingHelper.SNAPSHOT_COMPACTION_THRESHOLD, 2 );
+        KnowledgeBase kbase = initializeKnowledgeBase(simpleRule);
+        StatefulKnowledgeSession commandKSession = JPAKnowledgeService.newStatefulKnowledgeSession( kbase, null, env );
+        commandKSession.setGlobal( "list", new ArrayList<Object>() );
+
+        // with a threshold of 2, every third command writes a full snapshot instead of an increment
+        FactHandle deletedHandle = commandKSession.insert( 1 );
+        commandKSession.insert( 2 );
+        commandKSession.fireAllRules();
+        commandKSession.delete( deletedHandle );
+        commandKSession.insert( -3 );
+        commandKSession.insert( 4 );
+
+        int sessionInfoId = commandKSession.getId();
+        PersistenceContextManager pcm = (PersistenceContextManager) commandKSession.getEnvironment().get(EnvironmentName.PERSISTENCE_CONTEXT_MANAGER);
+        commandKSession.dispose();
+        pcm.dispose();
+        emf.close();
+
+        emf = Persistence.createEntityManagerFactory(DROOLS_PERSISTENCE_UNIT_NAME);
+        context.put(ENTITY_MANAGER_FACTORY, emf);
+        env = createEnvironment();
+        env.set( SessionMarshallingHelper.INCREMENTAL_SNAPSHOTS, true );
+
+        StatefulKnowledgeSession newCommandKSession
+            = JPAKnowledgeService.loadStatefulKnowledgeSession(sessionInfoId, kbase, null, env);
+
+        Collection<Object> facts = new ArrayList<Object>( newCommandKSession.getObjects() );
+        assertEquals( 3, facts.size() );
+        assertTrue( facts.containsAll( Arrays.asList( 2, -3, 4 ) ) );
+
+        // only the match of the fact inserted after the last fireAllRules is fired
+        ArrayList<Object> list = new ArrayList<Object>();
+        newCommandKSession.setGlobal( "list", list );
+        newCommandKSession.fireAllRules();
+        assertEquals( 1, list.size() );
+    }
+
+    @Test
+    public void incrementalSnapshotsOnlyForChangesTest() {
+        Environment env = createEnvironment();
+        env.set( SessionMarshallingHelper.INCREMENTAL_SNAPSHOTS, true );
+        env.set( SessionMarshallingHelper.SNAPSHOT_COMPACTION_THRESHOLD, 3 );
+        KnowledgeBase kbase = initializeKnowledgeBase(simpleRule);
+        StatefulKnowledgeSession commandKSession = JPAKnowledgeService.newStatefulKnowledgeSession( kbase, null, env );
+        int sessionInfoId = commandKSession.getId();
+        commandKSession.setGlobal( "list", new ArrayList<Object>() );
+        assertEquals( 0, getPersistedChanges( sessionInfoId ) );
+
+        commandKSession.insert( 1 );
+        assertEquals( 1, getPersistedChanges( sessionInfoId ) );
+
+        // the commands that don't change the session don't write an incremental snapshot
+        commandKSession.getObjects();
+        commandKSession.getFactHandles();
+        commandKSession.getFactCount();
+        assertEquals( 1, getPersistedChanges( sessionInfoId ) );
+
+        commandKSession.fireAllRules();
+        assertEquals( 2, getPersistedChanges( sessionInfoId ) );
+        commandKSession.insert( -1 );
+        assertEquals( 3, getPersistedChanges( sessionInfoId ) );
+
+        PersistenceContextManager pcm = (PersistenceContextManager) commandKSession.getEnvironment().get(EnvironmentName.PERSISTENCE_CONTEXT_MANAGER);
+        commandKSession.dispose();
+        pcm.dispose();
+        emf.close();
+
+        emf = Persistence.createEntityManagerFactory(DROOLS_PERSISTENCE_UNIT_NAME);
+        context.put(ENTITY_MANAGER_FACTORY, emf);
+        env = createEnvironment();
+        env.set( SessionMarshallingHelper.INCREMENTAL_SNAPSHOTS, true );
+        env.set( SessionMarshallingHelper.SNAPSHOT_COMPACTION_THRESHOLD, 3 );
+
+        // the threshold is reached, so the snapshots are compacted once and for all when the session is loaded
+        StatefulKnowledgeSession newCommandKSession
+            = JPAKnowledgeService.loadStatefulKnowledgeSession(sessionInfoId, kbase, null, env);
+        assertEquals( 0, getPersistedChanges( sessionInfoId ) );
+
+        Collection<Object> facts = new ArrayList<Object>( newCommandKSession.getObjects() );
+        assertEquals( 2, facts.size() );
+        assertTrue( facts.containsAll( Arrays.asList( 1, -1 ) ) );
+
+        ArrayList<Object> list = new ArrayList<Object>();
+        newCommandKSession.setGlobal( "list", list );
+        newCommandKSession.fireAllRules();
+        assertEquals( 0, list.size() );
+    }
+
+    private int getPersistedChanges(int sessionInfoId) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            return em.find( SessionInfo.class, sessionInfoId ).getChangesData().size();
+        } finally {
+            em.close();
+        }
+    }
+
     @Test @Ignore
     public void testListenersAfterSessionReload() {
         // https://bugzilla.redhat.com/show_bug.cgi?id=826952
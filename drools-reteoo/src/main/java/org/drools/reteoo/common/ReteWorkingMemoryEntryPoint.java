@@ -14,6 +14,7 @@ import org.drools.core.spi.Activation;
 import org.kie.api.runtime.ObjectFilter;
 
 import java.util.Collection;
+import java.util.List;
 
 public class ReteWorkingMemoryEntryPoint implements WorkingMemoryEntryPoint, InternalWorkingMemoryEntryPoint {
 
@@ -42,6 +43,18 @@ public class ReteWorkingMemoryEntryPoint implements WorkingMemoryEntryPoint, Int
         return delegate.insert(object, dynamic);
     }
 
+    @Override
+    public void stageInsert(Object object) {
+        reteWm.initInitialFact();
+        ((InternalWorkingMemoryEntryPoint)delegate).stageInsert(object);
+    }
+
+    @Override
+    public List<FactHandle> insertAll(Collection<?> objects) {
+        reteWm.initInitialFact();
+        return ((InternalWorkingMemoryEntryPoint)delegate).insertAll(objects);
+    }
+
     @Override
     public void retract(FactHandle handle) {
         delegate.retract(handle);
@@ -216,7 +216,9 @@ public class ReteJoinNode extends JoinNode {
 
         // first check our index (for indexed nodes only) hasn't changed and we are returning the same bucket
         // We assume a bucket change if leftTuple == null
-        if ( childLeftTuple != null && leftMemory.isIndexed() && !it.isFullIterator() && (leftTuple == null || (leftTuple.getMemory() != childLeftTuple.getLeftParent().getMemory())) ) {
+        // comparison indexes spread the matches over many buckets, whose order isn't preserved by updates, so always start again
+        if ( childLeftTuple != null && leftMemory.isIndexed() && !it.isFullIterator() &&
+             (leftMemory.getIndexType().isComparison() || leftTuple == null || (leftTuple.getMemory() != childLeftTuple.getLeftParent().getMemory())) ) {
             // our index has changed, so delete all the previous propagations
             this.sink.propagateRetractRightTuple( rightTuple,
                                                   context,
@@ -299,7 +301,9 @@ public class ReteJoinNode extends JoinNode {
 
         // first check our index (for indexed nodes only) hasn't changed and we are returning the same bucket
         // if rightTuple is null, we assume there was a bucket change and that bucket is empty
-        if ( childLeftTuple != null && rightMemory.isIndexed() && !it.isFullIterator() && (rightTuple == null || (rightTuple.getMemory() != childLeftTuple.getRightParent().getMemory())) ) {
+        // comparison indexes spread the matches over many buckets, whose order isn't preserved by updates, so always start again
+        if ( childLeftTuple != null && rightMemory.isIndexed() && !it.isFullIterator() &&
+             (rightMemory.getIndexType().isComparison() || rightTuple == null || (rightTuple.getMemory() != childLeftTuple.getRightParent().getMemory())) ) {
             // our index has changed, so delete all the previous propagations
             this.sink.propagateRetractLeftTuple( leftTuple,
                                                  context,
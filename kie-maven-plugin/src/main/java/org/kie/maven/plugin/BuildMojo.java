@@ -12,6 +12,7 @@ import org.drools.compiler.compiler.DecisionTableFactory;
 import org.drools.compiler.compiler.PMMLCompilerFactory;
 import org.drools.compiler.compiler.ProcessBuilderFactory;
 import org.drools.compiler.kie.builder.impl.InternalKieModule;
+import org.drools.compiler.kie.builder.impl.KieBaseImage;
 import org.drools.compiler.kie.builder.impl.KieContainerImpl;
 import org.drools.compiler.kie.builder.impl.KieMetaInfoBuilder;
 import org.drools.compiler.kie.builder.impl.KieProject;
@@ -70,6 +71,14 @@ public class BuildMojo extends AbstractMojo {
      */
     private MavenProject project;
 
+    /**
+     * Whether to store in the kjar the image of each fully built KieBase, Rete network included,
+     * so that the KieContainer doesn't need to build it again at runtime.
+     *
+     * @parameter default-value="false"
+     */
+    private boolean generateKieBaseImages;
+
     public void execute() throws MojoExecutionException, MojoFailureException {
         ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
 
@@ -132,7 +141,13 @@ public class BuildMojo extends AbstractMojo {
                 }
                 throw new MojoFailureException("Build failed!");
             } else {
-                new KieMetaInfoBuilder(new DiskResourceStore(outputDirectory), (InternalKieModule)kModule).writeKieModuleMetaInfo();
+                DiskResourceStore resourceStore = new DiskResourceStore(outputDirectory);
+                new KieMetaInfoBuilder(resourceStore, (InternalKieModule)kModule).writeKieModuleMetaInfo();
+                if (generateKieBaseImages) {
+                    writeKieBaseImages(resourceStore, kModule, kContainer);
+                } else {
+                    removeKieBaseImages(resourceStore, kModule);
+                }
             }
         } finally {
             Thread.currentThread().setContextClassLoader(contextClassLoader);
@@ -140,6 +155,24 @@ public class BuildMojo extends AbstractMojo {
         getLog().info("KieModule successfully built!");
     }
 
+    private void writeKieBaseImages(DiskResourceStore resourceStore, InternalKieModule kModule, KieContainerImpl kContainer) throws MojoExecutionException {
+        for (String kieBaseName : kModule.getKieModuleModel().getKieBaseModels().keySet()) {
+            try {
+                KieBaseImage.writeImage(resourceStore, kContainer.getKieProject(), kieBaseName, kContainer.getKieBase(kieBaseName));
+            } catch (IOException e) {
+                throw new MojoExecutionException("Unable to write the image of the KieBase " + kieBaseName, e);
+            }
+            getLog().info("Written the image of the KieBase " + kieBaseName);
+        }
+    }
+
+    private void removeKieBaseImages(DiskResourceStore resourceStore, InternalKieModule kModule) {
+        // removes the images left in the output directory by a previous build
+        for (String kieBaseName : kModule.getKieModuleModel().getKieBaseModels().keySet()) {
+            resourceStore.remove(KieBaseImage.getImagePath(kieBaseName));
+        }
+    }
+
     private KieModuleModel getDependencyKieModel(File jar) {
         ZipFile zipFile = null;
         try {